@@ -5,8 +5,12 @@ import java.io.PrintStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -29,6 +33,12 @@ import sql.Sql;
  */
 public class HeadlessDna implements Logger.LogListener {
 	private Exporter exporter;
+	/**
+	 * Results of earlier calls, which are re-used if a network, polarization, or nested backbone is requested again
+	 * with identical settings and the database has not changed in the meantime, in this or another session. By default, the cache may hold up to
+	 * 256 MB or a quarter of the maximal heap size, whichever is smaller.
+	 */
+	private final ResultCache cache = new ResultCache(Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 4));
 
 	/**
 	 * Constructor for creating an instance of the headless DNA class.
@@ -377,7 +387,7 @@ public class HeadlessDna implements Logger.LogListener {
 	 * @param invertSections         boolean indicating whether the document-level section values should be included (= {@code true}) rather than excluded.
 	 * @param invertTypes            boolean indicating whether the document-level type values should be included (= {@code true}) rather than excluded.
 	 * @param outfile                {@link String} with a file name under which the resulting network should be saved.
-	 * @param fileFormat             {@link String} with the file format. Valid values are {@code "csv"}, {@code "dl"}, {@code "graphml"}, and {@code null} (for no file export).
+	 * @param fileFormat             {@link String} with the file format. Valid values are {@code "csv"}, {@code "dl"}, {@code "graphml"}, {@code "edgelist"} (for a sparse edge list of all time slices in one file, gzipped if {@code outfile} ends with {@code ".gz"}), {@code "dnanet"} (for a binary network container that can be memory-mapped using {@link dna.export.NetworkContainer}), and {@code null} (for no file export).
 	 * @return                       A {@link Matrix} object containing the resulting one-mode or two-mode network.
 	 */
 	public void rNetwork(String networkType, String statementType, String variable1, boolean variable1Document, String variable2,
@@ -444,16 +454,23 @@ public class HeadlessDna implements Logger.LogListener {
 				outfile);
 		this.exporter.setKernelFunction(kernel);
 
-		// step 2: filter
-		this.exporter.loadData();
-		this.exporter.filterStatements();
+		// step 2: filter, unless the results of an earlier call with identical settings can be re-used
+		String key = networkType.equals("eventlist") ? null : "rNetwork;" + this.exporter.getSettingsFingerprint();
+		ArrayList<Matrix> cached = getCachedMatrices(key);
+		if (cached == null || (fileFormat != null && fileFormat.equalsIgnoreCase("graphml"))) { // graphML files contain statement frequencies
+			this.exporter.loadData();
+			this.exporter.filterStatements();
+		}
 
 		// step 3: compute results
 		if (networkType.equals("eventlist")) {
 			// TODO
+		} else if (cached != null) {
+			this.exporter.setMatrixResults(cached);
 		} else {
 			try {
 				this.exporter.computeResults();
+				cacheMatrices(key);
 			} catch (Exception e) {
 				LogEvent le = new LogEvent(Logger.ERROR,
 						"Error while exporting network.",
@@ -512,6 +529,28 @@ public class HeadlessDna implements Logger.LogListener {
 						 boolean normalizeToOne, boolean indentTime, String[] excludeVariables, String[] excludeValues, String[] excludeAuthors, String[] excludeSources,
 						 String[] excludeSections, String[] excludeTypes, boolean invertValues, boolean invertAuthors, boolean invertSources, boolean invertSections,
 						 boolean invertTypes) {
+		rTimeWindow(networkType, statementType, variable1, variable1Document, variable2, variable2Document, qualifier, qualifierDocument,
+				qualifierAggregation, normalization, includeIsolates, duplicates, startDate, stopDate, startTime, stopTime, timeWindow, windowSize,
+				kernel, normalizeToOne, indentTime, excludeVariables, excludeValues, excludeAuthors, excludeSources, excludeSections, excludeTypes,
+				invertValues, invertAuthors, invertSources, invertSections, invertTypes, false);
+	}
+
+	/**
+	 * Compute a sequence of one-mode or two-mode network matrices using time windows based on R arguments, optionally
+	 * re-using the time windows of an earlier export with the same settings whose statements have not changed (see
+	 * {@link TimeWindowState}). The arguments are the same as in the other {@code rTimeWindow} method, plus:
+	 *
+	 * @param incremental            boolean indicating if the per-window state of the series should be kept after the
+	 *                               export, so a later export with the same settings recomputes only the time windows with
+	 *                               changed statements. The state holds the matrices of the series in memory until
+	 *                               {@link #clearCache()} is called; only the four most recently used series are kept.
+	 */
+	public void rTimeWindow(String networkType, String statementType, String variable1, boolean variable1Document, String variable2,
+						 boolean variable2Document, String qualifier, boolean qualifierDocument, String qualifierAggregation, String normalization, boolean includeIsolates,
+						 String duplicates, String startDate, String stopDate, String startTime, String stopTime, String timeWindow, int windowSize, String kernel,
+						 boolean normalizeToOne, boolean indentTime, String[] excludeVariables, String[] excludeValues, String[] excludeAuthors, String[] excludeSources,
+						 String[] excludeSections, String[] excludeTypes, boolean invertValues, boolean invertAuthors, boolean invertSources, boolean invertSections,
+						 boolean invertTypes, boolean incremental) {
 
 		// step 1: preprocess arguments
 		StatementType st = Dna.sql.getStatementType(statementType); // format statement type
@@ -570,14 +609,21 @@ public class HeadlessDna implements Logger.LogListener {
 				null);
 		this.exporter.setKernelFunction(kernel);
 		this.exporter.setIndentTime(indentTime);
-
-		// step 2: filter
-		this.exporter.loadData();
-		this.exporter.filterStatements();
+		this.exporter.setIncremental(incremental);
+
+		// step 2: filter, unless the results of an earlier call with identical settings can be re-used; event windows shuffle simultaneous events without a seed and are not cached
+		String key = networkType.equals("eventlist") || timeWindow.equals("events") ? null : "rTimeWindow;normalizeToOne=" + normalizeToOne + ";" + this.exporter.getSettingsFingerprint();
+		ArrayList<Matrix> cached = getCachedMatrices(key);
+		if (cached == null) {
+			this.exporter.loadData();
+			this.exporter.filterStatements();
+		}
 
 		// step 3: compute results
 		if (networkType.equals("eventlist")) {
 			// TODO
+		} else if (cached != null) {
+			this.exporter.setMatrixResults(cached);
 		} else {
 			try {
 				this.exporter.computeResults();
@@ -586,6 +632,7 @@ public class HeadlessDna implements Logger.LogListener {
 				if (normalizeToOne) {
 					this.exporter.normalizeMatrixResultsToOne();
 				}
+				cacheMatrices(key);
 			} catch (Exception e) {
 				LogEvent le = new LogEvent(Logger.ERROR,
 						"Error while exporting network.",
@@ -641,6 +688,29 @@ public class HeadlessDna implements Logger.LogListener {
 			boolean invertSources, boolean invertSections, boolean invertTypes, String algorithm, boolean normaliseScores,
 			int numClusters, int numParents, int numIterations, double elitePercentage, double mutationPercentage,
 			long randomSeed) {
+		return rPolarization(statementType, variable1, variable1Document, variable2, variable2Document, qualifier,
+				duplicates, startDate, stopDate, timeWindow, windowSize, kernel, indentTime, excludeVariables,
+				excludeValues, excludeAuthors, excludeSources, excludeSections, excludeTypes, invertValues,
+				invertAuthors, invertSources, invertSections, invertTypes, algorithm, normaliseScores, numClusters,
+				numParents, numIterations, elitePercentage, mutationPercentage, randomSeed, false);
+	}
+
+	/**
+	 * Compute the polarization of a sequence of one-mode network matrices or a single one-mode network matrix,
+	 * optionally starting the search in each time slice from the result of the previous time slice. The other
+	 * arguments are the same as in the function without the {@code warmStart} argument.
+	 *
+	 * @param warmStart          boolean indicating whether the search in each time slice should start from the best cluster memberships of the previous time slice, mapped by actor label. The time slices are then processed in a fixed number of parallel chains of adjacent time slices. This usually reduces the number of iterations for long series.
+	 * @return                   A PolarizationResultTimeSeries object containing the results of the algorithm for each time step and iteration.
+	 */
+	public PolarizationResultTimeSeries rPolarization(String statementType, String variable1, boolean variable1Document,
+			String variable2, boolean variable2Document, String qualifier, String duplicates, String startDate,
+			String stopDate, String timeWindow, int windowSize, String kernel, boolean indentTime,
+			String[] excludeVariables, String[] excludeValues, String[] excludeAuthors, String[] excludeSources,
+			String[] excludeSections, String[] excludeTypes, boolean invertValues, boolean invertAuthors,
+			boolean invertSources, boolean invertSections, boolean invertTypes, String algorithm, boolean normaliseScores,
+			int numClusters, int numParents, int numIterations, double elitePercentage, double mutationPercentage,
+			long randomSeed, boolean warmStart) {
 
 		// step 1: preprocess arguments
 		StatementType st = Dna.sql.getStatementType(statementType); // format statement type
@@ -667,13 +737,32 @@ public class HeadlessDna implements Logger.LogListener {
 			}
 		}
 
+		// re-use the results of an earlier call with identical settings if a random seed makes the results reproducible
+		String key = null;
+		if (randomSeed != 0) {
+			key = fingerprint("rPolarization", st == null ? null : st.getId(), variable1, variable1Document, variable2,
+					variable2Document, qualifier, duplicates, ldtStart, ldtStop, timeWindow, windowSize, kernel, indentTime,
+					map, sorted(excludeAuthors), sorted(excludeSources), sorted(excludeSections), sorted(excludeTypes),
+					invertValues, invertAuthors, invertSources, invertSections, invertTypes, algorithm, normaliseScores,
+					numClusters, numParents, numIterations, elitePercentage, mutationPercentage, randomSeed, warmStart);
+			validateCache();
+			PolarizationResultTimeSeries cached = (PolarizationResultTimeSeries) this.cache.get(key);
+			if (cached != null) {
+				return cached;
+			}
+		}
+
 		Polarization polarization = new Polarization(st, variable1, variable1Document, variable2, variable2Document,
 				qualifier, false, duplicates, ldtStart, ldtStop, timeWindow, windowSize, kernel, indentTime,
 				map, excludeAuthors, excludeSources,	excludeSections, excludeTypes, invertValues, invertAuthors,
 				invertSources, invertSections, invertTypes, algorithm, normaliseScores, numClusters, numParents,
-				numIterations, elitePercentage, mutationPercentage, randomSeed);
+				numIterations, elitePercentage, mutationPercentage, randomSeed, warmStart);
 
-		return polarization.getResults();
+		PolarizationResultTimeSeries results = polarization.getResults();
+		if (key != null && results != null) {
+			this.cache.put(key, results, ResultCache.sizeOf(results));
+		}
+		return results;
 	}
 
 	/**
@@ -802,6 +891,28 @@ public class HeadlessDna implements Logger.LogListener {
 						  String[] excludeVariables, String[] excludeValues, String[] excludeAuthors, String[] excludeSources, String[] excludeSections,
 						  String[] excludeTypes, boolean invertValues, boolean invertAuthors, boolean invertSources, boolean invertSections,
 						  boolean invertTypes, String outfile, String fileFormat) {
+		rBackbone(method, backboneSize, p, T, statementType, variable1, variable1Document, variable2, variable2Document,
+				qualifier, qualifierDocument, qualifierAggregation, normalization, duplicates, startDate, stopDate,
+				startTime, stopTime, excludeVariables, excludeValues, excludeAuthors, excludeSources, excludeSections,
+				excludeTypes, invertValues, invertAuthors, invertSources, invertSections, invertTypes, outfile,
+				fileFormat, 1, 0, 0L);
+	}
+
+	/**
+	 * Compute the backbone and redundant set with several simulated annealing chains, which run in parallel, and return
+	 * the best solution of all chains. The other arguments are the same as in the function without the chain arguments.
+	 * The chain arguments are ignored by the nested method.
+	 *
+	 * @param numChains              The number of simulated annealing chains. Each chain starts from its own random solution.
+	 * @param exchangeInterval       The number of iterations after which neighboring chains try to exchange their current solutions (parallel tempering). With exchanges, chain {@code k} runs at {@code 2^k} times the temperature of the cooling schedule. {@code 0} runs independent chains at the same temperature.
+	 * @param randomSeed             The random seed for reproducibility. If 0, random results are produced.
+	 */
+	public void rBackbone(String method, int backboneSize, double p, int T, String statementType, String variable1, boolean variable1Document, String variable2,
+						  boolean variable2Document, String qualifier, boolean qualifierDocument, String qualifierAggregation, String normalization,
+						  String duplicates, String startDate, String stopDate, String startTime, String stopTime,
+						  String[] excludeVariables, String[] excludeValues, String[] excludeAuthors, String[] excludeSources, String[] excludeSections,
+						  String[] excludeTypes, boolean invertValues, boolean invertAuthors, boolean invertSources, boolean invertSections,
+						  boolean invertTypes, String outfile, String fileFormat, int numChains, int exchangeInterval, long randomSeed) {
 
 		// step 1: preprocess arguments
 		StatementType st = Dna.sql.getStatementType(statementType); // format statement type
@@ -890,6 +1001,19 @@ public class HeadlessDna implements Logger.LogListener {
 				null,
 				null);
 
+		// the nested backbone is deterministic, so the result of an earlier call with identical settings can be re-used
+		String key = null;
+		if (method.equals("nested")) {
+			key = "rBackbone;nested;" + this.exporter.getSettingsFingerprint();
+			validateCache();
+			NestedBackboneResult cached = (NestedBackboneResult) this.cache.get(key);
+			if (cached != null) {
+				this.exporter.setNestedBackboneResult(cached);
+				saveJsonXml(fileFormat, outfile);
+				return;
+			}
+		}
+
 		// step 2: filter
 		this.exporter.loadData();
 		this.exporter.filterStatements();
@@ -917,17 +1041,18 @@ public class HeadlessDna implements Logger.LogListener {
 					exporter.iterateNestedBackbone();
 				}
 				exporter.saveNestedBackboneResult();
+				this.cache.put(key, exporter.getNestedBackboneResult(), ResultCache.sizeOf(exporter.getNestedBackboneResult()));
 
 				// step 4: save to file
 				saveJsonXml(fileFormat, outfile);
 				pb.stepTo(iterations);
 			}
 		} else if (method.equals("fixed") || method.equals("penalty")) {
-			this.exporter.initializeSimulatedAnnealingBackbone(method.equals("penalty"), p, T, backboneSize); // initialize algorithm
+			this.exporter.initializeSimulatedAnnealingBackbone(method.equals("penalty"), p, T, backboneSize, numChains, exchangeInterval, randomSeed); // initialize algorithm
 			try (ProgressBar pb = new ProgressBar("Simulated annealing...", T)) {
 				while (exporter.getCurrentT() <= T) { // run up to upper bound of iterations T, provided by the user
 					pb.stepTo(exporter.getCurrentT());
-					exporter.iterateSimulatedAnnealingBackbone(method.equals("penalty"));
+					exporter.iterateSimulatedAnnealingBackbone(method.equals("penalty"), 100); // blocks of iterations, so parallel chains are not synchronized in every iteration
 				}
 				exporter.saveSimulatedAnnealingBackboneResult(method.equals("penalty"));
 
@@ -1214,6 +1339,134 @@ public class HeadlessDna implements Logger.LogListener {
 		return this.exporter;
 	}
 
+	/**
+	 * Set the size limit of the cache for network, polarization, and nested backbone results. If the estimated size of
+	 * the cached results exceeds the limit, the least recently used results are removed from the cache.
+	 *
+	 * @param maxBytes The size limit in bytes. {@code 0} switches the cache off.
+	 */
+	public void setCacheSize(long maxBytes) {
+		this.cache.setMaxBytes(maxBytes);
+	}
+
+	/**
+	 * Remove all results from the cache, the shared statement snapshots, and the state of incremental time window
+	 * exports, for example to free memory.
+	 */
+	public void clearCache() {
+		this.cache.clear();
+		StatementSnapshot.clear();
+		TimeWindowState.clear();
+	}
+
+	/**
+	 * Switch statement snapshot files on or off. If switched on, the statements of the database are saved in a
+	 * snapshot file next to the database (or in the temporary directory for MySQL and PostgreSQL databases), which is
+	 * read instead of querying the database as long as the data in the database have not changed. Outdated snapshot
+	 * files are rebuilt in the background.
+	 *
+	 * @param persistent Should statement snapshot files be used?
+	 */
+	public void setPersistentSnapshots(boolean persistent) {
+		StatementSnapshot.setPersistent(persistent);
+	}
+
+	/**
+	 * Get statistics on the cache for network, polarization, and nested backbone results.
+	 *
+	 * @return An array with the number of cache hits, misses, evictions due to the size limit, and invalidations due
+	 *   to changes in the database, followed by the number of cached results, their estimated size in bytes, and the
+	 *   size limit in bytes.
+	 */
+	public long[] getCacheStatistics() {
+		return this.cache.getStatistics();
+	}
+
+	/**
+	 * Bind the cache to the current database, its modification counter, and its data stamp (see
+	 * {@link sql.Sql#getDataStamp()}), so cached results are discarded after changes by this or another session.
+	 */
+	private void validateCache() {
+		this.cache.validate(Dna.sql, Dna.sql.getModificationCount(), Dna.sql.getDataStamp());
+	}
+
+	/**
+	 * Look up cached matrix results.
+	 *
+	 * @param key The cache key, or {@code null} if the results should not be cached.
+	 * @return A new array list with the cached matrices, or {@code null} if there are none.
+	 */
+	@SuppressWarnings("unchecked")
+	private ArrayList<Matrix> getCachedMatrices(String key) {
+		if (key == null) {
+			return null;
+		}
+		validateCache();
+		ArrayList<Matrix> cached = (ArrayList<Matrix>) this.cache.get(key);
+		return cached == null ? null : new ArrayList<Matrix>(cached);
+	}
+
+	/**
+	 * Save the matrix results of the exporter in the cache.
+	 *
+	 * @param key The cache key.
+	 */
+	private void cacheMatrices(String key) {
+		ArrayList<Matrix> results = this.exporter.getMatrixResults();
+		if (key != null && results != null) {
+			this.cache.put(key, new ArrayList<Matrix>(results), ResultCache.sizeOf(results));
+		}
+	}
+
+	/**
+	 * Create a canonical fingerprint of function arguments. Strings are quoted and escaped, and arrays, lists, and
+	 * maps are written element by element, with map keys sorted, so different arguments never produce the same
+	 * fingerprint.
+	 *
+	 * @param arguments The arguments.
+	 * @return The fingerprint.
+	 */
+	private static String fingerprint(Object... arguments) {
+		StringBuilder sb = new StringBuilder();
+		for (Object argument : arguments) {
+			appendArgument(sb, argument);
+			sb.append(';');
+		}
+		return sb.toString();
+	}
+
+	private static void appendArgument(StringBuilder sb, Object argument) {
+		if (argument instanceof String) {
+			sb.append('"').append(((String) argument).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+		} else if (argument instanceof Object[]) {
+			appendArgument(sb, Arrays.asList((Object[]) argument));
+		} else if (argument instanceof Map) {
+			sb.append('{');
+			for (Map.Entry<?, ?> e : new TreeMap<Object, Object>((Map<?, ?>) argument).entrySet()) {
+				appendArgument(sb, e.getKey());
+				sb.append(':');
+				appendArgument(sb, e.getValue());
+				sb.append(',');
+			}
+			sb.append('}');
+		} else if (argument instanceof Collection) {
+			sb.append('[');
+			for (Object o : (Collection<?>) argument) {
+				appendArgument(sb, o);
+				sb.append(',');
+			}
+			sb.append(']');
+		} else {
+			sb.append(argument);
+		}
+	}
+
+	private static String[] sorted(String[] values) {
+		String[] copy = values.clone();
+		Arrays.sort(copy);
+		return copy;
+	}
+
 	@Override
 	public void processLogEvents() {
 		LogEvent l = Dna.logger.getRow(Dna.logger.getRowCount() - 1);
@@ -0,0 +1,218 @@
+package dna;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import dna.export.Matrix;
+import dna.export.NestedBackboneResult;
+import dna.export.PolarizationResult;
+import dna.export.PolarizationResultTimeSeries;
+
+/**
+ * A cache for results of the headless functions, such as network matrices or
+ * polarization results, which are expensive to compute and are often
+ * requested repeatedly with the same arguments from R. The entries are keyed
+ * by a fingerprint of the export settings. The cache is bound to a database,
+ * its modification counter (see {@link sql.Sql#getModificationCount()}), which
+ * reveals changes made in this session, and its data stamp (see
+ * {@link sql.Sql#getDataStamp()}), which also reveals changes made by other
+ * sessions: when any of them changes, all entries are invalidated. If the estimated size of
+ * all entries exceeds the size limit, the least recently used entries are
+ * evicted.
+ */
+class ResultCache {
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private long maxBytes, bytes = 0;
+	private long hits = 0, misses = 0, evictions = 0, invalidations = 0;
+	private Object database = null;
+	private long version = -1;
+	private String stamp = null;
+
+	/**
+	 * Create a new result cache.
+	 *
+	 * @param maxBytes The maximal estimated size of all entries in bytes.
+	 */
+	ResultCache(long maxBytes) {
+		this.maxBytes = Math.max(0, maxBytes);
+	}
+
+	/**
+	 * Bind the cache to a database and a version of its data. If the database,
+	 * the version, or the data stamp differs from the previous call, or if the
+	 * data stamp is unknown, all entries are removed.
+	 *
+	 * @param database The database, for example the {@link sql.Sql} instance.
+	 * @param version The modification counter of the database.
+	 * @param stamp The data stamp of the database, or {@code null} if it could
+	 *   not be determined.
+	 */
+	synchronized void validate(Object database, long version, String stamp) {
+		if (database != this.database || version != this.version || stamp == null || !stamp.equals(this.stamp)) {
+			if (!this.entries.isEmpty()) {
+				this.invalidations++;
+			}
+			this.entries.clear();
+			this.bytes = 0;
+			this.database = database;
+			this.version = version;
+			this.stamp = stamp;
+		}
+	}
+
+	/**
+	 * Look up a result and count the lookup as a hit or miss.
+	 *
+	 * @param key The fingerprint of the settings.
+	 * @return The cached result, or {@code null} if there is none.
+	 */
+	synchronized Object get(String key) {
+		Entry entry = this.entries.get(key);
+		if (entry == null) {
+			this.misses++;
+			return null;
+		}
+		this.hits++;
+		return entry.value;
+	}
+
+	/**
+	 * Save a result in the cache and evict the least recently used entries if
+	 * the size limit is exceeded. Results that are larger than the size limit
+	 * on their own are not saved.
+	 *
+	 * @param key The fingerprint of the settings.
+	 * @param value The result.
+	 * @param size The estimated size of the result in bytes.
+	 */
+	synchronized void put(String key, Object value, long size) {
+		Entry previous = this.entries.remove(key);
+		if (previous != null) {
+			this.bytes = this.bytes - previous.size;
+		}
+		if (value == null || size > this.maxBytes) {
+			return;
+		}
+		this.entries.put(key, new Entry(value, size));
+		this.bytes = this.bytes + size;
+		evict();
+	}
+
+	/**
+	 * Set a new size limit and evict entries if necessary.
+	 *
+	 * @param maxBytes The maximal estimated size of all entries in bytes.
+	 *   {@code 0} switches off the cache.
+	 */
+	synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = Math.max(0, maxBytes);
+		evict();
+	}
+
+	/**
+	 * Remove all entries. The statistics are kept.
+	 */
+	synchronized void clear() {
+		this.entries.clear();
+		this.bytes = 0;
+	}
+
+	/**
+	 * Get the cache statistics.
+	 *
+	 * @return An array with the number of hits, misses, evictions, and
+	 *   invalidations, the number of entries, their estimated size in bytes,
+	 *   and the size limit in bytes.
+	 */
+	synchronized long[] getStatistics() {
+		return new long[] { this.hits, this.misses, this.evictions, this.invalidations, this.entries.size(), this.bytes, this.maxBytes };
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<String, Entry>> it = this.entries.entrySet().iterator();
+		while (this.bytes > this.maxBytes && it.hasNext()) { // iteration order is from least to most recently used
+			this.bytes = this.bytes - it.next().getValue().size;
+			it.remove();
+			this.evictions++;
+		}
+	}
+
+	/**
+	 * Estimate the memory footprint of a list of matrices. Label arrays that
+	 * are shared by several matrices are counted once.
+	 *
+	 * @param matrices The matrices.
+	 * @return The estimated size in bytes.
+	 */
+	static long sizeOf(ArrayList<Matrix> matrices) {
+		IdentityHashMap<Object, Boolean> seen = new IdentityHashMap<Object, Boolean>();
+		long size = 16 + 8L * matrices.size();
+		for (Matrix m : matrices) {
+			size = size + 96;
+			double[][] mat = m.getMatrix();
+			if (mat != null && seen.put(mat, Boolean.TRUE) == null) {
+				size = size + 16 + 8L * mat.length;
+				for (int i = 0; i < mat.length; i++) {
+					size = size + 16 + 8L * mat[i].length;
+				}
+			}
+			size = size + sizeOf(m.getRowNames(), seen) + sizeOf(m.getColumnNames(), seen);
+		}
+		return size;
+	}
+
+	/**
+	 * Estimate the memory footprint of a polarization result time series.
+	 *
+	 * @param results The polarization results.
+	 * @return The estimated size in bytes.
+	 */
+	static long sizeOf(PolarizationResultTimeSeries results) {
+		IdentityHashMap<Object, Boolean> seen = new IdentityHashMap<Object, Boolean>();
+		long size = 32;
+		for (PolarizationResult r : results.getResults()) {
+			size = size + 128
+					+ 8L * (r.getMaxQ().length + r.getAvgQ().length + r.getSdQ().length)
+					+ 4L * r.getMemberships().length
+					+ sizeOf(r.getNames(), seen);
+		}
+		return size;
+	}
+
+	/**
+	 * Estimate the memory footprint of a nested backbone result.
+	 *
+	 * @param result The nested backbone result.
+	 * @return The estimated size in bytes.
+	 */
+	static long sizeOf(NestedBackboneResult result) {
+		long n = result.getEntities().length;
+		return 128 + n * (4 + 8 + 8 + 4) + sizeOf(result.getEntities(), new IdentityHashMap<Object, Boolean>());
+	}
+
+	private static long sizeOf(String[] labels, IdentityHashMap<Object, Boolean> seen) {
+		if (labels == null || seen.put(labels, Boolean.TRUE) != null) {
+			return 0;
+		}
+		long size = 16 + 8L * labels.length;
+		for (String label : labels) {
+			if (label != null) {
+				size = size + 40 + 2L * label.length();
+			}
+		}
+		return size;
+	}
+
+	private static final class Entry {
+		private final Object value;
+		private final long size;
+
+		private Entry(Object value, long size) {
+			this.value = value;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package dna.export;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache for the spectral losses of backbone candidates. The simulated
+ * annealing backbone algorithm often proposes a set of concepts that it has
+ * evaluated before, for example when a move is rejected and the reverse move
+ * is proposed later. The entries are keyed by the set of concepts, as a bit
+ * set of the columns in the {@link ConceptDecomposedMatrix}, and hold the
+ * unpenalized spectral distance to the full network and the normalized
+ * eigenvalues of the candidate network. The penalty depends only on the size
+ * of the set and is applied by the caller.
+ *
+ * The cache is bound to a list of filtered statements and a fingerprint of
+ * the export settings that determine the networks and their eigenvalues, such
+ * as the variables, the qualifier aggregation, the normalization, and the
+ * spectrum size: when either changes, all entries are invalidated. If the estimated size of all entries
+ * exceeds the size limit, the least recently used entries are evicted.
+ */
+final class BackboneLossCache {
+	private final LinkedHashMap<BitSet, Entry> entries = new LinkedHashMap<BitSet, Entry>(16, 0.75f, true);
+	private long maxBytes, bytes = 0;
+	private long hits = 0, misses = 0, evictions = 0;
+	private Object statements = null;
+	private String settings = null;
+
+	/**
+	 * The loss and eigenvalues of a set of concepts.
+	 */
+	static final class Entry {
+		private final double loss;
+		private final double[] eigenvalues;
+		private final long size;
+
+		private Entry(double loss, double[] eigenvalues, long size) {
+			this.loss = loss;
+			this.eigenvalues = eigenvalues;
+			this.size = size;
+		}
+
+		/**
+		 * Get the unpenalized spectral distance between the full network and
+		 * the network of the set of concepts.
+		 *
+		 * @return The spectral loss.
+		 */
+		double getLoss() {
+			return this.loss;
+		}
+
+		/**
+		 * Get the normalized eigenvalues of the network of the set of
+		 * concepts. The array is shared and must not be changed.
+		 *
+		 * @return The normalized eigenvalues in descending order.
+		 */
+		double[] getEigenvalues() {
+			return this.eigenvalues;
+		}
+	}
+
+	/**
+	 * Create a new loss cache.
+	 *
+	 * @param maxBytes The maximal estimated size of all entries in bytes.
+	 */
+	BackboneLossCache(long maxBytes) {
+		this.maxBytes = Math.max(0, maxBytes);
+	}
+
+	/**
+	 * Bind the cache to a list of filtered statements and the settings of the
+	 * networks. If the list or the settings differ from the previous call, all
+	 * entries are removed.
+	 *
+	 * @param statements The filtered statements from which the full network
+	 *   and the candidate networks are computed.
+	 * @param settings A fingerprint of all settings on which the losses
+	 *   depend.
+	 */
+	synchronized void validate(Object statements, String settings) {
+		if (statements != this.statements || !settings.equals(this.settings)) {
+			clear();
+			this.statements = statements;
+			this.settings = settings;
+		}
+	}
+
+	/**
+	 * Look up a set of concepts and count the lookup as a hit or miss.
+	 *
+	 * @param concepts The columns of the concepts in the set.
+	 * @return The cached entry, or {@code null} if there is none.
+	 */
+	synchronized Entry get(BitSet concepts) {
+		Entry entry = this.entries.get(concepts);
+		if (entry == null) {
+			this.misses++;
+		} else {
+			this.hits++;
+		}
+		return entry;
+	}
+
+	/**
+	 * Save the loss and eigenvalues of a set of concepts and evict the least
+	 * recently used entries if the size limit is exceeded.
+	 *
+	 * @param concepts The columns of the concepts in the set. The bit set is
+	 *   used as the key and must not be changed afterwards.
+	 * @param loss The unpenalized spectral loss.
+	 * @param eigenvalues The normalized eigenvalues.
+	 * @return The new entry, which is returned even if it is too large to be
+	 *   saved.
+	 */
+	synchronized Entry put(BitSet concepts, double loss, double[] eigenvalues) {
+		long size = 96 + 16 + 8L * eigenvalues.length + 48 + 8L * ((concepts.length() + 63) / 64); // map entry, entry, eigenvalues, and key
+		Entry entry = new Entry(loss, eigenvalues, size);
+		Entry previous = this.entries.remove(concepts);
+		if (previous != null) {
+			this.bytes = this.bytes - previous.size;
+		}
+		if (size <= this.maxBytes) {
+			this.entries.put(concepts, entry);
+			this.bytes = this.bytes + size;
+			evict();
+		}
+		return entry;
+	}
+
+	/**
+	 * Set a new size limit and evict entries if necessary.
+	 *
+	 * @param maxBytes The maximal estimated size of all entries in bytes.
+	 *   {@code 0} switches off the cache.
+	 */
+	synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = Math.max(0, maxBytes);
+		evict();
+	}
+
+	/**
+	 * Remove all entries, for example when a setting changes that affects the
+	 * losses. The statistics are kept.
+	 */
+	synchronized void clear() {
+		this.entries.clear();
+		this.bytes = 0;
+	}
+
+	/**
+	 * Reset the hit, miss, and eviction counters, for example at the start of a
+	 * backbone run. The entries are kept.
+	 */
+	synchronized void resetStatistics() {
+		this.hits = 0;
+		this.misses = 0;
+		this.evictions = 0;
+	}
+
+	/**
+	 * Get the cache statistics.
+	 *
+	 * @return An array with the number of hits, misses, and evictions, the
+	 *   number of entries, their estimated size in bytes, and the size limit in
+	 *   bytes.
+	 */
+	synchronized long[] getStatistics() {
+		return new long[] { this.hits, this.misses, this.evictions, this.entries.size(), this.bytes, this.maxBytes };
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<BitSet, Entry>> it = this.entries.entrySet().iterator();
+		while (this.bytes > this.maxBytes && it.hasNext()) { // iteration order is from least to most recently used
+			this.bytes = this.bytes - it.next().getValue().size;
+			it.remove();
+			this.evictions++;
+		}
+	}
+}
@@ -0,0 +1,296 @@
+package dna.export;
+
+import java.util.BitSet;
+
+/**
+ * A one-mode network matrix for a subset of the concepts (second-mode
+ * entities), which can be updated when a concept is added to or removed from
+ * the subset, as in the backbone algorithms. The matrix is not stored as edge
+ * weights but as the raw sums from which {@link Exporter#oneModeCellValue}
+ * derives the edge weights: the row totals of the actors, and for each pair of
+ * actors the counts and products of counts in shared cells and the aggregated
+ * weight. All of these are sums over concepts, so the contribution of a
+ * concept can be added or subtracted by visiting only the pairs of actors who
+ * used the concept, in O(affected actors²). This works for every qualifier
+ * aggregation and normalization because the normalization is only applied
+ * when the matrix is read.
+ *
+ * All sums are integers (the weights of numeric qualifiers are scaled by the
+ * range of the qualifier levels), so adding and removing concepts is exact, and
+ * the matrix is identical to a matrix computed from the filtered statements of
+ * the concepts whenever the unscaled computation is exact.
+ *
+ * The matrix without a single concept can be computed without changing the
+ * set, using a {@link Workspace} for the contribution of the concept. As the
+ * sums are only read in this case, several threads can evaluate such
+ * candidates at the same time, each with its own workspace.
+ */
+final class ConceptDecomposedMatrix {
+	private final Exporter exporter;
+	private final SparseTensor tensor;
+	private final String aggregation;
+	private final boolean textQualifier, numericQualifier;
+	private final double range;
+	private final double[][] weights; // scaled weight of each pair of qualifier levels for numeric qualifiers
+	private final double[] totals;
+	private final double[][] common, product, sum;
+	private final BitSet included;
+	private int size = 0, numStatements = 0;
+
+	/**
+	 * Work arrays for computing the matrix without one of the concepts. The
+	 * arrays hold the differences to the sums of the set and are zero between
+	 * uses.
+	 */
+	static final class Workspace {
+		private final double[] totals;
+		private final double[][] common, product, sum, matrix;
+
+		private Workspace(int n, boolean textQualifier) {
+			this.totals = new double[n];
+			this.common = new double[n][n];
+			this.product = new double[n][n];
+			this.sum = textQualifier ? null : new double[n][n];
+			this.matrix = new double[n][n];
+		}
+	}
+
+	/**
+	 * Create an empty matrix, i.e., for an empty set of concepts.
+	 *
+	 * @param exporter The exporter with the normalization setting.
+	 * @param tensor The tensor of all filtered statements (actors x concepts x
+	 *   qualifier levels).
+	 * @param aggregation The qualifier aggregation.
+	 * @param textQualifier Is the qualifier a short text or document-level
+	 *   variable and not ignored?
+	 * @param numericQualifier Is the qualifier a boolean or integer variable
+	 *   and not ignored?
+	 * @param qualifierLevels The levels of a boolean or integer qualifier.
+	 */
+	ConceptDecomposedMatrix(Exporter exporter, SparseTensor tensor, String aggregation, boolean textQualifier, boolean numericQualifier, int[] qualifierLevels) {
+		this.exporter = exporter;
+		this.tensor = tensor;
+		this.aggregation = aggregation;
+		this.textQualifier = textQualifier;
+		this.numericQualifier = numericQualifier;
+		this.range = Math.abs(qualifierLevels[qualifierLevels.length - 1] - qualifierLevels[0]);
+		int n = tensor.getNumRows();
+		this.totals = new double[n];
+		this.common = new double[n][n];
+		this.product = new double[n][n];
+		this.sum = textQualifier ? null : new double[n][n];
+		this.included = new BitSet(tensor.getNumColumns());
+		this.weights = new double[qualifierLevels.length][qualifierLevels.length];
+		for (int k1 = 0; k1 < qualifierLevels.length; k1++) {
+			for (int k2 = 0; k2 < qualifierLevels.length; k2++) {
+				double difference = Math.abs(qualifierLevels[k1] - qualifierLevels[k2]); // difference * range in the exporter
+				if (aggregation.equals("congruence")) {
+					this.weights[k1][k2] = this.range - difference;
+				} else if (aggregation.equals("conflict")) {
+					this.weights[k1][k2] = difference;
+				} else if (aggregation.equals("subtract")) {
+					this.weights[k1][k2] = this.range - 2 * difference;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Add a concept to the set.
+	 *
+	 * @param concept The column of the concept in the tensor.
+	 */
+	void add(int concept) {
+		if (!this.included.get(concept)) {
+			this.included.set(concept);
+			update(concept, 1.0, this.totals, this.common, this.product, this.sum);
+			this.size++;
+			this.numStatements = this.numStatements + (int) this.tensor.columnTotal(concept);
+		}
+	}
+
+	/**
+	 * Remove a concept from the set.
+	 *
+	 * @param concept The column of the concept in the tensor.
+	 */
+	void remove(int concept) {
+		if (this.included.get(concept)) {
+			this.included.clear(concept);
+			update(concept, -1.0, this.totals, this.common, this.product, this.sum);
+			this.size--;
+			this.numStatements = this.numStatements - (int) this.tensor.columnTotal(concept);
+		}
+	}
+
+	/**
+	 * Is a concept in the set?
+	 *
+	 * @param concept The column of the concept in the tensor.
+	 * @return {@code true} if the concept is in the set.
+	 */
+	boolean contains(int concept) {
+		return this.included.get(concept);
+	}
+
+	/**
+	 * Get the concepts in the set, for example as a key for caching.
+	 *
+	 * @return A new bit set with the columns of the concepts in the set.
+	 */
+	BitSet getConcepts() {
+		return (BitSet) this.included.clone();
+	}
+
+	/**
+	 * Get the number of concepts in the set.
+	 *
+	 * @return The number of concepts.
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * Get the number of statements of the concepts in the set.
+	 *
+	 * @return The number of statements.
+	 */
+	int getNumStatements() {
+		return this.numStatements;
+	}
+
+	/**
+	 * Get the number of statements of the concepts in the set without a
+	 * concept.
+	 *
+	 * @param concept The column of the concept in the tensor.
+	 * @return The number of statements.
+	 */
+	int getNumStatementsWithout(int concept) {
+		return this.included.get(concept) ? this.numStatements - (int) this.tensor.columnTotal(concept) : this.numStatements;
+	}
+
+	/**
+	 * Create work arrays for {@link #getMatrixWithout(int, Workspace)}.
+	 *
+	 * @return A new workspace for this matrix.
+	 */
+	Workspace createWorkspace() {
+		return new Workspace(this.totals.length, this.textQualifier);
+	}
+
+	/**
+	 * Add or subtract the contribution of a concept to the sums, visiting each
+	 * pair of actors who used the concept.
+	 *
+	 * @param concept The column of the concept in the tensor.
+	 * @param sign {@code 1.0} for adding and {@code -1.0} for removing.
+	 * @param totals The row totals to update.
+	 * @param common The counts in shared cells to update.
+	 * @param product The products of counts in shared cells to update.
+	 * @param sum The aggregated weights to update, or {@code null}.
+	 */
+	private void update(int concept, double sign, double[] totals, double[][] common, double[][] product, double[][] sum) {
+		int start = this.tensor.columnStart(concept);
+		int end = this.tensor.columnEnd(concept);
+		for (int e = start; e < end; e++) {
+			int i1 = this.tensor.transposedRow(e);
+			int k1 = this.tensor.transposedLevel(e);
+			double a1 = sign * this.tensor.transposedValue(e);
+			totals[i1] = totals[i1] + a1;
+			for (int f = start; f < end; f++) {
+				int i2 = this.tensor.transposedRow(f);
+				if (i1 == i2) {
+					continue;
+				}
+				int k2 = this.tensor.transposedLevel(f);
+				double a2 = this.tensor.transposedValue(f);
+				if (k1 == k2) { // shared cell with the same concept and qualifier level
+					common[i1][i2] = common[i1][i2] + a1;
+					product[i1][i2] = product[i1][i2] + a1 * a2;
+				}
+				if (sum != null) {
+					if (this.numericQualifier) {
+						sum[i1][i2] = sum[i1][i2] + a1 * a2 * this.weights[k1][k2];
+					} else { // "ignore": product of the counts of both actors over all levels
+						sum[i1][i2] = sum[i1][i2] + a1 * a2;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compute the edge weights of the network matrix for the current set.
+	 *
+	 * @return A new square matrix with the edge weights and zeros on the
+	 *   diagonal.
+	 */
+	double[][] getMatrix() {
+		int n = this.totals.length;
+		double[][] matrix = new double[n][n];
+		fillMatrix(matrix, this.size, null);
+		return matrix;
+	}
+
+	/**
+	 * Compute the edge weights of the network matrix for the current set
+	 * without a concept. The set is not changed, so several threads can call
+	 * this method at the same time with different workspaces.
+	 *
+	 * @param concept The column of the concept in the tensor.
+	 * @param workspace The work arrays of the calling thread.
+	 * @return The matrix array of the workspace, which is overwritten by the
+	 *   next call with the same workspace.
+	 */
+	double[][] getMatrixWithout(int concept, Workspace workspace) {
+		if (!this.included.get(concept)) {
+			fillMatrix(workspace.matrix, this.size, null);
+			return workspace.matrix;
+		}
+		update(concept, -1.0, workspace.totals, workspace.common, workspace.product, workspace.sum);
+		fillMatrix(workspace.matrix, this.size - 1, workspace);
+		update(concept, 1.0, workspace.totals, workspace.common, workspace.product, workspace.sum); // back to zero; the sums are integers
+		return workspace.matrix;
+	}
+
+	/**
+	 * Compute the edge weights from the sums of the set plus the differences
+	 * in a workspace.
+	 *
+	 * @param matrix The matrix to fill. The diagonal is set to zero.
+	 * @param size The number of concepts.
+	 * @param workspace The differences to the sums, or {@code null}.
+	 */
+	private void fillMatrix(double[][] matrix, int size, Workspace workspace) {
+		int n = this.totals.length;
+		int numColumns = size > 0 ? this.tensor.getNumColumns() : 0; // only used to mark a single numeric qualifier level as undefined
+		for (int i1 = 0; i1 < n; i1++) {
+			matrix[i1][i1] = 0.0;
+			for (int i2 = 0; i2 < n; i2++) {
+				if (i1 != i2) {
+					double total1 = this.totals[i1], total2 = this.totals[i2];
+					double common1 = this.common[i1][i2], common2 = this.common[i2][i1], product = this.product[i1][i2];
+					double s = this.sum == null ? 0.0 : this.sum[i1][i2];
+					if (workspace != null) {
+						total1 = total1 + workspace.totals[i1];
+						total2 = total2 + workspace.totals[i2];
+						common1 = common1 + workspace.common[i1][i2];
+						common2 = common2 + workspace.common[i2][i1];
+						product = product + workspace.product[i1][i2];
+						if (this.sum != null) {
+							s = s + workspace.sum[i1][i2];
+						}
+					}
+					if (this.numericQualifier && this.range > 0) {
+						s = s / this.range;
+					}
+					matrix[i1][i2] = this.exporter.oneModeCellValue(this.aggregation, this.textQualifier, this.numericQualifier, this.range,
+							numColumns, total1, total2, common1, common2, product, s);
+				}
+			}
+		}
+	}
+}
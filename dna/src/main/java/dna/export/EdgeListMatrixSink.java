@@ -0,0 +1,299 @@
+package dna.export;
+
+import dna.Dna;
+import logger.LogEvent;
+import logger.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A {@link MatrixSink} that writes the non-zero cells of all matrices of a
+ * series to a single CSV edge list file. Each row contains the index of the
+ * time slice (starting at 1), the date-time stamp of the slice, the row and
+ * column labels, and the edge weight, separated by semicolons. For one-mode
+ * networks, which are symmetric, only the upper triangle is written. The file
+ * is compressed with gzip if the file name ends with {@code ".gz"}.
+ *
+ * The rows are assembled in a byte buffer and written through a file channel.
+ * Numbers are formatted directly into the buffer, and the labels are encoded
+ * only once for all slices that share the same label array, so writing a cell
+ * does not create any objects.
+ */
+class EdgeListMatrixSink implements MatrixSink {
+	private static final byte[] HEADER = "\"slice\";\"time\";\"source\";\"target\";\"weight\"\n".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] NAN = "NaN".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] INFINITY = "Infinity".getBytes(StandardCharsets.UTF_8);
+	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final String filename;
+	private final boolean oneMode;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private final byte[] digits = new byte[20];
+	private FileChannel channel;
+	private GZIPOutputStream gzip;
+	private boolean failed;
+	private int slice;
+	private String[] rowNames, columnNames;
+	private byte[][] rowLabels, columnLabels;
+
+	/**
+	 * Create a new edge list sink.
+	 *
+	 * @param filename The name of the edge list file. If it ends with
+	 *   {@code ".gz"}, the file is compressed with gzip.
+	 * @param oneMode Are the matrices one-mode networks? If so, only the upper
+	 *   triangle of each matrix is written.
+	 */
+	EdgeListMatrixSink(String filename, boolean oneMode) {
+		this.filename = filename;
+		this.oneMode = oneMode;
+	}
+
+	@Override
+	public void open(int numMatrices) {
+		this.slice = 0;
+		this.failed = false;
+		this.rowNames = null;
+		this.columnNames = null;
+		this.buffer.clear();
+		try {
+			this.channel = FileChannel.open(Paths.get(this.filename), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+			if (this.filename.toLowerCase().endsWith(".gz")) {
+				this.gzip = new GZIPOutputStream(Channels.newOutputStream(this.channel), BUFFER_SIZE);
+			} else {
+				this.gzip = null;
+			}
+			put(HEADER);
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	@Override
+	public void accept(Matrix matrix) {
+		this.slice++;
+		if (this.failed) {
+			return;
+		}
+
+		// encode the labels only if they differ from the labels of the previous slice
+		if (matrix.getRowNames() != this.rowNames) {
+			this.rowNames = matrix.getRowNames();
+			this.rowLabels = encodeLabels(this.rowNames);
+		}
+		if (matrix.getColumnNames() != this.columnNames) {
+			this.columnNames = matrix.getColumnNames();
+			this.columnLabels = encodeLabels(this.columnNames);
+		}
+		writeEdges(matrix.getMatrix(), matrix.getInteger(), matrix.getDateTime());
+	}
+
+	@Override
+	public void acceptRun(MatrixRun run) {
+		Matrix matrix = run.getReference(); // the labels of the repeated matrix are still encoded because it was the last matrix passed to the sink
+		while (run.next()) {
+			this.slice++;
+			if (this.failed) {
+				return;
+			}
+			writeEdges(matrix.getMatrix(), matrix.getInteger(), run.getDateTime());
+		}
+	}
+
+	/**
+	 * Write the non-zero cells of a matrix as rows of the current slice, using
+	 * the labels encoded for the last matrix.
+	 *
+	 * @param mat The matrix.
+	 * @param integer Are the values integers?
+	 * @param dateTime The date-time stamp of the slice.
+	 */
+	private void writeEdges(double[][] mat, boolean integer, LocalDateTime dateTime) {
+		byte[] time = ("\"" + dateTime.format(FORMATTER) + "\"").getBytes(StandardCharsets.UTF_8);
+		try {
+			for (int i = 0; i < mat.length; i++) {
+				for (int j = this.oneMode ? i + 1 : 0; j < mat[i].length; j++) {
+					if (mat[i][j] != 0.0) {
+						putLong(this.slice);
+						putByte((byte) ';');
+						put(time);
+						putByte((byte) ';');
+						put(this.rowLabels[i]);
+						putByte((byte) ';');
+						put(this.columnLabels[j]);
+						putByte((byte) ';');
+						if (integer) {
+							putLong((int) mat[i][j]);
+						} else {
+							putDouble(mat[i][j]);
+						}
+						putByte((byte) '\n');
+					}
+				}
+			}
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (this.channel == null) {
+			return;
+		}
+		try {
+			if (!this.failed) {
+				flush();
+				if (this.gzip != null) {
+					this.gzip.finish();
+				}
+			}
+			if (this.gzip != null) {
+				this.gzip.close(); // also closes the channel
+			} else {
+				this.channel.close();
+			}
+		} catch (IOException e) {
+			fail(e);
+		}
+		this.channel = null;
+		this.gzip = null;
+	}
+
+	/**
+	 * Encode labels as quoted UTF-8 byte sequences, with double quotes in the
+	 * labels replaced by single quotes as in the CSV matrix export.
+	 *
+	 * @param names The labels.
+	 * @return The encoded labels.
+	 */
+	private static byte[][] encodeLabels(String[] names) {
+		byte[][] labels = new byte[names.length][];
+		for (int i = 0; i < names.length; i++) {
+			labels[i] = ("\"" + names[i].replaceAll("\"", "'") + "\"").getBytes(StandardCharsets.UTF_8);
+		}
+		return labels;
+	}
+
+	/**
+	 * Write the contents of the buffer to the file and clear the buffer.
+	 *
+	 * @throws IOException If the file cannot be written.
+	 */
+	private void flush() throws IOException {
+		this.buffer.flip();
+		if (this.gzip != null) {
+			this.gzip.write(this.buffer.array(), 0, this.buffer.limit());
+		} else {
+			while (this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+		}
+		this.buffer.clear();
+	}
+
+	private void putByte(byte b) throws IOException {
+		if (!this.buffer.hasRemaining()) {
+			flush();
+		}
+		this.buffer.put(b);
+	}
+
+	private void put(byte[] bytes) throws IOException {
+		int offset = 0;
+		while (offset < bytes.length) {
+			if (!this.buffer.hasRemaining()) {
+				flush();
+			}
+			int length = Math.min(bytes.length - offset, this.buffer.remaining());
+			this.buffer.put(bytes, offset, length);
+			offset = offset + length;
+		}
+	}
+
+	/**
+	 * Write the decimal digits of an integer number.
+	 *
+	 * @param value The number.
+	 * @throws IOException If the buffer cannot be flushed to the file.
+	 */
+	private void putLong(long value) throws IOException {
+		if (value == Long.MIN_VALUE) { // cannot be negated
+			put(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+			return;
+		}
+		if (value < 0) {
+			putByte((byte) '-');
+			value = -value;
+		}
+		int n = 0;
+		do {
+			this.digits[n++] = (byte) ('0' + value % 10);
+			value = value / 10;
+		} while (value > 0);
+		while (n > 0) {
+			putByte(this.digits[--n]);
+		}
+	}
+
+	/**
+	 * Write a floating-point number with six decimal places, as in the CSV
+	 * and DL matrix exports.
+	 *
+	 * @param value The number.
+	 * @throws IOException If the buffer cannot be flushed to the file.
+	 */
+	private void putDouble(double value) throws IOException {
+		if (Double.isNaN(value)) {
+			put(NAN);
+			return;
+		}
+		if (Double.isInfinite(value)) {
+			if (value < 0) {
+				putByte((byte) '-');
+			}
+			put(INFINITY);
+			return;
+		}
+		double magnitude = Math.abs(value);
+		if (magnitude >= 1e12) { // the scaled number would not fit into a long integer
+			put(String.format(Locale.ENGLISH, "%.6f", value).getBytes(StandardCharsets.UTF_8));
+			return;
+		}
+		long scaled = Math.round(magnitude * 1e6);
+		if (value < 0) {
+			putByte((byte) '-');
+		}
+		putLong(scaled / 1000000);
+		putByte((byte) '.');
+		long fraction = scaled % 1000000;
+		for (long divisor = 100000; divisor > 0; divisor = divisor / 10) {
+			putByte((byte) ('0' + (fraction / divisor) % 10));
+		}
+	}
+
+	/**
+	 * Log an error and skip the remaining output.
+	 *
+	 * @param e The exception.
+	 */
+	private void fail(IOException e) {
+		this.failed = true;
+		LogEvent l = new LogEvent(Logger.ERROR,
+				"Error while saving edge list file.",
+				"Tried to save networks to edge list file \"" + this.filename + "\", but an error occurred. See stack trace.",
+				e);
+		Dna.logger.log(l);
+	}
+}
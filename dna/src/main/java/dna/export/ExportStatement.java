@@ -5,15 +5,13 @@ import model.Statement;
 import model.Value;
 
 import java.time.ZoneOffset;
-import java.util.HashMap;
 
 /**
  * An extension of the Statement class, which also holds some document meta-
- * data and a hash map of the values (in addition to the array list of
- * values).
+ * data. Values are looked up by variable name in the array list of values.
+ * For bulk processing, see the dictionary-encoded {@link StatementTable}.
  */
 public class ExportStatement extends Statement {
-    private HashMap<String, Object> map;
     private String title, author, source, section, type;
 
     /**
@@ -34,10 +32,6 @@ public class ExportStatement extends Statement {
         this.source = source;
         this.section = section;
         this.type = type;
-        this.map = new HashMap<String, Object>();
-        for (Value value : ExportStatement.this.getValues()) {
-            map.put(value.getKey(), value.getValue());
-        }
     }
 
     /**
@@ -52,14 +46,21 @@ public class ExportStatement extends Statement {
         this.source = exportStatement.getSource();
         this.section = exportStatement.getSection();
         this.type = exportStatement.getType();
-        this.map = new HashMap<String, Object>();
-        for (Value value : exportStatement.getValues()) {
-            map.put(value.getKey(), value.getValue());
-        }
     }
 
+    /**
+     * Get the value of a variable by its name.
+     *
+     * @param key The variable name.
+     * @return The value object, or {@code null} if the variable does not exist.
+     */
     public Object get(String key) {
-        return this.map.get(key);
+        for (Value value : this.getValues()) {
+            if (value.getKey().equals(key)) {
+                return value.getValue();
+            }
+        }
+        return null;
     }
 
     public String getTitle() {
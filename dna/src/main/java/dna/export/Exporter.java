@@ -13,27 +13,24 @@ import model.*;
 import org.apache.commons.math3.linear.EigenDecomposition;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
-import org.jdom.Attribute;
-import org.jdom.Comment;
-import org.jdom.Element;
-import org.jdom.Namespace;
-import org.jdom.output.Format;
-import org.jdom.output.XMLOutputter;
 import org.ojalgo.array.DenseArray;
 import org.ojalgo.array.Primitive64Array;
 import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.matrix.Primitive64Matrix;
 import org.ojalgo.matrix.decomposition.Eigenvalue;
 
+import javax.xml.stream.XMLStreamException;
 import java.io.*;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.Period;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.time.temporal.WeekFields;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.DoubleAccumulator;
 import java.util.stream.Collectors;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
@@ -44,6 +41,16 @@ import java.util.stream.Stream;
  * lists, creating network matrices, and writing networks to files.
  */
 public class Exporter {
+	/**
+	 * Number of matrix rows per block when one-mode network matrices are
+	 * computed in parallel.
+	 */
+	private static final int ONE_MODE_BLOCK_SIZE = 64;
+	/**
+	 * Number of kernel-smoothed time slices that are computed in parallel
+	 * before they are passed to the matrix sink in chronological order.
+	 */
+	private static final int KERNEL_BLOCK_SIZE = 64;
 	private StatementType statementType;
 	private String networkType, variable1, variable2, qualifier, qualifierAggregation;
 	private String normalization, duplicates, timeWindow;
@@ -71,6 +78,12 @@ public class Exporter {
 	 * Holds all statements.
 	 */
 	private ArrayList<ExportStatement> originalStatements;
+	/**
+	 * Dictionary-encoded columnar copy of the original statements, used for
+	 * filtering and network construction on int codes. It is created on first
+	 * use (see {@link #getStatementTable()}).
+	 */
+	private StatementTable statementTable;
 	/**
 	 * Holds the statements that remain after filtering by date, exclude filter, duplicates etc.
 	 */
@@ -85,6 +98,8 @@ public class Exporter {
 	private Matrix fullMatrix;
 	private ArrayList<String> currentBackboneList, currentRedundantList;
 	private double[] eigenvaluesFull;
+	private HashMap<String, Integer> conceptIndex; // column of each concept in the backbone decompositions
+	private ConceptDecomposedMatrix backboneDecomposition, redundantDecomposition; // current backbone (and redundant) matrix, updated per concept
 
 	// objects for nested backbone algorithm
 	private int counter;
@@ -94,19 +109,22 @@ public class Exporter {
 	ArrayList<Matrix> backboneMatrices = new ArrayList<>();
 	ArrayList<Matrix> redundantMatrices = new ArrayList<>();
 	private NestedBackboneResult nestedBackboneResult = null;
+	private ForkJoinPool backbonePool = ForkJoinPool.commonPool(); // evaluates the candidates of a nested backbone iteration in parallel
 
 	// objects for simulated annealing backbone algorithm
-	private ArrayList<Double> temperatureLog, acceptanceProbabilityLog, penalizedBackboneLossLog, acceptanceRatioLastHundredIterationsLog;
-	private ArrayList<Integer> acceptedLog, proposedBackboneSizeLog, acceptedBackboneSizeLog, finalBackboneSizeLog;
-	private String selectedAction;
-	private ArrayList<String> actionList, candidateBackboneList, candidateRedundantList, finalBackboneList, finalRedundantList;
-	private ArrayList<ExportStatement> currentStatementList, candidateStatementList, finalStatementList; // declare candidate statement list at t
-	private Matrix currentMatrix, candidateMatrix, finalMatrix; // candidate matrix at the respective t, Y^{B^*_t}
-	private boolean accept;
-	private double p, temperature, acceptance, r, oldLoss, newLoss, finalLoss, log;
-	private double[] eigenvaluesCurrent, eigenvaluesCandidate, eigenvaluesFinal;
-	private int T, t, backboneSize;
+	private SimulatedAnnealingChain[] chains; // one chain per temperature, run in parallel
+	private int exchangeInterval; // iterations between exchanges of neighboring chains; 0 for independent chains
+	private int[] exchangesAttempted, exchangesAccepted; // per pair of neighboring chains
+	private Random exchangeRandom;
+	private double p;
+	private double[] eigenvaluesCandidate;
+	private int T, t;
 	private SimulatedAnnealingBackboneResult simulatedAnnealingBackboneResult = null;
+	private final BackboneLossCache lossCache = new BackboneLossCache(64L * 1024 * 1024); // losses and eigenvalues of evaluated backbone candidates
+
+	// spectral distances
+	private int spectrumSize = 0; // number of largest eigenvalues used in spectral distances; 0 for all eigenvalues
+	private final DoubleAccumulator spectrumErrorBound = new DoubleAccumulator(Math::max, 0.0);
 
 	// time smoothing
 	/**
@@ -122,6 +140,23 @@ public class Exporter {
 	 * around the end points of the timeline?
 	 */
 	private boolean indentTime = true;
+	/**
+	 * For kernel-smoothed time slices with {@code "days"}, {@code "weeks"}, or {@code "months"} as the time unit,
+	 * should the kernel-weighted sums be computed by convolution over the regular grid of mid-points (see {@link
+	 * KernelConvolution}) instead of separately for each time slice? Statements are binned to the nearest grid unit,
+	 * so the results are identical if the statement times are aligned with the grid and approximate otherwise.
+	 */
+	private boolean kernelConvolution = false;
+	/**
+	 * Receives the computed matrices one at a time. If {@code null}, the matrices are kept in memory and can be
+	 * retrieved using {@link #getMatrixResults()} afterwards.
+	 */
+	private MatrixSink matrixSink = null;
+	/**
+	 * Should time window series be re-exported incrementally, i.e., should the networks of time windows whose
+	 * statements did not change since the last export with the same settings be reused (see {@link TimeWindowState})?
+	 */
+	private boolean incremental = false;
 
 	public void setKernelFunction(String kernel) {
 		this.kernel = kernel;
@@ -138,6 +173,88 @@ public class Exporter {
 		this.indentTime = indentTime;
 	}
 
+	/**
+	 * Set the value of the kernelConvolution field in this class. It indicates if kernel-smoothed time slices with
+	 * {@code "days"}, {@code "weeks"}, or {@code "months"} as the time unit should be computed by convolution over the
+	 * regular grid of mid-points.
+	 *
+	 * @param kernelConvolution Parameter setting. Should the convolution engine be used?
+	 */
+	public void setKernelConvolution(boolean kernelConvolution) {
+		this.kernelConvolution = kernelConvolution;
+	}
+
+	/**
+	 * Set the sink that receives the computed matrices. Each matrix is passed to the sink as soon as it is finished,
+	 * so a file sink (see {@link #createFileSink()}) writes long time window or kernel-smoothed series without holding
+	 * all matrices in memory. In this case, the matrix results are not available via {@link #getMatrixResults()}
+	 * afterwards, and {@link #exportToFile()} does not write them again.
+	 *
+	 * @param matrixSink The sink, or {@code null} to keep the matrices in memory (the default).
+	 */
+	public void setMatrixSink(MatrixSink matrixSink) {
+		this.matrixSink = matrixSink;
+	}
+
+	/**
+	 * Set the value of the incremental field in this class. If switched on, the per-window state of time window
+	 * series with a time unit (but without kernel smoothing) is kept after the export, and a later export with the
+	 * same settings recomputes only the time windows with added, changed, or deleted statements and reuses the
+	 * networks of all other time windows. This requires the matrices to be kept in memory, i.e., no matrix sink.
+	 *
+	 * @param incremental Parameter setting. Should time window series be re-exported incrementally?
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	/**
+	 * Create a sink that writes each matrix to a file in the file format of this exporter ({@code "csv"},
+	 * {@code "dl"}, {@code "graphml"}, {@code "edgelist"}, or {@code "dnanet"}) and then releases it. If there is more
+	 * than one matrix, the file names are the output file name with the index and date-time stamp of the matrix
+	 * inserted before the file extension, except for edge lists and network containers, which hold all matrices in a
+	 * single file (see {@link EdgeListMatrixSink} and {@link NetworkContainerWriter}).
+	 *
+	 * @return The file sink, or {@code null} if the file format is not supported.
+	 */
+	public MatrixSink createFileSink() {
+		if (this.fileFormat.equals("csv")) {
+			return new CsvMatrixSink();
+		} else if (this.fileFormat.equals("dl")) {
+			return new DlMatrixSink();
+		} else if (this.fileFormat.equals("graphml")) {
+			return new GraphmlMatrixSink();
+		} else if (this.fileFormat.equals("edgelist")) {
+			return new EdgeListMatrixSink(this.outfile, this.networkType.equals("onemode"));
+		} else if (this.fileFormat.equals("dnanet")) {
+			return new NetworkContainerWriter(this.outfile, this.networkType.equals("onemode"));
+		}
+		return null;
+	}
+
+	/**
+	 * Open the matrix sink for a series of matrices. If no sink was set, the matrices are collected in memory.
+	 *
+	 * @param numMatrices The number of matrices in the series.
+	 * @return The opened sink.
+	 */
+	private MatrixSink openSink(int numMatrices) {
+		MatrixSink sink = this.matrixSink == null ? new MemoryMatrixSink() : this.matrixSink;
+		sink.open(numMatrices);
+		return sink;
+	}
+
+	/**
+	 * Close the matrix sink after the last matrix and keep the matrices as matrix results if the sink held them in
+	 * memory.
+	 *
+	 * @param sink The sink returned by {@link #openSink(int)}.
+	 */
+	private void closeSink(MatrixSink sink) {
+		sink.close();
+		this.matrixResults = sink instanceof MemoryMatrixSink ? ((MemoryMatrixSink) sink).getMatrices() : null;
+	}
+
 	/**
 	 * <p>Create a new Exporter class instance, holding an array list of export
 	 * statements (i.e., statements with added document information and a hash
@@ -324,6 +441,13 @@ public class Exporter {
 	 *       <li>{@code "dl"} (for UCINET DL full-matrix files)</li>
 	 *       <li>{@code "graphml"} (for visone {@code .graphml} files; this
 	 *         specification is also compatible with time windows)</li>
+	 *       <li>{@code "edgelist"} (for a CSV edge list of the non-zero cells
+	 *         of all networks in a single file, with a time slice column;
+	 *         compressed with gzip if the file name ends with
+	 *         {@code ".csv.gz"})</li>
+	 *       <li>{@code "dnanet"} (for a binary network container of all
+	 *         networks in a single file, which can be memory-mapped and read
+	 *         slice by slice using {@link NetworkContainer})</li>
 	 *     </ul>
 	 *   @param outfile The file name for saving the network.
 	 */
@@ -587,10 +711,10 @@ public class Exporter {
 		// check file export format and file name arguments
 		if (fileFormat != null) {
 			this.fileFormat = fileFormat.toLowerCase();
-			if (!this.fileFormat.equals("csv") && !this.fileFormat.equals("dl") && !this.fileFormat.equals("graphml")) {
+			if (!this.fileFormat.equals("csv") && !this.fileFormat.equals("dl") && !this.fileFormat.equals("graphml") && !this.fileFormat.equals("edgelist") && !this.fileFormat.equals("dnanet")) {
 				LogEvent le = new LogEvent(Logger.WARNING,
 						"Exporter: File format invalid.",
-						"When exporting a network, the file format setting was " + this.fileFormat + ", but \"csv\", \"dl\", and \"graphml\" are the only valid settings. Using \"graphml\" in this case.");
+						"When exporting a network, the file format setting was " + this.fileFormat + ", but \"csv\", \"dl\", \"graphml\", \"edgelist\", and \"dnanet\" are the only valid settings. Using \"graphml\" in this case.");
 				Dna.logger.log(le);
 				this.fileFormat = "graphml";
 			}
@@ -605,6 +729,10 @@ public class Exporter {
 				this.outfile = this.outfile + ".csv";
 			} else if (this.fileFormat.equals("dl") && !this.outfile.toLowerCase().endsWith(".dl")) {
 				this.outfile = this.outfile + ".dl";
+			} else if (this.fileFormat.equals("edgelist") && !this.outfile.toLowerCase().endsWith(".csv") && !this.outfile.toLowerCase().endsWith(".csv.gz")) {
+				this.outfile = this.outfile + ".csv";
+			} else if (this.fileFormat.equals("dnanet") && !this.outfile.toLowerCase().endsWith(".dnanet")) {
+				this.outfile = this.outfile + ".dnanet";
 			}
 		}
 
@@ -795,38 +923,29 @@ public class Exporter {
 			this.dataTypes.put(this.statementType.getVariables().get(i).getKey(), this.statementType.getVariables().get(i).getDataType());
 		}
 
-		// get documents and create document hash map for quick lookup
-		this.documents = Dna.sql.getTableDocuments(new int[0]);
-		Collections.sort(documents);
-		this.docMap = new HashMap<Integer, Integer>();
-		for (int i = 0; i < documents.size(); i++) {
-			docMap.put(documents.get(i).getId(), i);
-		}
-
-		// get statements and convert to {@link ExportStatement} objects with additional information
-		this.originalStatements = Dna.sql.getStatements(new int[0],
-				this.statementType.getId(),
-				this.startDateTime,
-				this.stopDateTime,
-				this.excludeAuthors,
-				this.invertAuthors,
-				this.excludeSources,
-				this.invertSources,
-				this.excludeSections,
-				this.invertSections,
-				this.excludeTypes,
-				this.invertTypes)
-		.stream()
-		.map(s -> {
-			int docIndex = docMap.get(s.getDocumentId());
-			return new ExportStatement(s,
-					documents.get(docIndex).getTitle(),
-					documents.get(docIndex).getAuthor(),
-					documents.get(docIndex).getSource(),
-					documents.get(docIndex).getSection(),
-					documents.get(docIndex).getType());
-		})
-		.collect(Collectors.toCollection(ArrayList::new));
+		// get documents and statements from the shared snapshot, which is only reloaded if the database has changed
+		StatementSnapshot snapshot = StatementSnapshot.get(this.statementType.getId());
+		if (snapshot == null) {
+			this.documents = new ArrayList<TableDocument>();
+			this.docMap = new HashMap<Integer, Integer>();
+			this.originalStatements = new ArrayList<ExportStatement>();
+		} else {
+			this.documents = snapshot.getDocuments();
+			this.docMap = snapshot.getDocumentMap();
+
+			// select the statements in the time period and with the document-level filters
+			this.originalStatements = snapshot.select(this.startDateTime,
+					this.stopDateTime,
+					this.excludeAuthors,
+					this.invertAuthors,
+					this.excludeSources,
+					this.invertSources,
+					this.excludeSections,
+					this.invertSections,
+					this.excludeTypes,
+					this.invertTypes);
+		}
+		this.statementTable = null; // created from the new statements when it is needed
 		if (this.originalStatements.size() == 0) {
 			Dna.logger.log(
 					new LogEvent(Logger.WARNING,
@@ -854,53 +973,32 @@ public class Exporter {
 			boolean variableDocument) {
 		
 		// decide whether to use the original statements or the filtered statements
-		ArrayList<ExportStatement> finalStatements;
+		int[] rows;
 		if (this.isolates) {
-			finalStatements = originalStatements;
+			rows = this.getStatementTable().allRows();
 		} else {
-			finalStatements = processedStatements;
-		}
-		
-		// go through statements and extract names
-		ArrayList<String> names = new ArrayList<String>();
-		String n = null;
-		ExportStatement es;
-		for (int i = 0; i < finalStatements.size(); i++) {
-			es = finalStatements.get(i);
-			if (variableDocument) {
-				if (variable.equals("author")) {
-					n = es.getAuthor();
-				} else if (variable.equals("source")) {
-					n = es.getSource();
-				} else if (variable.equals("section")) {
-					n = es.getSection();
-				} else if (variable.equals("type")) {
-					n = es.getType();
-				} else if (variable.equals("id")) {
-					n = es.getDocumentIdAsString();
-				} else if (variable.equals("title")) {
-					n = es.getTitle();
-				}
-			} else {
-				n = (String) es.get(variable).toString();
-			}
-			if (!names.contains(n)) {
-				names.add(n);
-			}
+			rows = this.getStatementTable().rows(processedStatements);
 		}
-		
-		// sort and convert to array, then return
-		Collections.sort(names);
-		if (names.size() > 0 && names.get(0).equals("")) { // remove empty field
-			names.remove(0);
+
+		// collect the unique labels (the dictionary is sorted, so the labels are sorted, too) and remove empty field
+		String[] names = this.getStatementTable().distinctLabels(rows, variable, variableDocument);
+		if (names.length > 0 && names[0].equals("")) {
+			names = Arrays.copyOfRange(names, 1, names.length);
 		}
-		String[] nameArray = new String[names.size()];
-		if (names.size() > 0) {
-			for (int i = 0; i < names.size(); i++) {
-				nameArray[i] = names.get(i);
-			}
+		return names;
+	}
+
+	/**
+	 * Get the statement table of the original statements, and create it if it
+	 * has not been created since the statements were loaded.
+	 *
+	 * @return The statement table.
+	 */
+	private StatementTable getStatementTable() {
+		if (this.statementTable == null) {
+			this.statementTable = new StatementTable(this.originalStatements, this.dataTypes);
 		}
-		return nameArray;
+		return this.statementTable;
 	}
 
 	/**
@@ -921,45 +1019,75 @@ public class Exporter {
 			// sort statements by date and time
 			Collections.sort(this.filteredStatements);
 
-			// Create arrays with variable values
-			String[] values1 = retrieveValues(this.filteredStatements, this.variable1, this.variable1Document);
-			String[] values2 = new String[0];
+			// create arrays with variable codes
+			int[] rows = this.getStatementTable().rows(this.filteredStatements);
+			int[] values1 = this.getStatementTable().codes(rows, this.variable1, this.variable1Document);
+			int empty1 = this.getStatementTable().lookup(this.variable1, this.variable1Document, "");
+			int[] values2 = new int[0];
+			int empty2 = -1;
 			if (this.variable2 != null) {
-				values2 = retrieveValues(this.filteredStatements, this.variable2, this.variable2Document);
+				values2 = this.getStatementTable().codes(rows, this.variable2, this.variable2Document);
+				empty2 = this.getStatementTable().lookup(this.variable2, this.variable2Document, "");
+			}
+			int[] qualifierValues = new int[0];
+			int emptyQualifier = -1;
+			if (this.qualifier != null && !this.qualifierAggregation.equals("ignore")) {
+				qualifierValues = this.getStatementTable().codes(rows, this.qualifier, this.qualifierDocument);
+				emptyQualifier = this.getStatementTable().lookup(this.qualifier, this.qualifierDocument, "");
 			}
-			String[] qualifierValues = new String[0];
-			if (this.qualifierDocument || (!this.qualifierAggregation.equals("ignore") && dataTypes.get(this.qualifier).equals("short text"))) {
-				qualifierValues = retrieveValues(this.filteredStatements, this.qualifier, this.qualifierDocument);
+			boolean checkEmptyQualifier = !this.qualifierAggregation.equals("ignore") && (qualifierDocument || dataTypes.get(qualifier).equals("short text"));
+
+			// translate excluded values into flags per code (or sets of raw values for boolean and integer variables)
+			String[] excludeKeys = this.excludeValues.keySet().toArray(new String[0]);
+			int[][] excludeColumns = new int[excludeKeys.length][];
+			boolean[][] excludedCodes = new boolean[excludeKeys.length][];
+			ArrayList<HashSet<Integer>> excludedIntegers = new ArrayList<HashSet<Integer>>();
+			for (int k = 0; k < excludeKeys.length; k++) {
+				String key = excludeKeys[k];
+				if (dataTypes.get(key) == null) {
+					if (this.filteredStatements.size() > 0) {
+						throw new NullPointerException("'" + key + "' is not a statement-level variable and cannot be excluded.");
+					}
+					excludedIntegers.add(null);
+					continue;
+				}
+				excludeColumns[k] = this.getStatementTable().column(key, false);
+				HashSet<Integer> integers = new HashSet<Integer>();
+				if (this.getStatementTable().isEncoded(key, false)) {
+					String[] dictionary = this.getStatementTable().dictionary(key, false);
+					excludedCodes[k] = new boolean[dictionary.length];
+					for (int j = 0; j < dictionary.length; j++) {
+						excludedCodes[k][j] = this.excludeValues.get(key).contains(dictionary[j]);
+					}
+				} else {
+					for (String v : this.excludeValues.get(key)) {
+						try {
+							int parsed = Integer.parseInt(v);
+							if (String.valueOf(parsed).equals(v)) { // only canonical representations would have matched before
+								integers.add(parsed);
+							}
+						} catch (NumberFormatException e) {
+							// not an integer, so it can never match
+						}
+					}
+				}
+				excludedIntegers.add(integers);
 			}
 
 			// process and exclude statements
-			ExportStatement s;
 			ArrayList<ExportStatement> al = new ArrayList<ExportStatement>();
-			String previousVar1 = null;
-			String previousVar2 = null;
-			String previousQualifier = null;
-			LocalDateTime cal, calPrevious;
-			int year, month, week, yearPrevious, monthPrevious, weekPrevious;
+			HashSet<DuplicateKey> accepted = new HashSet<DuplicateKey>(); // keys of the statements accepted so far
+			@SuppressWarnings("static-access")
+			WeekFields weekFields = WeekFields.of(Locale.UK.getDefault()); // use UK definition of calendar weeks
 			for (int i = 0; i < this.filteredStatements.size(); i++) {
 				boolean select = true;
-				s = this.filteredStatements.get(i);
+				int row = rows[i];
 
 				// check against excluded values
-				Iterator<String> keyIterator = this.excludeValues.keySet().iterator();
-				while (keyIterator.hasNext()) {
-					String key = keyIterator.next();
-					String string = "";
-					if (dataTypes.get(key) == null) {
-						throw new NullPointerException("'" + key + "' is not a statement-level variable and cannot be excluded.");
-					} else if (dataTypes.get(key).equals("boolean") || dataTypes.get(key).equals("integer")) {
-						string = String.valueOf(s.get(key));
-					} else if (dataTypes.get(key).equals("short text")) {
-						string = ((Entity) s.get(key)).getValue();
-					} else if (dataTypes.get(key).equals("long text")) {
-						string = (String) s.get(key);
-					}
-					if ((this.excludeValues.get(key).contains(string) && !this.invertValues) ||
-							(!this.excludeValues.get(key).contains(string) && this.invertValues)) {
+				for (int k = 0; k < excludeKeys.length; k++) {
+					int value = excludeColumns[k][row];
+					boolean excluded = excludedCodes[k] != null ? excludedCodes[k][value] : excludedIntegers.get(k).contains(value);
+					if ((excluded && !this.invertValues) || (!excluded && this.invertValues)) {
 						select = false;
 					}
 				}
@@ -968,96 +1096,41 @@ public class Exporter {
 				if (select &&
 						this.networkType != null &&
 						!this.networkType.equals("eventlist") &&
-						(values1[i].equals("") || values2[i].equals("") || (!this.qualifierAggregation.equals("ignore") && (qualifierDocument || dataTypes.get(qualifier).equals("short text")) && qualifierValues[i].equals("")))) {
+						(values1[i] == empty1 || values2[i] == empty2 || (checkEmptyQualifier && qualifierValues[i] == emptyQualifier))) {
 					select = false;
-				} else if (select && this.networkType == null && values1[i].equals("")) { // barplot data because no network type defined
+				} else if (select && this.networkType == null && values1[i] == empty1) { // barplot data because no network type defined
 					select = false;
 				}
 
-				// check for duplicates
-				cal = s.getDateTime();
-				year = cal.getYear();
-				month = cal.getMonthValue();
-				@SuppressWarnings("static-access")
-				WeekFields weekFields = WeekFields.of(Locale.UK.getDefault()); // use UK definition of calendar weeks
-				week = cal.get(weekFields.weekOfWeekBasedYear());
-				if (!this.duplicates.equals("include")) {
-					for (int j = al.size() - 1; j >= 0; j--) {
-						if (!this.variable1Document) {
-							previousVar1 = ((Entity) al.get(j).get(this.variable1)).getValue();
-						} else if (this.variable1.equals("author")) {
-							previousVar1 = al.get(j).getAuthor();
-						} else if (this.variable1.equals("source")) {
-							previousVar1 = al.get(j).getSource();
-						} else if (this.variable1.equals("section")) {
-							previousVar1 = al.get(j).getSection();
-						} else if (this.variable1.equals("type")) {
-							previousVar1 = al.get(j).getType();
-						} else if (this.variable1.equals("id")) {
-							previousVar1 = al.get(j).getDocumentIdAsString();
-						} else if (this.variable1.equals("title")) {
-							previousVar1 = al.get(j).getTitle();
-						}
-						if (this.variable2 != null) {
-							if (!this.variable2Document) {
-								previousVar2 = ((Entity) al.get(j).get(this.variable2)).getValue();
-							} else if (this.variable2.equals("author")) {
-								previousVar2 = al.get(j).getAuthor();
-							} else if (this.variable2.equals("source")) {
-								previousVar2 = al.get(j).getSource();
-							} else if (this.variable2.equals("section")) {
-								previousVar2 = al.get(j).getSection();
-							} else if (this.variable2.equals("type")) {
-								previousVar2 = al.get(j).getType();
-							} else if (this.variable2.equals("id")) {
-								previousVar2 = al.get(j).getDocumentIdAsString();
-							} else if (this.variable2.equals("title")) {
-								previousVar2 = al.get(j).getTitle();
-							}
-						}
-						if (!this.qualifierAggregation.equals("ignore") && (qualifierDocument || dataTypes.get(this.qualifier).equals("short text"))) {
-							if (!this.qualifierDocument) {
-								previousQualifier = ((Entity) al.get(j).get(this.qualifier)).getValue();
-							} else if (this.qualifier.equals("author")) {
-								previousQualifier = al.get(j).getAuthor();
-							} else if (this.qualifier.equals("source")) {
-								previousQualifier = al.get(j).getSource();
-							} else if (this.qualifier.equals("section")) {
-								previousQualifier = al.get(j).getSection();
-							} else if (this.qualifier.equals("type")) {
-								previousQualifier = al.get(j).getType();
-							} else if (this.qualifier.equals("id")) {
-								previousQualifier = al.get(j).getDocumentIdAsString();
-							} else if (this.qualifier.equals("title")) {
-								previousQualifier = al.get(j).getTitle();
-							}
-						}
-						calPrevious = al.get(j).getDateTime();
-						yearPrevious = calPrevious.getYear();
-						monthPrevious = calPrevious.getMonthValue();
-						@SuppressWarnings("static-access")
-						WeekFields weekFieldsPrevious = WeekFields.of(Locale.UK.getDefault()); // use UK definition of calendar weeks
-						weekPrevious = calPrevious.get(weekFieldsPrevious.weekOfWeekBasedYear());
-						if (s.getStatementTypeId() == al.get(j).getStatementTypeId()
-								&& ( (al.get(j).getDocumentId() == s.getDocumentId() && duplicates.equals("document"))
-								|| duplicates.equals("acrossrange")
-								|| (duplicates.equals("year") && year == yearPrevious)
-								|| (duplicates.equals("month") && month == monthPrevious)
-								|| (duplicates.equals("week") && week == weekPrevious) )
-								&& values1[i].equals(previousVar1)
-								&& (values2.length == 0 /* for barplot data */ || values2[i].equals(previousVar2))
-								&& (this.qualifierAggregation.equals("ignore")
-									|| (dataTypes.get(this.qualifier).equals("short text") && qualifierValues[i].equals(previousQualifier))
-									|| (!dataTypes.get(this.qualifier).equals("short text") && (Integer) s.get(this.qualifier) == (Integer) al.get(j).get(this.qualifier)))) {
-							select = false;
-							break;
-						}
+				// check for duplicates: a statement is a duplicate if an accepted statement has the same key
+				DuplicateKey key = null;
+				if (select && !this.duplicates.equals("include")) {
+					int bucket = 0; // "acrossrange": all statements share the same bucket
+					if (this.duplicates.equals("document")) {
+						bucket = this.getStatementTable().getDocumentId(row);
+					} else if (this.duplicates.equals("year")) {
+						bucket = this.filteredStatements.get(i).getDateTime().getYear();
+					} else if (this.duplicates.equals("month")) {
+						bucket = this.filteredStatements.get(i).getDateTime().getMonthValue(); // month of the year only, as in previous versions
+					} else if (this.duplicates.equals("week")) {
+						bucket = this.filteredStatements.get(i).getDateTime().get(weekFields.weekOfWeekBasedYear()); // week of the year only, as in previous versions
+					}
+					key = new DuplicateKey(this.getStatementTable().getStatementTypeId(row),
+							values1[i],
+							values2.length == 0 ? -1 : values2[i], // no second variable for barplot data
+							this.qualifierAggregation.equals("ignore") ? -1 : qualifierValues[i],
+							bucket);
+					if (accepted.contains(key)) {
+						select = false;
 					}
 				}
 
 				// add only if the statement passed all checks
 				if (select) {
-					al.add(s);
+					al.add(this.filteredStatements.get(i));
+					if (key != null) {
+						accepted.add(key);
+					}
 				}
 
 				pb.stepTo(i + 1);
@@ -1067,64 +1140,24 @@ public class Exporter {
 		}
 	}
 
-	/**
-	 * Retrieve the values across statements/documents given the name of the
-	 * variable. E.g., provide a variable name and information on whether the
-	 * variable is defined at the document level (e.g., author or section) or at
-	 * the statement level (e.g., organization), and return a one-dimensional
-	 * array of values (e.g., the organization names or authors for all
-	 * statements provided.
-	 * 
-	 * @param statements Original or filtered array list of statements.
-	 * @param variable String denoting the first variable (containing the row
-	 *   values).
-	 * @param documentLevel Indicates if the first variable is at the document
-	 *   level.
-	 * @return String array of values.
-	 */
-	private String[] retrieveValues(ArrayList<ExportStatement> statements, String variable, boolean documentLevel) {
-		ExportStatement s;
-		String[] values = new String[statements.size()];
-		for (int i = 0; i < statements.size(); i++) {
-			s = statements.get(i);
-			if (documentLevel) {
-				if (variable.equals("author")) {
-					values[i] = s.getAuthor();
-				} else if (variable.equals("source")) {
-					values[i] = s.getSource();
-				} else if (variable.equals("section")) {
-					values[i] = s.getSection();
-				} else if (variable.equals("type")) {
-					values[i] = s.getType();
-				} else if (variable.equals("id")) {
-					values[i] = s.getDocumentIdAsString();
-				} else if (variable.equals("title")) {
-					values[i] = s.getTitle();
-				}
-			} else {
-				values[i] = ((Entity) s.get(variable)).getValue();
-			}
-		}
-		return values;
-	}
-
 	/**
 	 * Count how often a value is used across the range of filtered statements.
 	 * 
-	 * @param variableValues String array of all values of a certain variable in
-	 *   a set of statements.
+	 * @param statements Original or filtered array list of statements.
+	 * @param variable The variable whose values are counted.
+	 * @param documentLevel Indicates if the variable is at the document level.
 	 * @param uniqueNames String array of unique values of the same variable
 	 *   across all statements.
 	 * @return {@link int} array of value frequencies for each unique value in
 	 *   same order as {@code uniqueNames}.
 	 */
-	private int[] countFrequencies(String[] variableValues, String[] uniqueNames) {
+	private int[] countFrequencies(ArrayList<ExportStatement> statements, String variable, boolean documentLevel, String[] uniqueNames) {
+		int[] codes = this.getStatementTable().codes(this.getStatementTable().rows(statements), variable, documentLevel);
+		int[] index = indexCodes(uniqueNames, variable, documentLevel);
 		int[] frequencies = new int[uniqueNames.length];
-		for (int i = 0; i < uniqueNames.length; i++) {
-			for (int j = 0; j < variableValues.length; j++) {
-				if (uniqueNames[i].equals(variableValues[j])) {
-					frequencies[i] = frequencies[i] + 1;
-				}
+		for (int i = 0; i < codes.length; i++) {
+			if (index[codes[i]] > -1) {
+				frequencies[index[codes[i]]] = frequencies[index[codes[i]]] + 1;
 			}
 		}
 		return frequencies;
@@ -1162,13 +1195,14 @@ public class Exporter {
 	}
 	
 	/**
-	 * Create a three-dimensional array (variable 1 x variable 2 x qualifier).
+	 * Create a sparse three-dimensional tensor (variable 1 x variable 2 x
+	 * qualifier) with the number of statements in each cell.
 	 * 
 	 * @param names1 {@link String} array containing the row labels.
 	 * @param names2 {@link String} array containing the column labels.
-	 * @return 3D double array.
+	 * @return A {@link SparseTensor} holding only the non-zero cells.
 	 */
-	private double[][][] createArray(ArrayList<ExportStatement> processedStatements, String[] names1, String[] names2) {
+	private SparseTensor createArray(ArrayList<ExportStatement> processedStatements, String[] names1, String[] names2) {
 
 		// unique qualifier values (i.e., all of them found at least once in the dataset)
 		String[] qualifierString = null;
@@ -1180,102 +1214,78 @@ public class Exporter {
 			qualifierInteger = new int[] {0, 1};
 			qualifierLength = 2;
 		} else if (!qualifierDocument && dataTypes.get(qualifier).equals("integer")) {
-			qualifierInteger = this.originalStatements
-					.stream()
-					.mapToInt(s -> (int) s.get(qualifier))
-					.distinct()
-					.sorted()
-					.toArray();
+			qualifierInteger = this.getStatementTable().distinctValues(qualifier);
 			qualifierLength = qualifierInteger.length;
 		} else if (!qualifierDocument && dataTypes.get(qualifier).equals("short text")) {
-			qualifierString = this.originalStatements
-					.stream()
-					.map(s -> (String) ((Entity) s.get(qualifier)).getValue())
-					.distinct()
-					.sorted()
-					.toArray(String[]::new);
+			qualifierString = this.getStatementTable().dictionary(qualifier, false);
 			qualifierLength = qualifierString.length;
 		} else if (qualifierDocument) {
-			qualifierString = Arrays.stream(retrieveValues(processedStatements, this.qualifier, this.qualifierDocument))
-					.distinct()
-					.sorted()
-					.toArray(String[]::new);
+			qualifierString = this.getStatementTable().distinctLabels(this.getStatementTable().rows(processedStatements), this.qualifier, true);
 			qualifierLength = qualifierString.length;
 		}
 
-		// Create arrays with variable values
-		String[] values1 = retrieveValues(processedStatements, variable1, variable1Document);
-		String[] values2 = retrieveValues(processedStatements, variable2, variable2Document);
-		
-		// create and populate array
-		double[][][] array = new double[names1.length][names2.length][qualifierLength]; // 3D array: rows x cols x qualifier value
-		for (int i = 0; i < processedStatements.size(); i++) {
-			String n1 = values1[i]; // retrieve first value from statement
-			String n2 = values2[i]; // retrieve second value from statement
-			String qString = null;
-			int qInteger = -1;
-			if (qualifier != null) {
-				if (this.qualifierDocument) {
-					TableDocument d = documents.get(docMap.get(processedStatements.get(i).getDocumentId()));
-					if (qualifier.equals("id")) {
-						qString = String.valueOf(d.getId());
-					} else if (qualifier.equals("title")) {
-						qString = d.getTitle();
-					} else if (qualifier.equals("author")) {
-						qString = d.getAuthor();
-					} else if (qualifier.equals("source")) {
-						qString = d.getSource();
-					} else if (qualifier.equals("section")) {
-						qString = d.getSection();
-					} else if (qualifier.equals("type")) {
-						qString = d.getType();
-					}
-					qInteger = -1;
-				} else if (dataTypes.get(qualifier).equals("short text")) {
-					qString = ((Entity) processedStatements.get(i).get(qualifier)).getValue(); // retrieve short text qualifier value from statement (via Entity)
-					qInteger = -1;
-				} else {
-					qInteger = (int) processedStatements.get(i).get(qualifier); // retrieve integer or boolean qualifier value from statement
-					qString = null;
-				}
-			}
-			
-			// find out which matrix row corresponds to the first value
-			int row = -1;
-			for (int j = 0; j < names1.length; j++) {
-				if (names1[j].equals(n1)) {
-					row = j;
-					break;
-				}
-			}
-			
-			// find out which matrix column corresponds to the second value
-			int col = -1;
-			for (int j = 0; j < names2.length; j++) {
-				if (names2[j].equals(n2)) {
-					col = j;
-					break;
-				}
+		// create arrays with variable codes and translate codes into matrix indices
+		int[] rows = this.getStatementTable().rows(processedStatements);
+		int[] values1 = this.getStatementTable().codes(rows, variable1, variable1Document);
+		int[] values2 = this.getStatementTable().codes(rows, variable2, variable2Document);
+		int[] rowIndex = indexCodes(names1, variable1, variable1Document);
+		int[] colIndex = indexCodes(names2, variable2, variable2Document);
+		int[] qualifierValues = null;
+		int[] qualifierIndex = null;
+		if (qualifier != null && qualifierLength > 1) {
+			qualifierValues = this.getStatementTable().codes(rows, qualifier, qualifierDocument);
+			if (qualifierString != null) {
+				qualifierIndex = indexCodes(qualifierString, qualifier, qualifierDocument);
 			}
-			
+		}
+
+		// find the row, column, and qualifier level of each statement and populate the tensor
+		int[] rowIndices = new int[rows.length];
+		int[] colIndices = new int[rows.length];
+		int[] qualIndices = new int[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			rowIndices[i] = rowIndex[values1[i]]; // matrix row corresponding to the first value
+			colIndices[i] = colIndex[values2[i]]; // matrix column corresponding to the second value
+
 			// find out which qualifier level corresponds to the qualifier value
 			int qual = 0;
-			if (qualifierLength > 1) {
-				for (int j = 0; j < qualifierLength; j++) {
-					if (qualifierDocument && qualifierString[j].equals(qString) ||
-							(dataTypes.containsKey(qualifier) && dataTypes.get(qualifier).equals("short text") && qualifierString[j].equals(qString)) ||
-							(!qualifierDocument && !dataTypes.get(qualifier).equals("short text") && qualifierInteger[j] == qInteger)) {
-						qual = j;
-						break;
-					}
+			if (qualifierValues != null) {
+				if (qualifierIndex != null) {
+					qual = qualifierIndex[qualifierValues[i]];
+				} else {
+					qual = Arrays.binarySearch(qualifierInteger, qualifierValues[i]);
+				}
+				if (qual < 0) {
+					qual = 0;
 				}
 			}
+			qualIndices[i] = qual;
+		}
+
+		// note that duplicates were dealt with at the statement filter stage
+		return new SparseTensor(names1.length, names2.length, qualifierLength, rowIndices, colIndices, qualIndices);
+	}
 
-			// add match to matrix (note that duplicates were dealt with at the statement filter stage)
-			array[row][col][qual] = array[row][col][qual] + 1.0;
+	/**
+	 * Create a lookup array that maps the codes of a dictionary-encoded
+	 * variable to their positions in an array of labels.
+	 *
+	 * @param labels The labels, for example the row names of a matrix.
+	 * @param variable The variable name.
+	 * @param documentLevel Is the variable a document-level variable?
+	 * @return An int array indexed by code, containing the position of the
+	 *   respective label in {@code labels} or {@code -1} if it is absent.
+	 */
+	private int[] indexCodes(String[] labels, String variable, boolean documentLevel) {
+		int[] index = new int[this.getStatementTable().dictionary(variable, documentLevel).length];
+		Arrays.fill(index, -1);
+		for (int i = 0; i < labels.length; i++) {
+			int code = this.getStatementTable().lookup(variable, documentLevel, labels[i]);
+			if (code > -1) {
+				index[code] = i;
+			}
 		}
-		
-		return array;
+		return index;
 	}
 	
 	/**
@@ -1299,10 +1309,10 @@ public class Exporter {
 	 * Wrapper method to compute one-mode network matrix with class settings and save within class.
 	 */
 	private void computeOneModeMatrix() {
-		ArrayList<Matrix> matrices = new ArrayList<Matrix>(); 
-		matrices.add(this.computeOneModeMatrix(this.filteredStatements,
+		MatrixSink sink = openSink(1);
+		sink.accept(this.computeOneModeMatrix(this.filteredStatements,
 				this.qualifierAggregation, this.startDateTime, this.stopDateTime));
-		this.matrixResults = matrices;
+		closeSink(sink);
 	}
 
 	/**
@@ -1321,13 +1331,48 @@ public class Exporter {
 	 *   matrix.
 	 */
 	Matrix computeOneModeMatrix(ArrayList<ExportStatement> processedStatements, String aggregation, LocalDateTime start, LocalDateTime stop) {
+		return computeOneModeMatrices(processedStatements, new String[] { aggregation }, start, stop)[0];
+	}
+
+	/**
+	 * Create one-mode networks of the filtered statements with several
+	 * qualifier aggregations at once, for example the congruence and the
+	 * conflict network for polarization. The labels and the tensor are
+	 * created only once, and all networks are projected in a single pass over
+	 * the tensor. The results are identical to separate computations with
+	 * each qualifier aggregation.
+	 *
+	 * @param aggregations The qualifier aggregations, for example
+	 *   {@code "congruence"}, {@code "conflict"}, and {@code "subtract"}.
+	 * @return An array with one {@link Matrix} per qualifier aggregation, in
+	 *   the same order.
+	 */
+	public Matrix[] computeOneModeMatrices(String... aggregations) {
+		return computeOneModeMatrices(this.filteredStatements, aggregations, this.startDateTime, this.stopDateTime);
+	}
+
+	/**
+	 * Create one-mode network matrices with several qualifier aggregations in
+	 * a single pass over the tensor.
+	 *
+	 * @param processedStatements Usually the filtered list of export
+	 *   statements, but it can be a more processed list of export statements.
+	 * @param aggregations The qualifier aggregations.
+	 * @param start Start date/time.
+	 * @param stop End date/time.
+	 * @return An array with one {@link Matrix} per qualifier aggregation.
+	 */
+	Matrix[] computeOneModeMatrices(ArrayList<ExportStatement> processedStatements, String[] aggregations, LocalDateTime start, LocalDateTime stop) {
 		String[] names1 = this.extractLabels(processedStatements, this.variable1, this.variable1Document);
 		String[] names2 = this.extractLabels(processedStatements, this.variable2, this.variable2Document);
 
+		Matrix[] matrices = new Matrix[aggregations.length];
 		if (processedStatements.size() == 0) {
-			double[][] m = new double[names1.length][names1.length];
-			Matrix mt = new Matrix(m, names1, names1, true, start, stop);
-			return mt;
+			for (int a = 0; a < aggregations.length; a++) {
+				double[][] m = new double[names1.length][names1.length];
+				matrices[a] = new Matrix(m, names1, names1, true, start, stop);
+			}
+			return matrices;
 		}
 
 		String[] qualifierString;
@@ -1339,162 +1384,246 @@ public class Exporter {
 			qualifierInteger = new int[] {0, 1};
 			qualifierLength = 2;
 		} else if (!qualifierDocument && dataTypes.get(qualifier).equals("integer")) {
-			qualifierInteger = this.originalStatements
-					.stream()
-					.mapToInt(s -> (int) s.get(qualifier))
-					.distinct()
-					.sorted()
-					.toArray();
+			qualifierInteger = this.getStatementTable().distinctValues(qualifier);
 			qualifierLength = qualifierInteger.length;
 		} else if (!qualifierDocument && dataTypes.get(qualifier).equals("short text")) {
-			qualifierString = this.originalStatements
-					.stream()
-					.map(s -> (String) ((Entity) s.get(qualifier)).getValue())
-					.distinct()
-					.sorted()
-					.toArray(String[]::new);
+			qualifierString = this.getStatementTable().dictionary(qualifier, false);
 			qualifierLength = qualifierString.length;
 		} else if (qualifierDocument) {
-			qualifierString = Arrays.stream(retrieveValues(processedStatements, this.qualifier, this.qualifierDocument))
-					.distinct()
-					.sorted()
-					.toArray(String[]::new);
+			qualifierString = this.getStatementTable().distinctLabels(this.getStatementTable().rows(processedStatements), this.qualifier, true);
 			qualifierLength = qualifierString.length;
 		}
 
-		double[][][] array = createArray(processedStatements, names1, names2);
-		double[][] mat1 = new double[names1.length][names1.length];  // square matrix for results
+		SparseTensor array = createArray(processedStatements, names1, names2);
+		double[][][] mats = new double[aggregations.length][names1.length][names1.length]; // square matrices for results
 		double range = Math.abs(qualifierInteger[qualifierInteger.length - 1] - qualifierInteger[0]);
+		boolean[] textQualifier = new boolean[aggregations.length];
+		boolean[] numericQualifier = new boolean[aggregations.length];
+		for (int a = 0; a < aggregations.length; a++) {
+			textQualifier[a] = !aggregations[a].equals("ignore") && (qualifierDocument || dataTypes.get(qualifier).equals("short text"));
+			numericQualifier[a] = !aggregations[a].equals("ignore") && !textQualifier[a] && (dataTypes.get(qualifier).equals("boolean") || dataTypes.get(qualifier).equals("integer"));
+		}
+
+		// compute blocks of rows in parallel on the fork-join pool; each block has its own work arrays, and every cell is
+		// computed by exactly one block in the same order as in a sequential run, so the results are deterministic
+		final int[] qualifierLevels = qualifierInteger;
+		final int numBlocks = (names1.length + ONE_MODE_BLOCK_SIZE - 1) / ONE_MODE_BLOCK_SIZE;
+		IntStream blocks = IntStream.range(0, numBlocks);
+		if (numBlocks > 1) {
+			blocks = blocks.parallel();
+		}
+		blocks.forEach(block -> {
+			double[][] sums = new double[aggregations.length][names1.length];
+			double[][] results = new double[aggregations.length][];
+			double[] common1 = new double[names1.length];
+			double[] common2 = new double[names1.length];
+			double[] commonProduct = new double[names1.length];
+			int last = Math.min(names1.length, (block + 1) * ONE_MODE_BLOCK_SIZE);
+			for (int i1 = block * ONE_MODE_BLOCK_SIZE; i1 < last; i1++) {
+				for (int a = 0; a < aggregations.length; a++) {
+					results[a] = mats[a][i1];
+				}
+				projectOneModeRow(array, i1, aggregations, textQualifier, numericQualifier, qualifierLevels, range, results, sums, common1, common2, commonProduct);
+			}
+		});
+
+		for (int a = 0; a < aggregations.length; a++) {
+			matrices[a] = new Matrix(mats[a], names1, names1, isIntegerOneModeMatrix(aggregations[a]), start, stop);
+			matrices[a].setNumStatements(this.filteredStatements.size());
+		}
+		return matrices;
+	}
 
+	/**
+	 * Does a one-mode matrix contain only integer values? This is the case
+	 * if there is no normalization and the qualifier is ignored or a boolean,
+	 * short text, or document-level variable.
+	 *
+	 * @param aggregation The qualifier aggregation.
+	 * @return {@code true} if the matrix contains only integer values.
+	 */
+	boolean isIntegerOneModeMatrix(String aggregation) {
+		return this.normalization.equals("no") && (aggregation.equals("ignore") || qualifierDocument || dataTypes.get(qualifier).equals("boolean") || dataTypes.get(qualifier).equals("short text"));
+	}
+
+	/**
+	 * Compute one row of one or more one-mode network matrices from a sparse
+	 * tensor. Only the non-zero cells of the row and the non-zero cells of the
+	 * columns (concepts) used in the row are visited. The edge weight of every
+	 * pair is derived from the sums over the shared cells and the row totals,
+	 * and the terms are added in the same order as in a dense loop over
+	 * concepts and qualifier levels, which yields identical results. The sums
+	 * over the shared cells are collected once for all qualifier aggregations.
+	 *
+	 * @param array The sparse tensor (rows x concepts x qualifier levels).
+	 * @param i1 The row for which the edge weights are computed.
+	 * @param aggregations The qualifier aggregations.
+	 * @param textQualifier Is the qualifier a short text or document-level
+	 *   variable and not ignored? One value per qualifier aggregation.
+	 * @param numericQualifier Is the qualifier a boolean or integer variable
+	 *   and not ignored? One value per qualifier aggregation.
+	 * @param qualifierInteger The levels of a boolean or integer qualifier.
+	 * @param range The range of the levels of a boolean or integer qualifier.
+	 * @param results The matrix rows to fill, one per qualifier aggregation.
+	 *   Must contain zeros.
+	 * @param sums Work arrays for the edge weights, one per qualifier
+	 *   aggregation, with one cell per row.
+	 * @param common1 Work array for the counts of row {@code i1} in cells
+	 *   shared with the other rows.
+	 * @param common2 Work array for the counts of the other rows in cells
+	 *   shared with row {@code i1}.
+	 * @param commonProduct Work array for the products of counts in shared
+	 *   cells.
+	 */
+	private void projectOneModeRow(SparseTensor array, int i1, String[] aggregations, boolean[] textQualifier, boolean[] numericQualifier,
+			int[] qualifierInteger, double range, double[][] results, double[][] sums, double[] common1, double[] common2, double[] commonProduct) {
+		int n = array.getNumRows();
+		for (double[] sum : sums) {
+			Arrays.fill(sum, 0.0);
+		}
+		Arrays.fill(common1, 0.0);
+		Arrays.fill(common2, 0.0);
+		Arrays.fill(commonProduct, 0.0);
+		boolean anyNumeric = false;
+		for (boolean numeric : numericQualifier) {
+			anyNumeric = anyNumeric || numeric;
+		}
+
+		// walk through the non-zero cells of row i1, which are sorted by concept and qualifier level
 		double i1count = 0.0;
-		double i2count = 0.0;
-		for (int i1 = 0; i1 < names1.length; i1++) {
-			for (int i2 = 0; i2 < names1.length; i2++) {
-				if (i1 != i2) {
-					for (int j = 0; j < names2.length; j++) {
-						// "ignore": sum up i1 and i2 independently over levels of k, then multiply.
-						// In the binary case, this amounts to counting how often each concept is used and then multiplying frequencies.
-						if (aggregation.equals("ignore")) {
-							i1count = 0.0;
-							i2count = 0.0;
-							for (int k = 0; k < qualifierLength; k++) {
-								i1count = i1count + array[i1][j][k];
-								i2count = i2count + array[i2][j][k];
-							}
-							mat1[i1][i2] = mat1[i1][i2] + i1count * i2count;
-						} else {
-							if (qualifierDocument || dataTypes.get(qualifier).equals("short text")) {
-								for (int k = 0; k < qualifierLength; k++) {
-									if (aggregation.equals("congruence")) {
-										mat1[i1][i2] = mat1[i1][i2] + (array[i1][j][k] * array[i2][j][k]); // multiply matches on the qualifier and add
-									} else if (aggregation.equals("conflict")) {
-										if (array[i1][j][k] > 0 && array[i2][j][k] == 0) {
-											mat1[i1][i2] = mat1[i1][i2] + array[i1][j][k]; // add counts where only i1 is active
-										} else if (array[i1][j][k] == 0 && array[i2][j][k] > 0) {
-											mat1[i1][i2] = mat1[i1][i2] + array[i2][j][k]; // add counts where only i2 is active
-										}
-									} else if (aggregation.equals("subtract")) {
-										mat1[i1][i2] = mat1[i1][i2] + (array[i1][j][k] * array[i2][j][k]); // multiply matches on the qualifier and add
-										if (array[i1][j][k] > 0 && array[i2][j][k] == 0) {
-											mat1[i1][i2] = mat1[i1][i2] - array[i1][j][k]; // subtract counts where only i1 is active
-										} else if (array[i1][j][k] == 0 && array[i2][j][k] > 0) {
-											mat1[i1][i2] = mat1[i1][i2] - array[i2][j][k]; // subtract counts where only i2 is active
-										}
-									}
-								}
-							} else if (dataTypes.get(qualifier).equals("boolean") || dataTypes.get(qualifier).equals("integer")) {
-								for (int k1 = 0; k1 < qualifierLength; k1++) {
-									for (int k2 = 0; k2 < qualifierLength; k2++) {
-										if (aggregation.equals("congruence")) {
-											// "congruence": sum up proximity of i1 and i2 per level of k, weighted by joint usage.
-											// In the binary case, this reduces to the sum of weighted matches per level of k
-											mat1[i1][i2] = mat1[i1][i2] + (array[i1][j][k1] * array[i2][j][k2] * (1.0 - ((Math.abs(qualifierInteger[k1] - qualifierInteger[k2]) / range))));
-										} else if (aggregation.equals("conflict")) {
-											// "conflict": same as congruence, but distance instead of proximity
-											mat1[i1][i2] = mat1[i1][i2] + (array[i1][j][k1] * array[i2][j][k2] * ((Math.abs(qualifierInteger[k1] - qualifierInteger[k2]) / range)));
-										} else if (aggregation.equals("subtract")) {
-											// "subtract": congruence - conflict
-											mat1[i1][i2] = mat1[i1][i2] + (array[i1][j][k1] * array[i2][j][k2] * (1.0 - ((Math.abs(qualifierInteger[k1] - qualifierInteger[k2]) / range))));
-											mat1[i1][i2] = mat1[i1][i2] - (array[i1][j][k1] * array[i2][j][k2] * ((Math.abs(qualifierInteger[k1] - qualifierInteger[k2]) / range)));
-										}
-									}
-								}
-							}
-						}
+		for (int e = array.rowStart(i1); e < array.rowEnd(i1); e++) {
+			int j = array.column(e);
+			int k1 = array.level(e);
+			double a1 = array.value(e);
+
+			// shared cells with the same concept and qualifier level
+			for (int f = array.fiberStart(j, k1); f < array.fiberEnd(j, k1); f++) {
+				int i2 = array.transposedRow(f);
+				double a2 = array.transposedValue(f);
+				common1[i2] = common1[i2] + a1;
+				common2[i2] = common2[i2] + a2;
+				commonProduct[i2] = commonProduct[i2] + (a1 * a2);
+			}
+
+			// "ignore": sum up i1 and i2 independently over levels of k, then multiply
+			i1count = i1count + a1;
+			boolean lastLevel = e + 1 == array.rowEnd(i1) || array.column(e + 1) != j; // last qualifier level of concept j in row i1
+			for (int a = 0; a < aggregations.length; a++) {
+				if (lastLevel && aggregations[a].equals("ignore")) {
+					double[] sum = sums[a];
+					for (int f = array.columnStart(j); f < array.columnEnd(j); f++) {
+						int i2 = array.transposedRow(f);
+						sum[i2] = sum[i2] + i1count * array.transposedValue(f);
 					}
+				}
+			}
+			if (lastLevel) {
+				i1count = 0.0;
+			}
 
-					// normalization
-					double norm = 1.0;
-					if (this.normalization.equals("no")) {
-						norm = 1.0;
-					} else if (this.normalization.equals("average")) {
-						i1count = 0.0;
-						i2count = 0.0;
-						for (int j = 0; j < names2.length; j++) {
-							for (int k = 0; k < qualifierLength; k++) {
-								i1count = i1count + array[i1][j][k];
-								i2count = i2count + array[i2][j][k];
-							}
-						}
-						norm = (i1count + i2count) / 2;
-					} else if (this.normalization.equals("jaccard")) {
-						double m10 = 0.0;
-						double m01 = 0.0;
-						double m11 = 0.0;
-						for (int j = 0; j < names2.length; j++) {
-							for (int k = 0; k < qualifierLength; k++) {
-								if (array[i2][j][k] == 0) {
-									m10 = m10 + array[i1][j][k];
-								}
-								if (array[i1][j][k] == 0) {
-									m01 = m01 + array[i2][j][k];
-								}
-								if (array[i1][j][k] > 0 && array[i2][j][k] > 0) {
-									m11 = m11 + (array[i1][j][k] * array[i2][j][k]);
-								}
-							}
+			if (anyNumeric) {
+				// proximity of i1 and i2 per pair of levels, weighted by joint usage, in the order j, k1, k2
+				for (int f = array.columnStart(j); f < array.columnEnd(j); f++) {
+					int i2 = array.transposedRow(f);
+					int k2 = array.transposedLevel(f);
+					double a2 = array.transposedValue(f);
+					double difference = Math.abs(qualifierInteger[k1] - qualifierInteger[k2]) / range;
+					for (int a = 0; a < aggregations.length; a++) {
+						if (!numericQualifier[a]) {
+							continue;
 						}
-						norm = m01 + m10 + m11;
-					} else if (this.normalization.equals("cosine")) {
-						i1count = 0.0;
-						i2count = 0.0;
-						for (int j = 0; j < names2.length; j++) {
-							for (int k = 0; k < qualifierLength; k++) {
-								i1count = i1count + array[i1][j][k];
-								i2count = i2count + array[i2][j][k];
-							}
+						double[] sum = sums[a];
+						if (aggregations[a].equals("congruence")) {
+							sum[i2] = sum[i2] + (a1 * a2 * (1.0 - difference));
+						} else if (aggregations[a].equals("conflict")) {
+							sum[i2] = sum[i2] + (a1 * a2 * difference);
+						} else if (aggregations[a].equals("subtract")) {
+							sum[i2] = sum[i2] + (a1 * a2 * (1.0 - difference));
+							sum[i2] = sum[i2] - (a1 * a2 * difference);
 						}
-						norm = Math.sqrt(i1count * i1count) * Math.sqrt(i2count * i2count);
-					}
-					if (norm == 0) {
-						mat1[i1][i2] = 0;
-					} else {
-						mat1[i1][i2] = mat1[i1][i2] / norm;
 					}
 				}
 			}
 		}
 
-		// does the matrix contain only integer values? (i.e., no normalization and boolean or short text qualifier)
-		boolean integerBoolean;
-		if (this.normalization.equals("no") && (aggregation.equals("ignore") || qualifierDocument || dataTypes.get(qualifier).equals("boolean") || dataTypes.get(qualifier).equals("short text"))) {
-			integerBoolean = true;
-		} else {
-			integerBoolean = false;
+		double total1 = array.rowTotal(i1);
+		for (int a = 0; a < aggregations.length; a++) {
+			double[] sum = sums[a];
+			double[] result = results[a];
+			for (int i2 = 0; i2 < n; i2++) {
+				if (i1 != i2) {
+					result[i2] = oneModeCellValue(aggregations[a], textQualifier[a], numericQualifier[a], range, array.getNumColumns(),
+							total1, array.rowTotal(i2), common1[i2], common2[i2], commonProduct[i2], sum[i2]);
+				}
+			}
 		}
+	}
 
-		Matrix matrix = new Matrix(mat1, names1, names1, integerBoolean, start, stop);
-		matrix.setNumStatements(this.filteredStatements.size());
-		return matrix;
+	/**
+	 * Compute the normalized edge weight of a pair of nodes in a one-mode
+	 * network from the sums collected over the tensor cells of both nodes.
+	 *
+	 * @param aggregation The qualifier aggregation.
+	 * @param textQualifier Is the qualifier a short text or document-level
+	 *   variable and not ignored?
+	 * @param numericQualifier Is the qualifier a boolean or integer variable
+	 *   and not ignored?
+	 * @param range The range of the levels of a boolean or integer qualifier.
+	 * @param numColumns The number of concepts (columns of the tensor).
+	 * @param total1 The sum of all cells of the first node.
+	 * @param total2 The sum of all cells of the second node.
+	 * @param common1 The sum of the cells of the first node where both nodes
+	 *   are active (same concept and qualifier level).
+	 * @param common2 The sum of the cells of the second node where both nodes
+	 *   are active.
+	 * @param commonProduct The sum of the products of cells where both nodes
+	 *   are active.
+	 * @param sum The aggregated weight for the "ignore" aggregation or a
+	 *   boolean or integer qualifier.
+	 * @return The edge weight after normalization.
+	 */
+	double oneModeCellValue(String aggregation, boolean textQualifier, boolean numericQualifier, double range, int numColumns,
+			double total1, double total2, double common1, double common2, double commonProduct, double sum) {
+		double only1 = total1 - common1; // counts where only the first node is active
+		double only2 = total2 - common2; // counts where only the second node is active
+		double value = sum;
+		if (textQualifier) {
+			if (aggregation.equals("congruence")) {
+				value = commonProduct;
+			} else if (aggregation.equals("conflict")) {
+				value = only1 + only2;
+			} else if (aggregation.equals("subtract")) {
+				value = commonProduct - only1 - only2;
+			}
+		} else if (numericQualifier && range == 0 && numColumns > 0) {
+			value = Double.NaN; // a single qualifier level yields a division by zero for every concept
+		}
+
+		// normalization
+		double norm = 1.0;
+		if (this.normalization.equals("no")) {
+			norm = 1.0;
+		} else if (this.normalization.equals("average")) {
+			norm = (total1 + total2) / 2;
+		} else if (this.normalization.equals("jaccard")) {
+			norm = only2 + only1 + commonProduct;
+		} else if (this.normalization.equals("cosine")) {
+			norm = Math.sqrt(total1 * total1) * Math.sqrt(total2 * total2);
+		}
+		if (norm == 0) {
+			return 0;
+		} else {
+			return value / norm;
+		}
 	}
 
 	/**
 	 * Wrapper method to compute two-mode network matrix with class settings.
 	 */
 	public void computeTwoModeMatrix() {
-		ArrayList<Matrix> matrices = new ArrayList<Matrix>(); 
-		matrices.add(this.computeTwoModeMatrix(this.filteredStatements,	this.startDateTime, this.stopDateTime));
-		this.matrixResults = matrices;
+		MatrixSink sink = openSink(1);
+		sink.accept(this.computeTwoModeMatrix(this.filteredStatements,	this.startDateTime, this.stopDateTime));
+		closeSink(sink);
 	}
 
 	/**
@@ -1526,86 +1655,79 @@ public class Exporter {
 			qualifierInteger = new int[] {0, 1};
 			qualifierLength = 2;
 		} else if (!qualifierDocument && dataTypes.get(qualifier).equals("integer")) {
-			qualifierInteger = this.originalStatements
-					.stream()
-					.mapToInt(s -> (int) s.get(qualifier))
-					.distinct()
-					.sorted()
-					.toArray();
+			qualifierInteger = this.getStatementTable().distinctValues(qualifier);
 			qualifierLength = qualifierInteger.length;
 		} else if (!qualifierDocument && dataTypes.get(qualifier).equals("short text")) {
-			qualifierString = this.originalStatements
-					.stream()
-					.map(s -> (String) ((Entity) s.get(qualifier)).getValue())
-					.distinct()
-					.sorted()
-					.toArray(String[]::new);
+			qualifierString = this.getStatementTable().dictionary(qualifier, false);
 			qualifierLength = qualifierString.length;
 		} else if (qualifierDocument) {
-			qualifierString = Arrays.stream(retrieveValues(processedStatements, this.qualifier, this.qualifierDocument))
-					.distinct()
-					.sorted()
-					.toArray(String[]::new);
+			qualifierString = this.getStatementTable().distinctLabels(this.getStatementTable().rows(processedStatements), this.qualifier, true);
 			qualifierLength = qualifierString.length;
 		}
 
-		double[][][] array = createArray(processedStatements, names1, names2);
+		SparseTensor array = createArray(processedStatements, names1, names2);
 
 		// combine levels of the qualifier variable conditional on qualifier aggregation option
 		double[][] mat = new double[names1.length][names2.length];  // initialized with zeros
 		HashMap<Integer, ArrayList> combinations = new HashMap<Integer, ArrayList>();
+		ArrayList qualVal = null;
+		if (this.qualifierAggregation.equals("combine")) { // the labels of all qualifier levels, which are reported for each combination
+			if (qualifierDocument || dataTypes.get(qualifier).equals("short text")) {
+				qualVal = new ArrayList<String>();
+				for (int k = 0; k < qualifierLength; k++) {
+					assert qualifierString != null;
+					qualVal.add(qualifierString[k]);
+				}
+			} else {
+				qualVal = new ArrayList<Integer>();
+				for (int k = 0; k < qualifierLength; k++) {
+					qualVal.add(qualifierInteger[k]);
+				}
+			}
+		}
+		int nonEmptyCells = 0;
 		for (int i = 0; i < names1.length; i++) {
-			for (int j = 0; j < names2.length; j++) {
+			int e = array.rowStart(i);
+			while (e < array.rowEnd(i)) { // go through the non-empty cells of row i; cells are sorted by column and qualifier level
+				int j = array.column(e);
+				nonEmptyCells++;
 				if (this.qualifierAggregation.equals("combine")) { // combine
-					double[] vec = array[i][j]; // may be weighted, so create a second, binary vector vec2
-					int[] vec2 = new int[vec.length];
-					ArrayList qualVal;
-					if (qualifierDocument || dataTypes.get(qualifier).equals("short text")) {
-						qualVal = new ArrayList<String>();
-						for (int k = 0; k < vec.length; k++) {
-							if (vec[k] > 0) {
-								vec2[k] = 1;
-							}
-							assert qualifierString != null;
-							qualVal.add(qualifierString[k]);
-						}
-					} else {
-						qualVal = new ArrayList<Integer>();
-						for (int k = 0; k < vec.length; k++) {
-							if (vec[k] > 0) {
-								vec2[k] = 1;
-							}
-							qualVal.add(qualifierInteger[k]);
-						}
+					int[] vec2 = new int[qualifierLength]; // binary version of the (possibly weighted) qualifier vector
+					for (; e < array.rowEnd(i) && array.column(e) == j; e++) {
+						vec2[array.level(e)] = 1;
 					}
 					int lr = lexRank(vec2);
 					mat[i][j] = lr; // compute lexical rank, i.e., map the combination of values to a single integer
 					combinations.put(lr, qualVal); // the bijection needs to be stored for later reporting
 				} else {
-					for (int k = 0; k < qualifierLength; k++) {
+					for (; e < array.rowEnd(i) && array.column(e) == j; e++) {
+						int k = array.level(e);
 						if (this.qualifierAggregation.equals("ignore")) { // ignore
-							mat[i][j] = mat[i][j] + array[i][j][k]; // duplicates were already filtered out in the statement filter, so just add
+							mat[i][j] = mat[i][j] + array.value(e); // duplicates were already filtered out in the statement filter, so just add
 						} else if (this.qualifierAggregation.equals("subtract")) { // subtract
 							if (!qualifierDocument && dataTypes.get(qualifier).equals("integer")) {
 								if (qualifierInteger[k] < 0) { // subtract weighted absolute value
-									mat[i][j] = mat[i][j] - (Math.abs(qualifierInteger[k]) * array[i][j][k]);
+									mat[i][j] = mat[i][j] - (Math.abs(qualifierInteger[k]) * array.value(e));
 								} else if (qualifierInteger[k] >= 0) { // add weighted absolute value
-									mat[i][j] = mat[i][j] + (Math.abs(qualifierInteger[k]) * array[i][j][k]);
+									mat[i][j] = mat[i][j] + (Math.abs(qualifierInteger[k]) * array.value(e));
 								}
 							} else if (!qualifierDocument && dataTypes.get(qualifier).equals("boolean")) {
 								if (qualifierInteger[k] == 0) { // zero category: subtract number of times this happens from edge weight
-									mat[i][j] = mat[i][j] - array[i][j][k];
+									mat[i][j] = mat[i][j] - array.value(e);
 								} else if (qualifierInteger[k] > 0) { // one category: add number of times this happens to edge weight
-									mat[i][j] = mat[i][j] + array[i][j][k];
+									mat[i][j] = mat[i][j] + array.value(e);
 								}
 							} else if (qualifierDocument || dataTypes.get(qualifier).equals("short text")) {
-								mat[i][j] = mat[i][j] + array[i][j][k]; // nothing to subtract because there is no negative mention with short text variables
+								mat[i][j] = mat[i][j] + array.value(e); // nothing to subtract because there is no negative mention with short text variables
 							}
 						}
 					}
 				}
 			}
 		}
+		if (this.qualifierAggregation.equals("combine") && nonEmptyCells < names1.length * names2.length) {
+			combinations.put(0, qualVal); // empty cells map onto the combination without any qualifier level
+		}
 
 		// report combinations if necessary
 		if (combinations.size() > 0) {
@@ -1649,12 +1771,8 @@ public class Exporter {
 							currentDenominator = currentDenominator + 1.0;
 						}
 					}
-				} else if (qualifierAggregation.equals("subtract")) { // iterate through array and sum for different levels
-					for (int j = 0; j < names2.length; j++) {
-						for (int k = 0; k < qualifierLength; k++) {
-							currentDenominator = currentDenominator + array[i][j][k];
-						}
-					}
+				} else if (qualifierAggregation.equals("subtract")) { // sum over the array for different levels
+					currentDenominator = array.rowTotal(i);
 				}
 				for (int j = 0; j < names2.length; j++) { // divide all values by current denominator
 					if (currentDenominator == 0) {
@@ -1683,12 +1801,8 @@ public class Exporter {
 							currentDenominator = currentDenominator + 1.0;
 						}
 					}
-				} else if (this.qualifierAggregation.equals("subtract")) { // iterate through array and sum for different levels
-					for (int j = 0; j < names1.length; j++) {
-						for (int k = 0; k < qualifierLength; k++) {
-							currentDenominator = currentDenominator + array[j][i][k];
-						}
-					}
+				} else if (this.qualifierAggregation.equals("subtract")) { // sum over the array for different levels
+					currentDenominator = array.columnTotal(i);
 				}
 				for (int j = 0; j < names1.length; j++) { // divide all values by current denominator
 					if (currentDenominator == 0) {
@@ -1775,7 +1889,7 @@ public class Exporter {
 			 qualValues = extractLabels(Exporter.this.filteredStatements, Exporter.this.qualifier, Exporter.this.qualifierDocument);
 		}
 		if (Exporter.this.qualifier != null && dataTypes.get(Exporter.this.qualifier).equals("integer")) {
-			int[] qual = Exporter.this.originalStatements.stream().mapToInt(s -> (int) s.get(Exporter.this.qualifier)).distinct().sorted().toArray();
+			int[] qual = Exporter.this.getStatementTable().distinctValues(Exporter.this.qualifier);
 			if (qual.length < qualValues.length) {
 				qualValues = IntStream.rangeClosed(qual[0], qual[qual.length - 1])
 						.mapToObj(String::valueOf)
@@ -1798,157 +1912,208 @@ public class Exporter {
 		}
 
 		// create an array list of empty Matrix results, store all date-time stamps in them, and save indices in a hash map
-		Exporter.this.matrixResults = new ArrayList<>();
+		ArrayList<Matrix> slices = new ArrayList<>();
 		if (Exporter.this.kernel.equals("gaussian")) { // for each mid-point gamma, create an empty Matrix and save the start, mid, and end time points in it as defined by the start and end of the whole time range; the actual matrix is injected later
 			if (timeWindow.equals("minutes")) {
 				while (!gamma.isAfter(e2)) {
-					Exporter.this.matrixResults.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, b, gamma, e));
+					slices.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, b, gamma, e));
 					gamma = gamma.plusMinutes(1);
 				}
 			} else if (timeWindow.equals("hours")) {
 				while (!gamma.isAfter(e2)) {
-					Exporter.this.matrixResults.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, b, gamma, e));
+					slices.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, b, gamma, e));
 					gamma = gamma.plusHours(1);
 				}
 			} else if (timeWindow.equals("days")) {
 				while (!gamma.isAfter(e2)) {
-					Exporter.this.matrixResults.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, b, gamma, e));
+					slices.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, b, gamma, e));
 					gamma = gamma.plusDays(1);
 				}
 			} else if (timeWindow.equals("weeks")) {
 				while (!gamma.isAfter(e2)) {
-					Exporter.this.matrixResults.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, b, gamma, e));
+					slices.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, b, gamma, e));
 					gamma = gamma.plusWeeks(1);
 				}
 			} else if (timeWindow.equals("months")) {
 				while (!gamma.isAfter(e2)) {
-					Exporter.this.matrixResults.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, b, gamma, e));
+					slices.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, b, gamma, e));
 					gamma = gamma.plusMonths(1);
 				}
 			} else if (timeWindow.equals("years")) {
 				while (!gamma.isAfter(e2)) {
-					Exporter.this.matrixResults.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, b, gamma, e));
+					slices.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, b, gamma, e));
 					gamma = gamma.plusYears(1);
 				}
 			}
 		} else { // for each mid-point gamma, create an empty Matrix and save the start, mid, and end time points in it as defined by width w; the actual matrix is injected later
 			if (timeWindow.equals("minutes")) {
 				while (!gamma.isAfter(e2)) {
-					Exporter.this.matrixResults.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, gamma.minusMinutes(W_HALF).isBefore(b) ? b : gamma.minusMinutes(W_HALF), gamma, gamma.plusMinutes(W_HALF).isAfter(e) ? e : gamma.plusMinutes(W_HALF)));
+					slices.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, gamma.minusMinutes(W_HALF).isBefore(b) ? b : gamma.minusMinutes(W_HALF), gamma, gamma.plusMinutes(W_HALF).isAfter(e) ? e : gamma.plusMinutes(W_HALF)));
 					gamma = gamma.plusMinutes(1);
 				}
 			} else if (timeWindow.equals("hours")) {
 				while (!gamma.isAfter(e2)) {
-					Exporter.this.matrixResults.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, gamma.minusHours(W_HALF).isBefore(b) ? b : gamma.minusHours(W_HALF), gamma, gamma.plusHours(W_HALF).isAfter(e) ? e : gamma.plusHours(W_HALF)));
+					slices.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, gamma.minusHours(W_HALF).isBefore(b) ? b : gamma.minusHours(W_HALF), gamma, gamma.plusHours(W_HALF).isAfter(e) ? e : gamma.plusHours(W_HALF)));
 					gamma = gamma.plusHours(1);
 				}
 			} else if (timeWindow.equals("days")) {
 				while (!gamma.isAfter(e2)) {
-					Exporter.this.matrixResults.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, gamma.minusDays(W_HALF).isBefore(b) ? b : gamma.minusDays(W_HALF), gamma, gamma.plusDays(W_HALF).isAfter(e) ? e : gamma.plusDays(W_HALF)));
+					slices.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, gamma.minusDays(W_HALF).isBefore(b) ? b : gamma.minusDays(W_HALF), gamma, gamma.plusDays(W_HALF).isAfter(e) ? e : gamma.plusDays(W_HALF)));
 					gamma = gamma.plusDays(1);
 				}
 			} else if (timeWindow.equals("weeks")) {
 				while (!gamma.isAfter(e2)) {
-					Exporter.this.matrixResults.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, gamma.minusWeeks(W_HALF).isBefore(b) ? b : gamma.minusWeeks(W_HALF), gamma, gamma.plusWeeks(W_HALF).isAfter(e) ? e : gamma.plusWeeks(W_HALF)));
+					slices.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, gamma.minusWeeks(W_HALF).isBefore(b) ? b : gamma.minusWeeks(W_HALF), gamma, gamma.plusWeeks(W_HALF).isAfter(e) ? e : gamma.plusWeeks(W_HALF)));
 					gamma = gamma.plusWeeks(1);
 				}
 			} else if (timeWindow.equals("months")) {
 				while (!gamma.isAfter(e2)) {
-					Exporter.this.matrixResults.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, gamma.minusMonths(W_HALF).isBefore(b) ? b : gamma.minusMonths(W_HALF), gamma, gamma.plusMonths(W_HALF).isAfter(e) ? e : gamma.plusMonths(W_HALF)));
+					slices.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, gamma.minusMonths(W_HALF).isBefore(b) ? b : gamma.minusMonths(W_HALF), gamma, gamma.plusMonths(W_HALF).isAfter(e) ? e : gamma.plusMonths(W_HALF)));
 					gamma = gamma.plusMonths(1);
 				}
 			} else if (timeWindow.equals("years")) {
 				while (!gamma.isAfter(e2)) {
-					Exporter.this.matrixResults.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, gamma.minusYears(W_HALF).isBefore(b) ? b : gamma.minusYears(W_HALF), gamma, gamma.plusYears(W_HALF).isAfter(e) ? e : gamma.plusYears(W_HALF)));
+					slices.add(new Matrix(var1Values, Exporter.this.networkType.equals("onemode") ? var1Values : var2Values, false, gamma.minusYears(W_HALF).isBefore(b) ? b : gamma.minusYears(W_HALF), gamma, gamma.plusYears(W_HALF).isAfter(e) ? e : gamma.plusYears(W_HALF)));
 					gamma = gamma.plusYears(1);
 				}
 			}
 		}
 
-		// create a 3D array, go through the statements, and populate the array
-		@SuppressWarnings("unchecked")
-		ArrayList<ExportStatement>[][][] X = (ArrayList<ExportStatement>[][][]) new ArrayList<?>[var1Values.length][var2Values.length][qualValues.length];
-		for (int i = 0; i < var1Values.length; i++) {
-			for (int j = 0; j < var2Values.length; j++) {
-				if (Exporter.this.qualifier == null) {
-					X[i][j][0] = new ArrayList<ExportStatement>();
-				} else {
-					for (int k = 0; k < qualValues.length; k++) {
-						X[i][j][k] = new ArrayList<ExportStatement>();
-					}
-				}
-			}
-		}
-
-		Exporter.this.filteredStatements.stream().forEach(s -> {
+		// find the row, column, and qualifier level of each statement; the statements are in chronological order
+		final int numStatements = Exporter.this.filteredStatements.size();
+		int[] rows = new int[numStatements];
+		int[] columns = new int[numStatements];
+		int[] levels = new int[numStatements];
+		for (int s = 0; s < numStatements; s++) {
+			ExportStatement statement = Exporter.this.filteredStatements.get(s);
 			int var1Index = -1;
 			if (Exporter.this.variable1Document) {
 				if (Exporter.this.variable1.equals("author")) {
-					var1Index = var1Map.get(s.getAuthor());
+					var1Index = var1Map.get(statement.getAuthor());
 				} else if (Exporter.this.variable1.equals("source")) {
-					var1Index = var1Map.get(s.getSource());
+					var1Index = var1Map.get(statement.getSource());
 				} else if (Exporter.this.variable1.equals("section")) {
-					var1Index = var1Map.get(s.getSection());
+					var1Index = var1Map.get(statement.getSection());
 				} else if (Exporter.this.variable1.equals("type")) {
-					var1Index = var1Map.get(s.getType());
+					var1Index = var1Map.get(statement.getType());
 				} else if (Exporter.this.variable1.equals("id")) {
-					var1Index = var1Map.get(s.getDocumentIdAsString());
+					var1Index = var1Map.get(statement.getDocumentIdAsString());
 				} else if (Exporter.this.variable1.equals("title")) {
-					var1Index = var1Map.get(s.getTitle());
+					var1Index = var1Map.get(statement.getTitle());
 				}
 			} else {
-				var1Index = var1Map.get(((Entity) s.get(Exporter.this.variable1)).getValue());
+				var1Index = var1Map.get(((Entity) statement.get(Exporter.this.variable1)).getValue());
 			}
 			int var2Index = -1;
 			if (Exporter.this.variable2Document) {
 				if (Exporter.this.variable2.equals("author")) {
-					var2Index = var2Map.get(s.getAuthor());
+					var2Index = var2Map.get(statement.getAuthor());
 				} else if (Exporter.this.variable2.equals("source")) {
-					var2Index = var2Map.get(s.getSource());
+					var2Index = var2Map.get(statement.getSource());
 				} else if (Exporter.this.variable2.equals("section")) {
-					var2Index = var2Map.get(s.getSection());
+					var2Index = var2Map.get(statement.getSection());
 				} else if (Exporter.this.variable2.equals("type")) {
-					var2Index = var2Map.get(s.getType());
+					var2Index = var2Map.get(statement.getType());
 				} else if (Exporter.this.variable2.equals("id")) {
-					var2Index = var2Map.get(s.getDocumentIdAsString());
+					var2Index = var2Map.get(statement.getDocumentIdAsString());
 				} else if (Exporter.this.variable2.equals("title")) {
-					var2Index = var2Map.get(s.getTitle());
+					var2Index = var2Map.get(statement.getTitle());
 				}
 			} else {
-				var2Index = var2Map.get(((Entity) s.get(Exporter.this.variable2)).getValue());
+				var2Index = var2Map.get(((Entity) statement.get(Exporter.this.variable2)).getValue());
 			}
 			int qualIndex = -1;
 			if (Exporter.this.qualifierDocument && Exporter.this.qualifier != null) {
 				if (Exporter.this.qualifier.equals("author")) {
-					qualIndex = qualMap.get(s.getAuthor());
+					qualIndex = qualMap.get(statement.getAuthor());
 				} else if (Exporter.this.qualifier.equals("source")) {
-					qualIndex = qualMap.get(s.getSource());
+					qualIndex = qualMap.get(statement.getSource());
 				} else if (Exporter.this.qualifier.equals("section")) {
-					qualIndex = qualMap.get(s.getSection());
+					qualIndex = qualMap.get(statement.getSection());
 				} else if (Exporter.this.qualifier.equals("type")) {
-					qualIndex = qualMap.get(s.getType());
+					qualIndex = qualMap.get(statement.getType());
 				} else if (Exporter.this.qualifier.equals("id")) {
-					qualIndex = qualMap.get(s.getDocumentIdAsString());
+					qualIndex = qualMap.get(statement.getDocumentIdAsString());
 				} else if (Exporter.this.qualifier.equals("title")) {
-					qualIndex = qualMap.get(s.getTitle());
+					qualIndex = qualMap.get(statement.getTitle());
 				}
 			} else {
 				if (Exporter.this.qualifier == null) {
 					qualIndex = 0;
 				} else if (dataTypes.get(Exporter.this.qualifier).equals("integer") || dataTypes.get(Exporter.this.qualifier).equals("boolean")) {
-					qualIndex = qualMap.get(String.valueOf((int) s.get(Exporter.this.qualifier)));
+					qualIndex = qualMap.get(String.valueOf((int) statement.get(Exporter.this.qualifier)));
 				} else {
-					qualIndex = qualMap.get(((Entity) s.get(Exporter.this.qualifier)).getValue());
+					qualIndex = qualMap.get(((Entity) statement.get(Exporter.this.qualifier)).getValue());
 				}
 			}
-			X[var1Index][var2Index][qualIndex].add(s);
-		});
+			rows[s] = var1Index;
+			columns[s] = var2Index;
+			levels[s] = qualIndex;
+		}
+		LocalDateTime[] dateTimes = new LocalDateTime[numStatements];
+		for (int s = 0; s < numStatements; s++) {
+			dateTimes[s] = Exporter.this.filteredStatements.get(s).getDateTime();
+		}
+		KernelStatements kernelStatements = new KernelStatements(var1Values.length, var2Values.length, qualValues.length, rows, columns, levels, dateTimes);
+		final double[][] averageNorm = averageNormalization(kernelStatements); // does not depend on the time slice
+
+		// process blocks of time slices in parallel and pass each block to the sink in chronological order, so that only one
+		// block of finished matrices is held in memory unless the sink keeps them
+		KernelConvolution convolution = null;
+		if (Exporter.this.kernelConvolution && slices.size() > 0 && (timeWindow.equals("days") || timeWindow.equals("weeks") || timeWindow.equals("months"))) {
+			convolution = createKernelConvolution(kernelStatements, slices.get(0).getDateTime(), slices.size());
+		}
+		final KernelConvolution kernelConvolutionEngine = convolution;
+		MatrixSink sink = openSink(slices.size());
+		try (ProgressBar pb = new ProgressBar("Kernel smoothing", slices.size())) {
+			pb.stepTo(0);
+			for (int blockStart = 0; blockStart < slices.size(); blockStart = blockStart + KERNEL_BLOCK_SIZE) {
+				Matrix[] block = IntStream.range(blockStart, Math.min(blockStart + KERNEL_BLOCK_SIZE, slices.size()))
+						.parallel()
+						.mapToObj(g -> kernelConvolutionEngine == null
+								? processTimeSlice(slices.get(g), kernelStatements, averageNorm)
+								: projectKernelSlice(slices.get(g), kernelConvolutionEngine.weights(g), kernelConvolutionEngine.counts(g), averageNorm))
+						.toArray(Matrix[]::new);
+				for (int i = 0; i < block.length; i++) {
+					sink.accept(block[i]);
+					slices.set(blockStart + i, null); // the slice matrix was filled in place; only the sink may keep it
+				}
+				pb.stepTo(blockStart + block.length);
+			}
+		}
+		closeSink(sink);
+	}
 
-		// process each matrix result in a parallel stream instead of for-loop and add calculation results
-		ArrayList<Matrix> processedResults = ProgressBar.wrap(Exporter.this.matrixResults.parallelStream(), "Kernel smoothing")
-				.map(matrixResult -> processTimeSlice(matrixResult, X))
-				.collect(Collectors.toCollection(ArrayList::new));
-		Exporter.this.matrixResults = processedResults;
+	/**
+	 * Bin the statements onto the regular grid of mid-points and convolve them with the kernel function.
+	 *
+	 * @param statements The statements with their cells and date-time stamps.
+	 * @param firstGamma The first mid-point of the grid.
+	 * @param numSlices The number of mid-points.
+	 * @return The {@link KernelConvolution} with the kernel-weighted sums for all time slices.
+	 */
+	private KernelConvolution createKernelConvolution(KernelStatements statements, LocalDateTime firstGamma, int numSlices) {
+		// the grid index of a statement is the negative time difference between the statement and the first mid-point
+		int[] bins = new int[statements.dateTimes.length];
+		int minBin = 0;
+		int maxBin = 0;
+		for (int s = 0; s < bins.length; s++) {
+			bins[s] = (int) -timeDifference(statements.dateTimes[s], firstGamma, Exporter.this.timeWindow);
+			minBin = Math.min(minBin, bins[s]);
+			maxBin = Math.max(maxBin, bins[s]);
+		}
+
+		// kernel weights for all differences between slices and statements that can occur (or within the bandwidth)
+		boolean bounded = !Exporter.this.kernel.equals("gaussian");
+		int minDifference = bounded ? -(Exporter.this.windowSize / 2) : -maxBin;
+		int maxDifference = bounded ? Exporter.this.windowSize / 2 : numSlices - 1 - minBin;
+		double[] kernel = new double[maxDifference - minDifference + 1];
+		for (int m = minDifference; m <= maxDifference; m++) {
+			double z = kernelWeight(m, Exporter.this.windowSize, Exporter.this.kernel);
+			kernel[m - minDifference] = this.networkType.equals("onemode") ? Math.sqrt(z) : z;
+		}
+		return new KernelConvolution(numSlices, statements.numRows, statements.numColumns, statements.numLevels,
+				statements.rows, statements.columns, statements.levels, bins, kernel, minDifference, bounded);
 	}
 
 	/**
@@ -1963,83 +2128,286 @@ public class Exporter {
 	 * @return The matrix result after inserting the network matrix.
 	 */
 	public Matrix processTimeSlice(Matrix matrixResult, ArrayList<ExportStatement>[][][] X) {
-		if (this.networkType.equals("twomode")) {
-			double[][] m = new double[X.length][X[0].length];
-			for (int i = 0; i < X.length; i++) {
-				for (int j = 0; j < X[0].length; j++) {
-					for (int k = 0; k < X[0][0].length; k++) {
-						for (int t = 0; t < X[i][j][k].size(); t++) {
-							if (Exporter.this.kernel.equals("gaussian") || (!X[i][j][k].get(t).getDateTime().isBefore(matrixResult.getStart()) && !X[i][j][k].get(t).getDateTime().isAfter(matrixResult.getStop()))) { // for computational efficiency, don't include statements outside of temporal bandwidth in computations if not necessary
-								if (Exporter.this.qualifierAggregation.equals("ignore")) {
-									m[i][j] = m[i][j] + zeta(X[i][j][k].get(t).getDateTime(), matrixResult.getDateTime(), Exporter.this.windowSize, Exporter.this.timeWindow, Exporter.this.kernel);
-								} else if (Exporter.this.qualifierAggregation.equals("subtract")) {
-									if (Exporter.this.dataTypes.get(Exporter.this.qualifier).equals("boolean")) {
-										m[i][j] = m[i][j] + (((double) k) - 0.5) * 2 * zeta(X[i][j][k].get(t).getDateTime(), matrixResult.getDateTime(), Exporter.this.windowSize, Exporter.this.timeWindow, Exporter.this.kernel);
-									} else if (Exporter.this.dataTypes.get(Exporter.this.qualifier).equals("integer")) {
-										m[i][j] = m[i][j] + k * zeta(X[i][j][k].get(t).getDateTime(), matrixResult.getDateTime(), Exporter.this.windowSize, Exporter.this.timeWindow, Exporter.this.kernel);
-									} else if (Exporter.this.dataTypes.get(Exporter.this.qualifier).equals("short text")) {
-										m[i][j] = m[i][j] + zeta(X[i][j][k].get(t).getDateTime(), matrixResult.getDateTime(), Exporter.this.windowSize, Exporter.this.timeWindow, Exporter.this.kernel);
-									}
-								}
-							}
-						}
+		return processTimeSlice(new Matrix[] { matrixResult }, new String[] { this.qualifierAggregation }, X)[0];
+	}
+
+	/**
+	 * Compute kernel-weighted one-mode or two-mode network matrices of the same time slice with several qualifier
+	 * aggregations at once, for example the congruence and the conflict network for polarization, and inject them
+	 * into {@link Matrix} objects. The statements are flattened and their kernel weights are summed up per cell only
+	 * once, and all networks are projected from the same sums. The results are identical to separate calls of
+	 * {@link #processTimeSlice(Matrix, ArrayList[][][])} with each qualifier aggregation.
+	 *
+	 * @param matrixResults The matrix results of the time slice into which the network matrices will be inserted,
+	 *   one per qualifier aggregation. They must have the same start, mid-point, and stop.
+	 * @param aggregations The qualifier aggregations, for example {@code "congruence"}, {@code "conflict"}, and
+	 *   {@code "subtract"}.
+	 * @param X A 3D array containing the data.
+	 * @return The matrix results after inserting the network matrices.
+	 */
+	public Matrix[] processTimeSlice(Matrix[] matrixResults, String[] aggregations, ArrayList<ExportStatement>[][][] X) {
+		// flatten the array into a chronologically ordered list of statements with their cells
+		ArrayList<int[]> cells = new ArrayList<int[]>();
+		ArrayList<LocalDateTime> times = new ArrayList<LocalDateTime>();
+		for (int i = 0; i < X.length; i++) {
+			for (int j = 0; j < X[0].length; j++) {
+				for (int k = 0; k < X[0][0].length; k++) {
+					for (int t = 0; t < X[i][j][k].size(); t++) {
+						cells.add(new int[] {i, j, k, times.size()});
+						times.add(X[i][j][k].get(t).getDateTime());
 					}
 				}
 			}
-			matrixResult.setMatrix(m);
-		} else if (this.networkType.equals("onemode")) {
-			double[][] m = new double[X.length][X.length];
-			double[][] norm = new double[X.length][X.length];
-			for (int i = 0; i < X.length; i++) {
-				for (int i2 = 0; i2 < X.length; i2++) {
-					for (int j = 0; j < X[0].length; j++) {
-						for (int k = 0; k < X[0][0].length; k++) {
-							if (Exporter.this.normalization.equals("average") && X[i][j][k].size() + X[i2][j][k].size() != 0.0) {
-								norm[i][i2] = norm[i][i2] + 2.0 / (X[i][j][k].size() + X[i2][j][k].size());
-							}
-							for (int k2 = 0; k2 < X[0][0].length; k2++) {
-								double qsim = 1.0;
-								if (Exporter.this.qualifier != null && !dataTypes.get(Exporter.this.qualifier).equals("short text") && !Exporter.this.qualifierDocument) {
-									qsim = Math.abs(1.0 - ((double) Math.abs(k - k2) / (double) Math.abs(X[0][0].length - 1)));
-								}
-								double qdiff = 1.0 - qsim;
-								for (int t = 0; t < X[i][j][k].size(); t++) {
-									if (Exporter.this.kernel.equals("gaussian") || (!X[i][j][k].get(t).getDateTime().isBefore(matrixResult.getStart()) && !X[i][j][k].get(t).getDateTime().isAfter(matrixResult.getStop()))) { // for computational efficiency, don't include statements outside of temporal bandwidth in computations if not necessary
-										double z1 = zeta(X[i][j][k].get(t).getDateTime(), matrixResult.getDateTime(), Exporter.this.windowSize, Exporter.this.timeWindow, Exporter.this.kernel);
-										for (int t2 = 0; t2 < X[i2][j][k2].size(); t2++) {
-											if (Exporter.this.kernel.equals("gaussian") || (!X[i2][j][k2].get(t2).getDateTime().isBefore(matrixResult.getStart()) && !X[i2][j][k2].get(t2).getDateTime().isAfter(matrixResult.getStop()))) { // for computational efficiency, don't include statements outside of temporal bandwidth in computations if not necessary
-												double z2 = zeta(X[i2][j][k2].get(t2).getDateTime(), matrixResult.getDateTime(), Exporter.this.windowSize, Exporter.this.timeWindow, Exporter.this.kernel);
-												double z = Math.sqrt(z1 * z2);
-												if (Exporter.this.qualifierAggregation.equals("congruence")) {
-													m[i][i2] = m[i][i2] + qsim * z;
-												} else if (Exporter.this.qualifierAggregation.equals("conflict")) {
-													m[i][i2] = m[i][i2] + qdiff * z;
-												} else if (Exporter.this.qualifierAggregation.equals("subtract")) {
-													m[i][i2] = m[i][i2] + qsim * z - qdiff * z;
-												} else if (Exporter.this.qualifierAggregation.equals("ignore")) {
-													m[i][i2] = m[i][i2] + z;
-												}
-											}
-										}
-									}
-								}
+		}
+		cells.sort(Comparator.comparing(c -> times.get(c[3])));
+		int[] rows = new int[cells.size()];
+		int[] columns = new int[cells.size()];
+		int[] levels = new int[cells.size()];
+		LocalDateTime[] dateTimes = new LocalDateTime[cells.size()];
+		for (int s = 0; s < cells.size(); s++) {
+			rows[s] = cells.get(s)[0];
+			columns[s] = cells.get(s)[1];
+			levels[s] = cells.get(s)[2];
+			dateTimes[s] = times.get(cells.get(s)[3]);
+		}
+		int numColumns = X.length > 0 ? X[0].length : 0;
+		int numLevels = X.length > 0 && numColumns > 0 ? X[0][0].length : 1;
+		KernelStatements statements = new KernelStatements(X.length, numColumns, numLevels, rows, columns, levels, dateTimes);
+		return processTimeSlice(matrixResults, aggregations, statements, averageNormalization(statements));
+	}
+
+	/**
+	 * Compute the weights for the "average" normalization of a kernel-smoothed one-mode network, which only depend on
+	 * the number of statements per cell and not on the time slice.
+	 *
+	 * @param statements The statements with their cells and date-time stamps.
+	 * @return The normalization weights, or {@code null} if the network is not a one-mode network with "average"
+	 *   normalization.
+	 */
+	private double[][] averageNormalization(KernelStatements statements) {
+		if (!this.networkType.equals("onemode") || !Exporter.this.normalization.equals("average")) {
+			return null;
+		}
+		int[][][] counts = new int[statements.numRows][statements.numColumns][statements.numLevels];
+		for (int s = 0; s < statements.rows.length; s++) {
+			counts[statements.rows[s]][statements.columns[s]][statements.levels[s]]++;
+		}
+		double[][] norm = new double[statements.numRows][statements.numRows];
+		for (int i = 0; i < statements.numRows; i++) {
+			for (int i2 = 0; i2 < statements.numRows; i2++) {
+				for (int j = 0; j < statements.numColumns; j++) {
+					for (int k = 0; k < statements.numLevels; k++) {
+						if (counts[i][j][k] + counts[i2][j][k] != 0.0) {
+							norm[i][i2] = norm[i][i2] + 2.0 / (counts[i][j][k] + counts[i2][j][k]);
+						}
+					}
+				}
+			}
+		}
+		return norm;
+	}
+
+	/**
+	 * Compute a one-mode or two-mode network matrix with kernel-weighting and inject it into a {@link Matrix} object.
+	 * The kernel weight of each statement with respect to the mid-point gamma of the current matrix result is computed
+	 * once and summed up per cell of the three-dimensional array (variable 1 x variable 2 x qualifier level). Because
+	 * the weight of a pair of statements in a one-mode network is the geometric mean of their kernel weights, the sum
+	 * over all pairs of statements in two cells factorizes into the product of the sums of the square roots of the
+	 * weights in both cells. One slice therefore costs time linear in the number of statements plus the size of the
+	 * projection instead of quadratic time in the number of statements per cell.
+	 *
+	 * @param matrixResult The matrix result into which the network matrix will be inserted.
+	 * @param statements The statements with their cells and date-time stamps.
+	 * @param averageNorm The "average" normalization weights of the one-mode network, or {@code null}.
+	 * @return The matrix result after inserting the network matrix.
+	 */
+	private Matrix processTimeSlice(Matrix matrixResult, KernelStatements statements, double[][] averageNorm) {
+		return processTimeSlice(new Matrix[] { matrixResult }, new String[] { this.qualifierAggregation }, statements, averageNorm)[0];
+	}
+
+	/**
+	 * Compute kernel-weighted network matrices of the same time slice with several qualifier aggregations from a single
+	 * pass over the statements and inject them into {@link Matrix} objects.
+	 *
+	 * @param matrixResults The matrix results of the time slice, one per qualifier aggregation.
+	 * @param aggregations The qualifier aggregations.
+	 * @param statements The statements with their cells and date-time stamps.
+	 * @param averageNorm The "average" normalization weights of the one-mode network, or {@code null}.
+	 * @return The matrix results after inserting the network matrices.
+	 */
+	private Matrix[] processTimeSlice(Matrix[] matrixResults, String[] aggregations, KernelStatements statements, double[][] averageNorm) {
+		Matrix matrixResult = matrixResults[0];
+		final int n1 = statements.numRows;
+		final int n2 = statements.numColumns;
+		final int numLevels = statements.numLevels;
+		final boolean oneMode = this.networkType.equals("onemode");
+
+		// sum up the kernel weights (or their square roots for one-mode networks) per cell; for computational efficiency,
+		// don't include statements outside of temporal bandwidth in computations if not necessary
+		int first = 0;
+		int last = statements.dateTimes.length;
+		if (!Exporter.this.kernel.equals("gaussian")) {
+			first = statements.firstNotBefore(matrixResult.getStart());
+			last = statements.firstAfter(matrixResult.getStop());
+		}
+		double[][][] weights = new double[n1][n2][numLevels];
+		int[][][] counts = new int[n1][n2][numLevels];
+		double z = 0.0;
+		for (int s = first; s < last; s++) {
+			if (s == first || !statements.dateTimes[s].equals(statements.dateTimes[s - 1])) { // statements with the same time stamp have the same weight
+				z = zeta(statements.dateTimes[s], matrixResult.getDateTime(), Exporter.this.windowSize, Exporter.this.timeWindow, Exporter.this.kernel);
+			}
+			int i = statements.rows[s];
+			int j = statements.columns[s];
+			int k = statements.levels[s];
+			weights[i][j][k] = weights[i][j][k] + (oneMode ? Math.sqrt(z) : z);
+			counts[i][j][k]++;
+		}
+		return projectKernelSlice(matrixResults, aggregations, weights, counts, averageNorm);
+	}
+
+	/**
+	 * Compute a kernel-smoothed one-mode or two-mode network matrix from the kernel-weighted sums of the cells of the
+	 * three-dimensional array (variable 1 x variable 2 x qualifier level) and inject it into a {@link Matrix} object.
+	 *
+	 * @param matrixResult The matrix result into which the network matrix will be inserted.
+	 * @param weights The sums of the kernel weights per cell (or of their square roots for one-mode networks).
+	 * @param counts The number of statements per cell that were included in the sums.
+	 * @param averageNorm The "average" normalization weights of the one-mode network, or {@code null}.
+	 * @return The matrix result after inserting the network matrix.
+	 */
+	private Matrix projectKernelSlice(Matrix matrixResult, double[][][] weights, int[][][] counts, double[][] averageNorm) {
+		return projectKernelSlice(new Matrix[] { matrixResult }, new String[] { this.qualifierAggregation }, weights, counts, averageNorm)[0];
+	}
+
+	/**
+	 * Compute kernel-smoothed network matrices with several qualifier aggregations from the same kernel-weighted sums
+	 * of the cells. For one-mode networks, the active nodes of each concept are determined once for all qualifier
+	 * aggregations.
+	 *
+	 * @param matrixResults The matrix results into which the network matrices will be inserted, one per qualifier
+	 *   aggregation.
+	 * @param aggregations The qualifier aggregations.
+	 * @param weights The sums of the kernel weights per cell (or of their square roots for one-mode networks).
+	 * @param counts The number of statements per cell that were included in the sums.
+	 * @param averageNorm The "average" normalization weights of the one-mode network, or {@code null}.
+	 * @return The matrix results after inserting the network matrices.
+	 */
+	private Matrix[] projectKernelSlice(Matrix[] matrixResults, String[] aggregations, double[][][] weights, int[][][] counts, double[][] averageNorm) {
+		final int n1 = weights.length;
+		final int n2 = n1 > 0 ? weights[0].length : 0;
+		final int numLevels = n1 > 0 && n2 > 0 ? weights[0][0].length : 1;
+		final int numAggregations = aggregations.length;
+		if (!this.networkType.equals("onemode")) {
+			for (int a = 0; a < numAggregations; a++) {
+				double[] levelWeight = new double[numLevels];
+				for (int k = 0; k < numLevels; k++) {
+					if (aggregations[a].equals("ignore")) {
+						levelWeight[k] = 1.0;
+					} else if (aggregations[a].equals("subtract")) {
+						if (Exporter.this.dataTypes.get(Exporter.this.qualifier).equals("boolean")) {
+							levelWeight[k] = (((double) k) - 0.5) * 2;
+						} else if (Exporter.this.dataTypes.get(Exporter.this.qualifier).equals("integer")) {
+							levelWeight[k] = k;
+						} else if (Exporter.this.dataTypes.get(Exporter.this.qualifier).equals("short text")) {
+							levelWeight[k] = 1.0;
+						}
+					}
+				}
+				double[][] m = new double[n1][n2];
+				for (int i = 0; i < n1; i++) {
+					for (int j = 0; j < n2; j++) {
+						for (int k = 0; k < numLevels; k++) {
+							if (counts[i][j][k] > 0) {
+								m[i][j] = m[i][j] + levelWeight[k] * weights[i][j][k];
+							}
+						}
+					}
+				}
+				matrixResults[a].setMatrix(m);
+			}
+		} else {
+			// weight of each pair of qualifier levels
+			double[][][] levelWeight = new double[numAggregations][numLevels][numLevels];
+			for (int k = 0; k < numLevels; k++) {
+				for (int k2 = 0; k2 < numLevels; k2++) {
+					double qsim = 1.0;
+					if (Exporter.this.qualifier != null && !dataTypes.get(Exporter.this.qualifier).equals("short text") && !Exporter.this.qualifierDocument) {
+						qsim = Math.abs(1.0 - ((double) Math.abs(k - k2) / (double) Math.abs(numLevels - 1)));
+					}
+					double qdiff = 1.0 - qsim;
+					for (int a = 0; a < numAggregations; a++) {
+						if (aggregations[a].equals("congruence")) {
+							levelWeight[a][k][k2] = qsim;
+						} else if (aggregations[a].equals("conflict")) {
+							levelWeight[a][k][k2] = qdiff;
+						} else if (aggregations[a].equals("subtract")) {
+							levelWeight[a][k][k2] = qsim - qdiff;
+						} else if (aggregations[a].equals("ignore")) {
+							levelWeight[a][k][k2] = 1.0;
+						}
+					}
+				}
+			}
+
+			// for each concept, multiply the level-weighted sums of all pairs of nodes with statements on the concept
+			double[][][] m = new double[numAggregations][n1][n1];
+			int[] active = new int[n1];
+			double[][][] weighted = new double[numAggregations][n1][numLevels];
+			for (int j = 0; j < n2; j++) {
+				int numActive = 0;
+				for (int i = 0; i < n1; i++) {
+					boolean isActive = false;
+					for (int k = 0; k < numLevels; k++) {
+						if (counts[i][j][k] > 0) {
+							isActive = true;
+							break;
+						}
+					}
+					if (isActive) {
+						active[numActive] = i;
+						numActive++;
+						for (int a = 0; a < numAggregations; a++) {
+							for (int k = 0; k < numLevels; k++) {
+								double sum = 0.0;
+								for (int k2 = 0; k2 < numLevels; k2++) {
+									if (counts[i][j][k2] > 0) {
+										sum = sum + levelWeight[a][k][k2] * weights[i][j][k2];
+									}
+								}
+								weighted[a][i][k] = sum;
+							}
+						}
+					}
+				}
+				for (int ai = 0; ai < numActive; ai++) {
+					int i = active[ai];
+					for (int ai2 = 0; ai2 < numActive; ai2++) {
+						int i2 = active[ai2];
+						for (int k = 0; k < numLevels; k++) {
+							if (counts[i][j][k] > 0) {
+								for (int a = 0; a < numAggregations; a++) {
+									m[a][i][i2] = m[a][i][i2] + weights[i][j][k] * weighted[a][i2][k];
+								}
 							}
 						}
 					}
 				}
 			}
-			if (Exporter.this.normalization.equals("average")) {
-				for (int i = 0; i < X.length; i++) {
-					for (int i2 = 0; i2 < X.length; i2++) {
-						if (m[i][i2] != 0.0 && norm[i][i2] != 0.0) {
-							m[i][i2] = m[i][i2] * norm[i][i2];
+			for (int a = 0; a < numAggregations; a++) {
+				if (averageNorm != null) {
+					for (int i = 0; i < n1; i++) {
+						for (int i2 = 0; i2 < n1; i2++) {
+							if (m[a][i][i2] != 0.0 && averageNorm[i][i2] != 0.0) {
+								m[a][i][i2] = m[a][i][i2] * averageNorm[i][i2];
+							}
 						}
 					}
 				}
+				matrixResults[a].setMatrix(m[a]);
 			}
-			matrixResult.setMatrix(m);
 		}
-		return matrixResult;
+		return matrixResults;
 	}
 
     /**
@@ -2053,6 +2421,18 @@ public class Exporter {
      * @return Kernel-weighted time difference between time points t and gamma.
      */
 	private double zeta(LocalDateTime t, LocalDateTime gamma, int w, String timeWindow, String kernel) {
+		return kernelWeight(timeDifference(t, gamma, timeWindow), w, kernel);
+	}
+
+	/**
+	 * Compute the time difference between a time point and the mid-point of a time window in the time unit.
+	 *
+	 * @param t The current time in the time window.
+	 * @param gamma The mid-point of the time window.
+	 * @param timeWindow The time unit. Valid values are {@code "seconds"}, {@code "minutes"}, {@code "hours"}, {@code "days"}, {@code "weeks"}, {@code "months"}, and {@code "years"}.
+	 * @return The number of full time units from t to gamma.
+	 */
+	private long timeDifference(LocalDateTime t, LocalDateTime gamma, String timeWindow) {
 		Duration duration = Duration.between(t, gamma);
 		Period period;
 		long diff = 0;
@@ -2081,7 +2461,18 @@ public class Exporter {
 				diff = period.getYears();
 				break;
         }
+		return diff;
+	}
 
+	/**
+	 * Return a standardized time weight after applying a kernel function to a time difference.
+	 *
+	 * @param diff The time difference in time units, as computed by {@link #timeDifference(LocalDateTime, LocalDateTime, String)}.
+	 * @param w The width of the time window, which defines the beginning and end of the time window.
+	 * @param kernel The kernel function ({@code "uniform"}, {@code "epanechnikov"}, {@code "triangular"}, or {@code "gaussian"}).
+	 * @return Kernel weight of the time difference.
+	 */
+	private double kernelWeight(long diff, int w, String kernel) {
 		double diff_std = 2 * (double) diff / (double) w; // standardised time difference between -1 and 1
 
 		if (kernel.equals("uniform")) {
@@ -2109,11 +2500,18 @@ public class Exporter {
 	}
 
 	/**
-	 * Normalize all values in each results matrix to make them sum to 1.0. Useful for phase transition methods.
+	 * Normalize all values in each results matrix to make them sum to 1.0. Useful for phase transition methods. The
+	 * normalized values are written into new arrays because the original arrays may be shared with the state of an
+	 * incremental time window export (see {@link TimeWindowState}).
 	 */
 	public void normalizeMatrixResultsToOne() {
 		try (ProgressBar pb = new ProgressBar("Matrix normalization", Exporter.this.matrixResults.size())) {
 			for (Matrix matrixResult : Exporter.this.matrixResults) {
+				if (matrixResult.getUnchangedSince() > -1) { // shares its array with an earlier matrix, which has been normalized already
+					matrixResult.setMatrix(Exporter.this.matrixResults.get(matrixResult.getUnchangedSince()).getMatrix());
+					pb.step();
+					continue;
+				}
 				double[][] matrix = matrixResult.getMatrix();
 				double sum = 0.0;
 				for (double[] rows : matrix) {
@@ -2121,13 +2519,16 @@ public class Exporter {
 						sum += rows[j];
 					}
 				}
-				if (sum != 0.0) {
-					for (int i = 0; i < matrix.length; i++) {
+				double[][] normalized = new double[matrix.length][];
+				for (int i = 0; i < matrix.length; i++) {
+					normalized[i] = matrix[i].clone();
+					if (sum != 0.0) {
 						for (int j = 0; j < matrix[0].length; j++) {
-							matrix[i][j] = matrix[i][j] / sum;
+							normalized[i][j] = matrix[i][j] / sum;
 						}
 					}
 				}
+				matrixResult.setMatrix(normalized);
 				pb.step();
 			}
 		}
@@ -2145,11 +2546,25 @@ public class Exporter {
 		int dim = Exporter.this.matrixResults.get(0).getMatrix().length;
 		double[][] eigenvalues = new double[t][dim];
 
-		// precompute eigenvalues to avoid race conditions
+		// precompute eigenvalues to avoid race conditions, in one contiguous block of matrices per thread with its own eigensolver
 		if (distanceMethod.equals("spectral")) {
-			ProgressBar.wrap(IntStream.range(0, Exporter.this.matrixResults.size()).parallel(), "Normalized eigenvalues").forEach(i -> {
-				eigenvalues[i] = computeNormalizedEigenvalues(Exporter.this.matrixResults.get(i).getMatrix(), "ojalgo"); // TODO: try out "apache", debug, and compare speed
-			});
+			int numBlocks = Math.max(1, Math.min(t, ForkJoinPool.getCommonPoolParallelism()));
+			try (ProgressBar pb = new ProgressBar("Normalized eigenvalues", t)) {
+				IntStream.range(0, numBlocks).parallel().forEach(block -> {
+					LaplacianSpectrum spectrum = new LaplacianSpectrum();
+					for (int i = block * t / numBlocks; i < (block + 1) * t / numBlocks; i++) {
+						if (Exporter.this.matrixResults.get(i).getUnchangedSince() == -1) {
+							eigenvalues[i] = computeNormalizedEigenvalues(Exporter.this.matrixResults.get(i).getMatrix(), spectrum);
+						}
+						pb.step();
+					}
+				});
+			}
+			for (int i = 0; i < t; i++) { // repeated networks reuse the eigenvalues of the matrix they repeat
+				if (Exporter.this.matrixResults.get(i).getUnchangedSince() > -1) {
+					eigenvalues[i] = eigenvalues[Exporter.this.matrixResults.get(i).getUnchangedSince()];
+				}
+			}
 		}
 
 		ProgressBar.wrap(IntStream.range(0, Exporter.this.matrixResults.size()).parallel(), "Distance matrix").forEach(i -> {
@@ -2175,14 +2590,43 @@ public class Exporter {
 	 * Create a series of one-mode or two-mode networks using a moving time window.
 	 */
 	public void computeTimeWindowMatrices() {
-		ArrayList<Matrix> timeWindowMatrices = new ArrayList<Matrix>();
 		Collections.sort(this.filteredStatements); // probably not necessary, but can't hurt to have it
 		ArrayList<ExportStatement> currentWindowStatements = new ArrayList<ExportStatement>(); // holds all statements in the current time window
-		ArrayList<ExportStatement> startStatements = new ArrayList<ExportStatement>(); // holds all statements corresponding to the time stamp of the first statement in the window
-		ArrayList<ExportStatement> stopStatements = new ArrayList<ExportStatement>(); // holds all statements corresponding to the time stamp of the last statement in the window
-		ArrayList<ExportStatement> beforeStatements = new ArrayList<ExportStatement>(); // holds all statements between (and excluding) the time stamp of the first statement in the window and the focal statement
-		ArrayList<ExportStatement> afterStatements = new ArrayList<ExportStatement>(); // holds all statements between (and excluding) the focal statement and the time stamp of the last statement in the window
+		ArrayList<String> aggregations = new ArrayList<String>(); // one incrementally updated one-mode network per aggregation
+		if (this.networkType.equals("onemode") && this.qualifierAggregation.equals("congruence & conflict") && this.timeWindow.equals("events")) {
+			aggregations.add("congruence");
+			aggregations.add("conflict");
+		} else {
+			aggregations.add(this.qualifierAggregation);
+		}
+		ArrayList<SlidingWindowNetwork> windowNetworks = new ArrayList<SlidingWindowNetwork>();
+		if (this.networkType.equals("onemode")) {
+			for (int i = 0; i < aggregations.size(); i++) {
+				windowNetworks.add(createSlidingWindowNetwork(aggregations.get(i)));
+			}
+		}
+
+		// time stamps of the statements and, for each statement, the first and last index of statements with the same time stamp
+		int n = this.filteredStatements.size();
+		long[] times = new long[n];
+		for (int i = 0; i < n; i++) {
+			times[i] = this.filteredStatements.get(i).getDateTimeLong();
+		}
+		int[] sameTimeFirst = new int[n];
+		int[] sameTimeLast = new int[n];
+		for (int i = 0; i < n; i++) {
+			sameTimeFirst[i] = (i > 0 && times[i] == times[i - 1]) ? sameTimeFirst[i - 1] : i;
+		}
+		for (int i = n - 1; i >= 0; i--) {
+			sameTimeLast[i] = (i < n - 1 && times[i] == times[i + 1]) ? sameTimeLast[i + 1] : i;
+		}
+
+		MatrixSink sink;
 		if (this.timeWindow.equals("events")) {
+			int numWindows = Math.max(0, n - 2 * (int) Math.floor(this.windowSize / 2));
+			sink = openSink(this.networkType.equals("twomode") ? numWindows : numWindows * windowNetworks.size());
+			ArrayList<ExportStatement> startStatements = new ArrayList<ExportStatement>(); // holds all statements corresponding to the time stamp of the first statement in the window
+			ArrayList<ExportStatement> stopStatements = new ArrayList<ExportStatement>(); // holds all statements corresponding to the time stamp of the last statement in the window
 			try (ProgressBar pb = new ProgressBar("Time window matrices", this.filteredStatements.size())) {
 				pb.stepTo(0);
 				if (this.windowSize < 2) {
@@ -2191,94 +2635,59 @@ public class Exporter {
 							"When exporting a network, the time window size must be at least two events. With one statement event, there can be no ties in the network.");
 					Dna.logger.log(l);
 				}
-				int iteratorStart, iteratorStop, i, j;
-				int samples;
+				int iteratorStart, iteratorStop, i;
 				for (int t = 0; t < this.filteredStatements.size(); t++) {
 					int halfDuration = (int) Math.floor(this.windowSize / 2);
 					iteratorStart = t - halfDuration;
 					iteratorStop = t + halfDuration;
 
-					startStatements.clear();
-					stopStatements.clear();
-					beforeStatements.clear();
-					afterStatements.clear();
 					if (iteratorStart >= 0 && iteratorStop < this.filteredStatements.size()) {
-						for (i = 0; i < this.filteredStatements.size(); i++) {
-							if (this.filteredStatements.get(i).getDateTime().equals(this.filteredStatements.get(iteratorStart).getDateTime())) {
-								startStatements.add(this.filteredStatements.get(i));
-							}
-							if (this.filteredStatements.get(i).getDateTime().equals(this.filteredStatements.get(iteratorStop).getDateTime())) {
-								stopStatements.add(this.filteredStatements.get(i));
-							}
-							if (this.filteredStatements.get(i).getDateTime().isAfter(this.filteredStatements.get(iteratorStart).getDateTime()) && i < t) {
-								beforeStatements.add(this.filteredStatements.get(i));
-							}
-							if (this.filteredStatements.get(i).getDateTime().isBefore(this.filteredStatements.get(iteratorStop).getDateTime()) && i > t) {
-								afterStatements.add(this.filteredStatements.get(i));
-							}
+						// statements with the same time stamp as the first and last statement of the window are contiguous in the
+						// sorted list; statements strictly after the first time stamp and before t (and strictly between t and the
+						// last time stamp) are contiguous, too
+						startStatements.clear();
+						startStatements.addAll(this.filteredStatements.subList(sameTimeFirst[iteratorStart], sameTimeLast[iteratorStart] + 1));
+						stopStatements.clear();
+						stopStatements.addAll(this.filteredStatements.subList(sameTimeFirst[iteratorStop], sameTimeLast[iteratorStop] + 1));
+						int beforeFirst = sameTimeLast[iteratorStart] + 1;
+						int numBefore = Math.max(0, t - beforeFirst);
+						int afterLast = sameTimeFirst[iteratorStop] - 1;
+						int numAfter = Math.max(0, afterLast - t);
+
+						// add statements from start, before, after, and stop set to current window
+						currentWindowStatements.clear();
+						Collections.shuffle(startStatements);
+						for (i = 0; i < halfDuration - numBefore; i++) {
+							currentWindowStatements.add(startStatements.get(i));
 						}
-						if (startStatements.size() + beforeStatements.size() > halfDuration || stopStatements.size() + afterStatements.size() > halfDuration) {
-							samples = 1; // this number should be larger than the one below, for example 10 (for 10 random combinations of start and stop statements)
-						} else {
-							samples = 1;
+						if (numBefore > 0) {
+							currentWindowStatements.addAll(this.filteredStatements.subList(beforeFirst, t));
+						}
+						currentWindowStatements.add(this.filteredStatements.get(t));
+						if (numAfter > 0) {
+							currentWindowStatements.addAll(this.filteredStatements.subList(t + 1, afterLast + 1));
+						}
+						Collections.shuffle(stopStatements);
+						for (i = 0; i < halfDuration - numAfter; i++) {
+							currentWindowStatements.add(stopStatements.get(i));
 						}
 
-						for (j = 0; j < samples; j++) {
-							// add statements from start, before, after, and stop set to current window
-							currentWindowStatements.clear();
-							Collections.shuffle(startStatements);
-							for (i = 0; i < halfDuration - beforeStatements.size(); i++) {
-								currentWindowStatements.add(startStatements.get(i));
-							}
-							currentWindowStatements.addAll(beforeStatements);
-							currentWindowStatements.add(this.filteredStatements.get(t));
-							currentWindowStatements.addAll(afterStatements);
-							Collections.shuffle(stopStatements);
-							for (i = 0; i < halfDuration - afterStatements.size(); i++) {
-								currentWindowStatements.add(stopStatements.get(i));
-							}
-
-							// convert time window to network and add to list
-							if (currentWindowStatements.size() > 0) {
-								int firstDocId = currentWindowStatements.get(0).getDocumentId();
-								LocalDateTime first = null;
-								for (i = 0; i < this.documents.size(); i++) {
-									if (firstDocId == this.documents.get(i).getId()) {
-										first = documents.get(i).getDateTime();
-										break;
-									}
-								}
-								int lastDocId = currentWindowStatements.get(currentWindowStatements.size() - 1).getDocumentId();
-								LocalDateTime last = null;
-								for (i = this.documents.size() - 1; i > -1; i--) {
-									if (lastDocId == this.documents.get(i).getId()) {
-										last = this.documents.get(i).getDateTime();
-										break;
-									}
-								}
-								Matrix m;
-								if (this.networkType.equals("twomode")) {
-									m = computeTwoModeMatrix(currentWindowStatements, first, last);
+						// convert time window to network and add to list
+						if (currentWindowStatements.size() > 0) {
+							LocalDateTime first = this.documents.get(this.docMap.get(currentWindowStatements.get(0).getDocumentId())).getDateTime();
+							LocalDateTime last = this.documents.get(this.docMap.get(currentWindowStatements.get(currentWindowStatements.size() - 1).getDocumentId())).getDateTime();
+							if (this.networkType.equals("twomode")) {
+								Matrix m = computeTwoModeMatrix(currentWindowStatements, first, last);
+								m.setDateTime(this.filteredStatements.get(t).getDateTime());
+								m.setNumStatements(currentWindowStatements.size());
+								sink.accept(m);
+							} else { // note: with "congruence & conflict", the networks are saved in alternating order and need to be disentangled
+								for (int a = 0; a < windowNetworks.size(); a++) {
+									windowNetworks.get(a).setWindow(currentWindowStatements);
+									Matrix m = windowNetworks.get(a).toMatrix(first, last);
 									m.setDateTime(this.filteredStatements.get(t).getDateTime());
 									m.setNumStatements(currentWindowStatements.size());
-									timeWindowMatrices.add(m);
-								} else {
-									if (qualifierAggregation.equals("congruence & conflict")) { // note: the networks are saved in alternating order and need to be disentangled
-										m = computeOneModeMatrix(currentWindowStatements, "congruence", first, last);
-										m.setDateTime(this.filteredStatements.get(t).getDateTime());
-										m.setNumStatements(currentWindowStatements.size());
-										timeWindowMatrices.add(m);
-										m = computeOneModeMatrix(currentWindowStatements, "conflict", first, last);
-										m.setDateTime(this.filteredStatements.get(t).getDateTime());
-										m.setNumStatements(currentWindowStatements.size());
-										timeWindowMatrices.add(m);
-									} else {
-										m = computeOneModeMatrix(currentWindowStatements, this.qualifierAggregation, first, last);
-										m.setDateTime(this.filteredStatements.get(t).getDateTime());
-										m.setNumStatements(currentWindowStatements.size());
-										timeWindowMatrices.add(m);
-									}
-
+									sink.accept(m);
 								}
 							}
 						}
@@ -2287,76 +2696,325 @@ public class Exporter {
 				}
 			}
 		} else {
+			// with incremental re-export, the time windows of the previous export with the same settings are reused if their statements are unchanged
+			String stateKey = null;
+			TimeWindowState previousState = null, state = null;
+			long[] hashSums = null;
+			if (this.incremental && this.matrixSink == null) {
+				stateKey = getSettingsFingerprint();
+				long context = timeWindowContext();
+				previousState = TimeWindowState.get(stateKey, context);
+				state = new TimeWindowState(context);
+				hashSums = statementHashSums();
+			}
+			int numReused = 0, numComputed = 0;
+			int networkLower = 0; // index of the first statement in the incrementally updated one-mode network
+			int networkUpper = 0; // index after the last statement in the incrementally updated one-mode network
+
+			sink = openSink(countTimeWindows());
 			try (ProgressBar pb = new ProgressBar("Time window matrices", 100)) {
 				long percent = 0;
 				pb.stepTo(percent);
 				LocalDateTime startCalendar = this.startDateTime; // start of statement list
 				LocalDateTime stopCalendar = this.stopDateTime; // end of statement list
+				long stopCalendarSeconds = stopCalendar.toEpochSecond(ZoneOffset.UTC);
 				LocalDateTime currentTime = this.startDateTime; // current time while progressing through list of statements
 				LocalDateTime windowStart; // start of the time window
 				LocalDateTime windowStop; // end of the time window
-				LocalDateTime iTime; // time of the statement to be potentially added to the time slice
-				int addition = 0;
+				int addition = (int) Math.round(((double) windowSize - 1) / 2);
+				ChronoUnit unit = timeWindowUnit();
+				int lower = 0; // index of the first statement in the current window
+				int upper = 0; // index after the last statement in the current window
+				int index = 0; // index of the next matrix in the series
 				while (!currentTime.isAfter(stopCalendar)) {
 					LocalDateTime matrixTime = currentTime;
-					windowStart = matrixTime;
-					windowStop = matrixTime;
-					currentWindowStatements.clear();
-					addition = (int) Math.round(((double) windowSize - 1) / 2);
-					if (timeWindow.equals("seconds")) {
-						windowStart = windowStart.minusSeconds(addition);
-						windowStop = windowStop.plusSeconds(addition);
-						currentTime = currentTime.plusSeconds(1);
-					} else if (timeWindow.equals("minutes")) {
-						windowStart = windowStart.minusMinutes(addition);
-						windowStop = windowStop.plusMinutes(addition);
-						currentTime = currentTime.plusMinutes(1);
-					} else if (timeWindow.equals("hours")) {
-						windowStart = windowStart.minusHours(addition);
-						windowStop = windowStop.plusHours(addition);
-						currentTime = currentTime.plusHours(1);
-					} else if (timeWindow.equals("days")) {
-						windowStart = windowStart.minusDays(addition);
-						windowStop = windowStop.plusDays(addition);
-						currentTime = currentTime.plusDays(1);
-					} else if (timeWindow.equals("weeks")) {
-						windowStart = windowStart.minusWeeks(addition);
-						windowStop = windowStop.plusWeeks(addition);
-						currentTime = currentTime.plusWeeks(1);
-					} else if (timeWindow.equals("months")) {
-						windowStart = windowStart.minusMonths(addition);
-						windowStop = windowStop.plusMonths(addition);
-						currentTime = currentTime.plusMonths(1);
-					} else if (timeWindow.equals("years")) {
-						windowStart = windowStart.minusYears(addition);
-						windowStop = windowStop.plusYears(addition);
-						currentTime = currentTime.plusYears(1);
-					}
+					windowStart = matrixTime.minus(addition, unit);
+					windowStop = matrixTime.plus(addition, unit);
+					currentTime = currentTime.plus(1, unit);
 					if (!windowStart.isBefore(startCalendar) && !windowStop.isAfter(stopCalendar)) {
-						for (int i = 0; i < this.filteredStatements.size(); i++) {
-							iTime = this.filteredStatements.get(i).getDateTime();
-							if (!iTime.isBefore(windowStart) && !iTime.isAfter(windowStop)) {
-								currentWindowStatements.add(this.filteredStatements.get(i));
+						// both window boundaries only move forward, so two pointers over the sorted statements suffice
+						long startSeconds = windowStart.toEpochSecond(ZoneOffset.UTC);
+						long stopSeconds = windowStop.toEpochSecond(ZoneOffset.UTC);
+						while (lower < n && times[lower] < startSeconds) {
+							lower++;
+						}
+						upper = Math.max(upper, lower);
+						while (upper < n && times[upper] <= stopSeconds) {
+							upper++;
+						}
+						Matrix reusable = previousState == null ? null : previousState.find(startSeconds, stopSeconds, upper - lower, hashSums[upper] - hashSums[lower]);
+
+						Matrix m;
+						if (reusable != null) {
+							// the window has the same statements as in the previous export: reuse its network
+							m = new Matrix(reusable.getMatrix(), reusable.getRowNames(), reusable.getColumnNames(), reusable.getInteger(), windowStart, windowStop);
+							numReused++;
+						} else if (this.networkType.equals("twomode")) {
+							currentWindowStatements = new ArrayList<ExportStatement>(this.filteredStatements.subList(lower, upper));
+							m = computeTwoModeMatrix(currentWindowStatements, windowStart, windowStop);
+							numComputed++;
+						} else {
+							// remove statements that left the window and add statements that entered it since the network was last updated
+							for (SlidingWindowNetwork windowNetwork : windowNetworks) {
+								for (int i = networkLower; i < Math.min(networkUpper, lower); i++) {
+									windowNetwork.remove(this.filteredStatements.get(i));
+								}
+								for (int i = Math.max(networkUpper, lower); i < upper; i++) {
+									windowNetwork.add(this.filteredStatements.get(i));
+								}
 							}
+							networkLower = lower;
+							networkUpper = upper;
+							m = windowNetworks.get(0).toMatrix(windowStart, windowStop);
+							numComputed++;
 						}
-						// if (currentWindowStatements.size() > 0) {
-							Matrix m;
-							if (this.networkType.equals("twomode")) {
-								m = computeTwoModeMatrix(currentWindowStatements, windowStart, windowStop);
-							} else {
-								m = computeOneModeMatrix(currentWindowStatements, this.qualifierAggregation, windowStart, windowStop);
+						m.setDateTime(matrixTime);
+						m.setNumStatements(upper - lower);
+						sink.accept(m);
+						index++;
+
+						// jump to the next step in which a statement enters or leaves the window; the steps in between repeat this network
+						long lowerTime = lower < n ? times[lower] : Long.MAX_VALUE; // the first statement leaves once the window starts after it
+						long upperTime = upper < n ? times[upper] : Long.MAX_VALUE; // the next statement enters once the window stops at or after it
+						int repeat = 0;
+						if (unit.compareTo(ChronoUnit.WEEKS) <= 0) { // fixed duration: compute the number of steps before the next boundary crossing
+							long seconds = unit.getDuration().getSeconds();
+							long limit = stopCalendarSeconds - stopSeconds; // the last window must end within the timeline
+							if (lower < n) { // only existing statements bound the run; the time stamps may be negative (before 1970)
+								limit = Math.min(limit, times[lower] - startSeconds);
 							}
-							m.setDateTime(matrixTime);
-							m.setNumStatements(currentWindowStatements.size());
-							timeWindowMatrices.add(m);
-						// }
+							if (upper < n) {
+								limit = Math.min(limit, times[upper] - 1 - stopSeconds);
+							}
+							long steps = Math.max(0, limit / seconds);
+							repeat = (int) Math.min(steps, Integer.MAX_VALUE - index);
+							currentTime = matrixTime.plus(repeat + 1, unit);
+						} else { // months and years differ in length: step until the next boundary crossing
+							while (!currentTime.plus(addition, unit).isAfter(stopCalendar)
+									&& currentTime.minus(addition, unit).toEpochSecond(ZoneOffset.UTC) <= lowerTime
+									&& currentTime.plus(addition, unit).toEpochSecond(ZoneOffset.UTC) < upperTime) {
+								repeat++;
+								currentTime = currentTime.plus(1, unit);
+							}
+						}
+						if (state != null) { // save the window and the steps that repeat it as one run
+							state.add(matrixTime, unit, addition, repeat + 1, upper - lower, hashSums[upper] - hashSums[lower], m);
+						}
+						if (repeat > 0) {
+							sink.acceptRun(new MatrixRun(m, index - 1, index, repeat, matrixTime.plus(1, unit), unit, addition, upper - lower));
+							index = index + repeat;
+						}
+					}
+					long newPercent = 100 * (currentTime.toEpochSecond(ZoneOffset.UTC) - startCalendar.toEpochSecond(ZoneOffset.UTC)) / (stopCalendar.toEpochSecond(ZoneOffset.UTC) - startCalendar.toEpochSecond(ZoneOffset.UTC));
+					if (newPercent != percent) {
+						percent = newPercent;
+						pb.stepTo(percent);
 					}
-					percent = 100 * (currentTime.toEpochSecond(ZoneOffset.UTC) - startCalendar.toEpochSecond(ZoneOffset.UTC)) / (stopCalendar.toEpochSecond(ZoneOffset.UTC) - startCalendar.toEpochSecond(ZoneOffset.UTC));
-					pb.stepTo(percent);
+				}
+			}
+			if (state != null) {
+				TimeWindowState.put(stateKey, state);
+				if (previousState != null) {
+					LogEvent l = new LogEvent(Logger.MESSAGE,
+							"Time window networks re-exported incrementally.",
+							numReused + " time window networks without changed statements were reused from the previous export with the same settings, and " + numComputed + " time window networks were recomputed.");
+					Dna.logger.log(l);
 				}
 			}
 		}
-		this.matrixResults = timeWindowMatrices;
+		closeSink(sink);
+	}
+
+	/**
+	 * Compute a content hash for each filtered statement, which combines the statement ID, the date and time, and the
+	 * labels of the two variables and the qualifier, for incremental time window exports (see
+	 * {@link TimeWindowState}). The filtered statements must be sorted by time.
+	 *
+	 * @return The prefix sums of the hashes: element {@code i} is the sum of the hashes of the first {@code i} filtered
+	 *   statements, so the hash sum of a time window is the difference of two elements.
+	 */
+	private long[] statementHashSums() {
+		int[] rows = this.getStatementTable().rows(this.filteredStatements);
+		long[] hashes1 = labelHashes(rows, this.variable1, this.variable1Document);
+		long[] hashes2 = labelHashes(rows, this.variable2, this.variable2Document);
+		long[] hashesQualifier = this.qualifier == null ? null : labelHashes(rows, this.qualifier, this.qualifierDocument);
+		long[] sums = new long[rows.length + 1];
+		for (int i = 0; i < rows.length; i++) {
+			long h = TimeWindowState.combine(this.getStatementTable().getStatementId(rows[i]), this.getStatementTable().getTime(rows[i]));
+			h = TimeWindowState.combine(h, hashes1[i]);
+			h = TimeWindowState.combine(h, hashes2[i]);
+			if (hashesQualifier != null) {
+				h = TimeWindowState.combine(h, hashesQualifier[i]);
+			}
+			sums[i + 1] = sums[i] + h;
+		}
+		return sums;
+	}
+
+	/**
+	 * Compute a hash of the label (or raw value) of a variable for selected rows. Labels are hashed rather than codes
+	 * because the codes change when labels are added to or removed from the dictionary.
+	 *
+	 * @param rows The row indices.
+	 * @param variable The variable name.
+	 * @param documentLevel Is the variable a document-level variable?
+	 * @return The hashes, in the same order as the rows.
+	 */
+	private long[] labelHashes(int[] rows, String variable, boolean documentLevel) {
+		int[] codes = this.getStatementTable().codes(rows, variable, documentLevel);
+		String[] dictionary = this.getStatementTable().dictionary(variable, documentLevel);
+		long[] dictionaryHashes = null;
+		if (dictionary != null) {
+			dictionaryHashes = new long[dictionary.length];
+			for (int i = 0; i < dictionary.length; i++) {
+				dictionaryHashes[i] = TimeWindowState.hash(dictionary[i]);
+			}
+		}
+		long[] hashes = new long[codes.length];
+		for (int i = 0; i < codes.length; i++) {
+			hashes[i] = dictionaryHashes == null ? TimeWindowState.combine(0L, codes[i]) : dictionaryHashes[codes[i]];
+		}
+		return hashes;
+	}
+
+	/**
+	 * Compute a hash of the context of a time window export, i.e., everything apart from the statements in a time
+	 * window that affects its matrix: the qualifier levels across all statements and, if isolates are included, the
+	 * node sets of the two variables.
+	 *
+	 * @return The hash.
+	 */
+	private long timeWindowContext() {
+		long h = 0L;
+		if (this.qualifier != null) {
+			String[] dictionary = this.getStatementTable().dictionary(this.qualifier, this.qualifierDocument);
+			if (dictionary != null) {
+				for (String label : dictionary) {
+					h = TimeWindowState.combine(h, TimeWindowState.hash(label));
+				}
+			} else {
+				for (int value : this.getStatementTable().distinctValues(this.qualifier)) {
+					h = TimeWindowState.combine(h, value);
+				}
+			}
+		}
+		if (this.isolates) {
+			h = TimeWindowState.combine(h, 1L);
+			for (String label : extractLabels(this.filteredStatements, this.variable1, this.variable1Document)) {
+				h = TimeWindowState.combine(h, TimeWindowState.hash(label));
+			}
+			h = TimeWindowState.combine(h, 2L);
+			for (String label : extractLabels(this.filteredStatements, this.variable2, this.variable2Document)) {
+				h = TimeWindowState.combine(h, TimeWindowState.hash(label));
+			}
+		}
+		return h;
+	}
+
+	/**
+	 * Get the time unit of the time window setting.
+	 *
+	 * @return The time unit, or {@code null} if the time window is not defined in time units (e.g., {@code "events"}).
+	 */
+	private ChronoUnit timeWindowUnit() {
+		if (this.timeWindow.equals("seconds")) {
+			return ChronoUnit.SECONDS;
+		} else if (this.timeWindow.equals("minutes")) {
+			return ChronoUnit.MINUTES;
+		} else if (this.timeWindow.equals("hours")) {
+			return ChronoUnit.HOURS;
+		} else if (this.timeWindow.equals("days")) {
+			return ChronoUnit.DAYS;
+		} else if (this.timeWindow.equals("weeks")) {
+			return ChronoUnit.WEEKS;
+		} else if (this.timeWindow.equals("months")) {
+			return ChronoUnit.MONTHS;
+		} else if (this.timeWindow.equals("years")) {
+			return ChronoUnit.YEARS;
+		}
+		return null;
+	}
+
+	/**
+	 * Count the time window networks that {@link #computeTimeWindowMatrices()} creates with a time window defined in
+	 * time units, i.e., the mid-points between the start and stop date for which the whole window fits into the
+	 * timeline.
+	 *
+	 * @return The number of time window networks.
+	 */
+	private int countTimeWindows() {
+		ChronoUnit unit = timeWindowUnit();
+		if (unit == null) {
+			return 0;
+		}
+		int addition = (int) Math.round(((double) windowSize - 1) / 2);
+		int count = 0;
+		LocalDateTime currentTime = this.startDateTime;
+		while (!currentTime.isAfter(this.stopDateTime)) {
+			if (!currentTime.minus(addition, unit).isBefore(this.startDateTime) && !currentTime.plus(addition, unit).isAfter(this.stopDateTime)) {
+				count++;
+			}
+			currentTime = currentTime.plus(1, unit);
+		}
+		return count;
+	}
+
+	/**
+	 * Create an incrementally updated one-mode network for sliding time
+	 * windows, with the qualifier levels, node labels, and settings of this
+	 * exporter.
+	 *
+	 * @param aggregation The qualifier aggregation.
+	 * @return A {@link SlidingWindowNetwork} with an empty window.
+	 */
+	SlidingWindowNetwork createSlidingWindowNetwork(String aggregation) {
+		// qualifier levels for all statements in the table, as in createArray
+		int[] qualifierInteger = new int[] { 0 };
+		int numLevels = 1;
+		int[] levelColumn = new int[this.getStatementTable().size()];
+		if (qualifier != null) {
+			int[] qualifierColumn = this.getStatementTable().column(qualifier, qualifierDocument);
+			if (!qualifierDocument && (dataTypes.get(qualifier).equals("boolean") || dataTypes.get(qualifier).equals("integer"))) {
+				qualifierInteger = dataTypes.get(qualifier).equals("boolean") ? new int[] {0, 1} : this.getStatementTable().distinctValues(qualifier);
+				numLevels = qualifierInteger.length;
+				for (int i = 0; i < levelColumn.length; i++) {
+					levelColumn[i] = Math.max(0, Arrays.binarySearch(qualifierInteger, qualifierColumn[i]));
+				}
+			} else if (qualifierDocument || dataTypes.get(qualifier).equals("short text")) {
+				numLevels = Math.max(1, this.getStatementTable().dictionary(qualifier, qualifierDocument).length);
+				levelColumn = qualifierColumn;
+			}
+		}
+		boolean textQualifier = !aggregation.equals("ignore") && (qualifierDocument || dataTypes.get(qualifier).equals("short text"));
+		boolean numericQualifier = !aggregation.equals("ignore") && !textQualifier && (dataTypes.get(qualifier).equals("boolean") || dataTypes.get(qualifier).equals("integer"));
+
+		// fixed node set if isolates are included
+		int[] isolateActors = null;
+		int isolateConcepts = 0;
+		if (this.isolates) {
+			String[] names1 = this.extractLabels(this.filteredStatements, this.variable1, this.variable1Document);
+			isolateActors = new int[names1.length];
+			for (int i = 0; i < names1.length; i++) {
+				isolateActors[i] = this.getStatementTable().lookup(this.variable1, this.variable1Document, names1[i]);
+			}
+			isolateConcepts = this.extractLabels(this.filteredStatements, this.variable2, this.variable2Document).length;
+		}
+
+		return new SlidingWindowNetwork(this,
+				this.getStatementTable(),
+				aggregation,
+				textQualifier,
+				numericQualifier,
+				qualifierInteger,
+				this.getStatementTable().column(this.variable1, this.variable1Document),
+				this.getStatementTable().column(this.variable2, this.variable2Document),
+				levelColumn,
+				numLevels,
+				this.getStatementTable().dictionary(this.variable1, this.variable1Document),
+				this.getStatementTable().lookup(this.variable1, this.variable1Document, ""),
+				this.getStatementTable().lookup(this.variable2, this.variable2Document, ""),
+				isolateActors,
+				isolateConcepts);
 	}
 	
 	/**
@@ -2378,6 +3036,124 @@ public class Exporter {
 		return this.dataTypes.get(key);
 	}
 
+	/**
+	 * Replace the matrix results, for example with results that were computed earlier with identical settings and
+	 * cached. This makes them available via {@link #getMatrixResults()} and {@link #exportToFile()}.
+	 *
+	 * @param matrixResults An array list of {@link Matrix Matrix} objects.
+	 */
+	public void setMatrixResults(ArrayList<Matrix> matrixResults) {
+		this.matrixResults = matrixResults;
+	}
+
+	/**
+	 * Create a canonical fingerprint of all settings of this exporter that affect the computed results. Two exporters
+	 * with the same fingerprint produce the same results from the same data. The settings are taken after they were
+	 * checked and normalized by the constructor, and the exclude lists are sorted, so the order in which values were
+	 * specified does not matter. The output file name and file format are not part of the fingerprint.
+	 *
+	 * @return The fingerprint.
+	 */
+	public String getSettingsFingerprint() {
+		StringBuilder sb = new StringBuilder();
+		appendSetting(sb, "networkType", this.networkType);
+		appendSetting(sb, "statementType", this.statementType == null ? null : this.statementType.getId());
+		appendSetting(sb, "variable1", this.variable1);
+		appendSetting(sb, "variable1Document", this.variable1Document);
+		appendSetting(sb, "variable2", this.variable2);
+		appendSetting(sb, "variable2Document", this.variable2Document);
+		appendSetting(sb, "qualifier", this.qualifier);
+		appendSetting(sb, "qualifierDocument", this.qualifierDocument);
+		appendSetting(sb, "qualifierAggregation", this.qualifierAggregation);
+		appendSetting(sb, "normalization", this.normalization);
+		appendSetting(sb, "isolates", this.isolates);
+		appendSetting(sb, "duplicates", this.duplicates);
+		appendSetting(sb, "start", this.startDateTime);
+		appendSetting(sb, "stop", this.stopDateTime);
+		appendSetting(sb, "timeWindow", this.timeWindow);
+		appendSetting(sb, "windowSize", this.windowSize);
+		appendSetting(sb, "kernel", this.kernel);
+		appendSetting(sb, "indentTime", this.indentTime);
+		appendSetting(sb, "kernelConvolution", this.kernelConvolution);
+		TreeMap<String, TreeSet<String>> values = new TreeMap<String, TreeSet<String>>();
+		if (this.excludeValues != null) {
+			this.excludeValues.forEach((k, v) -> values.put(k, v == null ? new TreeSet<String>() : new TreeSet<String>(v)));
+		}
+		appendSetting(sb, "excludeValues", values);
+		appendSetting(sb, "excludeAuthors", this.excludeAuthors == null ? null : new TreeSet<String>(this.excludeAuthors));
+		appendSetting(sb, "excludeSources", this.excludeSources == null ? null : new TreeSet<String>(this.excludeSources));
+		appendSetting(sb, "excludeSections", this.excludeSections == null ? null : new TreeSet<String>(this.excludeSections));
+		appendSetting(sb, "excludeTypes", this.excludeTypes == null ? null : new TreeSet<String>(this.excludeTypes));
+		appendSetting(sb, "invertValues", this.invertValues);
+		appendSetting(sb, "invertAuthors", this.invertAuthors);
+		appendSetting(sb, "invertSources", this.invertSources);
+		appendSetting(sb, "invertSections", this.invertSections);
+		appendSetting(sb, "invertTypes", this.invertTypes);
+		return sb.toString();
+	}
+
+	/**
+	 * Create a fingerprint of the settings on which the spectral losses of backbone candidates depend in addition to
+	 * the filtered statements, i.e., the settings of the one-mode network and of its eigenvalues. The loss cache is
+	 * bound to this fingerprint (see {@link BackboneLossCache#validate(Object, String)}).
+	 *
+	 * @return The fingerprint.
+	 */
+	private String getBackboneLossFingerprint() {
+		StringBuilder sb = new StringBuilder();
+		appendSetting(sb, "variable1", this.variable1);
+		appendSetting(sb, "variable1Document", this.variable1Document);
+		appendSetting(sb, "variable2", this.variable2);
+		appendSetting(sb, "variable2Document", this.variable2Document);
+		appendSetting(sb, "qualifier", this.qualifier);
+		appendSetting(sb, "qualifierDocument", this.qualifierDocument);
+		appendSetting(sb, "qualifierAggregation", this.qualifierAggregation);
+		appendSetting(sb, "normalization", this.normalization);
+		appendSetting(sb, "duplicates", this.duplicates);
+		appendSetting(sb, "start", this.startDateTime);
+		appendSetting(sb, "stop", this.stopDateTime);
+		appendSetting(sb, "spectrumSize", this.spectrumSize);
+		return sb.toString();
+	}
+
+	/**
+	 * Append a setting to a fingerprint. String values are quoted, with quotes and backslashes escaped, so that
+	 * different values can never produce the same fingerprint.
+	 *
+	 * @param sb The fingerprint.
+	 * @param name The name of the setting.
+	 * @param value The value of the setting.
+	 */
+	private static void appendSetting(StringBuilder sb, String name, Object value) {
+		sb.append(name).append('=');
+		appendValue(sb, value);
+		sb.append(';');
+	}
+
+	private static void appendValue(StringBuilder sb, Object value) {
+		if (value instanceof String) {
+			sb.append('"').append(((String) value).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+		} else if (value instanceof Map) {
+			sb.append('{');
+			for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+				appendValue(sb, e.getKey());
+				sb.append(':');
+				appendValue(sb, e.getValue());
+				sb.append(',');
+			}
+			sb.append('}');
+		} else if (value instanceof Collection) {
+			sb.append('[');
+			for (Object o : (Collection<?>) value) {
+				appendValue(sb, o);
+				sb.append(',');
+			}
+			sb.append(']');
+		} else {
+			sb.append(value);
+		}
+	}
+
 	/**
 	 * Get the computed network matrix results as an array list.
 	 * 
@@ -2416,12 +3192,13 @@ public class Exporter {
 	public void exportToFile() {
 		if (networkType.equals("eventlist") && fileFormat.equals("csv")) {
 			eventCSV();
-		} else if (fileFormat.equals("csv")) {
-			exportCSV();
-		} else if (fileFormat.equals("dl")) {
-			exportDL();
-		} else if (fileFormat.equals("graphml")) {
-			exportGraphml();
+		} else if (this.matrixResults == null && this.matrixSink != null) {
+			// the matrices were already passed to the matrix sink while they were computed
+		} else {
+			MatrixSink sink = createFileSink();
+			if (sink != null) {
+				exportMatrices(sink);
+			}
 		}
 	}
 
@@ -2488,171 +3265,203 @@ public class Exporter {
 	}
 
 	/**
-	 * Export {@link Matrix Matrix} to a CSV matrix file.
+	 * Export the matrix results to files in the file format of this exporter.
+	 *
+	 * @param sink The file sink for the file format.
 	 */
-	private void exportCSV() {
+	private void exportMatrices(MatrixSink sink) {
 		try (ProgressBar pb = new ProgressBar("Exporting networks", this.matrixResults.size())) {
 			pb.stepTo(0);
-			String filename2;
-			String filename1 = this.outfile.substring(0, this.outfile.length() - 4);
-			String filename3 = this.outfile.substring(this.outfile.length() - 4, this.outfile.length());
-			DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+			sink.open(this.matrixResults.size());
 			for (int k = 0; k < this.matrixResults.size(); k++) {
-				// assemble file name for time window networks if necessary
-				String filename = this.outfile;
-				if (this.matrixResults.size() > 1) {
-					filename2 = " " + String.format("%0" + String.valueOf(this.matrixResults.size()).length() + "d", k + 1) + " " + this.matrixResults.get(k).getDateTime().format(formatter);
-					filename = filename1 + filename2 + filename3;
-				}
-
-				// get current data
-				String[] rn = this.matrixResults.get(k).getRowNames();
-				String[] cn = this.matrixResults.get(k).getColumnNames();
-				int nr = rn.length;
-				int nc = cn.length;
-				double[][] mat = this.matrixResults.get(k).getMatrix();
-
-				// export
-				try {
-					BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filename), "UTF8"));
-					out.write("\"\"");
-					for (int i = 0; i < nc; i++) {
-						out.write(";\"" + cn[i].replaceAll("\"", "'") + "\"");
-					}
-					for (int i = 0; i < nr; i++) {
-						out.newLine();
-						out.write("\"" + rn[i].replaceAll("\"", "'") + "\"");
-						for (int j = 0; j < nc; j++) {
-							if (this.matrixResults.get(k).getInteger()) {
-								out.write(";" + (int) mat[i][j]);
-							} else {
-								out.write(";" + String.format(new Locale("en"), "%.6f", mat[i][j])); // six decimal places
-							}
-						}
-					}
-					out.close();
-				} catch (IOException e) {
-					LogEvent l = new LogEvent(Logger.ERROR,
-							"Error while saving matrix as CSV file.",
-							"Tried to save a matrix to CSV file \"" + this.outfile + "\", but an error occurred. See stack trace.",
-							e);
-					Dna.logger.log(l);
-				}
+				sink.accept(this.matrixResults.get(k));
 				pb.stepTo(k + 1);
 			}
+			sink.close();
 			pb.stepTo(this.matrixResults.size());
 		}
 	}
 
 	/**
-	 * Export network to a DL fullmatrix file for the software UCINET.
+	 * Base class of the matrix sinks that write each matrix to a separate file. If there is more than one matrix, the
+	 * index and date-time stamp of the matrix are inserted before the file extension of the output file name.
 	 */
-	private void exportDL() {
-		try (ProgressBar pb = new ProgressBar("Exporting networks", this.matrixResults.size())) {
-			pb.stepTo(0);
-			String filename2;
-			String filename1 = this.outfile.substring(0, this.outfile.length() - 4);
-			String filename3 = this.outfile.substring(this.outfile.length() - 4, this.outfile.length());
-			DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-			for (int k = 0; k < this.matrixResults.size(); k++) {
-				// assemble file name for time window networks if necessary
-				String filename = this.outfile;
-				if (this.matrixResults.size() > 1) {
-					filename2 = " " + String.format("%0" + String.valueOf(this.matrixResults.size()).length() + "d", k + 1) + " " + this.matrixResults.get(k).getDateTime().format(formatter);
-					filename = filename1 + filename2 + filename3;
-				}
-
-				// get current data
-				String[] rn = this.matrixResults.get(k).getRowNames();
-				String[] cn = this.matrixResults.get(k).getColumnNames();
-				int nr = rn.length;
-				int nc = cn.length;
-				double[][] mat = this.matrixResults.get(k).getMatrix();
-
-				// export
-				try {
-					BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filename), "UTF8"));
-					out.write("dl ");
-					if (this.networkType.equals("onemode")) {
-						out.write("n = " + nr);
-					} else if (this.networkType.equals("twomode")) {
-						out.write("nr = " + nr + ", nc = " + nc);
+	private abstract class FileMatrixSink implements MatrixSink {
+		private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+		private int numMatrices, index;
+
+		@Override
+		public void open(int numMatrices) {
+			this.numMatrices = numMatrices;
+			this.index = 0;
+		}
+
+		@Override
+		public void accept(Matrix matrix) {
+			this.index++;
+
+			// assemble file name for time window networks if necessary
+			String filename = Exporter.this.outfile;
+			if (this.numMatrices > 1) {
+				String filename1 = Exporter.this.outfile.substring(0, Exporter.this.outfile.length() - 4);
+				String filename2 = " " + String.format("%0" + String.valueOf(this.numMatrices).length() + "d", this.index) + " " + matrix.getDateTime().format(this.formatter);
+				String filename3 = Exporter.this.outfile.substring(Exporter.this.outfile.length() - 4, Exporter.this.outfile.length());
+				filename = filename1 + filename2 + filename3;
+			}
+			write(matrix, filename);
+		}
+
+		@Override
+		public void close() {
+		}
+
+		/**
+		 * Write a matrix to a file.
+		 *
+		 * @param matrix The matrix.
+		 * @param filename The file name.
+		 */
+		abstract void write(Matrix matrix, String filename);
+	}
+
+	/**
+	 * Writes each {@link Matrix Matrix} to a CSV matrix file.
+	 */
+	private class CsvMatrixSink extends FileMatrixSink {
+
+		@Override
+		void write(Matrix matrix, String filename) {
+			// get current data
+			String[] rn = matrix.getRowNames();
+			String[] cn = matrix.getColumnNames();
+			int nr = rn.length;
+			int nc = cn.length;
+			double[][] mat = matrix.getMatrix();
+
+			// export
+			try {
+				BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filename), "UTF8"));
+				out.write("\"\"");
+				for (int i = 0; i < nc; i++) {
+					out.write(";\"" + cn[i].replaceAll("\"", "'") + "\"");
+				}
+				for (int i = 0; i < nr; i++) {
+					out.newLine();
+					out.write("\"" + rn[i].replaceAll("\"", "'") + "\"");
+					for (int j = 0; j < nc; j++) {
+						if (matrix.getInteger()) {
+							out.write(";" + (int) mat[i][j]);
+						} else {
+							out.write(";" + String.format(new Locale("en"), "%.6f", mat[i][j])); // six decimal places
+						}
 					}
-					out.write(", format = fullmatrix");
+				}
+				out.close();
+			} catch (IOException e) {
+				LogEvent l = new LogEvent(Logger.ERROR,
+						"Error while saving matrix as CSV file.",
+						"Tried to save a matrix to CSV file \"" + Exporter.this.outfile + "\", but an error occurred. See stack trace.",
+						e);
+				Dna.logger.log(l);
+			}
+		}
+	}
+
+	/**
+	 * Writes each network to a DL fullmatrix file for the software UCINET.
+	 */
+	private class DlMatrixSink extends FileMatrixSink {
+
+		@Override
+		void write(Matrix matrix, String filename) {
+			// get current data
+			String[] rn = matrix.getRowNames();
+			String[] cn = matrix.getColumnNames();
+			int nr = rn.length;
+			int nc = cn.length;
+			double[][] mat = matrix.getMatrix();
+
+			// export
+			try {
+				BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filename), "UTF8"));
+				out.write("dl ");
+				if (Exporter.this.networkType.equals("onemode")) {
+					out.write("n = " + nr);
+				} else if (Exporter.this.networkType.equals("twomode")) {
+					out.write("nr = " + nr + ", nc = " + nc);
+				}
+				out.write(", format = fullmatrix");
+				out.newLine();
+				if (Exporter.this.networkType.equals("twomode")) {
+					out.write("row labels:");
+				} else {
+					out.write("labels:");
+				}
+				for (int i = 0; i < nr; i++) {
+					out.newLine();
+					out.write("\"" + rn[i].replaceAll("\"", "'").replaceAll("'", "") + "\"");
+				}
+				if (Exporter.this.networkType.equals("twomode")) {
 					out.newLine();
-					if (this.networkType.equals("twomode")) {
-						out.write("row labels:");
-					} else {
-						out.write("labels:");
-					}
-					for (int i = 0; i < nr; i++) {
-						out.newLine();
-						out.write("\"" + rn[i].replaceAll("\"", "'").replaceAll("'", "") + "\"");
-					}
-					if (this.networkType.equals("twomode")) {
+					out.write("col labels:");
+					for (int i = 0; i < nc; i++) {
 						out.newLine();
-						out.write("col labels:");
-						for (int i = 0; i < nc; i++) {
-							out.newLine();
-							out.write("\"" + cn[i].replaceAll("\"", "'").replaceAll("'", "") + "\"");
-						}
+						out.write("\"" + cn[i].replaceAll("\"", "'").replaceAll("'", "") + "\"");
 					}
+				}
+				out.newLine();
+				out.write("data:");
+				for (int i = 0; i < nr; i++) {
 					out.newLine();
-					out.write("data:");
-					for (int i = 0; i < nr; i++) {
-						out.newLine();
-						for (int j = 0; j < nc; j++) {
-							if (this.matrixResults.get(k).getInteger()) {
-								out.write(" " + (int) mat[i][j]);
-							} else {
-								out.write(" " + String.format(new Locale("en"), "%.6f", mat[i][j]));
-							}
+					for (int j = 0; j < nc; j++) {
+						if (matrix.getInteger()) {
+							out.write(" " + (int) mat[i][j]);
+						} else {
+							out.write(" " + String.format(new Locale("en"), "%.6f", mat[i][j]));
 						}
 					}
-					out.close();
-				} catch (IOException e) {
-					LogEvent l = new LogEvent(Logger.ERROR,
-							"Error while saving DL fullmatrix file.",
-							"Tried to save a matrix to DL fullmatrix file \"" + this.outfile + "\", but an error occurred. See stack trace.",
-							e);
-					Dna.logger.log(l);
 				}
-				pb.stepTo(k + 1);
+				out.close();
+			} catch (IOException e) {
+				LogEvent l = new LogEvent(Logger.ERROR,
+						"Error while saving DL fullmatrix file.",
+						"Tried to save a matrix to DL fullmatrix file \"" + Exporter.this.outfile + "\", but an error occurred. See stack trace.",
+						e);
+				Dna.logger.log(l);
 			}
-			pb.stepTo(this.matrixResults.size());
 		}
 	}
 
 	/**
-	 * Export filter for graphML files.
+	 * Writes each network to a visone graphML file using a {@link GraphmlWriter}, which streams the nodes and edges to
+	 * the file without building a document tree. The entities with their attributes and colors are retrieved from the
+	 * database once when the sink is opened.
 	 */
-	private void exportGraphml() {
-		try (ProgressBar pb = new ProgressBar("Exporting networks", this.matrixResults.size())) {
-			pb.stepTo(0);
+	private class GraphmlMatrixSink extends FileMatrixSink {
+		private ArrayList<String> attributeVariables1, attributeVariables2;
+		private HashMap<String, Entity> entityMap1, entityMap2;
 
-			// set up file name components for time window (in case this will be required later)
-			String filename2;
-			String filename1 = this.outfile.substring(0, this.outfile.length() - 4);
-			String filename3 = this.outfile.substring(this.outfile.length() - 4, this.outfile.length());
-			DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+		@Override
+		public void open(int numMatrices) {
+			super.open(numMatrices);
 
 			// get variable IDs for variable 1 and variable 2
-			int variable1Id = this.statementType.getVariables()
+			int variable1Id = Exporter.this.statementType.getVariables()
 					.stream()
-					.filter(v -> v.getKey().equals(this.variable1))
+					.filter(v -> v.getKey().equals(Exporter.this.variable1))
 					.mapToInt(v -> v.getVariableId())
 					.findFirst()
 					.getAsInt();
-			int variable2Id = this.statementType.getVariables()
+			int variable2Id = Exporter.this.statementType.getVariables()
 					.stream()
-					.filter(v -> v.getKey().equals(this.variable2))
+					.filter(v -> v.getKey().equals(Exporter.this.variable2))
 					.mapToInt(v -> v.getVariableId())
 					.findFirst()
 					.getAsInt();
 
 			// get attribute variable names for variable 1 and variable 2
-			ArrayList<String> attributeVariables1 = Dna.sql.getAttributeVariables(variable1Id);
-			ArrayList<String> attributeVariables2 = Dna.sql.getAttributeVariables(variable2Id);
+			this.attributeVariables1 = Dna.sql.getAttributeVariables(variable1Id);
+			this.attributeVariables2 = Dna.sql.getAttributeVariables(variable2Id);
 
 			// get entities with attribute values for variable 1 and variable 2 and save in hash maps
 			ArrayList<Integer> variableIds = new ArrayList<Integer>();
@@ -2663,364 +3472,186 @@ public class Exporter {
 			HashMap<String, Entity> entityMap2 = new HashMap<String, Entity>();
 			entities.get(0).stream().forEach(entity -> entityMap1.put(entity.getValue(), entity));
 			entities.get(1).stream().forEach(entity -> entityMap2.put(entity.getValue(), entity));
+			this.entityMap1 = entityMap1;
+			this.entityMap2 = entityMap2;
+		}
 
-			Matrix m;
-			for (int k = 0; k < this.matrixResults.size(); k++) {
-				m = this.matrixResults.get(k);
-
-				// assemble file name for time window networks if necessary
-				String filename = this.outfile;
-				if (this.matrixResults.size() > 1) {
-					filename2 = " " + String.format("%0" + String.valueOf(this.matrixResults.size()).length() + "d", k + 1) + " " + m.getDateTime().format(formatter);
-					filename = filename1 + filename2 + filename3;
-				}
-
-				// frequencies
-				String[] values1 = this.retrieveValues(this.filteredStatements, this.variable1, this.variable1Document);
-				String[] values2 = this.retrieveValues(this.filteredStatements, this.variable2, this.variable2Document);
-				int[] frequencies1 = this.countFrequencies(values1, m.getRowNames());
-				int[] frequencies2 = this.countFrequencies(values2, m.getColumnNames());
-
-				// join names, frequencies, and variable names into long arrays for both modes
-				String[] rn = this.matrixResults.get(k).getRowNames();
-				String[] cn = this.matrixResults.get(k).getColumnNames();
-				String[] names;
-				String[] variables;
-				int[] frequencies;
-				if (this.networkType.equals("twomode")) {
-					names = new String[rn.length + cn.length];
-					variables = new String[names.length];
-					frequencies = new int[names.length];
-				} else {
-					names = new String[rn.length];
-					variables = new String[rn.length];
-					frequencies = new int[rn.length];
-				}
-				for (int i = 0; i < rn.length; i++) {
-					names[i] = rn[i];
-					variables[i] = this.variable1;
-					frequencies[i] = frequencies1[i];
-				}
-				if (this.networkType.equals("twomode")) {
-					for (int i = 0; i < cn.length; i++) {
-						names[i + rn.length] = cn[i];
-						variables[i + rn.length] = this.variable2;
-						frequencies[i + rn.length] = frequencies2[i];
-					}
+		@Override
+		void write(Matrix m, String filename) {
+			// frequencies
+			int[] frequencies1 = Exporter.this.countFrequencies(Exporter.this.filteredStatements, Exporter.this.variable1, Exporter.this.variable1Document, m.getRowNames());
+			int[] frequencies2 = Exporter.this.countFrequencies(Exporter.this.filteredStatements, Exporter.this.variable2, Exporter.this.variable2Document, m.getColumnNames());
+
+			// join names, frequencies, and variable names into long arrays for both modes
+			String[] rn = m.getRowNames();
+			String[] cn = m.getColumnNames();
+			String[] names;
+			String[] variables;
+			int[] frequencies;
+			if (Exporter.this.networkType.equals("twomode")) {
+				names = new String[rn.length + cn.length];
+				variables = new String[names.length];
+				frequencies = new int[names.length];
+			} else {
+				names = new String[rn.length];
+				variables = new String[rn.length];
+				frequencies = new int[rn.length];
+			}
+			for (int i = 0; i < rn.length; i++) {
+				names[i] = rn[i];
+				variables[i] = Exporter.this.variable1;
+				frequencies[i] = frequencies1[i];
+			}
+			if (Exporter.this.networkType.equals("twomode")) {
+				for (int i = 0; i < cn.length; i++) {
+					names[i + rn.length] = cn[i];
+					variables[i + rn.length] = Exporter.this.variable2;
+					frequencies[i + rn.length] = frequencies2[i];
 				}
+			}
 
-				// get id and color arrays
-				int[] id = Arrays.stream(rn).mapToInt(s -> entityMap1.get(s).getId()).toArray();
-				String[] color = Arrays.stream(rn).map(s -> {
-					Color col = entityMap1.get(s).getColor();
+			// get id and color arrays
+			int[] id = Arrays.stream(rn).mapToInt(s -> this.entityMap1.get(s).getId()).toArray();
+			String[] color = Arrays.stream(rn).map(s -> {
+				Color col = this.entityMap1.get(s).getColor();
+				return String.format("#%02X%02X%02X", col.getRed(), col.getGreen(), col.getBlue());
+			}).toArray(String[]::new);
+			if (networkType.equals("twomode")) {
+				id = IntStream.concat(IntStream.of(id), Arrays.stream(cn).mapToInt(s -> this.entityMap2.get(s).getId())).toArray();
+				color = Stream.concat(Stream.of(color), Arrays.stream(cn).map(s -> {
+					Color col = this.entityMap2.get(s).getColor();
 					return String.format("#%02X%02X%02X", col.getRed(), col.getGreen(), col.getBlue());
-				}).toArray(String[]::new);
-				if (networkType.equals("twomode")) {
-					id = IntStream.concat(IntStream.of(id), Arrays.stream(cn).mapToInt(s -> entityMap2.get(s).getId())).toArray();
-					color = Stream.concat(Stream.of(color), Arrays.stream(cn).map(s -> {
-						Color col = entityMap2.get(s).getColor();
-						return String.format("#%02X%02X%02X", col.getRed(), col.getGreen(), col.getBlue());
-					})).toArray(String[]::new);
-				}
-
-				// set up graph structure
-				Namespace xmlns = Namespace.getNamespace("http://graphml.graphdrawing.org/xmlns");
-				Element graphml = new Element("graphml", xmlns);
-				Namespace visone = Namespace.getNamespace("visone", "http://visone.info/xmlns");
-				graphml.addNamespaceDeclaration(visone);
-				Namespace xsi = Namespace.getNamespace("xsi", "http://www.w3.org/2001/XMLSchema-instance");
-				graphml.addNamespaceDeclaration(xsi);
-				Namespace yNs = Namespace.getNamespace("y", "http://www.yworks.com/xml/graphml");
-				graphml.addNamespaceDeclaration(yNs);
-				Attribute attSchema = new Attribute("schemaLocation", "http://graphml.graphdrawing.org/xmlns/graphml http://www.yworks.com/xml/schema/graphml/1.0/ygraphml.xsd ", xsi);
-				graphml.setAttribute(attSchema);
-				org.jdom.Document document = new org.jdom.Document(graphml);
-
-				Comment dataSchema = new Comment(" data schema ");
-				graphml.addContent(dataSchema);
-
-				Element keyVisoneNode = new Element("key", xmlns);
-				keyVisoneNode.setAttribute(new Attribute("for", "node"));
-				keyVisoneNode.setAttribute(new Attribute("id", "d0"));
-				keyVisoneNode.setAttribute(new Attribute("yfiles.type", "nodegraphics"));
-				graphml.addContent(keyVisoneNode);
-
-				Element keyVisoneEdge = new Element("key", xmlns);
-				keyVisoneEdge.setAttribute(new Attribute("for", "edge"));
-				keyVisoneEdge.setAttribute(new Attribute("id", "e0"));
-				keyVisoneEdge.setAttribute(new Attribute("yfiles.type", "edgegraphics"));
-				graphml.addContent(keyVisoneEdge);
-
-				Element keyVisoneGraph = new Element("key", xmlns);
-				keyVisoneGraph.setAttribute(new Attribute("for", "graph"));
-				keyVisoneGraph.setAttribute(new Attribute("id", "prop"));
-				keyVisoneGraph.setAttribute(new Attribute("visone.type", "properties"));
-				graphml.addContent(keyVisoneGraph);
-
-				Element keyId = new Element("key", xmlns);
-				keyId.setAttribute(new Attribute("id", "id"));
-				keyId.setAttribute(new Attribute("for", "node"));
-				keyId.setAttribute(new Attribute("attr.name", "id"));
-				keyId.setAttribute(new Attribute("attr.type", "string"));
-				graphml.addContent(keyId);
-
-				Element keyName = new Element("key", xmlns);
-				keyName.setAttribute(new Attribute("id", "name"));
-				keyName.setAttribute(new Attribute("for", "node"));
-				keyName.setAttribute(new Attribute("attr.name", "name"));
-				keyName.setAttribute(new Attribute("attr.type", "string"));
-				graphml.addContent(keyName);
+				})).toArray(String[]::new);
+			}
 
+			// stream the graph structure to the file
+			int numEdges = rn.length * cn.length;
+			if (Exporter.this.networkType.equals("onemode")) {
+				numEdges = (numEdges - rn.length) / 2;
+			}
+			int numNodes = rn.length;
+			if (Exporter.this.networkType.equals("twomode")) {
+				numNodes = numNodes + cn.length;
+			}
+			double[][] mat = m.getMatrix();
+			try (GraphmlWriter graphml = new GraphmlWriter(filename)) {
+				graphml.startDocument();
+				graphml.comment(" data schema ");
+				graphml.empty(null, "key", "for", "node", "id", "d0", "yfiles.type", "nodegraphics");
+				graphml.empty(null, "key", "for", "edge", "id", "e0", "yfiles.type", "edgegraphics");
+				graphml.empty(null, "key", "for", "graph", "id", "prop", "visone.type", "properties");
+				graphml.empty(null, "key", "id", "id", "for", "node", "attr.name", "id", "attr.type", "string");
+				graphml.empty(null, "key", "id", "name", "for", "node", "attr.name", "name", "attr.type", "string");
 				ArrayList<String> addedAttributes = new ArrayList<String>();
-				attributeVariables1.stream().forEach(v -> {
-					Element keyAttribute = new Element("key", xmlns);
-					keyAttribute.setAttribute(new Attribute("id", v));
-					keyAttribute.setAttribute(new Attribute("for", "node"));
-					keyAttribute.setAttribute(new Attribute("attr.name", v));
-					keyAttribute.setAttribute(new Attribute("attr.type", "string"));
-					graphml.addContent(keyAttribute);
+				for (String v : this.attributeVariables1) {
+					graphml.empty(null, "key", "id", v, "for", "node", "attr.name", v, "attr.type", "string");
 					addedAttributes.add(v);
-				});
-				if (this.networkType.equals("twomode")) {
-					attributeVariables2.stream().forEach(v -> {
+				}
+				if (Exporter.this.networkType.equals("twomode")) {
+					for (String v : this.attributeVariables2) {
 						if (!addedAttributes.contains(v)) {
-							Element keyAttribute = new Element("key", xmlns);
-							keyAttribute.setAttribute(new Attribute("id", v));
-							keyAttribute.setAttribute(new Attribute("for", "node"));
-							keyAttribute.setAttribute(new Attribute("attr.name", v));
-							keyAttribute.setAttribute(new Attribute("attr.type", "string"));
-							graphml.addContent(keyAttribute);
+							graphml.empty(null, "key", "id", v, "for", "node", "attr.name", v, "attr.type", "string");
 							addedAttributes.add(v);
 						}
-					});
-				}
-
-				Element keyVariable = new Element("key", xmlns);
-				keyVariable.setAttribute(new Attribute("id", "variable"));
-				keyVariable.setAttribute(new Attribute("for", "node"));
-				keyVariable.setAttribute(new Attribute("attr.name", "variable"));
-				keyVariable.setAttribute(new Attribute("attr.type", "string"));
-				graphml.addContent(keyVariable);
-
-				Element keyFrequency = new Element("key", xmlns);
-				keyFrequency.setAttribute(new Attribute("id", "frequency"));
-				keyFrequency.setAttribute(new Attribute("for", "node"));
-				keyFrequency.setAttribute(new Attribute("attr.name", "frequency"));
-				keyFrequency.setAttribute(new Attribute("attr.type", "int"));
-				graphml.addContent(keyFrequency);
-
-				Element keyWeight = new Element("key", xmlns);
-				keyWeight.setAttribute(new Attribute("id", "weight"));
-				keyWeight.setAttribute(new Attribute("for", "edge"));
-				keyWeight.setAttribute(new Attribute("attr.name", "weight"));
-				keyWeight.setAttribute(new Attribute("attr.type", "double"));
-				graphml.addContent(keyWeight);
-
-				Element graphElement = new Element("graph", xmlns);
-				graphElement.setAttribute(new Attribute("edgedefault", "undirected"));
-
-				graphElement.setAttribute(new Attribute("id", "DNA"));
-				int numEdges = rn.length * cn.length;
-				if (this.networkType.equals("onemode")) {
-					numEdges = (numEdges - rn.length) / 2;
-				}
-				int numNodes = rn.length;
-				if (this.networkType.equals("twomode")) {
-					numNodes = numNodes + cn.length;
-				}
-				graphElement.setAttribute(new Attribute("parse.edges", String.valueOf(numEdges)));
-				graphElement.setAttribute(new Attribute("parse.nodes", String.valueOf(numNodes)));
-				graphElement.setAttribute(new Attribute("parse.order", "free"));
-				Element properties = new Element("data", xmlns);
-				properties.setAttribute(new Attribute("key", "prop"));
-				Element labelAttribute = new Element("labelAttribute", visone);
-				labelAttribute.setAttribute("edgeLabel", "weight");
-				labelAttribute.setAttribute("nodeLabel", "name");
-				properties.addContent(labelAttribute);
-				graphElement.addContent(properties);
+					}
+				}
+				graphml.empty(null, "key", "id", "variable", "for", "node", "attr.name", "variable", "attr.type", "string");
+				graphml.empty(null, "key", "id", "frequency", "for", "node", "attr.name", "frequency", "attr.type", "int");
+				graphml.empty(null, "key", "id", "weight", "for", "edge", "attr.name", "weight", "attr.type", "double");
 
-				// add nodes
-				Comment nodes = new Comment(" nodes ");
-				graphElement.addContent(nodes);
+				graphml.start(null, "graph", "edgedefault", "undirected", "id", "DNA", "parse.edges", String.valueOf(numEdges),
+						"parse.nodes", String.valueOf(numNodes), "parse.order", "free");
+				graphml.start(null, "data", "key", "prop");
+				graphml.empty("visone", "labelAttribute", "edgeLabel", "weight", "nodeLabel", "name");
+				graphml.end();
 
+				// add nodes
+				graphml.comment(" nodes ");
 				for (int i = 0; i < names.length; i++) {
-					Element node = new Element("node", xmlns);
-					node.setAttribute(new Attribute("id", "n" + id[i]));
-
-					Element idElement = new Element("data", xmlns);
-					idElement.setAttribute(new Attribute("key", "id"));
-					idElement.setText(String.valueOf(id[i]));
-					node.addContent(idElement);
-
-					Element nameElement = new Element("data", xmlns);
-					nameElement.setAttribute(new Attribute("key", "name"));
-					nameElement.setText(names[i]);
-					node.addContent(nameElement);
-
-					for (int j = 0; j < attributeVariables1.size(); j++) {
-						if (i < rn.length) { // first mode: rows
-							Element element = new Element("data", xmlns);
-							element.setAttribute(new Attribute("key", attributeVariables1.get(j)));
-							element.setText(entityMap1.get(names[i]).getAttributeValues().get(attributeVariables1.get(j)));
-							node.addContent(element);
+					graphml.start(null, "node", "id", "n" + id[i]);
+					graphml.text(null, "data", String.valueOf(id[i]), "key", "id");
+					graphml.text(null, "data", names[i], "key", "name");
+					if (i < rn.length) { // first mode: rows
+						for (int j = 0; j < this.attributeVariables1.size(); j++) {
+							graphml.text(null, "data", this.entityMap1.get(names[i]).getAttributeValues().get(this.attributeVariables1.get(j)), "key", this.attributeVariables1.get(j));
 						}
-					}
-					if (this.networkType.equals("twomode")) {
-						for (int j = 0; j < attributeVariables2.size(); j++) {
-							if (i >= rn.length) { // second mode: columns
-								Element element = new Element("data", xmlns);
-								element.setAttribute(new Attribute("key", attributeVariables2.get(j)));
-								element.setText(entityMap2.get(names[i]).getAttributeValues().get(attributeVariables2.get(j)));
-								node.addContent(element);
-							}
+					} else if (Exporter.this.networkType.equals("twomode")) { // second mode: columns
+						for (int j = 0; j < this.attributeVariables2.size(); j++) {
+							graphml.text(null, "data", this.entityMap2.get(names[i]).getAttributeValues().get(this.attributeVariables2.get(j)), "key", this.attributeVariables2.get(j));
 						}
 					}
-
-					Element variableElement = new Element("data", xmlns);
-					variableElement.setAttribute(new Attribute("key", "variable"));
-					variableElement.setText(variables[i]);
-					node.addContent(variableElement);
-
-					Element frequency = new Element("data", xmlns);
-					frequency.setAttribute(new Attribute("key", "frequency"));
-					frequency.setText(String.valueOf(frequencies[i]));
-					node.addContent(frequency);
-
-					Element vis = new Element("data", xmlns);
-					vis.setAttribute(new Attribute("key", "d0"));
-					Element visoneShapeNode = new Element("shapeNode", visone);
-					Element yShapeNode = new Element("ShapeNode", yNs);
-					Element geometry = new Element("Geometry", yNs);
-					geometry.setAttribute(new Attribute("height", "20.0"));
-					geometry.setAttribute(new Attribute("width", "20.0"));
-					geometry.setAttribute(new Attribute("x", String.valueOf(Math.random() * 800)));
-					geometry.setAttribute(new Attribute("y", String.valueOf(Math.random() * 600)));
-					yShapeNode.addContent(geometry);
-					Element fill = new Element("Fill", yNs);
-					fill.setAttribute(new Attribute("color", color[i]));
-
-					fill.setAttribute(new Attribute("transparent", "false"));
-					yShapeNode.addContent(fill);
-					Element borderStyle = new Element("BorderStyle", yNs);
-					borderStyle.setAttribute(new Attribute("color", "#000000"));
-					borderStyle.setAttribute(new Attribute("type", "line"));
-					borderStyle.setAttribute(new Attribute("width", "1.0"));
-					yShapeNode.addContent(borderStyle);
-
-					Element nodeLabel = new Element("NodeLabel", yNs);
-					nodeLabel.setAttribute(new Attribute("alignment", "center"));
-					nodeLabel.setAttribute(new Attribute("autoSizePolicy", "content"));
-					nodeLabel.setAttribute(new Attribute("backgroundColor", "#FFFFFF"));
-					nodeLabel.setAttribute(new Attribute("fontFamily", "Dialog"));
-					nodeLabel.setAttribute(new Attribute("fontSize", "12"));
-					nodeLabel.setAttribute(new Attribute("fontStyle", "plain"));
-					nodeLabel.setAttribute(new Attribute("hasLineColor", "false"));
-					nodeLabel.setAttribute(new Attribute("height", "19.0"));
-					nodeLabel.setAttribute(new Attribute("modelName", "eight_pos"));
-					nodeLabel.setAttribute(new Attribute("modelPosition", "n"));
-					nodeLabel.setAttribute(new Attribute("textColor", "#000000"));
-					nodeLabel.setAttribute(new Attribute("visible", "true"));
-					nodeLabel.setText(names[i]);
-					yShapeNode.addContent(nodeLabel);
-
-					Element shape = new Element("Shape", yNs);
-					if (i < rn.length) {
-						shape.setAttribute(new Attribute("type", "ellipse"));
-					} else {
-						shape.setAttribute(new Attribute("type", "roundrectangle"));
-					}
-					yShapeNode.addContent(shape);
-					visoneShapeNode.addContent(yShapeNode);
-					vis.addContent(visoneShapeNode);
-					node.addContent(vis);
-
-					graphElement.addContent(node);
+					graphml.text(null, "data", variables[i], "key", "variable");
+					graphml.text(null, "data", String.valueOf(frequencies[i]), "key", "frequency");
+					graphml.start(null, "data", "key", "d0");
+					graphml.start("visone", "shapeNode");
+					graphml.start("y", "ShapeNode");
+					graphml.empty("y", "Geometry", "height", "20.0", "width", "20.0", "x", String.valueOf(Math.random() * 800), "y", String.valueOf(Math.random() * 600));
+					graphml.empty("y", "Fill", "color", color[i], "transparent", "false");
+					graphml.empty("y", "BorderStyle", "color", "#000000", "type", "line", "width", "1.0");
+					graphml.text("y", "NodeLabel", names[i], "alignment", "center", "autoSizePolicy", "content", "backgroundColor", "#FFFFFF",
+							"fontFamily", "Dialog", "fontSize", "12", "fontStyle", "plain", "hasLineColor", "false", "height", "19.0",
+							"modelName", "eight_pos", "modelPosition", "n", "textColor", "#000000", "visible", "true");
+					graphml.empty("y", "Shape", "type", i < rn.length ? "ellipse" : "roundrectangle");
+					graphml.end();
+					graphml.end();
+					graphml.end();
+					graphml.end();
 				}
 
 				// add edges
-				Comment edges = new Comment(" edges ");
-				graphElement.addContent(edges);
+				graphml.comment(" edges ");
 				for (int i = 0; i < rn.length; i++) {
 					for (int j = 0; j < cn.length; j++) {
-						if (m.getMatrix()[i][j] != 0.0 && (this.networkType.equals("twomode") || (this.networkType.equals("onemode") && i < j))) {  // only lower triangle is used for one-mode networks
-							Element edge = new Element("edge", xmlns);
-
-							int currentId = id[i];
-							edge.setAttribute(new Attribute("source", "n" + String.valueOf(currentId)));
-							if (this.networkType.equals("twomode")) {
-								currentId = id[j + rn.length];
-							} else {
-								currentId = id[j];
-							}
-							edge.setAttribute(new Attribute("target", "n" + String.valueOf(currentId)));
-
-							Element weight = new Element("data", xmlns);
-							weight.setAttribute(new Attribute("key", "weight"));
-							weight.setText(String.valueOf(m.getMatrix()[i][j]));
-							edge.addContent(weight);
-
-							Element visEdge = new Element("data", xmlns);
-							visEdge.setAttribute("key", "e0");
-							Element visPolyLineEdge = new Element("polyLineEdge", visone);
-							Element yPolyLineEdge = new Element("PolyLineEdge", yNs);
-
-							Element yLineStyle = new Element("LineStyle", yNs);
+						if (mat[i][j] != 0.0 && (Exporter.this.networkType.equals("twomode") || (Exporter.this.networkType.equals("onemode") && i < j))) {  // only lower triangle is used for one-mode networks
+							int target = Exporter.this.networkType.equals("twomode") ? id[j + rn.length] : id[j];
+							graphml.start(null, "edge", "source", "n" + id[i], "target", "n" + target);
+							graphml.text(null, "data", String.valueOf(mat[i][j]), "key", "weight");
+							graphml.start(null, "data", "key", "e0");
+							graphml.start("visone", "polyLineEdge");
+							graphml.start("y", "PolyLineEdge");
+							String lineColor = null;
 							if (qualifierAggregation.equals("combine") && dataTypes.get(qualifier).equals("boolean")) {
-								if (m.getMatrix()[i][j] == 1.0) {
-									yLineStyle.setAttribute("color", "#00ff00");
-								} else if (m.getMatrix()[i][j] == 2.0) {
-									yLineStyle.setAttribute("color", "#ff0000");
-								} else if (m.getMatrix()[i][j] == 3.0) {
-									yLineStyle.setAttribute("color", "#0000ff");
+								if (mat[i][j] == 1.0) {
+									lineColor = "#00ff00";
+								} else if (mat[i][j] == 2.0) {
+									lineColor = "#ff0000";
+								} else if (mat[i][j] == 3.0) {
+									lineColor = "#0000ff";
 								}
 							} else if (qualifierAggregation.equals("subtract")) {
-								if (m.getMatrix()[i][j] < 0) {
-									yLineStyle.setAttribute("color", "#ff0000");
-								} else if (m.getMatrix()[i][j] > 0) {
-									yLineStyle.setAttribute("color", "#00ff00");
+								if (mat[i][j] < 0) {
+									lineColor = "#ff0000";
+								} else if (mat[i][j] > 0) {
+									lineColor = "#00ff00";
 								}
 							} else if (qualifierAggregation.equals("conflict")) {
-								yLineStyle.setAttribute("color", "#ff0000");
+								lineColor = "#ff0000";
 							} else if (qualifierAggregation.equals("congruence")) {
-								yLineStyle.setAttribute("color", "#00ff00");
+								lineColor = "#00ff00";
+							} else {
+								lineColor = "#000000";
+							}
+							if (lineColor == null) {
+								graphml.empty("y", "LineStyle", "type", "line", "width", "2.0");
 							} else {
-								yLineStyle.setAttribute("color", "#000000");
+								graphml.empty("y", "LineStyle", "color", lineColor, "type", "line", "width", "2.0");
 							}
-							yLineStyle.setAttribute(new Attribute("type", "line"));
-							yLineStyle.setAttribute(new Attribute("width", "2.0"));
-							yPolyLineEdge.addContent(yLineStyle);
-							visPolyLineEdge.addContent(yPolyLineEdge);
-							visEdge.addContent(visPolyLineEdge);
-							edge.addContent(visEdge);
-
-							graphElement.addContent(edge);
+							graphml.end();
+							graphml.end();
+							graphml.end();
+							graphml.end();
 						}
 					}
 				}
-
-				graphml.addContent(graphElement);
-
-				// write to file
-				File dnaFile = new File(filename);
-				try {
-					FileOutputStream outStream = new FileOutputStream(dnaFile);
-					XMLOutputter outToFile = new XMLOutputter();
-					Format format = Format.getPrettyFormat();
-					format.setEncoding("utf-8");
-					outToFile.setFormat(format);
-					outToFile.output(document, outStream);
-					outStream.flush();
-					outStream.close();
-				} catch (IOException e) {
-					LogEvent l = new LogEvent(Logger.ERROR,
-							"Error while saving visone graphml file.",
-							"Tried to save a matrix to graphml file \"" + dnaFile + "\", but an error occurred. See stack trace.",
-							e);
-					Dna.logger.log(l);
-				}
-				pb.stepTo(k + 1);
+				graphml.end(); // graph
+				graphml.endDocument();
+			} catch (IOException | XMLStreamException e) {
+				LogEvent l = new LogEvent(Logger.ERROR,
+						"Error while saving visone graphml file.",
+						"Tried to save a matrix to graphml file \"" + filename + "\", but an error occurred. See stack trace.",
+						e);
+				Dna.logger.log(l);
 			}
-			pb.stepTo(this.matrixResults.size());
 		}
 	}
 
@@ -3142,75 +3773,98 @@ public class Exporter {
 	}
 
 	/**
-	 * Reduce the dimensions of a candidate matrix with all isolate nodes to the dimensions of the full matrix, which
-	 * does not contain isolate nodes.
+	 * Replace the nested backbone result, for example with a result that was computed earlier with identical settings
+	 * and cached. This makes it available via {@link #getNestedBackboneResult()} and {@link #writeBackboneToFile(String)}.
 	 *
-	 * @param candidateMatrix The candidate matrix with isolates (to be reduced to smaller dimensions).
-	 * @param fullLabels The node labels of the full matrix without isolates.
-	 * @return A reduced candidate matrix with the same dimensions as the full matrix and the same node order.
+	 * @param nestedBackboneResult The nested backbone result.
 	 */
-	private Matrix reduceCandidateMatrix(Matrix candidateMatrix, String[] fullLabels) {
-		HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
-		for (int i = 0; i < fullLabels.length; i++) {
-			for (int j = 0; j < candidateMatrix.getRowNames().length; j++) {
-				if (fullLabels[i].equals(candidateMatrix.getRowNames()[j])) {
-					map.put(i, j);
-				}
-			}
-		}
-		double[][] mat = new double[fullLabels.length][fullLabels.length];
-		for (int i = 0; i < fullLabels.length; i++) {
-			for (int j = 0; j < fullLabels.length; j++) {
-				mat[i][j] = candidateMatrix.getMatrix()[map.get(i)][map.get(j)];
-			}
-		}
-		candidateMatrix.setMatrix(mat);
-		candidateMatrix.setRowNames(fullLabels);
-		candidateMatrix.setColumnNames(fullLabels);
-		return candidateMatrix;
+	public void setNestedBackboneResult(NestedBackboneResult nestedBackboneResult) {
+		this.nestedBackboneResult = nestedBackboneResult;
+		this.simulatedAnnealingBackboneResult = null;
 	}
 
 	/**
-	 * Compute matrix after final backbone iteration, collect results, and save in class.
+	 * Compute matrix after final backbone iteration, collect results, and save in class. The result contains the best
+	 * solution of all chains, the diagnostics of the chain that found it, and the temperature, acceptance, and loss
+	 * logs of all chains.
 	 */
 	public void saveSimulatedAnnealingBackboneResult(boolean penalty) {
+		long[] cacheStatistics = lossCache.getStatistics();
+
+		// the chain with the best solution; ties go to the colder chain
+		int bestChain = 0;
+		for (int k = 1; k < chains.length; k++) {
+			if (chains[k].getFinalLoss() < chains[bestChain].getFinalLoss()) {
+				bestChain = k;
+			}
+		}
+		SimulatedAnnealingChain chain = chains[bestChain];
+		ArrayList<String> finalBackboneList = new ArrayList<String>(chain.getFinalBackboneList());
+		ArrayList<String> finalRedundantList = new ArrayList<String>(chain.getFinalRedundantList());
 		Collections.sort(finalBackboneList);
 		Collections.sort(finalRedundantList);
 
-		// create redundant matrix
-		ArrayList<ExportStatement> redundantStatementList = this.filteredStatements
-				.stream()
-				.filter(s -> currentRedundantList.contains(((Entity) s.get(this.variable2)).getValue()))
-				.collect(Collectors.toCollection(ArrayList::new));
-		Matrix redundantMatrix = this.computeOneModeMatrix(redundantStatementList, this.qualifierAggregation, this.startDateTime, this.stopDateTime);
+		// backbone and redundant matrices of the best solution, with negative edge weights set to zero as for the spectral distances
+		initializeConceptDecompositions(finalBackboneList);
+		for (String concept : finalRedundantList) {
+			redundantDecomposition.add(conceptIndex.get(concept));
+		}
+		double[][] backboneMatrix = backboneDecomposition.getMatrix();
+		removeNegativeEdges(backboneMatrix);
+		double[][] redundantMatrix = redundantDecomposition.getMatrix();
+		removeNegativeEdges(redundantMatrix);
+
+		// logs of all chains
+		double[][] chainTemperature = new double[chains.length][];
+		int[][] chainAcceptance = new int[chains.length][];
+		double[][] chainPenalizedBackboneLoss = new double[chains.length][];
+		double[] chainFinalLoss = new double[chains.length];
+		for (int k = 0; k < chains.length; k++) {
+			chainTemperature[k] = chains[k].getTemperatureLog();
+			chainAcceptance[k] = chains[k].getAcceptedLog();
+			chainPenalizedBackboneLoss[k] = chains[k].getPenalizedBackboneLossLog();
+			chainFinalLoss[k] = chains[k].getFinalLoss();
+		}
 
 		String method = "penalty";
 		if (!penalty) {
 			method = "fixed";
 			p = 0;
 		}
+		LaplacianSpectrum spectrum = new LaplacianSpectrum();
 		this.simulatedAnnealingBackboneResult = new SimulatedAnnealingBackboneResult(method,
 				finalBackboneList.toArray(String[]::new),
 				finalRedundantList.toArray(String[]::new),
-				spectralLoss(eigenvaluesFull, eigenvaluesCurrent),
-				spectralLoss(eigenvaluesFull, computeNormalizedEigenvalues(redundantMatrix.getMatrix(), "ojalgo")),
+				evaluateBackboneCandidate(backboneDecomposition, spectrum).getLoss(),
+				evaluateBackboneCandidate(redundantDecomposition, spectrum).getLoss(),
 				p,
 				T,
-				temperatureLog.stream().mapToDouble(v -> v.doubleValue()).toArray(),
-				acceptanceProbabilityLog.stream().mapToDouble(v -> v.doubleValue()).toArray(),
-				acceptedLog.stream().mapToInt(v -> v.intValue()).toArray(),
-				penalizedBackboneLossLog.stream().mapToDouble(v -> v.doubleValue()).toArray(),
-				proposedBackboneSizeLog.stream().mapToInt(v -> v.intValue()).toArray(),
-				acceptedBackboneSizeLog.stream().mapToInt(v -> v.intValue()).toArray(),
-				finalBackboneSizeLog.stream().mapToInt(v -> v.intValue()).toArray(),
-				acceptanceRatioLastHundredIterationsLog.stream().mapToDouble(v -> v.doubleValue()).toArray(),
+				chain.getTemperatureLog(),
+				chain.getAcceptanceProbabilityLog(),
+				chain.getAcceptedLog(),
+				chain.getPenalizedBackboneLossLog(),
+				chain.getProposedBackboneSizeLog(),
+				chain.getAcceptedBackboneSizeLog(),
+				chain.getFinalBackboneSizeLog(),
+				chain.getAcceptanceRatioLastHundredIterationsLog(),
 				fullMatrix.getMatrix(),
-				currentMatrix.getMatrix(),
-				redundantMatrix.getMatrix(),
+				backboneMatrix,
+				redundantMatrix,
 				fullMatrix.getRowNames(),
 				fullMatrix.getStart().toEpochSecond(ZoneOffset.UTC),
 				fullMatrix.getStop().toEpochSecond(ZoneOffset.UTC),
-				fullMatrix.getNumStatements());
+				fullMatrix.getNumStatements(),
+				cacheStatistics[0],
+				cacheStatistics[1],
+				chains.length,
+				exchangeInterval,
+				bestChain,
+				chainTemperature,
+				chainAcceptance,
+				chainPenalizedBackboneLoss,
+				chainFinalLoss,
+				exchangesAttempted.clone(),
+				exchangesAccepted.clone());
 		this.nestedBackboneResult = null;
 	}
 
@@ -3224,13 +3878,11 @@ public class Exporter {
 	}
 
 	/**
-	 * Use tools from the {@code ojalgo} library to compute eigenvalues of a symmetric matrix.
+	 * Set negative edge weights to zero, for example in a subtract network, before computing the Laplacian.
 	 *
-	 * @param matrix The matrix as a two-dimensional double array.
-	 * @param library The linear algebra Java library to use as a back-end: {@code "ojalgo"} or {@code "apache"}.
-	 * @return One-dimensional double array of eigenvalues.
+	 * @param matrix The matrix, which is changed in place.
 	 */
-	private double[] computeNormalizedEigenvalues(double[][] matrix, String library) {
+	private static void removeNegativeEdges(double[][] matrix) {
 		for (int i = 0; i < matrix.length; i++) {
 			for (int j = 0; j < matrix[0].length; j++) {
 				if (matrix[i][j] < 0) {
@@ -3238,9 +3890,87 @@ public class Exporter {
 				}
 			}
 		}
+	}
+
+	/**
+	 * Set the number of largest eigenvalues of the Laplacian that are used in spectral distances, i.e., in the backbone
+	 * algorithms and in {@link #computeDistanceMatrix(String)}. If a number is set, only these eigenvalues are computed
+	 * with the Lanczos algorithm, which is faster for large networks, and the remaining normalized eigenvalues are
+	 * treated as zero. The eigenvalues are approximations; their largest error is available from
+	 * {@link #getSpectrumErrorBound()}. Eigenvalues with multiplicity greater than one may be found only once.
+	 *
+	 * @param spectrumSize The number of largest eigenvalues, or {@code 0} to compute all eigenvalues exactly (the
+	 *   default).
+	 */
+	public void setSpectrumSize(int spectrumSize) {
+		this.spectrumSize = Math.max(0, spectrumSize);
+		this.spectrumErrorBound.reset();
+	}
+
+	/**
+	 * Get the largest error bound of the normalized eigenvalues computed since the spectrum size was set with
+	 * {@link #setSpectrumSize(int)}. The bound is the largest residual norm of the Lanczos approximations divided by the
+	 * trace of the Laplacian, i.e., each computed normalized eigenvalue is at most this far from a normalized eigenvalue
+	 * of the Laplacian.
+	 *
+	 * @return The error bound, or {@code 0.0} if all eigenvalues are computed.
+	 */
+	public double getSpectrumErrorBound() {
+		return this.spectrumErrorBound.get();
+	}
+
+	/**
+	 * Compute the normalized eigenvalues of the Laplacian matrix of a single network with the symmetric eigensolver in
+	 * {@link LaplacianSpectrum} and the spectrum size of the class. Negative edge weights are set to zero in the matrix
+	 * first. Loops over many networks should use {@link #computeNormalizedEigenvalues(double[][], LaplacianSpectrum)}
+	 * with one solver per task to reuse its work arrays.
+	 *
+	 * @param matrix The network matrix as a two-dimensional double array.
+	 * @return The normalized eigenvalues in descending order.
+	 */
+	private double[] computeNormalizedEigenvalues(double[][] matrix) {
+		return computeNormalizedEigenvalues(matrix, new LaplacianSpectrum());
+	}
+
+	/**
+	 * Compute the normalized eigenvalues of the Laplacian matrix of a network with the given symmetric eigensolver and
+	 * the spectrum size of the class. Negative edge weights are set to zero in the matrix first.
+	 *
+	 * @param matrix The network matrix as a two-dimensional double array.
+	 * @param spectrum The eigensolver, whose work arrays are reused. It must not be used by another thread at the same
+	 *   time.
+	 * @return The normalized eigenvalues in descending order.
+	 */
+	double[] computeNormalizedEigenvalues(double[][] matrix, LaplacianSpectrum spectrum) {
+		removeNegativeEdges(matrix);
+		double[] eigenvalues = spectrum.normalizedEigenvalues(matrix, this.spectrumSize);
+		this.spectrumErrorBound.accumulate(spectrum.getErrorBound());
+		return eigenvalues;
+	}
+
+	/**
+	 * Use tools from the {@code ojalgo} or {@code apache} library to compute the normalized eigenvalues of the
+	 * Laplacian matrix of a network. These are general-purpose decompositions, which are slower than
+	 * {@link #computeNormalizedEigenvalues(double[][])}, but they can be used for comparison.
+	 *
+	 * @param matrix The network matrix as a two-dimensional double array.
+	 * @param library The linear algebra Java library to use as a back-end: {@code "ojalgo"} or {@code "apache"}.
+	 * @return One-dimensional double array of eigenvalues.
+	 */
+	private double[] computeNormalizedEigenvalues(double[][] matrix, String library) {
+		removeNegativeEdges(matrix);
 		double[] eigenvalues;
 		if (library.equals("apache")) {
-			RealMatrix realMatrix = new Array2DRowRealMatrix(matrix); // create a real matrix from the 2D array
+			double[][] laplacian = new double[matrix.length][matrix.length]; // degree matrix minus adjacency matrix
+			for (int i = 0; i < matrix.length; i++) {
+				for (int j = 0; j < matrix.length; j++) {
+					if (i != j) {
+						laplacian[i][j] = -matrix[i][j];
+						laplacian[i][i] = laplacian[i][i] + matrix[i][j];
+					}
+				}
+			}
+			RealMatrix realMatrix = new Array2DRowRealMatrix(laplacian, false); // create a real matrix from the 2D array
 			EigenDecomposition decomposition = new EigenDecomposition(realMatrix); // perform eigen decomposition
 			eigenvalues = decomposition.getRealEigenvalues(); // get the real parts of the eigenvalues
 			// normalize the eigenvalues
@@ -3257,7 +3987,7 @@ public class Exporter {
 			Primitive64Matrix.SparseReceiver sr = Primitive64Matrix.FACTORY.makeSparse(matrix.length, matrix.length); // container for degree matrix
 			sr.fillDiagonal(rowSums); // put row sums onto diagonal
 			Primitive64Matrix laplacian = sr.get(); // put row sum container into a new degree matrix (the future Laplacian matrix)
-			laplacian.subtract(matrixPrimitive); // subtract adjacency matrix from degree matrix to create Laplacian matrix
+			laplacian = laplacian.subtract(matrixPrimitive); // subtract adjacency matrix from degree matrix to create Laplacian matrix (matrices are immutable)
 			Eigenvalue<Double> eig = Eigenvalue.PRIMITIVE.make(laplacian); // eigenvalues
 			eig.decompose(laplacian); // decomposition
 			eigenvalues = eig.getEigenvalues().toRawCopy1D(); // extract eigenvalues and convert to double[]
@@ -3290,6 +4020,20 @@ public class Exporter {
 		return distance * penalty; // return penalised distance
 	}
 
+	/**
+	 * Penalize a Euclidean spectral distance, for example a cached loss from {@link #evaluateBackboneCandidate}.
+	 *
+	 * @param distance The unpenalized spectral distance, as computed by {@link #spectralLoss(double[], double[])}.
+	 * @param p The penalty parameter.
+	 * @param candidateBackboneSize The number of entities in the current or candidate backbone.
+	 * @param numEntitiesTotal The number of second-mode entities (e.g., concepts) in total.
+	 * @return Penalized loss.
+	 */
+	double penalizedLoss(double distance, double p, int candidateBackboneSize, int numEntitiesTotal) {
+		double penalty = Math.exp(-p * (((double) (numEntitiesTotal - candidateBackboneSize)) / ((double) numEntitiesTotal))); // compute penalty factor
+		return distance * penalty; // return penalised distance
+	}
+
 	/**
 	 * Write the backbone results to a JSON or XML file
 	 *
@@ -3369,6 +4113,68 @@ public class Exporter {
 		return this.extractLabels(this.filteredStatements, this.variable2, this.variable2Document).length;
 	}
 
+	/**
+	 * Create an empty concept-decomposed matrix of the filtered statements for the backbone algorithms, with the nodes of
+	 * the full matrix as rows and the full set of concepts as columns. Concepts can then be added and removed without
+	 * filtering the statements and recomputing the matrix.
+	 *
+	 * @return A {@link ConceptDecomposedMatrix} without any concepts.
+	 */
+	private ConceptDecomposedMatrix createConceptDecomposedMatrix() {
+		int[] qualifierInteger = new int[] { 0 };
+		if (qualifier != null && !qualifierDocument && dataTypes.get(qualifier).equals("boolean")) {
+			qualifierInteger = new int[] {0, 1};
+		} else if (qualifier != null && !qualifierDocument && dataTypes.get(qualifier).equals("integer")) {
+			qualifierInteger = this.getStatementTable().distinctValues(qualifier);
+		}
+		boolean textQualifier = !this.qualifierAggregation.equals("ignore") && (qualifierDocument || dataTypes.get(qualifier).equals("short text"));
+		boolean numericQualifier = !this.qualifierAggregation.equals("ignore") && !textQualifier && (dataTypes.get(qualifier).equals("boolean") || dataTypes.get(qualifier).equals("integer"));
+		SparseTensor array = createArray(this.filteredStatements, fullMatrix.getRowNames(), fullConcepts);
+		return new ConceptDecomposedMatrix(this, array, this.qualifierAggregation, textQualifier, numericQualifier, qualifierInteger);
+	}
+
+	/**
+	 * Map each concept of the full set of concepts to its column in the concept decompositions.
+	 */
+	private void initializeConceptIndex() {
+		conceptIndex = new HashMap<String, Integer>();
+		for (int j = 0; j < fullConcepts.length; j++) {
+			conceptIndex.put(fullConcepts[j], j);
+		}
+	}
+
+	/**
+	 * Set up the concept decompositions for the backbone algorithms after the full matrix and the full set of concepts
+	 * have been computed. The backbone decomposition initially contains the concepts in the backbone list and the
+	 * redundant decomposition contains no concepts.
+	 *
+	 * @param backboneList The initial backbone set.
+	 */
+	private void initializeConceptDecompositions(ArrayList<String> backboneList) {
+		initializeConceptIndex();
+		backboneDecomposition = createConceptDecomposedMatrix();
+		for (String concept : backboneList) {
+			backboneDecomposition.add(conceptIndex.get(concept));
+		}
+		redundantDecomposition = createConceptDecomposedMatrix();
+	}
+
+	/**
+	 * Create a candidate matrix from the edge weights of a concept decomposition, with the same dimensions and node
+	 * order as the full matrix.
+	 *
+	 * @param values The edge weights of the candidate set.
+	 * @param numStatementsCandidate The number of statements of the concepts in the candidate set.
+	 * @return The candidate matrix.
+	 */
+	private Matrix createCandidateMatrix(double[][] values, int numStatementsCandidate) {
+		boolean integer = numStatementsCandidate == 0 || isIntegerOneModeMatrix(this.qualifierAggregation); // an empty matrix contains only zeros
+		Matrix matrix = new Matrix(values, fullMatrix.getRowNames(), fullMatrix.getRowNames(),
+				integer, this.startDateTime, this.stopDateTime);
+		matrix.setNumStatements(this.filteredStatements.size());
+		return matrix;
+	}
+
 	/**
 	 * Initialize the nested backbone algorithm by setting up the data structures.
 	 */
@@ -3386,7 +4192,7 @@ public class Exporter {
 		this.isolates = true; // include isolates in the iterations but not in the full matrix; will be adjusted to smaller full matrix dimensions without isolates manually each time in the iterations; necessary because some actors may be deleted in the backbone matrix otherwise after deleting their concepts
 
 		// compute normalized eigenvalues for the full matrix; no need to recompute every time as they do not change
-		eigenvaluesFull = computeNormalizedEigenvalues(fullMatrix.getMatrix(), "ojalgo");
+		eigenvaluesFull = computeNormalizedEigenvalues(fullMatrix.getMatrix());
 		iteration = new int[fullConcepts.length];
 		backboneLoss = new double[fullConcepts.length];
 		redundantLoss = new double[fullConcepts.length];
@@ -3401,58 +4207,105 @@ public class Exporter {
 		redundantMatrices = new ArrayList<>();
 		numStatements = new int[fullConcepts.length];
 		counter = 0;
+		initializeConceptDecompositions(currentBackboneList);
+	}
+
+	/**
+	 * Set the thread pool on which the candidates of the nested backbone algorithm are evaluated. The default is the
+	 * common fork-join pool. The results do not depend on the pool.
+	 *
+	 * @param backbonePool The thread pool, for example a {@link ForkJoinPool} with a single thread for sequential
+	 *   evaluation.
+	 */
+	public void setBackbonePool(ForkJoinPool backbonePool) {
+		this.backbonePool = backbonePool;
+	}
+
+	/**
+	 * Set the size limit of the cache for the losses and eigenvalues of backbone candidates, which is used by the
+	 * simulated annealing backbone algorithm and {@link #evaluateBackboneSolution(String[], int)}. The least recently
+	 * used candidates are evicted when the limit is exceeded. The default is 64 MB.
+	 *
+	 * @param maxBytes The maximal estimated size of the cache in bytes, or {@code 0} to switch off the cache.
+	 */
+	public void setBackboneLossCacheSize(long maxBytes) {
+		this.lossCache.setMaxBytes(maxBytes);
+	}
+
+	/**
+	 * Get the loss and eigenvalues of the current set of concepts of a concept decomposition, from the loss cache if the
+	 * set has been evaluated before with the same filtered statements, or by computing the eigenvalues of its matrix.
+	 *
+	 * @param decomposition The concept decomposition of the candidate set.
+	 * @param spectrum The eigensolver of the calling task, for example of a simulated annealing chain.
+	 * @return The unpenalized spectral loss relative to the full matrix and the normalized eigenvalues.
+	 */
+	BackboneLossCache.Entry evaluateBackboneCandidate(ConceptDecomposedMatrix decomposition, LaplacianSpectrum spectrum) {
+		BitSet concepts = decomposition.getConcepts();
+		BackboneLossCache.Entry entry = this.lossCache.get(concepts);
+		if (entry == null) {
+			double[] eigenvalues = computeNormalizedEigenvalues(decomposition.getMatrix(), spectrum);
+			entry = this.lossCache.put(concepts, spectralLoss(eigenvaluesFull, eigenvalues), eigenvalues);
+		}
+		return entry;
 	}
 
 	/**
 	 * One iteration in the nested backbone algorithm. Needs to be called in a while loop until the backbone set is empty ({@code while (currentBackboneSet.size() > 0)}).
+	 *
+	 * The candidates, i.e., the current backbone set without one of its concepts, are independent of each other and are
+	 * evaluated in parallel on the {@link #backbonePool}, in one contiguous block of candidates per thread. Each block
+	 * has its own workspace for the candidate matrices and its own eigensolver. The losses are stored by candidate index, and the concepts with
+	 * the smallest loss are selected sequentially afterwards, so the result does not depend on the number of threads.
 	 */
 	public void iterateNestedBackbone() {
-		ArrayList<Matrix> candidateMatrices = new ArrayList<>();
-		double[] currentLosses = new double[currentBackboneList.size()];
-		int[] numStatementsCandidates = new int[currentBackboneList.size()];
-		for (int i = 0; i < currentBackboneList.size(); i++) {
-			ArrayList<String> candidate = new ArrayList<>(currentBackboneList);
-			candidate.remove(i);
-			final ArrayList<String> finalCandidate = new ArrayList<String>(candidate); // make it final, so it can be used in a stream
-			candidateStatementList = this.filteredStatements
-					.stream()
-					.filter(s -> finalCandidate.contains(((Entity) s.get(this.variable2)).getValue()))
-					.collect(Collectors.toCollection(ArrayList::new));
-			numStatementsCandidates[i] = candidateStatementList.size();
-			candidateMatrix = this.computeOneModeMatrix(candidateStatementList, this.qualifierAggregation, this.startDateTime, this.stopDateTime);
-			candidateMatrix = this.reduceCandidateMatrix(candidateMatrix, fullMatrix.getRowNames()); // ensure it has the right dimensions by purging isolates relative to the full matrix
-			candidateMatrices.add(candidateMatrix);
-			eigenvaluesCandidate = computeNormalizedEigenvalues(candidateMatrix.getMatrix(), "ojalgo"); // normalized eigenvalues for the candidate matrix
-			currentLosses[i] = spectralLoss(eigenvaluesFull, eigenvaluesCandidate);
-		}
+		final int numCandidates = currentBackboneList.size();
+		final int[] candidateConcepts = currentBackboneList.stream().mapToInt(c -> conceptIndex.get(c)).toArray();
+		final double[] currentLosses = new double[numCandidates];
+		final int numBlocks = Math.min(numCandidates, this.backbonePool.getParallelism());
+		this.backbonePool.submit(() -> IntStream.range(0, numBlocks).parallel().forEach(block -> {
+			ConceptDecomposedMatrix.Workspace workspace = backboneDecomposition.createWorkspace();
+			LaplacianSpectrum spectrum = new LaplacianSpectrum();
+			for (int i = block * numCandidates / numBlocks; i < (block + 1) * numCandidates / numBlocks; i++) {
+				double[][] candidate = backboneDecomposition.getMatrixWithout(candidateConcepts[i], workspace);
+				currentLosses[i] = spectralLoss(eigenvaluesFull, computeNormalizedEigenvalues(candidate, spectrum));
+			}
+		})).join();
 		double smallestLoss = 0.0;
-		if (currentBackboneList.size() > 0) {
+		if (numCandidates > 0) {
 			smallestLoss = Arrays.stream(currentLosses).min().getAsDouble();
 		}
-		for (int i = currentBackboneList.size() - 1; i >= 0; i--) {
+		ConceptDecomposedMatrix.Workspace workspace = backboneDecomposition.createWorkspace();
+		LaplacianSpectrum spectrum = new LaplacianSpectrum();
+		ArrayList<Integer> selectedConcepts = new ArrayList<Integer>();
+		for (int i = numCandidates - 1; i >= 0; i--) {
 			if (currentLosses[i] == smallestLoss) {
+				int concept = candidateConcepts[i];
 				iteration[counter] = counter + 1;
 				entity[counter] = currentBackboneList.get(i);
 				backboneLoss[counter] = smallestLoss;
+				numStatements[counter] = backboneDecomposition.getNumStatementsWithout(concept);
+
+				// backbone matrix: the backbone set at the start of the iteration without the concept
+				double[][] backboneMatrix = backboneDecomposition.getMatrixWithout(concept, workspace);
+				removeNegativeEdges(backboneMatrix); // as for the loss
+				backboneMatrices.add(createCandidateMatrix(Arrays.stream(backboneMatrix).map(double[]::clone).toArray(double[][]::new), numStatements[counter]));
 				currentRedundantList.add(currentBackboneList.get(i));
 				currentBackboneList.remove(i);
-				backboneMatrices.add(candidateMatrices.get(i));
+				selectedConcepts.add(concept);
 
 				// compute redundant matrix and loss at this level
-				final ArrayList<String> finalRedundantCandidate = new ArrayList<String>(currentRedundantList);
-				candidateStatementList = this.filteredStatements
-						.stream()
-						.filter(s -> finalRedundantCandidate.contains(((Entity) s.get(this.variable2)).getValue()))
-						.collect(Collectors.toCollection(ArrayList::new));
-				Matrix redundantMatrix = this.computeOneModeMatrix(candidateStatementList, this.qualifierAggregation, this.startDateTime, this.stopDateTime);
-				redundantMatrix = this.reduceCandidateMatrix(redundantMatrix, fullMatrix.getRowNames());
+				redundantDecomposition.add(concept);
+				Matrix redundantMatrix = createCandidateMatrix(redundantDecomposition.getMatrix(), redundantDecomposition.getNumStatements());
 				redundantMatrices.add(redundantMatrix);
-				eigenvaluesCandidate = computeNormalizedEigenvalues(redundantMatrix.getMatrix(), "ojalgo");
+				eigenvaluesCandidate = computeNormalizedEigenvalues(redundantMatrix.getMatrix(), spectrum);
 				redundantLoss[counter] = spectralLoss(eigenvaluesFull, eigenvaluesCandidate);
-				numStatements[counter] = numStatementsCandidates[i];
 				counter++;
 			}
 		}
+		for (int concept : selectedConcepts) {
+			backboneDecomposition.remove(concept);
+		}
 	}
 
 	/**
@@ -3490,9 +4343,33 @@ public class Exporter {
 	 * @param size The (fixed) size of the backbone set. Only used if no penalty.
 	 */
 	public void initializeSimulatedAnnealingBackbone(boolean penalty, double p, int T, int size) {
+		initializeSimulatedAnnealingBackbone(penalty, p, T, size, 1, 0, 0L);
+	}
+
+	/**
+	 * Partition the discourse network into a backbone and redundant set of second-mode entities using penalised
+	 * spectral distances and several simulated annealing chains, which are run in parallel on the {@link #backbonePool}.
+	 * This method prepares the data and the chains before the algorithm starts. Each chain starts from its own random
+	 * initial solution and has its own random number generator, which is seeded from the random seed.
+	 *
+	 * Without exchanges, the chains are independent runs with the same cooling schedule. With exchanges (parallel
+	 * tempering), chain {@code k} runs at {@code 2^k} times the temperature of the cooling schedule, and every
+	 * {@code exchangeInterval} iterations, the odd or (in turn) even pairs of neighboring chains try to exchange their
+	 * current solutions, so good solutions found by the hotter chains can be refined by the colder chains. In both
+	 * cases, the result is the best solution of all chains.
+	 *
+	 * @param penalty Use penalty parameter? False if fixed backbone set.
+	 * @param p Penalty parameter. Only used if penalty parameter is true.
+	 * @param T Number of iterations.
+	 * @param size The (fixed) size of the backbone set. Only used if no penalty.
+	 * @param numChains The number of chains.
+	 * @param exchangeInterval The number of iterations between exchanges of neighboring chains, or {@code 0} for
+	 *   independent chains.
+	 * @param randomSeed The random seed for reproducibility. If 0, random results are produced.
+	 */
+	public void initializeSimulatedAnnealingBackbone(boolean penalty, double p, int T, int size, int numChains, int exchangeInterval, long randomSeed) {
 		this.p = p;
 		this.T = T;
-		this.backboneSize = size;
 		this.isolates = false; // no isolates initially for full matrix; will be set to true after full matrix has been computed
 
 		// initial values before iterations start
@@ -3506,225 +4383,90 @@ public class Exporter {
 		this.isolates = true; // include isolates in the iterations; will be adjusted to full matrix without isolates manually each time
 
 		// compute normalized eigenvalues for the full matrix; no need to recompute every time as they do not change
-		eigenvaluesFull = computeNormalizedEigenvalues(fullMatrix.getMatrix(), "ojalgo");
-
-		if (penalty) { // simulated annealing with penalty: initially one randomly chosen entity in the backbone set
-			// pick a random concept c_j from C and save its index
-			int randomConceptIndex = ThreadLocalRandom.current().nextInt(0, fullConcepts.length);
-
-			// final backbone list B, which contains only one random concept initially but will contain the final backbone set in the end
-			finalBackboneList = new ArrayList<String>();
-
-			// add the one uniformly sampled concept c_j to the backbone as the initial solution at t = 0: B <- {c_j}
-			finalBackboneList.add(fullConcepts[randomConceptIndex]);
-
-			// final redundant set R, which is initially C without c_j
-			finalRedundantList = Arrays
-					.stream(fullConcepts)
-					.filter(c -> !c.equals(fullConcepts[randomConceptIndex]))
-					.collect(Collectors.toCollection(ArrayList::new));
-		} else { // simulated annealing without penalty and fixed backbone set size: randomly sample as many initial entities as needed
-			// sample initial backbone set randomly
-			if (this.backboneSize > fullConcepts.length) {
+		eigenvaluesFull = computeNormalizedEigenvalues(fullMatrix.getMatrix());
+
+		if (!penalty) { // simulated annealing without penalty and fixed backbone set size
+			if (size > fullConcepts.length) {
 				LogEvent l = new LogEvent(Logger.ERROR,
 						"Backbone size parameter too large",
-						"The backbone size parameter of " + this.backboneSize + " is larger than the number of entities on the second mode, " + fullConcepts.length + ". It is impossible to choose a backbone set of that size. Please choose a smaller backbone size.");
+						"The backbone size parameter of " + size + " is larger than the number of entities on the second mode, " + fullConcepts.length + ". It is impossible to choose a backbone set of that size. Please choose a smaller backbone size.");
 				Dna.logger.log(l);
-			} else if (this.backboneSize < 1) {
+			} else if (size < 1) {
 				LogEvent l = new LogEvent(Logger.ERROR,
 						"Backbone size parameter too small",
 						"The backbone size parameter of " + size + " is smaller than 1. It is impossible to choose a backbone set of that size. Please choose a larger backbone size.");
 				Dna.logger.log(l);
 			}
-			finalBackboneList = new ArrayList<>();
-			while (finalBackboneList.size() < this.backboneSize) {
-				int randomConceptIndex = ThreadLocalRandom.current().nextInt(0, fullConcepts.length);
-				String entity = fullConcepts[randomConceptIndex];
-				if (!finalBackboneList.contains(entity)) {
-					finalBackboneList.add(entity);
-				}
-			}
-			finalRedundantList = Stream.of(fullConcepts).filter(c -> !finalBackboneList.contains(c)).collect(Collectors.toCollection(ArrayList::new));
 		}
 
-		// final statement list: filter the statement list by only retaining those statements that are in the final backbone set B
-		finalStatementList = this.filteredStatements
-				.stream()
-				.filter(s -> finalBackboneList.contains(((Entity) s.get(this.variable2)).getValue()))
-				.collect(Collectors.toCollection(ArrayList::new));
-
-		// final matrix based on the initial final backbone set, Y^B, which is initially identical to the previous matrix
-		finalMatrix = this.computeOneModeMatrix(finalStatementList, this.qualifierAggregation, this.startDateTime, this.stopDateTime);
-		finalMatrix = this.reduceCandidateMatrix(finalMatrix, fullMatrix.getRowNames()); // ensure it has the right dimensions by purging isolates relative to the full matrix
-
-		// eigenvalues for final matrix
-		eigenvaluesFinal = computeNormalizedEigenvalues(finalMatrix.getMatrix(), "ojalgo"); // normalized eigenvalues for the candidate matrix
-
-		// create an initial current backbone set B_0, also with the one c_j concept like in B: B_0 <- {c_j}
-		currentBackboneList = new ArrayList<String>(finalBackboneList);
-
-		// create an initial current redundant set R_t, which is C without c_j
-		currentRedundantList = new ArrayList<String>(finalRedundantList);
-
-		// filter the statement list by only retaining those statements that are in the initial current backbone set B_0
-		currentStatementList = this.filteredStatements
-				.stream()
-				.filter(s -> currentBackboneList.contains(((Entity) s.get(this.variable2)).getValue()))
-				.collect(Collectors.toCollection(ArrayList::new));
-
-		// create initial current matrix at t = 0
-		currentMatrix = new Matrix(finalMatrix);
-
-		// initial current eigenvalues
-		eigenvaluesCurrent = eigenvaluesFinal;
-
-		// initialise (empty) action set S
-		this.actionList = new ArrayList<String>();
-
-		// initialise selected action s
-		selectedAction = "";
-
-		// initialise the candidate backbone set at t, B^*_t
-		candidateBackboneList = new ArrayList<String>();
-
-		// initialise the candidate redundant set at t, R^*_t
-		candidateRedundantList = new ArrayList<String>();
-
-		// declare loss comparison result variables
-		if (penalty) {
-			finalLoss = penalizedLoss(eigenvaluesFull, eigenvaluesFinal, p, currentBackboneList.size(), fullConcepts.length); // spectral distance between full and initial matrix
-		} else {
-			finalLoss = spectralLoss(eigenvaluesFull, eigenvaluesFinal); // spectral distance between full and initial matrix
+		// candidate losses are cached by concept set for this run and shared by the chains; the statistics are reported in the result
+		lossCache.validate(this.filteredStatements, getBackboneLossFingerprint());
+		lossCache.resetStatistics();
+
+		// one chain per temperature, each with its own concept decomposition of the current backbone set and its own random number generator
+		initializeConceptIndex();
+		Random seeds = (randomSeed == 0) ? new Random() : new Random(randomSeed);
+		chains = new SimulatedAnnealingChain[Math.max(1, numChains)];
+		for (int k = 0; k < chains.length; k++) {
+			double temperatureFactor = exchangeInterval > 0 ? Math.pow(2.0, k) : 1.0;
+			chains[k] = new SimulatedAnnealingChain(this, createConceptDecomposedMatrix(), fullConcepts, conceptIndex,
+					penalty, p, T, size, temperatureFactor, new Random(seeds.nextLong()));
 		}
-		oldLoss = finalLoss;
-		newLoss = 0.0;
-		accept = false;
-
-		// reporting
-		temperatureLog = new ArrayList<Double>();
-		acceptanceProbabilityLog = new ArrayList<Double>();
-		acceptedLog = new ArrayList<Integer>();
-		penalizedBackboneLossLog = new ArrayList<Double>(); // penalised or not penalised, depending on algorithm
-		proposedBackboneSizeLog = new ArrayList<Integer>();
-		acceptedBackboneSizeLog = new ArrayList<Integer>();
-		finalBackboneSizeLog = new ArrayList<Integer>();
-		acceptanceRatioLastHundredIterationsLog = new ArrayList<Double>();
-
-		// matrix algebra declarations
-		eigenvaluesCurrent = new double[0];
+		this.exchangeInterval = Math.max(0, exchangeInterval);
+		this.exchangeRandom = new Random(seeds.nextLong());
+		this.exchangesAttempted = new int[chains.length - 1];
+		this.exchangesAccepted = new int[chains.length - 1];
 
 		// set to first iteration before starting simulated annealing
 		t = 1;
 	}
 
 	/**
-	 * Execute the next iteration of the simulated annealing backbone algorithm.
+	 * Execute the next iteration of the simulated annealing backbone algorithm in all chains.
 	 */
 	public void iterateSimulatedAnnealingBackbone(boolean penalty) {
-		// calculate temperature
-		temperature = 1 - (1 / (1 + Math.exp(-(-5 + (12.0 / T) * t)))); // temperature
-		temperatureLog.add(temperature);
-
-		// make a random move by adding, removing, or swapping a concept and computing a new candidate
-		actionList.clear(); // clear the set of possible actions and repopulate, depending on solution size
-		if (currentBackboneList.size() < 2 && penalty) { // if there is only one concept, don't remove it because empty backbones do not work
-			actionList.add("add");
-			actionList.add("swap");
-		} else if (currentBackboneList.size() > fullConcepts.length - 2 && penalty) { // do not create a backbone with all concepts because it would be useless
-			actionList.add("remove");
-			actionList.add("swap");
-		} else if (penalty) { // everything in between one and |C| - 1 concepts: add all three possible moves to the action set
-			actionList.add("add");
-			actionList.add("remove");
-			actionList.add("swap");
-		} else { // with fixed backbone set (i.e., no penalty), only allow horizontal swaps
-			actionList.add("swap");
-		}
-		Collections.shuffle(actionList); // randomly re-order the action set...
-		selectedAction = actionList.get(0); // and draw the first action (i.e., pick a random action)
-		candidateBackboneList.clear(); // create a candidate copy of the current backbone list, to be modified
-		candidateBackboneList.addAll(currentBackboneList);
-		candidateRedundantList.clear(); // create a candidate copy of the current redundant list, to be modified
-		candidateRedundantList.addAll(currentRedundantList);
-		if (selectedAction.equals("add")) { // if we add a concept...
-			Collections.shuffle(candidateRedundantList); // randomly re-order the current redundant list...
-			candidateBackboneList.add(candidateRedundantList.get(0)); // add the first concept from the redundant list to the backbone...
-			candidateRedundantList.remove(0); // and delete it in turn from the redundant list
-		} else if (selectedAction.equals("remove")) { // if we remove a concept...
-			Collections.shuffle(candidateBackboneList); // randomly re-order the backbone list to pick a random concept for removal as the first element...
-			candidateRedundantList.add(candidateBackboneList.get(0)); // add the selected concept to the redundant list...
-			candidateBackboneList.remove(0); // and remove it from the backbone list
-		} else if (selectedAction.equals("swap")) { //if we swap out a concept...
-			Collections.shuffle(candidateBackboneList); // re-order the backbone list...
-			Collections.shuffle(candidateRedundantList); // re-order the redundant list...
-			candidateBackboneList.add(candidateRedundantList.get(0)); // add the first (random) redundant concept to the backbone list...
-			candidateRedundantList.remove(0); // then remove it from the redundant list...
-			candidateRedundantList.add(candidateBackboneList.get(0)); // add the first (random) backbone concept to the redundant list...
-			candidateBackboneList.remove(0); // then remove it from the backbone list
-		}
-		proposedBackboneSizeLog.add(candidateBackboneList.size()); // log number of concepts in candidate backbone in the current iteration
-
-		// after executing the action, filter the statement list based on the candidate backbone set B^*_t in order to create the candidate matrix, then compute eigenvalues and loss for the candidate
-		candidateStatementList = this.filteredStatements
-				.stream()
-				.filter(s -> candidateBackboneList.contains(((Entity) s.get(this.variable2)).getValue()))
-				.collect(Collectors.toCollection(ArrayList::new));
-		candidateMatrix = this.computeOneModeMatrix(candidateStatementList, this.qualifierAggregation, this.startDateTime, this.stopDateTime); // create candidate matrix after filtering the statements based on the action that was executed
-		candidateMatrix = this.reduceCandidateMatrix(candidateMatrix, fullMatrix.getRowNames()); // ensure it has the right dimensions by purging isolates relative to the full matrix
-		eigenvaluesCandidate = computeNormalizedEigenvalues(candidateMatrix.getMatrix(), "ojalgo"); // normalized eigenvalues for the candidate matrix
-		if (penalty) {
-			newLoss = penalizedLoss(eigenvaluesFull, eigenvaluesCandidate, p, candidateBackboneList.size(), fullConcepts.length); // spectral distance between full and candidate matrix
-		} else {
-			newLoss = spectralLoss(eigenvaluesFull, eigenvaluesCandidate); // spectral distance between full and candidate matrix
-		}
-		penalizedBackboneLossLog.add(newLoss); // log the penalised spectral distance between full and candidate solution
-
-		// compare loss between full and previous (current) matrix to loss between full and candidate matrix and accept or reject candidate
-		accept = false;
-		if (newLoss < oldLoss) { // if candidate is better than previous matrix, adopt it as current solution
-			accept = true; // flag this solution for acceptance
-			acceptanceProbabilityLog.add(-1.0); // log the acceptance probability as -1.0; technically it should be 1.0 because the solution was better and hence accepted, but it would be useless for plotting the acceptance probabilities as a diagnostic tool
-			if (newLoss <= finalLoss) { // if better than the best solution, adopt candidate as new final backbone solution
-				finalBackboneList.clear(); // clear the best solution list
-				finalBackboneList.addAll(candidateBackboneList); // and populate it with the concepts from the candidate solution instead
-				finalRedundantList.clear(); // same with the redundant list
-				finalRedundantList.addAll(candidateRedundantList);
-				finalStatementList.clear(); // same with the final list of statements
-				finalStatementList.addAll(candidateStatementList);
-				finalMatrix = new Matrix(candidateMatrix); // save the candidate matrix as best solution matrix
-				eigenvaluesFinal = eigenvaluesCandidate;
-				finalLoss = newLoss; // save the candidate loss as the globally optimal loss so far
-			}
-		} else { // if the solution is worse than the previous one, apply Hastings ratio and temperature and compare with random number
-			r = Math.random(); // random double between 0 and 1
-			acceptance = Math.exp(-(newLoss - oldLoss)) * temperature; // acceptance probability
-			acceptanceProbabilityLog.add(acceptance); // log the acceptance probability
-			if (r < acceptance) { // apply probability rule
-				accept = true;
-			}
-		}
-		if (accept) { // if candidate is better than previous matrix...
-			currentBackboneList.clear(); // create candidate copy and save as new current matrix
-			currentBackboneList.addAll(candidateBackboneList);
-			currentRedundantList.clear(); // also save the redundant candidate as new current redundant list
-			currentRedundantList.addAll(candidateRedundantList);
-			currentStatementList.clear(); // save candidate statement list as new current statement list
-			currentStatementList.addAll(candidateStatementList);
-			currentMatrix = new Matrix(candidateMatrix); // save candidate matrix as new current matrix
-			eigenvaluesCurrent = eigenvaluesCandidate;
-			oldLoss = newLoss; // save the corresponding candidate loss as the current/old loss
-			acceptedLog.add(1); // log the acceptance of the proposed candidate
-		} else {
-			acceptedLog.add(0); // log the non-acceptance of the proposed candidate
-		}
-		acceptedBackboneSizeLog.add(currentBackboneList.size()); // log how many concepts are in the current iteration after the decision
-		finalBackboneSizeLog.add(finalBackboneList.size()); // log how many concepts are in the final backbone solution in the current iteration
-		log = 0.0; // compute ratio of acceptances in last up to 100 iterations
-		for (int i = t - 1; i >= t - Math.min(100, t); i--) {
-			log = log + acceptedLog.get(i);
+		iterateSimulatedAnnealingBackbone(penalty, 1);
+	}
+
+	/**
+	 * Execute the next iterations of the simulated annealing backbone algorithm in all chains, but not beyond the
+	 * number of iterations {@code T}. The chains are run in parallel on the {@link #backbonePool} up to the next
+	 * exchange of solutions, then the neighboring chains try to exchange their solutions, and so on. The results only
+	 * depend on the random seed, not on the number of threads or the number of iterations per call.
+	 *
+	 * @param penalty Use penalty parameter? False if fixed backbone set.
+	 * @param iterations The number of iterations to execute.
+	 */
+	public void iterateSimulatedAnnealingBackbone(boolean penalty, int iterations) {
+		int last = Math.min(T, t + iterations - 1);
+		while (t <= last) {
+			int stop = last;
+			if (exchangeInterval > 0) {
+				stop = Math.min(last, (t + exchangeInterval - 1) / exchangeInterval * exchangeInterval); // iteration of the next exchange
+			}
+			final int first = t, end = stop;
+			if (chains.length == 1) {
+				for (int i = first; i <= end; i++) {
+					chains[0].iterate(penalty, i);
+				}
+			} else {
+				this.backbonePool.submit(() -> IntStream.range(0, chains.length).parallel().forEach(k -> {
+					for (int i = first; i <= end; i++) {
+						chains[k].iterate(penalty, i);
+					}
+				})).join();
+			}
+			if (exchangeInterval > 0 && stop % exchangeInterval == 0) {
+				int round = stop / exchangeInterval;
+				for (int k = round % 2; k < chains.length - 1; k = k + 2) { // odd and even pairs of neighboring chains in turn
+					exchangesAttempted[k]++;
+					if (SimulatedAnnealingChain.exchange(chains[k], chains[k + 1], exchangeRandom.nextDouble())) {
+						exchangesAccepted[k]++;
+					}
+				}
+			}
+			t = stop + 1; // go to next iteration
 		}
-		acceptanceRatioLastHundredIterationsLog.add(log / Math.min(100, t)); // log ratio of accepted candidates in the last 100 iterations
-		t = t + 1; // go to next iteration
 	}
 
 	/**
@@ -3750,7 +4492,7 @@ public class Exporter {
 		this.isolates = true; // include isolates in the iterations; will be adjusted to full matrix without isolates manually each time
 
 		// compute normalized eigenvalues for the full matrix; no need to recompute every time as they do not change
-		eigenvaluesFull = computeNormalizedEigenvalues(fullMatrix.getMatrix(), "ojalgo");
+		eigenvaluesFull = computeNormalizedEigenvalues(fullMatrix.getMatrix());
 
 		// create copy of filtered statements and remove redundant entities
 		ArrayList<String> entityList = Stream.of(backboneEntities).collect(Collectors.toCollection(ArrayList<String>::new));
@@ -3764,26 +4506,113 @@ public class Exporter {
 			}
 		}
 
-		// spectral distance between full and backbone set
-		candidateStatementList = this.filteredStatements
-				.stream()
-				.filter(s -> backboneSet.contains(((Entity) s.get(this.variable2)).getValue()))
-				.collect(Collectors.toCollection(ArrayList::new));
-		candidateMatrix = this.computeOneModeMatrix(candidateStatementList, this.qualifierAggregation, this.startDateTime, this.stopDateTime); // create candidate matrix after filtering the statements based on the action that was executed
-		candidateMatrix = this.reduceCandidateMatrix(candidateMatrix, fullMatrix.getRowNames()); // ensure it has the right dimensions by purging isolates relative to the full matrix
-		eigenvaluesCandidate = computeNormalizedEigenvalues(candidateMatrix.getMatrix(), "ojalgo"); // normalized eigenvalues for the candidate matrix
-		results[0] = penalizedLoss(eigenvaluesFull, eigenvaluesCandidate, p, backboneSet.size(), fullConcepts.length); // spectral distance between full and candidate matrix
-
-		// spectral distance between full and redundant set
-		candidateStatementList = this.filteredStatements
-				.stream()
-				.filter(s -> redundantSet.contains(((Entity) s.get(this.variable2)).getValue()))
-				.collect(Collectors.toCollection(ArrayList::new));
-		candidateMatrix = this.computeOneModeMatrix(candidateStatementList, this.qualifierAggregation, this.startDateTime, this.stopDateTime); // create candidate matrix after filtering the statements based on the action that was executed
-		candidateMatrix = this.reduceCandidateMatrix(candidateMatrix, fullMatrix.getRowNames()); // ensure it has the right dimensions by purging isolates relative to the full matrix
-		eigenvaluesCandidate = computeNormalizedEigenvalues(candidateMatrix.getMatrix(), "ojalgo"); // normalized eigenvalues for the candidate matrix
-		results[1] = penalizedLoss(eigenvaluesFull, eigenvaluesCandidate, p, redundantSet.size(), fullConcepts.length); // spectral distance between full and candidate matrix
+		// spectral distances between full and backbone set and between full and redundant set, from the loss cache if the sets have been evaluated before
+		initializeConceptDecompositions(backboneSet);
+		for (String concept : redundantSet) {
+			redundantDecomposition.add(conceptIndex.get(concept));
+		}
+		lossCache.validate(this.filteredStatements, getBackboneLossFingerprint());
+		LaplacianSpectrum spectrum = new LaplacianSpectrum();
+		results[0] = penalizedLoss(evaluateBackboneCandidate(backboneDecomposition, spectrum).getLoss(), p, backboneSet.size(), fullConcepts.length);
+		results[1] = penalizedLoss(evaluateBackboneCandidate(redundantDecomposition, spectrum).getLoss(), p, redundantSet.size(), fullConcepts.length);
 
 		return results;
 	}
+
+	/**
+	 * A hash key for duplicate detection in {@link #filterStatements()}. Two
+	 * statements are duplicates if they have the same statement type, the same
+	 * codes of variable 1, variable 2, and the qualifier, and fall into the
+	 * same bucket (document, week, month, year, or the whole time range).
+	 */
+	private static final class DuplicateKey {
+		private final int statementTypeId, value1, value2, qualifier, bucket;
+
+		DuplicateKey(int statementTypeId, int value1, int value2, int qualifier, int bucket) {
+			this.statementTypeId = statementTypeId;
+			this.value1 = value1;
+			this.value2 = value2;
+			this.qualifier = qualifier;
+			this.bucket = bucket;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof DuplicateKey)) return false;
+			DuplicateKey k = (DuplicateKey) o;
+			return statementTypeId == k.statementTypeId && value1 == k.value1 && value2 == k.value2 && qualifier == k.qualifier && bucket == k.bucket;
+		}
+
+		@Override
+		public int hashCode() {
+			int h = statementTypeId;
+			h = 31 * h + value1;
+			h = 31 * h + value2;
+			h = 31 * h + qualifier;
+			h = 31 * h + bucket;
+			return h;
+		}
+	}
+
+	/**
+	 * The statements used for kernel smoothing, in chronological order, with
+	 * their cell in the three-dimensional array (variable 1 x variable 2 x
+	 * qualifier level).
+	 */
+	private static final class KernelStatements {
+		private final int numRows, numColumns, numLevels;
+		private final int[] rows, columns, levels;
+		private final LocalDateTime[] dateTimes;
+
+		private KernelStatements(int numRows, int numColumns, int numLevels, int[] rows, int[] columns, int[] levels, LocalDateTime[] dateTimes) {
+			this.numRows = numRows;
+			this.numColumns = numColumns;
+			this.numLevels = numLevels;
+			this.rows = rows;
+			this.columns = columns;
+			this.levels = levels;
+			this.dateTimes = dateTimes;
+		}
+
+		/**
+		 * Get the index of the first statement that is not before a date/time.
+		 *
+		 * @param time The date/time.
+		 * @return The index of the first statement at or after the date/time.
+		 */
+		private int firstNotBefore(LocalDateTime time) {
+			int low = 0;
+			int high = this.dateTimes.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (this.dateTimes[mid].isBefore(time)) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * Get the index of the first statement after a date/time.
+		 *
+		 * @param time The date/time.
+		 * @return The index of the first statement after the date/time.
+		 */
+		private int firstAfter(LocalDateTime time) {
+			int low = 0;
+			int high = this.dateTimes.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (!this.dateTimes[mid].isAfter(time)) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,194 @@
+package dna.export;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A streaming writer for visone graphML files. The elements are written to
+ * the file as they are passed to the writer, using a StAX
+ * {@link XMLStreamWriter}, so the document is never held in memory as a tree.
+ * The output is indented by two spaces per level, like the pretty format of
+ * the JDOM outputter used before.
+ */
+class GraphmlWriter implements AutoCloseable {
+	static final String GRAPHML = "http://graphml.graphdrawing.org/xmlns";
+	static final String VISONE = "http://visone.info/xmlns";
+	static final String XSI = "http://www.w3.org/2001/XMLSchema-instance";
+	static final String Y = "http://www.yworks.com/xml/graphml";
+	private static final char[] INDENT = ("\n" + " ".repeat(128)).toCharArray();
+
+	private final OutputStream outStream;
+	private final XMLStreamWriter xml;
+	private int depth = 0;
+
+	/**
+	 * Open a graphML file for writing.
+	 *
+	 * @param filename The file name.
+	 * @throws IOException If the file cannot be opened.
+	 * @throws XMLStreamException If the XML writer cannot be created.
+	 */
+	GraphmlWriter(String filename) throws IOException, XMLStreamException {
+		this.outStream = new BufferedOutputStream(new FileOutputStream(filename), 1 << 16);
+		try {
+			this.xml = XMLOutputFactory.newInstance().createXMLStreamWriter(this.outStream, "utf-8");
+		} catch (XMLStreamException e) {
+			this.outStream.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Write the XML declaration and open the {@code graphml} root element with
+	 * the graphML, visone, XML schema instance, and yFiles namespaces.
+	 *
+	 * @throws XMLStreamException If the elements cannot be written.
+	 */
+	void startDocument() throws XMLStreamException {
+		this.xml.writeStartDocument("utf-8", "1.0");
+		indent();
+		this.xml.writeStartElement("graphml");
+		this.xml.writeDefaultNamespace(GRAPHML);
+		this.xml.writeNamespace("visone", VISONE);
+		this.xml.writeNamespace("xsi", XSI);
+		this.xml.writeNamespace("y", Y);
+		this.xml.writeAttribute("xsi", XSI, "schemaLocation", "http://graphml.graphdrawing.org/xmlns/graphml http://www.yworks.com/xml/schema/graphml/1.0/ygraphml.xsd ");
+		this.depth++;
+	}
+
+	/**
+	 * Close the root element and the document.
+	 *
+	 * @throws XMLStreamException If the elements cannot be written.
+	 */
+	void endDocument() throws XMLStreamException {
+		end();
+		this.xml.writeCharacters("\n");
+		this.xml.writeEndDocument();
+	}
+
+	/**
+	 * Write a comment on a new line.
+	 *
+	 * @param comment The comment text.
+	 * @throws XMLStreamException If the comment cannot be written.
+	 */
+	void comment(String comment) throws XMLStreamException {
+		indent();
+		this.xml.writeComment(comment);
+	}
+
+	/**
+	 * Open an element on a new line. Its content follows on the next level.
+	 *
+	 * @param prefix The namespace prefix ({@code "visone"} or {@code "y"}), or
+	 *   {@code null} for the default graphML namespace.
+	 * @param name The local name of the element.
+	 * @param attributes Pairs of attribute names and values.
+	 * @throws XMLStreamException If the element cannot be written.
+	 */
+	void start(String prefix, String name, String... attributes) throws XMLStreamException {
+		indent();
+		if (prefix == null) {
+			this.xml.writeStartElement(name);
+		} else {
+			this.xml.writeStartElement(prefix, name, namespace(prefix));
+		}
+		attributes(attributes);
+		this.depth++;
+	}
+
+	/**
+	 * Close the element that was opened last, on a new line.
+	 *
+	 * @throws XMLStreamException If the element cannot be written.
+	 */
+	void end() throws XMLStreamException {
+		this.depth--;
+		indent();
+		this.xml.writeEndElement();
+	}
+
+	/**
+	 * Write an element without content on a new line.
+	 *
+	 * @param prefix The namespace prefix, or {@code null} for the default
+	 *   graphML namespace.
+	 * @param name The local name of the element.
+	 * @param attributes Pairs of attribute names and values.
+	 * @throws XMLStreamException If the element cannot be written.
+	 */
+	void empty(String prefix, String name, String... attributes) throws XMLStreamException {
+		indent();
+		if (prefix == null) {
+			this.xml.writeEmptyElement(name);
+		} else {
+			this.xml.writeEmptyElement(prefix, name, namespace(prefix));
+		}
+		attributes(attributes);
+	}
+
+	/**
+	 * Write an element with text content on a new line. If the text is
+	 * {@code null}, an empty element is written.
+	 *
+	 * @param prefix The namespace prefix, or {@code null} for the default
+	 *   graphML namespace.
+	 * @param name The local name of the element.
+	 * @param text The text content.
+	 * @param attributes Pairs of attribute names and values.
+	 * @throws XMLStreamException If the element cannot be written.
+	 */
+	void text(String prefix, String name, String text, String... attributes) throws XMLStreamException {
+		if (text == null) {
+			empty(prefix, name, attributes);
+			return;
+		}
+		indent();
+		if (prefix == null) {
+			this.xml.writeStartElement(name);
+		} else {
+			this.xml.writeStartElement(prefix, name, namespace(prefix));
+		}
+		attributes(attributes);
+		this.xml.writeCharacters(text);
+		this.xml.writeEndElement();
+	}
+
+	private void attributes(String[] attributes) throws XMLStreamException {
+		for (int i = 0; i < attributes.length; i = i + 2) {
+			this.xml.writeAttribute(attributes[i], attributes[i + 1]);
+		}
+	}
+
+	private void indent() throws XMLStreamException {
+		this.xml.writeCharacters(INDENT, 0, Math.min(INDENT.length, 1 + 2 * this.depth));
+	}
+
+	private static String namespace(String prefix) {
+		if (prefix.equals("visone")) {
+			return VISONE;
+		} else if (prefix.equals("y")) {
+			return Y;
+		} else if (prefix.equals("xsi")) {
+			return XSI;
+		}
+		return GRAPHML;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			this.xml.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			this.outStream.close();
+		}
+	}
+}
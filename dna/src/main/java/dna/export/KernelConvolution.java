@@ -0,0 +1,221 @@
+package dna.export;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.transform.DftNormalization;
+import org.apache.commons.math3.transform.FastFourierTransformer;
+import org.apache.commons.math3.transform.TransformType;
+
+import java.util.Arrays;
+
+/**
+ * Kernel smoothing of statements over a regular time grid by convolution. The
+ * statements of each non-empty cell of the three-dimensional array (variable 1
+ * x variable 2 x qualifier level) are binned onto the grid once, and the
+ * kernel-weighted sum of the cell at every grid point (= time slice) is
+ * obtained by convolving the binned series with the kernel. Narrow kernels are
+ * applied directly to the non-empty bins; wide kernels (e.g., the Gaussian
+ * kernel, whose support spans the whole time line) are applied using the fast
+ * Fourier transform.
+ *
+ * The {@link Exporter} uses the weighted sums to project the network of each
+ * time slice (see {@link Exporter#computeKernelSmoothedTimeSlices()}).
+ */
+class KernelConvolution {
+	private final int numSlices;
+	private final int numRows, numColumns, numLevels;
+	private final int[] cellRows, cellColumns, cellLevels;
+	private final double[][] cellWeights;
+	private final int[][] cellCounts;
+
+	/**
+	 * Bin the statements onto the grid and convolve the series of each
+	 * non-empty cell with the kernel.
+	 *
+	 * @param numSlices The number of grid points (time slices).
+	 * @param numRows Number of rows (e.g., actors).
+	 * @param numColumns Number of columns (e.g., concepts).
+	 * @param numLevels Number of qualifier levels.
+	 * @param rows Row index of each statement.
+	 * @param columns Column index of each statement.
+	 * @param levels Qualifier level of each statement.
+	 * @param bins Grid index of each statement. Statements before the first
+	 *   or after the last grid point have negative indices or indices of at
+	 *   least {@code numSlices}, respectively.
+	 * @param kernel The kernel weights for the differences between the grid
+	 *   index of a slice and the grid index of a statement, starting at
+	 *   {@code minDifference}.
+	 * @param minDifference The smallest difference covered by the kernel.
+	 * @param bounded Do statements only count as present in the time slices
+	 *   within the range of the kernel? If {@code false}, a statement counts as
+	 *   present in all slices, as with the Gaussian kernel.
+	 */
+	KernelConvolution(int numSlices, int numRows, int numColumns, int numLevels, int[] rows, int[] columns, int[] levels,
+			int[] bins, double[] kernel, int minDifference, boolean bounded) {
+		this.numSlices = numSlices;
+		this.numRows = numRows;
+		this.numColumns = numColumns;
+		this.numLevels = numLevels;
+
+		// group the statements by cell and, within cells, by grid index
+		Integer[] order = new Integer[rows.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> {
+			long cellA = ((long) rows[a] * numColumns + columns[a]) * numLevels + levels[a];
+			long cellB = ((long) rows[b] * numColumns + columns[b]) * numLevels + levels[b];
+			if (cellA != cellB) {
+				return Long.compare(cellA, cellB);
+			}
+			return Integer.compare(bins[a], bins[b]);
+		});
+		int numCells = 0;
+		for (int i = 0; i < order.length; i++) {
+			if (i == 0 || !sameCell(order[i], order[i - 1], rows, columns, levels)) {
+				numCells++;
+			}
+		}
+		this.cellRows = new int[numCells];
+		this.cellColumns = new int[numCells];
+		this.cellLevels = new int[numCells];
+		this.cellWeights = new double[numCells][];
+		this.cellCounts = new int[numCells][];
+
+		// FFT set-up: all cells share the range of grid indices and hence the transformed kernel
+		int minBin = Integer.MAX_VALUE;
+		int maxBin = Integer.MIN_VALUE;
+		for (int i = 0; i < bins.length; i++) {
+			minBin = Math.min(minBin, bins[i]);
+			maxBin = Math.max(maxBin, bins[i]);
+		}
+		int fftLength = 1;
+		while (fftLength < (maxBin - minBin + 1) + kernel.length - 1) {
+			fftLength = fftLength * 2;
+		}
+		FastFourierTransformer transformer = new FastFourierTransformer(DftNormalization.STANDARD);
+		Complex[] kernelTransform = null;
+		double fftCost = 2.0 * fftLength * (Math.log(fftLength) / Math.log(2) + 1);
+
+		int start = 0;
+		int cell = 0;
+		while (start < order.length) {
+			int end = start + 1;
+			while (end < order.length && sameCell(order[end], order[start], rows, columns, levels)) {
+				end++;
+			}
+			this.cellRows[cell] = rows[order[start]];
+			this.cellColumns[cell] = columns[order[start]];
+			this.cellLevels[cell] = levels[order[start]];
+
+			// distinct grid indices of the cell and the number of statements per index
+			int[] cellBins = new int[end - start];
+			int[] cellBinCounts = new int[end - start];
+			int numBins = 0;
+			for (int i = start; i < end; i++) {
+				if (numBins > 0 && cellBins[numBins - 1] == bins[order[i]]) {
+					cellBinCounts[numBins - 1]++;
+				} else {
+					cellBins[numBins] = bins[order[i]];
+					cellBinCounts[numBins] = 1;
+					numBins++;
+				}
+			}
+
+			// weighted sums: apply the kernel to each non-empty bin directly if cheap enough, otherwise use the FFT
+			double[] weights = new double[numSlices];
+			if ((double) numBins * kernel.length <= fftCost) {
+				for (int b = 0; b < numBins; b++) {
+					int first = Math.max(0, cellBins[b] + minDifference);
+					int last = Math.min(numSlices - 1, cellBins[b] + minDifference + kernel.length - 1);
+					for (int g = first; g <= last; g++) {
+						weights[g] = weights[g] + cellBinCounts[b] * kernel[g - cellBins[b] - minDifference];
+					}
+				}
+			} else {
+				if (kernelTransform == null) {
+					kernelTransform = transformer.transform(Arrays.copyOf(kernel, fftLength), TransformType.FORWARD);
+				}
+				double[] series = new double[fftLength];
+				for (int b = 0; b < numBins; b++) {
+					series[cellBins[b] - minBin] = cellBinCounts[b];
+				}
+				Complex[] product = transformer.transform(series, TransformType.FORWARD);
+				for (int i = 0; i < fftLength; i++) {
+					product[i] = product[i].multiply(kernelTransform[i]);
+				}
+				Complex[] convolution = transformer.transform(product, TransformType.INVERSE);
+				for (int g = 0; g < numSlices; g++) {
+					int position = g - minBin - minDifference; // position of slice g in the full convolution
+					if (position >= 0 && position < fftLength) {
+						weights[g] = convolution[position].getReal();
+					}
+				}
+			}
+			this.cellWeights[cell] = weights;
+
+			// number of statements of the cell present in each slice
+			int[] counts = new int[numSlices];
+			if (bounded) {
+				int[] cumulative = new int[numBins + 1];
+				for (int b = 0; b < numBins; b++) {
+					cumulative[b + 1] = cumulative[b] + cellBinCounts[b];
+				}
+				int low = 0; // first bin with index >= g - (minDifference + kernel.length - 1)
+				int high = 0; // first bin with index > g - minDifference
+				for (int g = 0; g < numSlices; g++) {
+					while (low < numBins && cellBins[low] < g - (minDifference + kernel.length - 1)) {
+						low++;
+					}
+					while (high < numBins && cellBins[high] <= g - minDifference) {
+						high++;
+					}
+					counts[g] = Math.max(0, cumulative[high] - cumulative[low]);
+				}
+			} else {
+				Arrays.fill(counts, end - start);
+			}
+			this.cellCounts[cell] = counts;
+
+			start = end;
+			cell++;
+		}
+	}
+
+	private static boolean sameCell(int a, int b, int[] rows, int[] columns, int[] levels) {
+		return rows[a] == rows[b] && columns[a] == columns[b] && levels[a] == levels[b];
+	}
+
+	int getNumSlices() {
+		return this.numSlices;
+	}
+
+	/**
+	 * Get the kernel-weighted sums of all cells in a time slice.
+	 *
+	 * @param slice The grid index of the time slice.
+	 * @return A three-dimensional array (variable 1 x variable 2 x qualifier
+	 *   level) of weighted sums.
+	 */
+	double[][][] weights(int slice) {
+		double[][][] weights = new double[this.numRows][this.numColumns][this.numLevels];
+		for (int c = 0; c < this.cellRows.length; c++) {
+			weights[this.cellRows[c]][this.cellColumns[c]][this.cellLevels[c]] = this.cellWeights[c][slice];
+		}
+		return weights;
+	}
+
+	/**
+	 * Get the number of statements of all cells present in a time slice.
+	 *
+	 * @param slice The grid index of the time slice.
+	 * @return A three-dimensional array (variable 1 x variable 2 x qualifier
+	 *   level) of statement counts.
+	 */
+	int[][][] counts(int slice) {
+		int[][][] counts = new int[this.numRows][this.numColumns][this.numLevels];
+		for (int c = 0; c < this.cellRows.length; c++) {
+			counts[this.cellRows[c]][this.cellColumns[c]][this.cellLevels[c]] = this.cellCounts[c][slice];
+		}
+		return counts;
+	}
+}
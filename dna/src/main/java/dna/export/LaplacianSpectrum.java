@@ -0,0 +1,502 @@
+package dna.export;
+
+import java.util.Arrays;
+
+/**
+ * Eigenvalues of the Laplacian matrix of a weighted undirected network, which
+ * are the basis of the spectral distances in the backbone algorithms and in
+ * {@link Exporter#computeDistanceMatrix(String)}. The Laplacian is symmetric,
+ * so it is reduced to tridiagonal form with Householder reflections, and the
+ * eigenvalues of the tridiagonal matrix are computed with the implicit QL
+ * algorithm, without computing any eigenvectors. Alternatively, only the
+ * {@code k} largest eigenvalues can be computed with the Lanczos algorithm,
+ * together with a bound on their error.
+ *
+ * An instance keeps its work arrays between calls and grows them when a larger
+ * network is decomposed, so repeated decompositions do not allocate any memory
+ * except for the results. Instances are not thread-safe. Use one instance per
+ * task, for example per block of backbone candidates or per simulated
+ * annealing chain, so the work arrays are released with the task.
+ */
+final class LaplacianSpectrum {
+	private static final double EPSILON = Math.ulp(1.0);
+	private static final int MAX_QL_ITERATIONS = 30; // per eigenvalue, as in LAPACK
+	private static final double LANCZOS_TOLERANCE = 1e-10; // relative to the norm of the Laplacian
+
+	private double[][] work = new double[0][0]; // the Laplacian, reduced to tridiagonal form in place
+	private double[][] basis = new double[0][0]; // Lanczos vectors, one row per dimension of the Krylov subspace
+	private double[] diagonal = new double[0], offDiagonal = new double[0], vector = new double[0], lastComponents = new double[0];
+	private double[] alpha = new double[0], beta = new double[0];
+	private double errorBound = 0.0;
+
+	/**
+	 * Get the error bound of the last call of
+	 * {@link #normalizedEigenvalues(double[][], int)}.
+	 *
+	 * @return The largest distance of one of the normalized eigenvalues to the
+	 *   nearest normalized eigenvalue of the Laplacian, or {@code 0.0} if all
+	 *   eigenvalues were computed.
+	 */
+	double getErrorBound() {
+		return this.errorBound;
+	}
+
+	/**
+	 * Compute all eigenvalues of the Laplacian matrix of a network, divided by
+	 * their sum.
+	 *
+	 * @param matrix The symmetric adjacency matrix with non-negative edge
+	 *   weights. The diagonal is ignored.
+	 * @return The normalized eigenvalues in descending order. All values are
+	 *   {@code NaN} if the matrix contains {@code NaN} values.
+	 */
+	double[] normalizedEigenvalues(double[][] matrix) {
+		return normalizedEigenvalues(matrix, 0);
+	}
+
+	/**
+	 * Compute the largest eigenvalues of the Laplacian matrix of a network,
+	 * divided by the sum of all eigenvalues (which is the trace of the
+	 * Laplacian).
+	 *
+	 * @param matrix The symmetric adjacency matrix with non-negative edge
+	 *   weights. The diagonal is ignored.
+	 * @param k The number of largest eigenvalues to compute with the Lanczos
+	 *   algorithm, or {@code 0} to compute all eigenvalues exactly.
+	 * @return An array with one element per node, with the normalized
+	 *   eigenvalues in descending order and zeros after the first {@code k}
+	 *   elements. All values are {@code NaN} if the matrix contains
+	 *   {@code NaN} values.
+	 */
+	double[] normalizedEigenvalues(double[][] matrix, int k) {
+		int n = matrix.length;
+		double[] eigenvalues = new double[n];
+		this.errorBound = 0.0;
+		if (n == 0) {
+			return eigenvalues;
+		}
+		ensureCapacity(n);
+		double trace = laplacian(matrix, n);
+		if (Double.isNaN(trace)) {
+			Arrays.fill(eigenvalues, Double.NaN);
+			return eigenvalues;
+		}
+		boolean converged;
+		if (k > 0 && k < n) {
+			converged = largestEigenvalues(n, k, eigenvalues);
+		} else {
+			converged = allEigenvalues(n, eigenvalues);
+		}
+		if (!converged) {
+			Arrays.fill(eigenvalues, Double.NaN);
+			return eigenvalues;
+		}
+		if (trace > 0.0) {
+			for (int i = 0; i < n; i++) {
+				eigenvalues[i] = eigenvalues[i] / trace;
+			}
+			this.errorBound = this.errorBound / trace;
+		}
+		return eigenvalues;
+	}
+
+	/**
+	 * Grow the work arrays if necessary.
+	 *
+	 * @param n The number of nodes.
+	 */
+	private void ensureCapacity(int n) {
+		if (this.work.length < n) {
+			this.work = new double[n][n];
+			this.diagonal = new double[n];
+			this.offDiagonal = new double[n];
+			this.vector = new double[n];
+			this.lastComponents = new double[n];
+			this.alpha = new double[n];
+			this.beta = new double[n];
+		}
+	}
+
+	/**
+	 * Write the Laplacian matrix into the work matrix. Off-diagonal cells are
+	 * the negative average of both directions, which is the edge weight of a
+	 * symmetric matrix.
+	 *
+	 * @param matrix The adjacency matrix.
+	 * @param n The number of nodes.
+	 * @return The trace of the Laplacian, or {@code NaN} if the matrix
+	 *   contains {@code NaN} values.
+	 */
+	private double laplacian(double[][] matrix, int n) {
+		double trace = 0.0;
+		for (int i = 0; i < n; i++) {
+			double[] row = this.work[i];
+			double degree = 0.0;
+			for (int j = 0; j < n; j++) {
+				if (i != j) {
+					double weight = matrix[i][j] == matrix[j][i] ? matrix[i][j] : (matrix[i][j] + matrix[j][i]) / 2;
+					if (Double.isNaN(weight)) {
+						return Double.NaN;
+					}
+					row[j] = -weight;
+					degree = degree + weight;
+				}
+			}
+			row[i] = degree;
+			trace = trace + degree;
+		}
+		return trace;
+	}
+
+	/**
+	 * Compute all eigenvalues of the Laplacian in the work matrix. The matrix
+	 * is reduced to tridiagonal form with Householder reflections (as in the
+	 * EISPACK routine {@code tred2}, but without accumulating the
+	 * transformations), and the eigenvalues of the tridiagonal matrix are
+	 * computed with the implicit QL algorithm. The work matrix is accessed by
+	 * rows: row {@code j} holds column {@code j} of the lower triangle of the
+	 * symmetric matrix.
+	 *
+	 * @param n The number of nodes.
+	 * @param eigenvalues The array for the eigenvalues in descending order.
+	 * @return {@code true} if the QL algorithm converged.
+	 */
+	private boolean allEigenvalues(int n, double[] eigenvalues) {
+		double[][] w = this.work;
+		double[] d = this.diagonal;
+		double[] e = this.offDiagonal;
+		for (int j = 0; j < n; j++) {
+			d[j] = w[j][n - 1];
+		}
+		for (int i = n - 1; i > 0; i--) {
+			double scale = 0.0;
+			double h = 0.0;
+			for (int k = 0; k < i; k++) {
+				scale = scale + Math.abs(d[k]);
+			}
+			if (scale == 0.0) {
+				e[i] = d[i - 1];
+				for (int j = 0; j < i; j++) {
+					d[j] = w[j][i - 1];
+					w[j][i] = 0.0;
+				}
+			} else {
+				for (int k = 0; k < i; k++) {
+					d[k] = d[k] / scale;
+					h = h + d[k] * d[k];
+				}
+				double f = d[i - 1];
+				double g = Math.sqrt(h);
+				if (f > 0) {
+					g = -g;
+				}
+				e[i] = scale * g;
+				h = h - f * g;
+				d[i - 1] = f - g;
+				Arrays.fill(e, 0, i, 0.0);
+				for (int j = 0; j < i; j++) {
+					double[] column = w[j];
+					f = d[j];
+					g = e[j] + column[j] * f;
+					for (int k = j + 1; k <= i - 1; k++) {
+						g = g + column[k] * d[k];
+						e[k] = e[k] + column[k] * f;
+					}
+					e[j] = g;
+				}
+				f = 0.0;
+				for (int j = 0; j < i; j++) {
+					e[j] = e[j] / h;
+					f = f + e[j] * d[j];
+				}
+				double hh = f / (h + h);
+				for (int j = 0; j < i; j++) {
+					e[j] = e[j] - hh * d[j];
+				}
+				for (int j = 0; j < i; j++) {
+					double[] column = w[j];
+					f = d[j];
+					g = e[j];
+					for (int k = j; k <= i - 1; k++) {
+						column[k] = column[k] - (f * e[k] + g * d[k]);
+					}
+					d[j] = column[i - 1];
+					column[i] = 0.0;
+				}
+			}
+			d[i] = h;
+		}
+		for (int j = 0; j < n; j++) {
+			d[j] = w[j][j]; // diagonal of the tridiagonal matrix
+		}
+		for (int i = 1; i < n; i++) {
+			e[i - 1] = e[i]; // e[i] couples i and i + 1
+		}
+		e[n - 1] = 0.0;
+		if (!ql(d, e, n, null)) {
+			return false;
+		}
+		Arrays.sort(d, 0, n);
+		for (int i = 0; i < n; i++) {
+			eigenvalues[i] = d[n - 1 - i];
+		}
+		return true;
+	}
+
+	/**
+	 * Compute the {@code k} largest eigenvalues of the Laplacian in the work
+	 * matrix with the Lanczos algorithm with full reorthogonalization. The
+	 * Krylov subspace is extended until the residual bounds of the {@code k}
+	 * largest Ritz values are small or the subspace spans the whole space. If
+	 * the subspace becomes invariant before (for example, if an eigenvalue has
+	 * multiplicity greater than one), it is extended with a new start vector.
+	 * The largest residual bound is saved as the error bound.
+	 *
+	 * @param n The number of nodes.
+	 * @param k The number of eigenvalues.
+	 * @param eigenvalues The array for the eigenvalues in descending order.
+	 * @return {@code true} if the QL algorithm converged.
+	 */
+	private boolean largestEigenvalues(int n, int k, double[] eigenvalues) {
+		double norm = 0.0; // Gershgorin bound of the spectral norm
+		for (int i = 0; i < n; i++) {
+			norm = Math.max(norm, 2 * this.work[i][i]);
+		}
+		if (norm == 0.0) { // no edges: all eigenvalues are zero
+			return true;
+		}
+		int steps = 0;
+		int size = Math.min(n, Math.max(2 * k, k + 20));
+		ensureBasis(Math.min(n, size + 1), n);
+		long seed = 1;
+		seed = startVector(this.basis[0], n, 0, seed);
+		double[] d = this.diagonal;
+		double[] e = this.offDiagonal;
+		double[] z = this.lastComponents;
+		while (true) {
+			while (steps < size) {
+				int j = steps;
+				double[] q = this.basis[j];
+				double[] w = this.vector;
+				for (int i = 0; i < n; i++) { // w = L q
+					double[] row = this.work[i];
+					double value = 0.0;
+					for (int l = 0; l < n; l++) {
+						value = value + row[l] * q[l];
+					}
+					w[i] = value;
+				}
+				this.alpha[j] = dot(q, w, n);
+				for (int pass = 0; pass < 2; pass++) { // full reorthogonalization, twice for numerical stability
+					for (int i = 0; i <= j; i++) {
+						double c = dot(this.basis[i], w, n);
+						double[] b = this.basis[i];
+						for (int l = 0; l < n; l++) {
+							w[l] = w[l] - c * b[l];
+						}
+					}
+				}
+				this.beta[j] = Math.sqrt(dot(w, w, n));
+				steps++;
+				if (steps < n) {
+					double[] next = this.basis[steps];
+					if (this.beta[j] > 100 * n * EPSILON * norm) {
+						for (int l = 0; l < n; l++) {
+							next[l] = w[l] / this.beta[j];
+						}
+					} else { // invariant subspace: continue with a new start vector in the orthogonal complement
+						this.beta[j] = 0.0;
+						seed = startVector(next, n, steps, seed);
+					}
+				}
+			}
+
+			// Ritz values and the last components of their eigenvectors in the tridiagonal matrix
+			System.arraycopy(this.alpha, 0, d, 0, steps);
+			System.arraycopy(this.beta, 0, e, 0, steps);
+			e[steps - 1] = 0.0;
+			Arrays.fill(z, 0, steps, 0.0);
+			z[steps - 1] = 1.0;
+			if (!ql(d, e, steps, z)) {
+				return false;
+			}
+			double bound = 0.0;
+			for (int r = 0; r < k; r++) {
+				int index = largestRemaining(d, steps, r);
+				swap(d, r, index);
+				swap(z, r, index);
+				bound = Math.max(bound, Math.abs(this.beta[steps - 1] * z[r]));
+			}
+			if (steps == n || (this.beta[steps - 1] > 0.0 && bound <= LANCZOS_TOLERANCE * norm)) { // extend the subspace if the last step found an invariant subspace
+				for (int r = 0; r < k; r++) {
+					eigenvalues[r] = d[r];
+				}
+				this.errorBound = steps == n ? 0.0 : bound;
+				return true;
+			}
+			size = Math.min(n, size + Math.max(k, 20));
+			ensureBasis(Math.min(n, size + 1), n);
+		}
+	}
+
+	/**
+	 * Grow the Lanczos basis to the given number of vectors if necessary. The
+	 * existing vectors are kept, so the basis can grow while the Krylov
+	 * subspace is extended.
+	 *
+	 * @param rows The number of Lanczos vectors, i.e., the dimension of the
+	 *   Krylov subspace plus one for the next vector.
+	 * @param n The number of nodes.
+	 */
+	private void ensureBasis(int rows, int n) {
+		int length = this.basis.length == 0 ? n : this.basis[0].length;
+		if (length < n) { // vectors of a smaller network: start over
+			this.basis = new double[0][0];
+			length = n;
+		}
+		if (this.basis.length < rows) {
+			int previous = this.basis.length;
+			this.basis = Arrays.copyOf(this.basis, rows);
+			for (int i = previous; i < rows; i++) {
+				this.basis[i] = new double[length];
+			}
+		}
+	}
+
+	/**
+	 * Fill a start vector for the Lanczos algorithm with pseudo-random
+	 * numbers from a fixed seed and orthogonalize it against the previous
+	 * Lanczos vectors, so the results are reproducible.
+	 *
+	 * @param q The vector to fill.
+	 * @param n The number of nodes.
+	 * @param previous The number of previous Lanczos vectors.
+	 * @param seed The state of the random number generator.
+	 * @return The new state of the random number generator.
+	 */
+	private long startVector(double[] q, int n, int previous, long seed) {
+		double norm = 0.0;
+		while (norm == 0.0) {
+			for (int l = 0; l < n; l++) {
+				seed = seed * 6364136223846793005L + 1442695040888963407L; // linear congruential generator (Knuth)
+				q[l] = ((seed >>> 11) * 0x1.0p-53) - 0.5;
+			}
+			for (int pass = 0; pass < 2; pass++) {
+				for (int i = 0; i < previous; i++) {
+					double c = dot(this.basis[i], q, n);
+					double[] b = this.basis[i];
+					for (int l = 0; l < n; l++) {
+						q[l] = q[l] - c * b[l];
+					}
+				}
+			}
+			norm = Math.sqrt(dot(q, q, n));
+		}
+		for (int l = 0; l < n; l++) {
+			q[l] = q[l] / norm;
+		}
+		return seed;
+	}
+
+	/**
+	 * Compute the eigenvalues of a symmetric tridiagonal matrix with the
+	 * implicit QL algorithm (as in the EISPACK routine {@code tql2}).
+	 *
+	 * @param d The diagonal, which is replaced by the unordered eigenvalues.
+	 * @param e The off-diagonal, where {@code e[i]} couples {@code i} and
+	 *   {@code i + 1} and {@code e[n - 1]} is zero. Destroyed.
+	 * @param n The dimension of the matrix.
+	 * @param z The last row of the eigenvector matrix, which starts as the
+	 *   last row of the identity matrix and is rotated along with the
+	 *   eigenvalues, or {@code null} if the eigenvectors are not needed.
+	 * @return {@code true} if every eigenvalue converged.
+	 */
+	private static boolean ql(double[] d, double[] e, int n, double[] z) {
+		double f = 0.0;
+		double tst1 = 0.0;
+		for (int l = 0; l < n; l++) {
+			tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+			int m = l;
+			while (m < n - 1 && Math.abs(e[m]) > EPSILON * tst1) {
+				m++;
+			}
+			if (m > l) {
+				int iterations = 0;
+				do {
+					if (++iterations > MAX_QL_ITERATIONS) {
+						return false;
+					}
+					double g = d[l];
+					double p = (d[l + 1] - g) / (2.0 * e[l]);
+					double r = Math.hypot(p, 1.0);
+					if (p < 0) {
+						r = -r;
+					}
+					d[l] = e[l] / (p + r);
+					d[l + 1] = e[l] * (p + r);
+					double dl1 = d[l + 1];
+					double h = g - d[l];
+					for (int i = l + 2; i < n; i++) {
+						d[i] = d[i] - h;
+					}
+					f = f + h;
+					p = d[m];
+					double c = 1.0;
+					double c2 = c;
+					double c3 = c;
+					double el1 = e[l + 1];
+					double s = 0.0;
+					double s2 = 0.0;
+					for (int i = m - 1; i >= l; i--) {
+						c3 = c2;
+						c2 = c;
+						s2 = s;
+						g = c * e[i];
+						h = c * p;
+						r = Math.hypot(p, e[i]);
+						e[i + 1] = s * r;
+						s = e[i] / r;
+						c = p / r;
+						p = c * d[i] - s * g;
+						d[i + 1] = h + s * (c * g + s * d[i]);
+						if (z != null) {
+							h = z[i + 1];
+							z[i + 1] = s * z[i] + c * h;
+							z[i] = c * z[i] - s * h;
+						}
+					}
+					p = -s * s2 * c3 * el1 * e[l] / dl1;
+					e[l] = s * p;
+					d[l] = c * p;
+				} while (Math.abs(e[l]) > EPSILON * tst1);
+			}
+			d[l] = d[l] + f;
+			e[l] = 0.0;
+		}
+		return true;
+	}
+
+	private static int largestRemaining(double[] values, int n, int from) {
+		int index = from;
+		for (int i = from + 1; i < n; i++) {
+			if (values[i] > values[index]) {
+				index = i;
+			}
+		}
+		return index;
+	}
+
+	private static void swap(double[] values, int i, int j) {
+		double value = values[i];
+		values[i] = values[j];
+		values[j] = value;
+	}
+
+	private static double dot(double[] x, double[] y, int n) {
+		double sum = 0.0;
+		for (int i = 0; i < n; i++) {
+			sum = sum + x[i] * y[i];
+		}
+		return sum;
+	}
+}
@@ -18,6 +18,7 @@ public class Matrix implements Cloneable {
 	private LocalDateTime start;
 	private LocalDateTime stop;
 	private int numStatements;
+	private int unchangedSince = -1;
 	
 	public Matrix(double[][] matrix, String[] rowNames, String[] columnNames, boolean integer, LocalDateTime start, LocalDateTime stop) {
 		this.matrix = matrix;
@@ -61,6 +62,7 @@ public class Matrix implements Cloneable {
 		this.stop = matrix.getStop();
 		this.dateTime = matrix.getDateTime();
 		this.numStatements = matrix.getNumStatements();
+		this.unchangedSince = matrix.getUnchangedSince();
 	}
 
 	protected Object clone() throws CloneNotSupportedException {
@@ -200,6 +202,26 @@ public class Matrix implements Cloneable {
 		this.stop = stop;
 	}
 
+	/**
+	 * Get the index of the earlier matrix in a time window series whose
+	 * network this matrix repeats because no statement entered or left the
+	 * window in between. Such a matrix shares the array and labels of the
+	 * earlier matrix and only has its own dates and number of statements.
+	 *
+	 * @return The index of the earlier matrix in the series, or {@code -1} if
+	 *   the network was computed for this matrix.
+	 */
+	public int getUnchangedSince() {
+		return unchangedSince;
+	}
+
+	/**
+	 * @param unchangedSince the index of the earlier matrix with the same network, or -1
+	 */
+	public void setUnchangedSince(int unchangedSince) {
+		this.unchangedSince = unchangedSince;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
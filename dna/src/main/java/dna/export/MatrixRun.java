@@ -0,0 +1,150 @@
+package dna.export;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * A run of consecutive time window matrices that repeat the network of an
+ * earlier matrix of the series because no statement entered or left the time
+ * window. Instead of one {@link Matrix} per time step, the run holds a
+ * reference to the repeated matrix and the number of steps, and a sink can
+ * step through the date-time stamps of the run with a cursor (see
+ * {@link #next()}), for example to write only an index entry per step.
+ *
+ * Steps {@code getFirstIndex()} to {@code getFirstIndex() + getLength() - 1}
+ * of the series repeat matrix {@code getReferenceIndex()}.
+ */
+public final class MatrixRun {
+	private final Matrix reference;
+	private final int referenceIndex, firstIndex, length, numStatements;
+	private final LocalDateTime firstTime;
+	private final ChronoUnit unit;
+	private final int addition;
+	private int step = -1;
+	private LocalDateTime dateTime = null;
+
+	/**
+	 * Create a new run.
+	 *
+	 * @param reference The repeated matrix.
+	 * @param referenceIndex The index of the repeated matrix in the series.
+	 * @param firstIndex The index of the first step of the run in the series.
+	 * @param length The number of steps.
+	 * @param firstTime The mid-point of the time window of the first step.
+	 * @param unit The time unit by which the time window moves per step.
+	 * @param addition The number of time units between the mid-point and the
+	 *   start or stop of the time window.
+	 * @param numStatements The number of statements in each time window.
+	 */
+	MatrixRun(Matrix reference, int referenceIndex, int firstIndex, int length, LocalDateTime firstTime, ChronoUnit unit, int addition, int numStatements) {
+		this.reference = reference;
+		this.referenceIndex = referenceIndex;
+		this.firstIndex = firstIndex;
+		this.length = length;
+		this.firstTime = firstTime;
+		this.unit = unit;
+		this.addition = addition;
+		this.numStatements = numStatements;
+	}
+
+	/**
+	 * @return The repeated matrix. Its data are shared and must not be changed.
+	 */
+	public Matrix getReference() {
+		return this.reference;
+	}
+
+	/**
+	 * @return The index of the repeated matrix in the series.
+	 */
+	public int getReferenceIndex() {
+		return this.referenceIndex;
+	}
+
+	/**
+	 * @return The index of the first step of the run in the series.
+	 */
+	public int getFirstIndex() {
+		return this.firstIndex;
+	}
+
+	/**
+	 * @return The number of steps in the run.
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * @return The number of statements in each time window of the run.
+	 */
+	public int getNumStatements() {
+		return this.numStatements;
+	}
+
+	/**
+	 * Move the cursor back before the first step.
+	 */
+	public void reset() {
+		this.step = -1;
+		this.dateTime = null;
+	}
+
+	/**
+	 * Move the cursor to the next step. The time window moves by one time unit
+	 * per step, as in the rest of the series.
+	 *
+	 * @return {@code true} if there is a next step, {@code false} if the cursor
+	 *   is at the last step.
+	 */
+	public boolean next() {
+		if (this.step + 1 >= this.length) {
+			return false;
+		}
+		this.step++;
+		this.dateTime = this.step == 0 ? this.firstTime : this.dateTime.plus(1, this.unit);
+		return true;
+	}
+
+	/**
+	 * @return The index of the current step in the series.
+	 */
+	public int getIndex() {
+		return this.firstIndex + this.step;
+	}
+
+	/**
+	 * @return The mid-point of the time window of the current step.
+	 */
+	public LocalDateTime getDateTime() {
+		return this.dateTime;
+	}
+
+	/**
+	 * @return The start of the time window of the current step.
+	 */
+	public LocalDateTime getStart() {
+		return this.dateTime.minus(this.addition, this.unit);
+	}
+
+	/**
+	 * @return The end of the time window of the current step.
+	 */
+	public LocalDateTime getStop() {
+		return this.dateTime.plus(this.addition, this.unit);
+	}
+
+	/**
+	 * Create a matrix for the current step, which shares the data of the
+	 * repeated matrix (see {@link Matrix#getUnchangedSince()}).
+	 *
+	 * @return The matrix.
+	 */
+	public Matrix toMatrix() {
+		Matrix m = new Matrix(this.reference.getMatrix(), this.reference.getRowNames(), this.reference.getColumnNames(), this.reference.getInteger(), getStart(), getStop());
+		m.setDateTime(this.dateTime);
+		m.setNumStatements(this.numStatements);
+		m.setUnchangedSince(this.referenceIndex);
+		return m;
+	}
+}
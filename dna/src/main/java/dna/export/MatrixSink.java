@@ -0,0 +1,54 @@
+package dna.export;
+
+/**
+ * Receives the network matrices computed by the {@link Exporter} one at a
+ * time, in chronological order, as soon as each of them is finished. A sink
+ * can keep the matrices in memory (see {@link MemoryMatrixSink}) or write each
+ * matrix to a file and release it right away (see
+ * {@link Exporter#createFileSink()}), which permits long time window and
+ * kernel-smoothed series that would not fit into memory as a whole.
+ *
+ * The exporter calls {@link #open(int)} once before the first matrix,
+ * {@link #accept(Matrix)} once per matrix or {@link #acceptRun(MatrixRun)}
+ * once per run of repeated matrices, and {@link #close()} once after the last
+ * matrix.
+ */
+public interface MatrixSink {
+
+	/**
+	 * Prepare the sink for a series of matrices.
+	 *
+	 * @param numMatrices The number of matrices that will be passed to the
+	 *   sink.
+	 */
+	void open(int numMatrices);
+
+	/**
+	 * Take the next matrix of the series. A matrix that repeats an earlier
+	 * matrix of the series (see {@link Matrix#getUnchangedSince()}) shares
+	 * the data of that matrix and is passed to the sink like any other matrix.
+	 *
+	 * @param matrix The matrix.
+	 */
+	void accept(Matrix matrix);
+
+	/**
+	 * Take the next steps of the series, which repeat an earlier matrix of the
+	 * series. The default implementation passes one matrix per step to
+	 * {@link #accept(Matrix)}; sinks that can refer to the repeated matrix,
+	 * for example by index, should step through the run without creating
+	 * matrices.
+	 *
+	 * @param run The run, with its cursor before the first step.
+	 */
+	default void acceptRun(MatrixRun run) {
+		while (run.next()) {
+			accept(run.toMatrix());
+		}
+	}
+
+	/**
+	 * Finish the series, for example by flushing and closing files.
+	 */
+	void close();
+}
@@ -0,0 +1,36 @@
+package dna.export;
+
+import java.util.ArrayList;
+
+/**
+ * A {@link MatrixSink} that keeps all matrices in memory, in the order in
+ * which they were computed. This is the default sink of the {@link Exporter}
+ * and is used when the results are needed as a whole, for example by rDNA,
+ * the distance matrix computation, or polarization.
+ */
+public class MemoryMatrixSink implements MatrixSink {
+	private ArrayList<Matrix> matrices = new ArrayList<Matrix>();
+
+	@Override
+	public void open(int numMatrices) {
+		this.matrices = new ArrayList<Matrix>(numMatrices);
+	}
+
+	@Override
+	public void accept(Matrix matrix) {
+		this.matrices.add(matrix);
+	}
+
+	@Override
+	public void close() {
+	}
+
+	/**
+	 * Get the matrices that were passed to the sink.
+	 *
+	 * @return An array list of {@link Matrix} objects.
+	 */
+	public ArrayList<Matrix> getMatrices() {
+		return this.matrices;
+	}
+}
@@ -0,0 +1,404 @@
+package dna.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Read access to a binary network container file as written by the
+ * {@link Exporter} with the {@code "dnanet"} file format (see
+ * {@link NetworkContainerWriter} for the layout). The header and the slice
+ * index are read when the container is opened, the label dictionaries when
+ * they are first needed, and each slice is memory-mapped only when it is
+ * accessed, so series that are much larger than the available memory can be
+ * opened and read slice by slice.
+ *
+ * The accessors return primitive arrays to keep the number of calls small
+ * for consumers like rDNA: the date-time stamps of all slices in seconds since
+ * 1 January 1970 UTC, the labels of a slice, and the values of a slice either
+ * as a dense row-major array or as the row indices, column indices, and values
+ * of the non-zero cells.
+ */
+public class NetworkContainer implements AutoCloseable {
+	static final byte[] MAGIC = new byte[] { 'D', 'N', 'A', 'N', 'E', 'T', 0, 0 };
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 64;
+
+	private final FileChannel channel;
+	private final boolean oneMode;
+	private final int numSlices;
+	private final long rowDictionaryOffset, columnDictionaryOffset;
+	private final long[] blockOffset, start, dateTime, stop;
+	private final int[] numRows, numColumns, nonZeros, numStatements, unchangedSince;
+	private final byte[] encoding, integer;
+	private String[] rowDictionary, columnDictionary;
+
+	// the most recently mapped slice block
+	private int mappedSlice = -1;
+	private MappedByteBuffer mappedBlock;
+
+	/**
+	 * Open a network container file and read its header and slice index.
+	 *
+	 * @param filename The name of the container file.
+	 * @throws IOException If the file cannot be read or is not a network
+	 *   container.
+	 */
+	public NetworkContainer(String filename) throws IOException {
+		this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+		try {
+			ByteBuffer header = read(0, HEADER_SIZE);
+			byte[] magic = new byte[MAGIC.length];
+			header.get(magic);
+			if (!Arrays.equals(magic, MAGIC)) {
+				throw new IOException("\"" + filename + "\" is not a network container file.");
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException("Network container file \"" + filename + "\" has version " + version + ", but only version " + VERSION + " is supported.");
+			}
+			this.oneMode = (header.getInt() & 1) == 1;
+			this.numSlices = header.getInt();
+			header.getInt(); // reserved
+			this.rowDictionaryOffset = header.getLong();
+			this.columnDictionaryOffset = header.getLong();
+			long indexOffset = header.getLong();
+
+			int n = this.numSlices;
+			ByteBuffer index = read(indexOffset, n * (4L * 8 + 5 * 4 + 2));
+			this.blockOffset = new long[n];
+			this.start = new long[n];
+			this.dateTime = new long[n];
+			this.stop = new long[n];
+			for (long[] field : new long[][] { this.blockOffset, this.start, this.dateTime, this.stop }) {
+				index.asLongBuffer().get(field);
+				index.position(index.position() + 8 * n);
+			}
+			this.numRows = new int[n];
+			this.numColumns = new int[n];
+			this.nonZeros = new int[n];
+			this.numStatements = new int[n];
+			this.unchangedSince = new int[n];
+			for (int[] field : new int[][] { this.numRows, this.numColumns, this.nonZeros, this.numStatements, this.unchangedSince }) {
+				index.asIntBuffer().get(field);
+				index.position(index.position() + 4 * n);
+			}
+			this.encoding = new byte[n];
+			this.integer = new byte[n];
+			index.get(this.encoding);
+			index.get(this.integer);
+		} catch (IOException | RuntimeException e) {
+			this.channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Map a region of the file into memory.
+	 *
+	 * @param offset The position of the region in the file.
+	 * @param size The size of the region in bytes.
+	 * @return A little-endian read-only buffer of the region.
+	 * @throws IOException If the region cannot be mapped.
+	 */
+	private MappedByteBuffer read(long offset, long size) throws IOException {
+		MappedByteBuffer buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		return buffer;
+	}
+
+	private String[] readDictionary(long offset) throws IOException {
+		ByteBuffer countBuffer = read(offset, 4);
+		int n = countBuffer.getInt();
+		ByteBuffer offsetBuffer = read(offset + 4, 4L * (n + 1));
+		int[] offsets = new int[n + 1];
+		offsetBuffer.asIntBuffer().get(offsets);
+		ByteBuffer characters = read(offset + 4 + 4L * (n + 1), offsets[n]);
+		byte[] bytes = new byte[offsets[n]];
+		characters.get(bytes);
+		String[] labels = new String[n];
+		for (int i = 0; i < n; i++) {
+			labels[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+		}
+		return labels;
+	}
+
+	/**
+	 * Map the block of a slice into memory, unless it is already mapped.
+	 *
+	 * @param slice The slice index.
+	 * @return A buffer positioned at the start of the block.
+	 * @throws IOException If the block cannot be mapped.
+	 */
+	private synchronized ByteBuffer block(int slice) throws IOException {
+		if (slice != this.mappedSlice) {
+			long size = 8L * (words(this.numRows[slice]) + words(this.numColumns[slice]));
+			if (this.encoding[slice] == 1) {
+				size = size + 8L * (2 * words(this.nonZeros[slice]) + this.nonZeros[slice]);
+			} else {
+				size = size + 8L * this.numRows[slice] * this.numColumns[slice];
+			}
+			this.mappedBlock = read(this.blockOffset[slice], size);
+			this.mappedSlice = slice;
+		}
+		ByteBuffer buffer = this.mappedBlock.duplicate();
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		return buffer;
+	}
+
+	/**
+	 * Number of eight-byte words occupied by an integer array after padding.
+	 */
+	private static long words(int length) {
+		return (length + 1) / 2;
+	}
+
+	public int getNumSlices() {
+		return this.numSlices;
+	}
+
+	public boolean isOneMode() {
+		return this.oneMode;
+	}
+
+	/**
+	 * Get the start date-time stamps of all slices.
+	 *
+	 * @return The start of each slice in seconds since 1 January 1970 UTC.
+	 */
+	public long[] getStartSeconds() {
+		return this.start.clone();
+	}
+
+	/**
+	 * Get the mid-point date-time stamps of all slices.
+	 *
+	 * @return The mid-point of each slice in seconds since 1 January 1970 UTC.
+	 */
+	public long[] getDateTimeSeconds() {
+		return this.dateTime.clone();
+	}
+
+	/**
+	 * Get the stop date-time stamps of all slices.
+	 *
+	 * @return The stop of each slice in seconds since 1 January 1970 UTC.
+	 */
+	public long[] getStopSeconds() {
+		return this.stop.clone();
+	}
+
+	/**
+	 * Get the number of statements of all slices.
+	 *
+	 * @return The number of statements in each slice.
+	 */
+	public int[] getNumStatements() {
+		return this.numStatements.clone();
+	}
+
+	/**
+	 * Get the index of the earlier slice that each slice repeats.
+	 *
+	 * @return For each slice, the index of the slice it repeats, or -1.
+	 */
+	public int[] getUnchangedSince() {
+		return this.unchangedSince.clone();
+	}
+
+	public int getNumRows(int slice) {
+		return this.numRows[slice];
+	}
+
+	public int getNumColumns(int slice) {
+		return this.numColumns[slice];
+	}
+
+	public int getNumNonZeros(int slice) {
+		return this.nonZeros[slice];
+	}
+
+	public boolean isInteger(int slice) {
+		return this.integer[slice] == 1;
+	}
+
+	/**
+	 * Get the row labels of a slice.
+	 *
+	 * @param slice The slice index.
+	 * @return The row labels.
+	 * @throws IOException If the container cannot be read.
+	 */
+	public String[] getRowNames(int slice) throws IOException {
+		synchronized (this) {
+			if (this.rowDictionary == null) {
+				this.rowDictionary = readDictionary(this.rowDictionaryOffset);
+			}
+		}
+		ByteBuffer buffer = block(slice);
+		String[] names = new String[this.numRows[slice]];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = this.rowDictionary[buffer.getInt()];
+		}
+		return names;
+	}
+
+	/**
+	 * Get the column labels of a slice.
+	 *
+	 * @param slice The slice index.
+	 * @return The column labels.
+	 * @throws IOException If the container cannot be read.
+	 */
+	public String[] getColumnNames(int slice) throws IOException {
+		synchronized (this) {
+			if (this.columnDictionary == null) {
+				this.columnDictionary = readDictionary(this.columnDictionaryOffset);
+			}
+		}
+		ByteBuffer buffer = block(slice);
+		buffer.position((int) (8 * words(this.numRows[slice])));
+		String[] names = new String[this.numColumns[slice]];
+		for (int j = 0; j < names.length; j++) {
+			names[j] = this.columnDictionary[buffer.getInt()];
+		}
+		return names;
+	}
+
+	/**
+	 * Get the values of a slice as a dense array in row-major order.
+	 *
+	 * @param slice The slice index.
+	 * @return The {@code numRows * numColumns} values of the slice.
+	 * @throws IOException If the container cannot be read.
+	 */
+	public double[] getValues(int slice) throws IOException {
+		ByteBuffer buffer = block(slice);
+		int c = this.numColumns[slice];
+		double[] values = new double[this.numRows[slice] * c];
+		int dataStart = (int) (8 * (words(this.numRows[slice]) + words(c)));
+		if (this.encoding[slice] == 1) {
+			int nz = this.nonZeros[slice];
+			int columnStart = dataStart + (int) (8 * words(nz));
+			int valueStart = columnStart + (int) (8 * words(nz));
+			for (int e = 0; e < nz; e++) {
+				values[buffer.getInt(dataStart + 4 * e) * c + buffer.getInt(columnStart + 4 * e)] = buffer.getDouble(valueStart + 8 * e);
+			}
+		} else {
+			buffer.position(dataStart);
+			buffer.asDoubleBuffer().get(values);
+		}
+		return values;
+	}
+
+	/**
+	 * Get the row indices of the non-zero cells of a slice in row-major order.
+	 *
+	 * @param slice The slice index.
+	 * @return The zero-based row index of each non-zero cell.
+	 * @throws IOException If the container cannot be read.
+	 */
+	public int[] getNonZeroRows(int slice) throws IOException {
+		return nonZeroIndices(slice, true);
+	}
+
+	/**
+	 * Get the column indices of the non-zero cells of a slice in row-major
+	 * order.
+	 *
+	 * @param slice The slice index.
+	 * @return The zero-based column index of each non-zero cell.
+	 * @throws IOException If the container cannot be read.
+	 */
+	public int[] getNonZeroColumns(int slice) throws IOException {
+		return nonZeroIndices(slice, false);
+	}
+
+	/**
+	 * Get the values of the non-zero cells of a slice in row-major order.
+	 *
+	 * @param slice The slice index.
+	 * @return The value of each non-zero cell.
+	 * @throws IOException If the container cannot be read.
+	 */
+	public double[] getNonZeroValues(int slice) throws IOException {
+		int nz = this.nonZeros[slice];
+		double[] values = new double[nz];
+		if (this.encoding[slice] == 1) {
+			ByteBuffer buffer = block(slice);
+			buffer.position((int) (8 * (words(this.numRows[slice]) + words(this.numColumns[slice]) + 2 * words(nz))));
+			buffer.asDoubleBuffer().get(values);
+		} else {
+			double[] dense = getValues(slice);
+			int e = 0;
+			for (int k = 0; k < dense.length; k++) {
+				if (dense[k] != 0.0) {
+					values[e++] = dense[k];
+				}
+			}
+		}
+		return values;
+	}
+
+	private int[] nonZeroIndices(int slice, boolean rows) throws IOException {
+		int nz = this.nonZeros[slice];
+		int[] indices = new int[nz];
+		if (this.encoding[slice] == 1) {
+			ByteBuffer buffer = block(slice);
+			long dataStart = words(this.numRows[slice]) + words(this.numColumns[slice]);
+			buffer.position((int) (8 * (rows ? dataStart : dataStart + words(nz))));
+			buffer.asIntBuffer().get(indices);
+		} else {
+			double[] dense = getValues(slice);
+			int c = this.numColumns[slice];
+			int e = 0;
+			for (int k = 0; k < dense.length; k++) {
+				if (dense[k] != 0.0) {
+					indices[e++] = rows ? k / c : k % c;
+				}
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * Read a slice as a {@link Matrix} object.
+	 *
+	 * @param slice The slice index.
+	 * @return The network matrix of the slice with its labels and date-time
+	 *   stamps.
+	 * @throws IOException If the container cannot be read.
+	 */
+	public Matrix getMatrix(int slice) throws IOException {
+		int r = this.numRows[slice];
+		int c = this.numColumns[slice];
+		double[] values = getValues(slice);
+		double[][] mat = new double[r][c];
+		for (int i = 0; i < r; i++) {
+			System.arraycopy(values, i * c, mat[i], 0, c);
+		}
+		Matrix matrix = new Matrix(getRowNames(slice), getColumnNames(slice), isInteger(slice), dateTime(this.start[slice]), dateTime(this.dateTime[slice]), dateTime(this.stop[slice]));
+		matrix.setMatrix(mat);
+		matrix.setNumStatements(this.numStatements[slice]);
+		matrix.setUnchangedSince(this.unchangedSince[slice]);
+		return matrix;
+	}
+
+	private static LocalDateTime dateTime(long seconds) {
+		return seconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.mappedBlock = null;
+		this.channel.close();
+	}
+}
@@ -0,0 +1,430 @@
+package dna.export;
+
+import dna.Dna;
+import logger.LogEvent;
+import logger.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A {@link MatrixSink} that writes a series of networks to a binary network
+ * container file, which can be memory-mapped and read slice by slice using
+ * {@link NetworkContainer}. All numbers are stored in little-endian byte
+ * order. The file consists of:
+ *
+ * <ol>
+ *   <li>A header of {@value NetworkContainer#HEADER_SIZE} bytes: the magic
+ *     bytes {@code "DNANET"} followed by two zero bytes, the format version,
+ *     flags (bit 0: one-mode network), the number of slices, a reserved
+ *     integer, and the offsets of the row label dictionary, the column label
+ *     dictionary, and the slice index.</li>
+ *   <li>One block per slice, starting at a multiple of eight bytes: the
+ *     dictionary indices of the row labels and of the column labels, padded
+ *     to a multiple of eight bytes, followed by either the dense matrix in
+ *     row-major order or, if fewer than half of the cells are non-zero, the
+ *     row indices, column indices (each padded), and values of the non-zero
+ *     cells in row-major order. A slice that repeats an earlier slice (see
+ *     {@link Matrix#getUnchangedSince()}) shares the block of that
+ *     slice.</li>
+ *   <li>The row and column label dictionaries: the number of labels, the
+ *     offsets of the labels in the UTF-8 character data (one more than the
+ *     number of labels), and the character data.</li>
+ *   <li>The slice index, as one array per field with one element per slice:
+ *     block offsets, start, mid-point, and stop date-time stamps (in seconds
+ *     since 1 January 1970 UTC), number of rows, number of columns, number of
+ *     non-zero cells, number of statements, index of the repeated slice (or
+ *     -1), encoding (0 for dense, 1 for sparse), and the integer flag.</li>
+ * </ol>
+ */
+class NetworkContainerWriter implements MatrixSink {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final String filename;
+	private final boolean oneMode;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private FileChannel channel;
+	private long position;
+	private boolean failed;
+
+	// label dictionaries; the dictionary indices of the last label arrays are cached because consecutive slices usually share them
+	private final LabelDictionary rowDictionary = new LabelDictionary();
+	private final LabelDictionary columnDictionary = new LabelDictionary();
+
+	// slice index
+	private int numSlices;
+	private long[] blockOffset, start, dateTime, stop;
+	private int[] numRows, numColumns, nonZeros, numStatements, unchangedSince;
+	private byte[] encoding, integer;
+
+	/**
+	 * Create a new network container writer.
+	 *
+	 * @param filename The name of the container file.
+	 * @param oneMode Are the networks one-mode networks?
+	 */
+	NetworkContainerWriter(String filename, boolean oneMode) {
+		this.filename = filename;
+		this.oneMode = oneMode;
+	}
+
+	@Override
+	public void open(int numMatrices) {
+		this.numSlices = 0;
+		this.failed = false;
+		this.rowDictionary.clear();
+		this.columnDictionary.clear();
+		allocateIndex(Math.max(numMatrices, 1));
+		this.buffer.clear();
+		try {
+			this.channel = FileChannel.open(Paths.get(this.filename), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+			this.position = 0;
+			for (int i = 0; i < NetworkContainer.HEADER_SIZE; i++) { // placeholder; the header is written when the container is closed
+				putByte((byte) 0);
+			}
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	@Override
+	public void accept(Matrix matrix) {
+		if (this.numSlices == this.blockOffset.length) {
+			allocateIndex(2 * this.numSlices);
+		}
+		int s = this.numSlices;
+		this.numSlices++;
+		double[][] mat = matrix.getMatrix();
+		this.start[s] = epochSeconds(matrix.getStart());
+		this.dateTime[s] = epochSeconds(matrix.getDateTime());
+		this.stop[s] = epochSeconds(matrix.getStop());
+		this.numRows[s] = matrix.getRowNames().length;
+		this.numColumns[s] = matrix.getColumnNames().length;
+		this.numStatements[s] = matrix.getNumStatements();
+		this.unchangedSince[s] = matrix.getUnchangedSince();
+		this.integer[s] = (byte) (matrix.getInteger() ? 1 : 0);
+		if (this.failed) {
+			return;
+		}
+		if (matrix.getUnchangedSince() > -1 && matrix.getUnchangedSince() < s) { // share the block of the repeated slice
+			int u = matrix.getUnchangedSince();
+			this.blockOffset[s] = this.blockOffset[u];
+			this.nonZeros[s] = this.nonZeros[u];
+			this.encoding[s] = this.encoding[u];
+			return;
+		}
+
+		int r = this.numRows[s];
+		int c = this.numColumns[s];
+		int nz = 0;
+		for (int i = 0; i < r; i++) {
+			for (int j = 0; j < c; j++) {
+				if (mat[i][j] != 0.0) {
+					nz++;
+				}
+			}
+		}
+		this.nonZeros[s] = nz;
+		boolean sparse = 2L * nz < (long) r * c;
+		this.encoding[s] = (byte) (sparse ? 1 : 0);
+		try {
+			pad();
+			this.blockOffset[s] = this.position;
+			int[] rowIds = this.rowDictionary.indices(matrix.getRowNames());
+			for (int i = 0; i < r; i++) {
+				putInt(rowIds[i]);
+			}
+			pad();
+			int[] columnIds = this.columnDictionary.indices(matrix.getColumnNames());
+			for (int j = 0; j < c; j++) {
+				putInt(columnIds[j]);
+			}
+			pad();
+			if (sparse) {
+				for (int i = 0; i < r; i++) {
+					for (int j = 0; j < c; j++) {
+						if (mat[i][j] != 0.0) {
+							putInt(i);
+						}
+					}
+				}
+				pad();
+				for (int i = 0; i < r; i++) {
+					for (int j = 0; j < c; j++) {
+						if (mat[i][j] != 0.0) {
+							putInt(j);
+						}
+					}
+				}
+				pad();
+				for (int i = 0; i < r; i++) {
+					for (int j = 0; j < c; j++) {
+						if (mat[i][j] != 0.0) {
+							putDouble(mat[i][j]);
+						}
+					}
+				}
+			} else {
+				for (int i = 0; i < r; i++) {
+					for (int j = 0; j < c; j++) {
+						putDouble(mat[i][j]);
+					}
+				}
+			}
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	@Override
+	public void acceptRun(MatrixRun run) {
+		int u = run.getReferenceIndex();
+		while (run.next()) { // each step only adds an index entry that shares the block of the repeated slice
+			if (this.numSlices == this.blockOffset.length) {
+				allocateIndex(2 * this.numSlices);
+			}
+			int s = this.numSlices;
+			this.numSlices++;
+			this.start[s] = epochSeconds(run.getStart());
+			this.dateTime[s] = epochSeconds(run.getDateTime());
+			this.stop[s] = epochSeconds(run.getStop());
+			this.numRows[s] = this.numRows[u];
+			this.numColumns[s] = this.numColumns[u];
+			this.numStatements[s] = run.getNumStatements();
+			this.unchangedSince[s] = u;
+			this.integer[s] = this.integer[u];
+			this.blockOffset[s] = this.blockOffset[u];
+			this.nonZeros[s] = this.nonZeros[u];
+			this.encoding[s] = this.encoding[u];
+		}
+	}
+
+	@Override
+	public void close() {
+		if (this.channel == null) {
+			return;
+		}
+		try {
+			if (!this.failed) {
+				// dictionaries
+				pad();
+				long rowDictionaryOffset = this.position;
+				writeDictionary(this.rowDictionary);
+				pad();
+				long columnDictionaryOffset = this.position;
+				writeDictionary(this.columnDictionary);
+
+				// slice index, one array per field
+				pad();
+				long indexOffset = this.position;
+				int n = this.numSlices;
+				for (long[] field : new long[][] { this.blockOffset, this.start, this.dateTime, this.stop }) {
+					for (int s = 0; s < n; s++) {
+						putLong(field[s]);
+					}
+				}
+				for (int[] field : new int[][] { this.numRows, this.numColumns, this.nonZeros, this.numStatements, this.unchangedSince }) {
+					for (int s = 0; s < n; s++) {
+						putInt(field[s]);
+					}
+				}
+				for (byte[] field : new byte[][] { this.encoding, this.integer }) {
+					for (int s = 0; s < n; s++) {
+						putByte(field[s]);
+					}
+				}
+				flush();
+
+				// header
+				ByteBuffer header = ByteBuffer.allocate(NetworkContainer.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+				header.put(NetworkContainer.MAGIC);
+				header.putInt(NetworkContainer.VERSION);
+				header.putInt(this.oneMode ? 1 : 0);
+				header.putInt(n);
+				header.putInt(0);
+				header.putLong(rowDictionaryOffset);
+				header.putLong(columnDictionaryOffset);
+				header.putLong(indexOffset);
+				header.rewind(); // the remaining bytes of the header are reserved
+				long headerPosition = 0;
+				while (header.hasRemaining()) {
+					headerPosition = headerPosition + this.channel.write(header, headerPosition);
+				}
+			}
+			this.channel.close();
+		} catch (IOException e) {
+			fail(e);
+		}
+		this.channel = null;
+	}
+
+	private void writeDictionary(LabelDictionary dictionary) throws IOException {
+		int n = dictionary.labels.size();
+		byte[][] encoded = new byte[n][];
+		putInt(n);
+		int offset = 0;
+		putInt(offset);
+		for (int i = 0; i < n; i++) {
+			encoded[i] = dictionary.labels.get(i).getBytes(StandardCharsets.UTF_8);
+			offset = offset + encoded[i].length;
+			putInt(offset);
+		}
+		for (int i = 0; i < n; i++) {
+			put(encoded[i]);
+		}
+	}
+
+	private void allocateIndex(int capacity) {
+		if (this.blockOffset == null) {
+			this.blockOffset = new long[0];
+			this.start = new long[0];
+			this.dateTime = new long[0];
+			this.stop = new long[0];
+			this.numRows = new int[0];
+			this.numColumns = new int[0];
+			this.nonZeros = new int[0];
+			this.numStatements = new int[0];
+			this.unchangedSince = new int[0];
+			this.encoding = new byte[0];
+			this.integer = new byte[0];
+		}
+		this.blockOffset = Arrays.copyOf(this.blockOffset, capacity);
+		this.start = Arrays.copyOf(this.start, capacity);
+		this.dateTime = Arrays.copyOf(this.dateTime, capacity);
+		this.stop = Arrays.copyOf(this.stop, capacity);
+		this.numRows = Arrays.copyOf(this.numRows, capacity);
+		this.numColumns = Arrays.copyOf(this.numColumns, capacity);
+		this.nonZeros = Arrays.copyOf(this.nonZeros, capacity);
+		this.numStatements = Arrays.copyOf(this.numStatements, capacity);
+		this.unchangedSince = Arrays.copyOf(this.unchangedSince, capacity);
+		this.encoding = Arrays.copyOf(this.encoding, capacity);
+		this.integer = Arrays.copyOf(this.integer, capacity);
+	}
+
+	private static long epochSeconds(LocalDateTime time) {
+		return time == null ? Long.MIN_VALUE : time.toEpochSecond(ZoneOffset.UTC);
+	}
+
+	private void flush() throws IOException {
+		this.buffer.flip();
+		while (this.buffer.hasRemaining()) {
+			this.channel.write(this.buffer);
+		}
+		this.buffer.clear();
+	}
+
+	private void ensure(int bytes) throws IOException {
+		if (this.buffer.remaining() < bytes) {
+			flush();
+		}
+	}
+
+	private void putByte(byte b) throws IOException {
+		ensure(1);
+		this.buffer.put(b);
+		this.position++;
+	}
+
+	private void putInt(int i) throws IOException {
+		ensure(4);
+		this.buffer.putInt(i);
+		this.position = this.position + 4;
+	}
+
+	private void putLong(long l) throws IOException {
+		ensure(8);
+		this.buffer.putLong(l);
+		this.position = this.position + 8;
+	}
+
+	private void putDouble(double d) throws IOException {
+		ensure(8);
+		this.buffer.putDouble(d);
+		this.position = this.position + 8;
+	}
+
+	private void put(byte[] bytes) throws IOException {
+		for (int i = 0; i < bytes.length; i++) {
+			putByte(bytes[i]);
+		}
+	}
+
+	/**
+	 * Pad the output with zero bytes to the next multiple of eight bytes.
+	 *
+	 * @throws IOException If the buffer cannot be flushed to the file.
+	 */
+	private void pad() throws IOException {
+		while (this.position % 8 != 0) {
+			putByte((byte) 0);
+		}
+	}
+
+	/**
+	 * Log an error and skip the remaining output.
+	 *
+	 * @param e The exception.
+	 */
+	private void fail(IOException e) {
+		this.failed = true;
+		LogEvent l = new LogEvent(Logger.ERROR,
+				"Error while saving network container file.",
+				"Tried to save networks to network container file \"" + this.filename + "\", but an error occurred. See stack trace.",
+				e);
+		Dna.logger.log(l);
+	}
+
+	/**
+	 * A dictionary of labels, assigning consecutive indices in the order in
+	 * which the labels are first seen.
+	 */
+	private static class LabelDictionary {
+		private final ArrayList<String> labels = new ArrayList<String>();
+		private final HashMap<String, Integer> map = new HashMap<String, Integer>();
+		private String[] lastNames;
+		private int[] lastIndices;
+
+		void clear() {
+			this.labels.clear();
+			this.map.clear();
+			this.lastNames = null;
+			this.lastIndices = null;
+		}
+
+		/**
+		 * Get the dictionary indices of an array of labels, adding new labels
+		 * to the dictionary.
+		 *
+		 * @param names The labels.
+		 * @return The dictionary indices of the labels.
+		 */
+		int[] indices(String[] names) {
+			if (names == this.lastNames) {
+				return this.lastIndices;
+			}
+			int[] indices = new int[names.length];
+			for (int i = 0; i < names.length; i++) {
+				Integer index = this.map.get(names[i]);
+				if (index == null) {
+					index = this.labels.size();
+					this.labels.add(names[i]);
+					this.map.put(names[i], index);
+				}
+				indices[i] = index;
+			}
+			this.lastNames = names;
+			this.lastIndices = indices;
+			return indices;
+		}
+	}
+}
@@ -38,23 +38,26 @@
  *   <li>elitePercentage: The percentage of elite solutions to retain.</li>
  *   <li>mutationPercentage: The percentage of mutations to apply.</li>
  *   <li>randomSeed: The random seed for reproducibility. If 0, random results are produced.</li>
+ *   <li>warmStart: Whether the search in each time slice starts from the result of the previous time slice.</li>
  * </ul>
  * 
  * <p>Methods:</p>
  * <ul>
  *   <li>{@link #getResults()}: Returns the results of the polarization analysis.</li>
  *   <li>{@link #qualityAbsdiff(int[], double[][], double[][], boolean, int)}: Calculates the quality of polarization based on absolute differences.</li>
- *   <li>{@link #calculateRanks(double...)}: Ranks the values of a double array in descending order.</li>
- *   <li>{@link MembershipPair}: Represents pairs of indices for membership bits in the genetic algorithm.</li>
- *   <li>{@link ClusterSolution}: Represents a cluster solution in the genetic algorithm.</li>
- *   <li>{@link GeneticIteration}: Represents a single iteration of the genetic algorithm.</li>
+ *   <li>{@link ClusterSolution}: Represents a cluster solution with random memberships.</li>
+ *   <li>{@link GeneticPopulation}: Represents the population of the genetic algorithm and performs its iterations.</li>
  *   <li>{@link #geneticAlgorithm()}: Runs the genetic algorithm over all time steps.</li>
- *   <li>{@link #geneticTimeStep(int, long)}: Runs the genetic algorithm for a single time step.</li>
+ *   <li>{@link #timeStepSeeds()}: Draws the random seeds of the time steps.</li>
+ *   <li>{@link #runTimeSteps(String, BiFunction)}: Runs an algorithm over all time steps, with or without warm starts.</li>
+ *   <li>{@link #warmStartMemberships(PolarizationResult, String[])}: Maps the memberships of the previous time step to the actors of a time step.</li>
+ *   <li>{@link #geneticTimeStep(int, long, int[])}: Runs the genetic algorithm for a single time step.</li>
  *   <li>{@link #calculateMatrixNorm(double[][])}: Calculates the entrywise 1-norm of a matrix.</li>
  *   <li>{@link #computeKernelSmoothedTimeSlices()}: Computes a series of network matrices using kernel smoothing.</li>
  *   <li>{@link #create3dArray(String[], String[], String[], ArrayList)}: Creates a 3D array of ExportStatements for kernel smoothing.</li>
  *   <li>{@link #greedyAlgorithm()}: Runs the greedy membership swapping algorithm over all time steps.</li>
- *   <li>{@link #greedyTimeStep(Matrix, Matrix, boolean, int, long)}: Runs the greedy algorithm for a single time step.</li>
+ *   <li>{@link #greedyTimeStep(Matrix, Matrix, boolean, int, long, int[])}: Runs the greedy algorithm for a single time step.</li>
+ *   <li>{@link SwapEvaluator}: Evaluates the change in quality of membership swaps in the greedy algorithm.</li>
  * </ul>
  */
 package dna.export;
@@ -64,10 +67,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Random;
-import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -125,6 +126,7 @@ import model.StatementType;
  * @param elitePercentage The percentage of elite solutions to retain. Between 0 and 1.
  * @param mutationPercentage The percentage of mutations to apply. Between 0 and 1.
  * @param randomSeed The random seed for reproducibility. 0 for random results.
+ * @param warmStart Whether the search in each time slice starts from the result of the previous time slice.
  */
 public class Polarization {
     Exporter exporter;
@@ -139,7 +141,9 @@ public class Polarization {
 	final int numParents, numClusters, numIterations;
 	final double elitePercentage, mutationPercentage;
 	final long randomSeed;
+	final boolean warmStart;
 	PolarizationResultTimeSeries results;
+	private static final int NUM_WARM_START_CHAINS = 8; // fixed, so that the results do not depend on the number of processors
 
     public Polarization(StatementType statementType, String variable1, boolean variable1Document, String variable2,
             boolean variable2Document, String qualifier, boolean qualifierDocument, String duplicates,
@@ -149,6 +153,36 @@ public class Polarization {
 			boolean invertAuthors, boolean invertSources, boolean invertSections, boolean invertTypes,
 			String algorithm, boolean normalizeScores, int numClusters, int numParents, int numIterations,
 			double elitePercentage, double mutationPercentage, long randomSeed) {
+		this(statementType, variable1, variable1Document, variable2, variable2Document, qualifier, qualifierDocument,
+				duplicates, ldtStart, ldtStop, timeWindow, windowSize, kernel, indentTime, excludeValueMap, excludeAuthors,
+				excludeSources, excludeSections, excludeTypes, invertValues, invertAuthors, invertSources, invertSections,
+				invertTypes, algorithm, normalizeScores, numClusters, numParents, numIterations, elitePercentage,
+				mutationPercentage, randomSeed, false);
+	}
+
+	/**
+	 * Compute the polarization of a network or a series of kernel-smoothed time
+	 * slices, optionally with warm starts. With warm starts, the time slices are
+	 * divided into a fixed number of chains of adjacent slices. The chains are
+	 * processed in parallel, and within a chain, the search in each slice starts
+	 * from the best memberships of the previous slice, mapped by actor label.
+	 * The genetic algorithm seeds half of its population with these memberships
+	 * and fills the other half with random solutions. Each slice is also
+	 * searched from random solutions with the same seed, and the warm start is
+	 * only kept if it is at least as good, so warm starts trade run time for
+	 * results that are never worse than cold starts. The other parameters are the same as in the constructor
+	 * without the warm start argument.
+	 *
+	 * @param warmStart Start the search in each time slice from the result of the previous time slice?
+	 */
+	public Polarization(StatementType statementType, String variable1, boolean variable1Document, String variable2,
+			boolean variable2Document, String qualifier, boolean qualifierDocument, String duplicates,
+			LocalDateTime ldtStart, LocalDateTime ldtStop, String timeWindow, int windowSize, String kernel,
+			boolean indentTime, HashMap<String, ArrayList<String>> excludeValueMap, String[] excludeAuthors,
+			String[] excludeSources, String[] excludeSections, String[] excludeTypes, boolean invertValues,
+			boolean invertAuthors, boolean invertSources, boolean invertSections, boolean invertTypes,
+			String algorithm, boolean normalizeScores, int numClusters, int numParents, int numIterations,
+			double elitePercentage, double mutationPercentage, long randomSeed, boolean warmStart) {
 
 		// Validate input parameters
 		if (!algorithm.equals("genetic") && !algorithm.equals("greedy")) {
@@ -261,6 +295,7 @@ public class Polarization {
 		this.indentTime = indentTime;
 		this.normalizeScores = normalizeScores;
 		this.randomSeed = randomSeed;
+		this.warmStart = warmStart;
 		this.congruence = new ArrayList<Matrix>();
 		this.conflict = new ArrayList<Matrix>();
 
@@ -302,12 +337,9 @@ public class Polarization {
 		this.exporter.filterStatements();
 
 		if (this.timeWindow.equals("no")) {
-			this.exporter.setQualifierAggregation("conflict");
-			this.exporter.computeResults();
-			this.conflict.add(new Matrix(this.exporter.getMatrixResults().get(0)));
-			this.exporter.setQualifierAggregation("congruence");
-			this.exporter.computeResults();
-			this.congruence.add(new Matrix(this.exporter.getMatrixResults().get(0)));
+			Matrix[] networks = this.exporter.computeOneModeMatrices("congruence", "conflict"); // single pass over the tensor
+			this.congruence.add(networks[0]);
+			this.conflict.add(networks[1]);
 		} else {
 			this.computeKernelSmoothedTimeSlices();
 		}
@@ -335,10 +367,30 @@ public class Polarization {
 	 * @return The quality of polarization as a double value.
 	 */
 	private double qualityAbsdiff(int[] memberships, double[][] congruenceNetwork, double[][] conflictNetwork, boolean normalize, int numClusters) {
-		double congruenceNorm = calculateMatrixNorm(congruenceNetwork);
-		double conflictNorm = calculateMatrixNorm(conflictNetwork);
+		return qualityAbsdiff(memberships, congruenceNetwork, conflictNetwork, calculateMatrixNorm(congruenceNetwork),
+				calculateMatrixNorm(conflictNetwork), normalize, new int[numClusters], new double[numClusters]);
+	}
 
-		int[] clusterMembers = new int[numClusters];
+	/**
+	 * Calculates the quality of polarization as in {@link #qualityAbsdiff(int[],
+	 * double[][], double[][], boolean, int)}, but with precomputed matrix norms
+	 * and with caller-provided scratch arrays, so that repeated evaluations of
+	 * the same networks do not allocate memory.
+	 *
+	 * @param memberships An array where each element represents the cluster membership of a node.
+	 * @param congruenceNetwork A 2D array representing the congruence network.
+	 * @param conflictNetwork A 2D array representing the conflict network.
+	 * @param congruenceNorm The entrywise 1-norm of the congruence network.
+	 * @param conflictNorm The entrywise 1-norm of the conflict network.
+	 * @param normalize Should the result be divided by its theoretical maximum (the sum of the two matrix norms)?
+	 * @param clusterMembers Scratch array with one element per cluster.
+	 * @param expectedWithinClusterCongruence Scratch array with one element per cluster.
+	 * @return The quality of polarization as a double value.
+	 */
+	private double qualityAbsdiff(int[] memberships, double[][] congruenceNetwork, double[][] conflictNetwork, double congruenceNorm, double conflictNorm,
+			boolean normalize, int[] clusterMembers, double[] expectedWithinClusterCongruence) {
+		int numClusters = clusterMembers.length;
+		Arrays.fill(clusterMembers, 0);
 		for (int i = 0; i < memberships.length; i++) {
 			clusterMembers[memberships[i]]++;
 		}
@@ -347,7 +399,6 @@ public class Polarization {
 			numWithinClusterDyads += clusterMembers[i] * (clusterMembers[i] - 1);
 		}
 		int numBetweenClusterDyads = memberships.length * (memberships.length - 1) - numWithinClusterDyads;
-		double[] expectedWithinClusterCongruence = new double[numClusters];
 		for (int i = 0; i < numClusters; i++) {
 			double clusterFactor = (double) clusterMembers[i] * (clusterMembers[i] - 1) / numWithinClusterDyads; // Proportion of within-cluster dyads that fall into cluster i (around 0.5 for two clusters)
 			expectedWithinClusterCongruence[i] = clusterFactor * (congruenceNorm / numWithinClusterDyads); // Expected congruence for within-cluster dyads by cluster
@@ -376,85 +427,13 @@ public class Polarization {
 		}
 	}
 
-	/**
-	 * For a given double array, rank its values in descending order, starting at 0.
-	 *
-	 * @param arr A double array.
-	 * @return An array of ranks, starting with 0.
-	 */
-	private int[] calculateRanks(double... arr) {
-		class Pair {
-			final double value;
-			final int index;
-
-			Pair(double value, int index) {
-				this.value = value;
-				this.index = index;
-			}
-		}
-
-		Pair[] pairs = new Pair[arr.length];
-		for (int index = 0; index < arr.length; ++index) {
-			pairs[index] = new Pair(arr[index], index);
-		}
-
-		// Sort pairs by value in descending order
-		Arrays.sort(pairs, (p1, p2) -> -Double.compare(p1.value, p2.value));
-
-		int[] ranks = new int[arr.length];
-		for (int i = 0; i < pairs.length; ++i) {
-			ranks[pairs[i].index] = i;
-		}
-
-		return ranks;
-	}
-
-	/**
-	 * For the genetic algorithm: Define a class that represents pairs of two
-	 * indices of membership bits (i.e., index of the first node and index of
-	 * the second node in a membership solution, with a maximum of N nodes).
-	 */
-	private class MembershipPair {
-		int firstIndex; // Index of the first member
-		int secondIndex; // Index of the second member
-
-		/**
-		 * Constructs a MembershipPair with the specified indices.
-		 *
-		 * @param firstIndex  the index of the first member
-		 * @param secondIndex the index of the second member
-		 */
-		MembershipPair(int firstIndex, int secondIndex) {
-			this.firstIndex = firstIndex;
-			this.secondIndex = secondIndex;
-		}
-
-		/**
-		 * Returns the first index.
-		 *
-		 * @return the first index
-		 */
-		int getFirstIndex() {
-			return this.firstIndex;
-		}
-
-		/**
-		 * Retrieves the value of the second index.
-		 *
-		 * @return the value of the second index.
-		 */
-		int getSecondIndex() {
-			return this.secondIndex;
-		}
-	}
-
 	/**
 	 * This class represents a cluster solution in the genetic algorithm,
 	 * including the membership vector, which contains information on cluster
 	 * membership for each node in the network. It also contains the number of
 	 * nodes N and the number of clusters K.
 	 */
-	private class ClusterSolution implements Cloneable {
+	private class ClusterSolution {
 
 		private final int[] memberships; // cluster memberships of all nodes, starting with 0
 		private final int N; // number of nodes
@@ -509,16 +488,6 @@ public class Polarization {
 			return memberships.clone(); // defensive copy to avoid external modification
 		}
 
-		/**
-		 * Creates a deep clone of this ClusterSolution.
-		 *
-		 * @return A deep clone of this object.
-		 * @throws CloneNotSupportedException If the object cannot be cloned.
-		 */
-		protected ClusterSolution clone() throws CloneNotSupportedException {
-			return new ClusterSolution(this.N, this.K, this.memberships.clone());
-		}
-
 		/**
 		 * Validates the input arguments for the ClusterSolution constructor.
 		 * 
@@ -583,196 +552,57 @@ public class Polarization {
 			}
 
 			// Shuffle the membership list to randomize the group assignments
-			Collections.shuffle(membership);
+			Collections.shuffle(membership, rng);
 
 			// Convert the ArrayList<Integer> to int[] for the final result
 			return membership.stream().mapToInt(Integer::intValue).toArray();
 		}
-
-		/**
-		 * Crossover breeding. Combines the membership vectors of the current solution and
-		 * a foreign solution  to produce an offspring with balanced cluster distribution.
-		 *
-		 * @param foreignMemberships A membership vector of a foreign cluster solution.
-		 * @param rng                The random number generator to use.
-		 */
-		int[] crossover(int[] foreignMemberships, Random rng) {
-			if (foreignMemberships == null || foreignMemberships.length != this.memberships.length) {
-				LogEvent log = new LogEvent(Logger.ERROR, "Invalid membership vector.",
-						"Membership vector must have the same length as the current solution.");
-				Dna.logger.log(log);
-			}
-			validateMemberships(foreignMemberships, K);
-
-			// Step 1: Relabel clusters to align with maximum overlap
-			int[][] overlapMatrix = calculateOverlapMatrix(this.memberships, foreignMemberships, K);
-			int[] newMemberships = performRelabeling(this.memberships, foreignMemberships, overlapMatrix);
-
-			// Step 2: Perform random crossover between relabeled membership vectors
-			newMemberships = performCrossover(newMemberships, foreignMemberships, rng);
-
-			// Step 3: Adjust cluster distribution to achieve balance
-			newMemberships = balanceClusterDistribution(newMemberships, K);
-			return newMemberships;
-		}
-
-		/**
-		 * Calculates the overlap matrix between two membership vectors.
-		 * 
-		 * @param memberships1 The first membership vector.
-		 * @param memberships2 The second membership vector.
-		 * @param k            The number of clusters.
-		 * @return The overlap matrix.
-		 */
-		private int[][] calculateOverlapMatrix(int[] memberships1, int[] memberships2, int k) {
-			int[][] matrix = new int[k][k];
-			for (int i = 0; i < memberships1.length; i++) {
-				matrix[memberships1[i]][memberships2[i]]++;
-			}
-			return matrix;
-		}
-
-		/**
-		 * Relabels clusters to maximize overlap between two membership vectors.
-		 * 
-		 * @param memberships1   The first membership vector.
-		 * @param memberships2   The second membership vector.
-		 * @param overlapMatrix  The overlap matrix between the two membership vectors.
-		 * @return The relabeled membership vector.
-		 */
-		private int[] performRelabeling(int[] memberships1, int[] memberships2, int[][] overlapMatrix) {
-			int k = overlapMatrix.length; // Number of clusters
-			int[] relabelMap = new int[k]; // Map from original cluster to new cluster
-		
-			// For each row, find the column with the maximum overlap
-			boolean[] assigned = new boolean[k]; // Track assigned columns
-			Arrays.fill(relabelMap, -1);
-		
-			for (int row = 0; row < k; row++) {
-				double[] rowValues = new double[k];
-				for (int col = 0; col < k; col++) {
-					rowValues[col] = overlapMatrix[row][col];
-				}
-		
-				// Use `calculateRanks` to rank columns for this row
-				int[] ranks = calculateRanks(rowValues);
-		
-				// Assign the best column for this row
-				for (int rank = 0; rank < ranks.length; rank++) {
-					int col = ranks[rank];
-					if (!assigned[col]) {
-						relabelMap[row] = col;
-						assigned[col] = true;
-						break;
-					}
-				}
-			}
-		
-			// Apply the relabeling map to the original memberships
-			int[] relabeledMemberships = new int[memberships1.length];
-			for (int i = 0; i < memberships1.length; i++) {
-				relabeledMemberships[i] = relabelMap[memberships1[i]];
-			}
-		
-			return relabeledMemberships;
-		}
-		
-		/**
-		 * Performs crossover by randomly combining bits from two membership vectors.
-		 * 
-		 * @param memberships1 The first membership vector.
-		 * @param memberships2 The second membership vector.
-		 * @param rng          The random number generator to use.
-		 * @return recombined membership vector
-		 */
-		private int[] performCrossover(int[] memberships1, int[] memberships2, Random rng) {
-			int[] result = new int[memberships1.length];
-			for (int i = 0; i < memberships1.length; i++) {
-				result[i] = (rng.nextBoolean()) ? memberships1[i] : memberships2[i];
-			}
-			return result;
-		}
-
-		/**
-		 * Balances cluster distribution by adjusting over- and under-represented clusters.
-		 * 
-		 * @param memberships The membership vector to balance.
-		 * @param k           The number of clusters.
-		 * @return The balanced membership vector.
-		 */
-		private int[] balanceClusterDistribution(int[] memberships, int k) {
-			int[] counts = new int[k];
-			List<List<Integer>> clusterIndices = new ArrayList<>();
-			for (int i = 0; i < k; i++) clusterIndices.add(new ArrayList<>());
-		
-			// Populate counts and cluster indices
-			for (int i = 0; i < memberships.length; i++) {
-				counts[memberships[i]]++;
-				clusterIndices.get(memberships[i]).add(i);
-			}
-		
-			// Compute target sizes
-			int base = memberships.length / k; // Base size for each cluster
-			int extra = memberships.length % k; // Number of clusters with one extra element
-			int[] maxAllowed = new int[k];
-			for (int i = 0; i < k; i++) {
-				maxAllowed[i] = base + ((i < extra) ? 1 : 0); // Add 1 to the first 'extra' clusters (due to modulo)
-			}
-		
-			// Balance clusters
-			for (int i = 0; i < k; i++) {
-				while (counts[i] > maxAllowed[i]) {
-					for (int j = 0; j < k; j++) {
-						if (counts[j] < maxAllowed[j]) {
-							// Move an element from cluster i to cluster j
-							int idx = clusterIndices.get(i).remove(0);
-							memberships[idx] = j; // Swap cluster membership from i to j
-							counts[i]--;
-							counts[j]++;
-							clusterIndices.get(j).add(idx); // Mark index as belonging to cluster j
-							break;
-						}
-					}
-				}
-			}
-			return memberships;
-		}
 	}
 
 	/**
-	 * This class represents a single iteration of the genetic algorithm, including
-	 * quality evaluation, elite retention, crossover, and mutation.
+	 * This class represents the population of cluster solutions of the genetic
+	 * algorithm for one time step. The memberships of the parents and children
+	 * are stored in two preallocated buffers, which swap their roles after each
+	 * generation, and the elite retention, crossover, and mutation steps write
+	 * directly into the children buffer. The quality of the solutions is
+	 * evaluated in parallel if the networks are large enough. All random numbers
+	 * are drawn from a single random number generator in a fixed order, so the
+	 * results only depend on the seed and not on the number of threads.
 	 */
-	private class GeneticIteration {
-		final double[][] congruenceNetwork;
-		final double[][] conflictNetwork;
-		final int n;
-		final int numElites;
-		final int numMutations;
-		final ArrayList<ClusterSolution> clusterSolutions;
-		final boolean normalize;
-		double[] q; // quality scores for each cluster solution
-		ArrayList<ClusterSolution> children; // children cluster solutions
+	private class GeneticPopulation {
+		private static final long MIN_PARALLEL_WORK = 100000; // minimum number of cells times solutions for parallel quality evaluation
+		private final double[][] congruenceNetwork, conflictNetwork;
+		private final double congruenceNorm, conflictNorm;
+		private final int n, numElites, numMutations;
+		private final boolean parallel;
+		private int[][] parents, children; // membership buffers, one row per cluster solution
+		private final double[] q; // quality scores of the parents
+		private final int[] best; // memberships of the best parent of the last evaluated generation
+		private final double[] weights; // roulette wheel weights of the parents
+		private final int[][] clusterMembers; // scratch space for the quality evaluation, one row per cluster solution
+		private final double[][] expectedWithinClusterCongruence; // scratch space for the quality evaluation, one row per cluster solution
+		private final int[][] overlap; // overlap matrix for relabeling clusters in the crossover step
+		private final int[] relabelMap, counts, maxAllowed, mutationPairs;
+		private final boolean[] assigned;
 
 		/**
-		 * Performs a single iteration of the genetic algorithm, including quality
-		 * evaluation, elite retention, crossover, and mutation.
+		 * Creates a population of cluster solutions. If initial memberships are
+		 * given, half of the population starts with these memberships, and the
+		 * other half consists of random cluster solutions.
 		 *
-		 * @param clusterSolutions The cluster solutions (= parents).
 		 * @param congruenceNetwork The congruence matrix.
 		 * @param conflictNetwork The conflict matrix.
-		 * @param normalize Should the quality/fitness scores be normalized?
-		 * @param numClusters The number of clusters.
+		 * @param initialMemberships Balanced memberships to start from, or {@code null} for random cluster solutions only.
 		 * @param rng The random number generator to use.
-		 * @return A list of children cluster solutions.
 		 */
-		GeneticIteration(ArrayList<ClusterSolution> clusterSolutions, double[][] congruenceNetwork, double[][] conflictNetwork, boolean normalize, int numClusters, Random rng) {
-			this.clusterSolutions = new ArrayList<>(clusterSolutions);
-			this.normalize = normalize;
-			this.congruenceNetwork = congruenceNetwork.clone();
-			this.conflictNetwork = conflictNetwork.clone();
-			this.n = this.congruenceNetwork.length;
-			
+		GeneticPopulation(double[][] congruenceNetwork, double[][] conflictNetwork, int[] initialMemberships, Random rng) {
+			this.congruenceNetwork = congruenceNetwork;
+			this.conflictNetwork = conflictNetwork;
+			this.congruenceNorm = calculateMatrixNorm(congruenceNetwork);
+			this.conflictNorm = calculateMatrixNorm(conflictNetwork);
+			this.n = congruenceNetwork.length;
+			this.parallel = (long) numParents * this.n * this.n >= MIN_PARALLEL_WORK;
+
 			// Calculate the number of elites based on the percentage
 			this.numElites = Math.max(1, (int) Math.round(elitePercentage * numParents)); // At least one elite
 			LogEvent log = new LogEvent(Logger.MESSAGE, "Number of elites: " + this.numElites,
@@ -780,233 +610,425 @@ public class Polarization {
 			Dna.logger.log(log);
 
 			// Calculate the number of mutations based on the percentage
-			this.numMutations = (int) Math.round((mutationPercentage * n) / 2.0); // Half the number of nodes because we swap pairs
+			this.numMutations = (int) Math.round((mutationPercentage * this.n) / 2.0); // Half the number of nodes because we swap pairs
 			log = new LogEvent(Logger.MESSAGE, "Number of mutations: " + this.numMutations,
 					"Number of mutations based on the mutation percentage.");
 			Dna.logger.log(log);
 
-			this.q = evaluateQuality(this.congruenceNetwork, this.conflictNetwork, this.normalize, numClusters);
-			this.children = eliteRetentionStep(this.clusterSolutions, this.q, this.numElites);
-			this.children = crossoverStep(this.clusterSolutions, this.q, this.children, rng);
-			this.children = mutationStep(this.children, this.numMutations, this.n,  rng);
+			this.parents = new int[numParents][];
+			int numSeeded = (initialMemberships == null) ? 0 : Math.max(1, numParents / 2);
+			for (int i = 0; i < numParents; i++) {
+				if (i < numSeeded) {
+					this.parents[i] = new ClusterSolution(this.n, numClusters, initialMemberships).getMemberships();
+				} else {
+					this.parents[i] = new ClusterSolution(this.n, numClusters, rng).getMemberships();
+				}
+			}
+			this.children = new int[numParents][this.n];
+			this.best = new int[this.n];
+			this.q = new double[numParents];
+			this.weights = new double[numParents];
+			this.clusterMembers = new int[numParents][numClusters];
+			this.expectedWithinClusterCongruence = new double[numParents][numClusters];
+			this.overlap = new int[numClusters][numClusters];
+			this.relabelMap = new int[numClusters];
+			this.counts = new int[numClusters];
+			this.assigned = new boolean[numClusters];
+			this.maxAllowed = new int[numClusters];
+			for (int i = 0; i < numClusters; i++) {
+				this.maxAllowed[i] = this.n / numClusters + ((i < this.n % numClusters) ? 1 : 0); // Add 1 to the first clusters (due to modulo)
+			}
+			this.mutationPairs = new int[2 * Math.max(0, this.numMutations)];
+		}
+
+		/**
+		 * Performs a single iteration of the genetic algorithm: evaluates the
+		 * quality of the parents and breeds the children generation by elite
+		 * retention, crossover, and mutation. The children become the parents of
+		 * the next iteration. The memberships of the best parent are saved
+		 * before breeding (see {@link #getBestMemberships()}).
+		 *
+		 * @param rng The random number generator to use.
+		 * @return The quality scores of the parents. The array is overwritten in
+		 *   the next iteration.
+		 */
+		double[] evolve(Random rng) {
+			evaluateQuality();
+			int bestIndex = 0;
+			for (int i = 1; i < numParents; i++) {
+				if (this.q[i] > this.q[bestIndex]) { // the first parent with the highest quality, as in the quality metrics
+					bestIndex = i;
+				}
+			}
+			System.arraycopy(this.parents[bestIndex], 0, this.best, 0, this.n);
+			int numChildren = eliteRetentionStep();
+			crossoverStep(numChildren, rng);
+			mutationStep(rng);
+			int[][] temp = this.parents;
+			this.parents = this.children;
+			this.children = temp;
+			return this.q;
 		}
 
 		/**
-		 * Evaluates the quality of cluster solutions using the specified quality function.
-		 * The quality scores are transformed to the range [-Inf, 0] where 0 is high fitness
-		 * or [-1, 0] if normalization is used.
+		 * Returns a copy of the memberships of the parent with the highest
+		 * quality in the last call of {@link #evolve(Random)}, i.e., the cluster
+		 * solution whose quality is the maximum of the returned quality scores.
 		 *
-		 * @param congruenceNetwork The congruence network matrix.
-		 * @param conflictNetwork   The conflict network matrix.
-		 * @param normalize         Normalize the results?
-		 * @param numClusters       The number of clusters.
-		 * @return An array of quality scores for each cluster solution.
+		 * @return A copy of the membership vector.
 		 */
-		private double[] evaluateQuality(double[][] congruenceNetwork, double[][] conflictNetwork, boolean normalize, int numClusters) {
-			double[] q = new double[clusterSolutions.size()];
-			for (int i = 0; i < clusterSolutions.size(); i++) {
-				int[] mem = clusterSolutions.get(i).getMemberships();
-				q[i] = qualityAbsdiff(mem, congruenceNetwork, conflictNetwork, normalize, numClusters);
+		int[] getBestMemberships() {
+			return this.best.clone();
+		}
+
+		/**
+		 * Evaluates the quality of the parents. The quality scores are in the
+		 * range [0, Inf] or [0, 1] if normalization is used.
+		 */
+		private void evaluateQuality() {
+			if (this.parallel) {
+				IntStream.range(0, numParents).parallel().forEach(this::evaluateQuality);
+			} else {
+				for (int i = 0; i < numParents; i++) {
+					evaluateQuality(i);
+				}
 			}
-			return q;
+		}
+
+		private void evaluateQuality(int i) {
+			this.q[i] = qualityAbsdiff(this.parents[i], this.congruenceNetwork, this.conflictNetwork, this.congruenceNorm,
+					this.conflictNorm, normalizeScores, this.clusterMembers[i], this.expectedWithinClusterCongruence[i]);
 		}
 
 		/**
-		 * Creates an initially empty children generation and adds elites from the parent generation of cluster solutions.
+		 * Copies the elites of the parent generation to the beginning of the
+		 * children generation, in their original order. A parent is an elite if
+		 * its rank in descending order of quality, with ties broken by index, is
+		 * below the number of elites.
 		 *
-		 * @param clusterSolutions The list of parent generation cluster solutions.
-		 * @param q                The array of quality values for the parent generation (their modularity or EI scores transformed to [0, 1] where 1 is high fitness).
-		 * @param numElites        The number of elite solutions to retain for the children generation.
-		 * @return A list of children containing the cloned elite solutions from the parent generation.
+		 * @return The number of children created.
 		 */
-		private ArrayList<ClusterSolution> eliteRetentionStep (ArrayList<ClusterSolution> clusterSolutions, double[] q, int numElites) {
-			int[] qRanks = calculateRanks(q); // Rank the quality values in descending order
-
-			ArrayList<ClusterSolution> children = new ArrayList<>();
-			for (int i = 0; i < qRanks.length; i++) {
-				if (qRanks[i] < numElites) {
-					try {
-						children.add((ClusterSolution) clusterSolutions.get(i).clone());
-					} catch (CloneNotSupportedException e) {
-						LogEvent log = new LogEvent(Logger.ERROR, "Elite solution at index " + i + " could not be cloned.", "Elite solutions are not copied to the children generation.");
-						Dna.logger.log(log);
+		private int eliteRetentionStep() {
+			int numChildren = 0;
+			for (int i = 0; i < numParents; i++) {
+				int rank = 0;
+				for (int j = 0; j < numParents; j++) {
+					int comparison = Double.compare(this.q[j], this.q[i]);
+					if (comparison > 0 || (comparison == 0 && j < i)) {
+						rank++;
 					}
 				}
+				if (rank < this.numElites) {
+					System.arraycopy(this.parents[i], 0, this.children[numChildren], 0, this.n);
+					numChildren++;
+				}
 			}
-			return children;
+			return numChildren;
 		}
 
 		/**
-		 * Performs the crossover step by generating additional children using roulette wheel sampling,
-		 * based on the quality scores of cluster solutions, and appends them to an existing children list.
+		 * Fills the rest of the children generation by crossover of parents that
+		 * are selected using hybrid roulette wheel sampling.
 		 *
-		 * @param clusterSolutions The list of parent cluster solutions.
-		 * @param q                An array of quality scores corresponding to the cluster solutions.
-		 * @param children         The existing children list produced by the elite retention step.
-		 * @param rng              The random number generator to use.
-		 * @return The updated children list with additional solutions generated through roulette sampling and crossover.
+		 * @param numChildren The number of children created by the elite retention step.
+		 * @param rng The random number generator to use.
 		 */
-		private ArrayList<ClusterSolution> crossoverStep(ArrayList<ClusterSolution> clusterSolutions, double[] q, ArrayList<ClusterSolution> children, Random rng) {
+		private void crossoverStep(int numChildren, Random rng) {
 
 			// adjust fitness scores to ensure that they are all non-negative and the sum is positive to make roulette wheel selection work
-			double qMinimum = 0.0, qMaximum = 0.0, qTotal = 0.0;
-			for (int i = 0; i < q.length; i++) {
-				if (i == 0) {
-					qMinimum = q[i];
-					qMaximum = q[i];
-				} else {
-					if (q[i] < qMinimum) {
-						qMinimum = q[i];
-					}
-					if (q[i] > qMaximum) {
-						qMaximum = q[i];
-					}
+			double qMinimum = 0.0, qTotal = 0.0;
+			for (int i = 0; i < numParents; i++) {
+				this.weights[i] = this.q[i];
+				if (i == 0 || this.q[i] < qMinimum) {
+					qMinimum = this.q[i];
 				}
-				qTotal += q[i];
+				qTotal += this.q[i];
 			}
-			if (qMinimum < 0) { // either completely in the [-Inf, 0] range or in [-x, x] with unknown x (e.g., modularity, where x = 1) -> shift to [0, 2x] by subtracting lowest (negative) value
+			if (qMinimum < 0) { // shift to [0, 2x] by subtracting lowest (negative) value
 				qTotal = 0.0;
-				for (int i = 0; i < q.length; i++) {
-					q[i] = q[i] - qMinimum;
-					qTotal += q[i];
+				for (int i = 0; i < numParents; i++) {
+					this.weights[i] = this.weights[i] - qMinimum;
+					qTotal += this.weights[i];
 				}
 			}
 			if (qTotal == 0.0) { // all values are 0 -> replace by uniform probabilities
-				for (int i = 0; i < q.length; i++) {
-					q[i] = 1.0;
+				for (int i = 0; i < numParents; i++) {
+					this.weights[i] = 1.0;
 					qTotal += 1.0;
 				}
 			}
 
 			// hybrid roulette wheel sampling for fitness-proportional sampling with uniform random sampling element to create more diversity in the gene pool
-			while (children.size() < numParents) {
-				int firstParentIndex = -1, secondParentIndex = -1;
-
+			while (numChildren < numParents) {
 				//  select first parent with roulette wheel sampling (= probability proportional to fitness)
-				double r = rng.nextDouble() * qTotal;
-				double cumulative = 0.0;
-				for (int i = 0; i < q.length; i++) {
-					cumulative += q[i];
-					if (r <= cumulative) {
-						firstParentIndex = i;
-						secondParentIndex = i; // provisional value to avoid breeding with oneself
-						break;
-					}
-				}
+				int firstParentIndex = rouletteWheel(rng.nextDouble() * qTotal);
+				int secondParentIndex = firstParentIndex; // provisional value to avoid breeding with oneself
 
 				// select second parent with roulette wheel sampling or uniform random sampling
 				while (secondParentIndex == firstParentIndex) { // avoid breeding with oneself
 					// flip a coin to decide whether the second parent is selected via roulette wheel sampling or uniform random sampling
 					if (rng.nextDouble() <= 0.5) {
-						// select second parent with roulette wheel sampling (= probability proportional to fitness)
-						r = rng.nextDouble() * qTotal;
-						cumulative = 0.0;
-						for (int i = 0; i < q.length; i++) {
-							cumulative += q[i];
-							if (r <= cumulative) {
-								secondParentIndex = i;
-								break;
-							}
-						}
+						secondParentIndex = rouletteWheel(rng.nextDouble() * qTotal);
 					} else {
-						// select second parent with uniform random sampling (to create more diversity in the gene pool)
-						secondParentIndex = rng.nextInt(q.length);
+						secondParentIndex = rng.nextInt(numParents); // uniform random sampling to create more diversity in the gene pool
 					}
 				}
 
-				// create child by crossover of the two selected parents
-				ClusterSolution c = clusterSolutions.get(firstParentIndex);
-				int[] child = c.crossover(clusterSolutions.get(secondParentIndex).getMemberships(), rng);
-				children.add(new ClusterSolution(n, numClusters, child));
+				crossover(this.parents[firstParentIndex], this.parents[secondParentIndex], this.children[numChildren], rng);
+				numChildren++;
 			}
+		}
 
-			return children;
+		/**
+		 * Selects the parent at a given position on the roulette wheel.
+		 *
+		 * @param r A position between 0 and the sum of the weights.
+		 * @return The index of the parent.
+		 */
+		private int rouletteWheel(double r) {
+			double cumulative = 0.0;
+			for (int i = 0; i < numParents; i++) {
+				cumulative += this.weights[i];
+				if (r <= cumulative) {
+					return i;
+				}
+			}
+			return numParents - 1; // rounding error in the cumulative sum
 		}
 
 		/**
-		 * Mutation step: Randomly select some pairs of cluster memberships ("chromosomes") in non-elite solutions and swap around their cluster membership.
-		 * 
-		 * @param children     The children generation of cluster solutions as an array list.
-		 * @param numMutations The number of mutations to perform.
-		 * @param n            The number of nodes in the network.
-		 * @param rng          The random number generator to use.
-		 * @return An array list with the mutated children generation of cluster solutions.
+		 * Crossover breeding. Relabels the clusters of the first parent to match
+		 * the clusters of the second parent with maximum overlap, combines the
+		 * two membership vectors randomly, and balances the cluster distribution
+		 * of the child.
+		 *
+		 * @param memberships1 The membership vector of the first parent.
+		 * @param memberships2 The membership vector of the second parent.
+		 * @param child The buffer for the membership vector of the child.
+		 * @param rng The random number generator to use.
 		 */
-		private ArrayList<ClusterSolution> mutationStep(ArrayList<ClusterSolution> children, int numMutations, int n, Random rng) {
-			if (numMutations <= 0) {
-				return children; // No mutations to perform
+		private void crossover(int[] memberships1, int[] memberships2, int[] child, Random rng) {
+			// Step 1: Relabel clusters to align with maximum overlap; each row gets the unassigned column with the largest overlap
+			for (int row = 0; row < numClusters; row++) {
+				Arrays.fill(this.overlap[row], 0);
 			}
-			if (numMutations < 0) {
-				LogEvent log = new LogEvent(Logger.ERROR, "Invalid number of mutations.",
-						"Number of mutations must be non-negative.");
-				Dna.logger.log(log);
+			for (int i = 0; i < this.n; i++) {
+				this.overlap[memberships1[i]][memberships2[i]]++;
+			}
+			Arrays.fill(this.assigned, false);
+			for (int row = 0; row < numClusters; row++) {
+				int best = -1;
+				for (int col = 0; col < numClusters; col++) {
+					if (!this.assigned[col] && (best < 0 || this.overlap[row][col] > this.overlap[row][best])) {
+						best = col;
+					}
+				}
+				this.relabelMap[row] = best;
+				this.assigned[best] = true;
 			}
 
-			for (int i = numElites; i < numParents; i++) {
-				int[] memberships = children.get(i).getMemberships();
-				Set<MembershipPair> mutationPairs = new HashSet<>();
+			// Step 2: Perform random crossover between relabeled membership vectors
+			for (int i = 0; i < this.n; i++) {
+				child[i] = (rng.nextBoolean()) ? this.relabelMap[memberships1[i]] : memberships2[i];
+			}
 
-				// Generate unique mutation pairs
-				while (mutationPairs.size() < numMutations) {
-					int firstIndex = rng.nextInt(n);
-					int secondIndex = rng.nextInt(n);
+			// Step 3: Adjust cluster distribution to achieve balance by moving the first members of over-represented clusters
+			Arrays.fill(this.counts, 0);
+			for (int i = 0; i < this.n; i++) {
+				this.counts[child[i]]++;
+			}
+			for (int i = 0; i < numClusters; i++) {
+				int next = 0;
+				while (this.counts[i] > this.maxAllowed[i]) {
+					int j = 0;
+					while (this.counts[j] >= this.maxAllowed[j]) {
+						j++;
+					}
+					while (child[next] != i) {
+						next++;
+					}
+					child[next] = j; // Move an element from cluster i to cluster j
+					this.counts[i]--;
+					this.counts[j]++;
+				}
+			}
+		}
 
-					// Ensure valid and unique pairs
+		/**
+		 * Mutation step: Randomly select some pairs of cluster memberships ("chromosomes") in non-elite children and swap around their cluster membership.
+		 * The pairs are drawn before any of them is swapped and applied in the order in which they were drawn.
+		 *
+		 * @param rng The random number generator to use.
+		 */
+		private void mutationStep(Random rng) {
+			if (this.numMutations <= 0) {
+				return; // No mutations to perform
+			}
+			for (int i = this.numElites; i < numParents; i++) {
+				int[] memberships = this.children[i];
+
+				// Generate mutation pairs
+				int numPairs = 0;
+				while (numPairs < this.numMutations) {
+					int firstIndex = rng.nextInt(this.n);
+					int secondIndex = rng.nextInt(this.n);
 					if (firstIndex != secondIndex && memberships[firstIndex] != memberships[secondIndex]) {
-						MembershipPair pair = new MembershipPair(
-								Math.min(firstIndex, secondIndex),
-								Math.max(firstIndex, secondIndex));
-						mutationPairs.add(pair);
+						this.mutationPairs[2 * numPairs] = firstIndex;
+						this.mutationPairs[2 * numPairs + 1] = secondIndex;
+						numPairs++;
 					}
 				}
 
 				// Apply mutations by swapping memberships
-				for (MembershipPair pair : mutationPairs) {
-					int firstIndex = pair.getFirstIndex();
-					int secondIndex = pair.getSecondIndex();
+				for (int p = 0; p < numPairs; p++) {
+					int firstIndex = this.mutationPairs[2 * p];
+					int secondIndex = this.mutationPairs[2 * p + 1];
 					int temp = memberships[firstIndex];
 					memberships[firstIndex] = memberships[secondIndex];
 					memberships[secondIndex] = temp;
 				}
 			}
-			return children;
-		}
-
-		/**
-		 * Returns the list of children cluster solutions.
-		 *
-		 * @return The list of children cluster solutions.
-		 */
-		public ArrayList<ClusterSolution> getChildren() {
-			return this.children;
-		}
-
-		/**
-		 * Returns the quality scores for each cluster solution.
-		 * 
-		 * @return The quality scores for each cluster solution.
-		 */
-		public double[] getQ() {
-			return q;
 		}
 	}
 
 	/**
 	 * Prepare the genetic algorithm and run all the iterations over all time steps.
 	 * Take out the maximum quality measure at the last step and create an object
-	 * that stores the polarization results.
+	 * that stores the polarization results. The seeds of the time steps are drawn
+	 * before the time steps are run in parallel, so the results are reproducible.
 	 * 
 	 * @return A PolarizationResultTimeSeries object containing the results of the genetic algorithm for each time step and iteration.
 	 */
 	public PolarizationResultTimeSeries geneticAlgorithm() {
+		long[] seeds = timeStepSeeds();
+		return runTimeSteps("Genetic algorithm", (t, initialMemberships) -> geneticTimeStep(t, seeds[t], initialMemberships));
+	}
+
+	/**
+	 * Run an algorithm over all time steps. Without warm starts, the time steps
+	 * are independent and run in parallel. With warm starts, the time steps are
+	 * divided into chains of adjacent time steps, which run in parallel, and each
+	 * time step in a chain starts from the memberships of the previous one. A
+	 * warm start can end in a worse local optimum than a random start, so each
+	 * warm-started time step is also run from random solutions with the same
+	 * seed, and the warm start is only kept if its final quality is at least as
+	 * high. Warm starts therefore never lose to cold starts. The chains do not
+	 * depend on the number of processors, so the results are reproducible.
+	 * Convergence statistics, including the iterations of both runs, are logged
+	 * after the run.
+	 *
+	 * @param taskName The name of the algorithm for the progress bar and log.
+	 * @param timeStep A function that computes the result of a time step from its index and initial memberships (or {@code null}).
+	 * @return A PolarizationResultTimeSeries object containing the results for each time step.
+	 */
+	private PolarizationResultTimeSeries runTimeSteps(String taskName, BiFunction<Integer, int[], PolarizationResult> timeStep) {
+		long startTime = System.currentTimeMillis();
+		int numTimeSteps = this.congruence.size();
+		PolarizationResult[] results = new PolarizationResult[numTimeSteps];
+		int[] iterations = new int[numTimeSteps];
+		boolean[] warmKept = new boolean[numTimeSteps];
+		int numChains = this.warmStart ? Math.min(numTimeSteps, NUM_WARM_START_CHAINS) : numTimeSteps;
+		ProgressBar.wrap(IntStream.range(0, numChains).parallel(), taskName).forEach(c -> {
+			PolarizationResult previous = null;
+			for (int t = c * numTimeSteps / numChains; t < (c + 1) * numTimeSteps / numChains; t++) {
+				PolarizationResult cold = timeStep.apply(t, null);
+				results[t] = cold;
+				iterations[t] = cold.getMaxQ().length;
+				int[] initialMemberships = warmStartMemberships(previous, this.congruence.get(t).getRowNames());
+				if (initialMemberships != null) { // keep the warm start only if it is at least as good as the cold start with the same seed
+					PolarizationResult warm = timeStep.apply(t, initialMemberships);
+					iterations[t] = iterations[t] + warm.getMaxQ().length;
+					if (warm.getFinalMaxQ() >= cold.getFinalMaxQ()) {
+						results[t] = warm;
+						warmKept[t] = true;
+					}
+				}
+				previous = results[t];
+			}
+		});
+
+		// report how quickly the time steps converged
+		int numIterations = 0, numConverged = 0, numWarmKept = 0;
+		for (int t = 0; t < numTimeSteps; t++) {
+			numIterations = numIterations + iterations[t];
+			if (results[t].isEarlyConvergence()) {
+				numConverged++;
+			}
+			if (warmKept[t]) {
+				numWarmKept++;
+			}
+		}
+		LogEvent log = new LogEvent(Logger.MESSAGE,
+				taskName + ": " + numTimeSteps + " time steps " + (this.warmStart ? "with" : "without") + " warm starts.",
+				taskName + " finished " + numTimeSteps + " time steps in " + numChains + " chains after "
+				+ (System.currentTimeMillis() - startTime) + " ms. The time steps took " + numIterations + " iterations ("
+				+ String.format("%.1f", numTimeSteps == 0 ? 0.0 : (double) numIterations / numTimeSteps)
+				+ " on average), and " + numConverged + " of them converged before the maximal number of iterations."
+				+ (this.warmStart ? " The warm start was at least as good as the cold start in " + numWarmKept + " time steps." : ""));
+		Dna.logger.log(log);
+		return new PolarizationResultTimeSeries(new ArrayList<PolarizationResult>(Arrays.asList(results)));
+	}
+
+	/**
+	 * Map the best memberships of the previous time step to the actors of a
+	 * time step. Actors keep their cluster if it has room. New actors and actors
+	 * whose cluster is full are assigned to the clusters with the most free
+	 * places, so the memberships are balanced like random cluster solutions.
+	 *
+	 * @param previous The result of the previous time step, or {@code null}.
+	 * @param names The actor labels of the time step.
+	 * @return The initial memberships, or {@code null} if warm starts are switched off or the previous result is empty.
+	 */
+	private int[] warmStartMemberships(PolarizationResult previous, String[] names) {
+		if (!this.warmStart || previous == null || previous.getMemberships().length == 0 || names.length <= this.numClusters) {
+			return null;
+		}
+		HashMap<String, Integer> previousMemberships = new HashMap<String, Integer>();
+		for (int i = 0; i < previous.getMemberships().length; i++) {
+			previousMemberships.put(previous.getNames()[i], previous.getMemberships()[i]);
+		}
+		int[] free = new int[this.numClusters];
+		for (int k = 0; k < this.numClusters; k++) {
+			free[k] = names.length / this.numClusters + ((k < names.length % this.numClusters) ? 1 : 0); // same sizes as random cluster solutions
+		}
+		int[] memberships = new int[names.length];
+		for (int i = 0; i < names.length; i++) {
+			Integer m = previousMemberships.get(names[i]);
+			if (m != null && m < this.numClusters && free[m] > 0) {
+				memberships[i] = m;
+				free[m]--;
+			} else {
+				memberships[i] = -1;
+			}
+		}
+		for (int i = 0; i < names.length; i++) {
+			if (memberships[i] < 0) {
+				int best = 0;
+				for (int k = 1; k < this.numClusters; k++) {
+					if (free[k] > free[best]) {
+						best = k;
+					}
+				}
+				memberships[i] = best;
+				free[best]--;
+			}
+		}
+		return memberships;
+	}
+
+	/**
+	 * Draw one random seed per time step from a random number generator that
+	 * is initialized with the random seed of the polarization settings.
+	 *
+	 * @return An array with one seed per time step.
+	 */
+	private long[] timeStepSeeds() {
 		Random r = (this.randomSeed == 0) ? new Random() : new Random(this.randomSeed); // Initialize RNG
-	
-		ArrayList<PolarizationResult> polarizationResults = ProgressBar
-				.wrap(IntStream.range(0, Polarization.this.congruence.size()).parallel(), "Genetic algorithm")
-				.map(t -> geneticTimeStep(t, r.nextLong()))
-		  		.collect(Collectors.toCollection(ArrayList::new));
-  
-		return new PolarizationResultTimeSeries(polarizationResults);
+		long[] seeds = new long[this.congruence.size()];
+		for (int t = 0; t < seeds.length; t++) {
+			seeds[t] = r.nextLong();
+		}
+		return seeds;
 	}
 	
 	/**
@@ -1014,9 +1036,10 @@ public class Polarization {
 	 *
 	 * @param t The time step index.
 	 * @param seed A random seed to ensure reproducibility.
+	 * @param initialMemberships Memberships for a warm start, or {@code null} to start from random cluster solutions only.
 	 * @return The PolarizationResult for the given time step.
 	 */
-	private PolarizationResult geneticTimeStep(int t, long seed) {
+	private PolarizationResult geneticTimeStep(int t, long seed, int[] initialMemberships) {
 		// Skip empty or near-empty networks
 		if (this.congruence.get(t).getMatrix().length <= numClusters || 
 			(calculateMatrixNorm(this.congruence.get(t).getMatrix()) + calculateMatrixNorm(this.conflict.get(t).getMatrix())) == 0) {
@@ -1033,7 +1056,6 @@ public class Polarization {
 		// Genetic Algorithm Variables
 		Random rng = new Random(seed);
 		double maxQ = -1, avgQ, sdQ;
-		int maxIndex = -1;
 		boolean earlyConvergence = false;
 		int lastIndex = numIterations - 1; // choose last possible value here as a default if early convergence does not happen
 	
@@ -1042,32 +1064,21 @@ public class Polarization {
 		double[] sdQArray = new double[numIterations];
 	
 		// Initialize random cluster solutions
-		ArrayList<ClusterSolution> cs = new ArrayList<>();
-		for (int i = 0; i < numParents; i++) {
-			cs.add(new ClusterSolution(this.congruence.get(t).getMatrix().length, numClusters, rng));
-		}
+		GeneticPopulation population = new GeneticPopulation(this.congruence.get(t).getMatrix(), this.conflict.get(t).getMatrix(), initialMemberships, rng);
 	
 		// Iterative breeding process
 		for (int i = 0; i < numIterations; i++) {
-			GeneticIteration geneticIteration = new GeneticIteration(
-				cs, this.congruence.get(t).getMatrix(), 
-				this.conflict.get(t).getMatrix(), 
-				this.normalizeScores, this.numClusters, rng
-			);
-			cs = geneticIteration.getChildren();
+			double[] qualityScores = population.evolve(rng);
 	
 			// Compute quality metrics
-			double[] qualityScores = geneticIteration.getQ();
 			maxQ = -1.0;
 			avgQ = 0.0;
 			sdQ = 0.0;
-			maxIndex = -1;
 	
-			for (int j = 0; j < cs.size(); j++) {
+			for (int j = 0; j < numParents; j++) {
 				avgQ += qualityScores[j];
 				if (qualityScores[j] > maxQ) {
 					maxQ = qualityScores[j];
-					maxIndex = j;
 				}
 			}
 			avgQ /= numParents;
@@ -1126,7 +1137,7 @@ public class Polarization {
 		// Store results
 		return new PolarizationResult(
 			maxQArrayTemp, avgQArrayTemp, sdQArrayTemp, 
-			maxQ, cs.get(maxIndex).getMemberships().clone(), 
+			maxQ, population.getBestMemberships(), 
 			this.congruence.get(t).getRowNames(), earlyConvergence, 
 			this.congruence.get(t).getStart(), 
 			this.congruence.get(t).getStop(), 
@@ -1335,27 +1346,23 @@ public class Polarization {
 			}
 		}
 
-		// create kernel-smoothed congruence and conflict networks with parallel streams
-		this.congruence = ProgressBar.wrap(
-				Stream.iterate(0, i -> i + 1).limit(this.congruence.size()).parallel(), "Congruence")
-				.map(index -> this.exporter.processTimeSlice(this.congruence.get(index), xArrayList.get(index)))
+		// create kernel-smoothed congruence and conflict networks with parallel streams; both networks of a time slice are
+		// computed from the same kernel-weighted sums in a single pass
+		final String[] aggregations = new String[] { "congruence", "conflict" };
+		ArrayList<Matrix[]> networks = ProgressBar.wrap(
+				Stream.iterate(0, i -> i + 1).limit(this.congruence.size()).parallel(), "Congruence and conflict")
+				.map(index -> this.exporter.processTimeSlice(new Matrix[] { this.congruence.get(index), this.conflict.get(index) }, aggregations, xArrayList.get(index)))
 				.map(m -> {
-					for (int i = 0; i < m.getMatrix().length; i++) {
-						m.getMatrix()[i][i] = 0.0; // set diagonal to zero
+					for (Matrix network : m) {
+						for (int i = 0; i < network.getMatrix().length; i++) {
+							network.getMatrix()[i][i] = 0.0; // set diagonal to zero
+						}
 					}
 					return m;
 				})
 				.collect(Collectors.toCollection(ArrayList::new));
-		this.conflict = ProgressBar.wrap(
-				Stream.iterate(0, i -> i + 1).limit(this.conflict.size()).parallel(), "Conflict")
-				.map(index -> this.exporter.processTimeSlice(this.conflict.get(index), xArrayList.get(index)))
-				.map(m -> {
-					for (int i = 0; i < m.getMatrix().length; i++) {
-						m.getMatrix()[i][i] = 0.0; // set diagonal to zero
-							}
-					return m;
-				})
-				.collect(Collectors.toCollection(ArrayList::new));
+		this.congruence = networks.stream().map(m -> m[0]).collect(Collectors.toCollection(ArrayList::new));
+		this.conflict = networks.stream().map(m -> m[1]).collect(Collectors.toCollection(ArrayList::new));
 	}
 
 	/** Create a 3D array of ExportStatements for the kernel smoothing approach (variable 1 x variable 2 x qualifier).
@@ -1464,6 +1471,164 @@ public class Polarization {
 	}
 
 
+	/**
+	 * For the greedy algorithm: Evaluate the change in quality of swapping the
+	 * cluster memberships of two nodes without recomputing the quality of the
+	 * whole solution. A swap does not change the cluster sizes, so the expected
+	 * congruence and conflict values in {@link #qualityAbsdiff(int[], double[][],
+	 * double[][], boolean, int)} remain constant, and only the dyads of the two
+	 * swapped nodes change. For every node and every cluster, the evaluator keeps
+	 * the sum of the absolute differences of all dyads of the node if the node
+	 * were a member of the cluster. The change of a swap can then be computed in
+	 * constant time, and the sums are updated in O(nk) time when a swap is
+	 * accepted.
+	 *
+	 * The change is computed in a different order than the full quality
+	 * function, so it is only used to discard swaps that are clearly worse.
+	 * Swaps that are better or within the rounding tolerance of the current
+	 * quality are checked with the full quality function, so the accepted swaps
+	 * are exactly the same as with full evaluation.
+	 */
+	private class SwapEvaluator {
+		private final double[][] congruence, conflict;
+		private final int n;
+		private final int[] memberships;
+		private final double[] expectedWithin; // expected congruence of within-cluster dyads by cluster
+		private final double[][] expectedBetween; // expected conflict of between-cluster dyads by pair of clusters
+		private final double[][] sums; // node x cluster
+		private final double tolerance;
+
+		/**
+		 * Create a new swap evaluator.
+		 *
+		 * @param congruence The congruence network.
+		 * @param conflict The conflict network.
+		 * @param memberships The initial memberships. They are copied.
+		 * @param numClusters The number of clusters.
+		 */
+		SwapEvaluator(double[][] congruence, double[][] conflict, int[] memberships, int numClusters) {
+			this.congruence = congruence;
+			this.conflict = conflict;
+			this.n = memberships.length;
+			this.memberships = memberships.clone();
+			double congruenceNorm = calculateMatrixNorm(congruence);
+			double conflictNorm = calculateMatrixNorm(conflict);
+
+			// expected values as in qualityAbsdiff
+			int[] clusterMembers = new int[numClusters];
+			for (int i = 0; i < this.n; i++) {
+				clusterMembers[memberships[i]]++;
+			}
+			int numWithinClusterDyads = 0;
+			for (int i = 0; i < numClusters; i++) {
+				numWithinClusterDyads += clusterMembers[i] * (clusterMembers[i] - 1);
+			}
+			int numBetweenClusterDyads = this.n * (this.n - 1) - numWithinClusterDyads;
+			this.expectedWithin = new double[numClusters];
+			this.expectedBetween = new double[numClusters][numClusters];
+			for (int a = 0; a < numClusters; a++) {
+				double clusterFactor = (double) clusterMembers[a] * (clusterMembers[a] - 1) / numWithinClusterDyads;
+				this.expectedWithin[a] = clusterFactor * (congruenceNorm / numWithinClusterDyads);
+				for (int b = 0; b < numClusters; b++) {
+					double betweenFactor = (double) clusterMembers[a] * clusterMembers[b] / numBetweenClusterDyads;
+					this.expectedBetween[a][b] = betweenFactor * (conflictNorm / numBetweenClusterDyads);
+				}
+			}
+
+			// rounding errors of the sums and of the full quality function grow with the number of dyads
+			this.tolerance = 1e-12 * Math.max(1000.0, (double) this.n * this.n) * (congruenceNorm + conflictNorm);
+			this.sums = new double[this.n][numClusters];
+			rebuild();
+		}
+
+		/**
+		 * Compute the sums of all nodes and clusters from scratch, which also
+		 * discards the rounding errors accumulated by {@link #swap(int, int)}.
+		 */
+		void rebuild() {
+			for (int u = 0; u < this.n; u++) {
+				Arrays.fill(this.sums[u], 0.0);
+				for (int v = 0; v < this.n; v++) {
+					if (u != v) {
+						for (int a = 0; a < this.sums[u].length; a++) {
+							this.sums[u][a] = this.sums[u][a] + dyad(u, a, v, this.memberships[v]);
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Compute the absolute differences of a dyad in both directions.
+		 *
+		 * @param u The first node.
+		 * @param a The cluster of the first node.
+		 * @param v The second node.
+		 * @param b The cluster of the second node.
+		 * @return The contribution of the dyad to the quality before normalization.
+		 */
+		private double dyad(int u, int a, int v, int b) {
+			if (a == b) {
+				return Math.abs(this.congruence[u][v] - this.expectedWithin[a]) + Math.abs(this.conflict[u][v])
+						+ Math.abs(this.congruence[v][u] - this.expectedWithin[a]) + Math.abs(this.conflict[v][u]);
+			} else {
+				return Math.abs(this.congruence[u][v]) + Math.abs(this.conflict[u][v] - this.expectedBetween[a][b])
+						+ Math.abs(this.congruence[v][u]) + Math.abs(this.conflict[v][u] - this.expectedBetween[b][a]);
+			}
+		}
+
+		/**
+		 * Compute the change in quality (before normalization) of swapping the
+		 * memberships of two nodes in different clusters.
+		 *
+		 * @param i The first node.
+		 * @param j The second node.
+		 * @return The change in quality.
+		 */
+		double delta(int i, int j) {
+			int a = this.memberships[i];
+			int b = this.memberships[j];
+			double before = (this.sums[i][a] - dyad(i, a, j, b)) + (this.sums[j][b] - dyad(j, b, i, a)) + dyad(i, a, j, b);
+			double after = (this.sums[i][b] - dyad(i, b, j, b)) + (this.sums[j][a] - dyad(j, a, i, a)) + dyad(i, b, j, a);
+			return after - before;
+		}
+
+		/**
+		 * Can a swap be discarded without evaluating the full quality function?
+		 *
+		 * @param i The first node.
+		 * @param j The second node.
+		 * @return {@code true} if the swap is clearly worse than or equal to the
+		 *   current solution, {@code false} if it may be better.
+		 */
+		boolean isWorse(int i, int j) {
+			return delta(i, j) < -this.tolerance;
+		}
+
+		/**
+		 * Swap the memberships of two nodes and update the sums.
+		 *
+		 * @param i The first node.
+		 * @param j The second node.
+		 */
+		void swap(int i, int j) {
+			int a = this.memberships[i];
+			int b = this.memberships[j];
+			for (int u = 0; u < this.n; u++) {
+				for (int c = 0; c < this.sums[u].length; c++) {
+					if (u != i) {
+						this.sums[u][c] = this.sums[u][c] - dyad(u, c, i, a) + dyad(u, c, i, b);
+					}
+					if (u != j) {
+						this.sums[u][c] = this.sums[u][c] - dyad(u, c, j, b) + dyad(u, c, j, a);
+					}
+				}
+			}
+			this.memberships[i] = b;
+			this.memberships[j] = a;
+		}
+	}
+
 	/**
 	 * Prepare the greedy membership swapping algorithm and run all the iterations.
 	 * Take out the maximum quality measure at the last step and create an object
@@ -1471,19 +1636,13 @@ public class Polarization {
 	 * time windows.
 	 */
 	private PolarizationResultTimeSeries greedyAlgorithm () {
-		Random rng = (this.randomSeed == 0) ? new Random() : new Random(this.randomSeed); // Initialize random number generator
-
-		ArrayList<PolarizationResult> polarizationResults = ProgressBar
-		.wrap(IntStream.range(0, Polarization.this.congruence.size()).parallel(), "Greedy algorithm")
-		.map(t -> greedyTimeStep(Polarization.this.congruence.get(t),
+		long[] seeds = timeStepSeeds();
+		return runTimeSteps("Greedy algorithm", (t, initialMemberships) -> greedyTimeStep(Polarization.this.congruence.get(t),
 				Polarization.this.conflict.get(t),
 				Polarization.this.normalizeScores,
 				Polarization.this.numClusters,
-				rng.nextLong()))
-		.collect(Collectors.toCollection(ArrayList::new));
-
-		PolarizationResultTimeSeries polarizationResultTimeSeries = new PolarizationResultTimeSeries(polarizationResults);
-		return polarizationResultTimeSeries;
+				seeds[t],
+				initialMemberships));
 	}
 	/**
 	 * A single run of the greedy algorithm, for one pair of congruence and conflict
@@ -1494,9 +1653,10 @@ public class Polarization {
 	 * @param normalizeScores Normalize the absdiff quality/fitness scores to 1.0?
 	 * @param numClusters     The number of clusters.
 	 * @param seed            A random seed, which is used to create a new random number generator for this algorithm run. The seed should have been itself generated by a random number generator to ensure variability across time steps and reproducibility.
+	 * @param initialMemberships Memberships for a warm start, or {@code null} to start from a random cluster solution.
 	 * @return a PolarizationResult object
 	 */
-	private PolarizationResult greedyTimeStep(Matrix congruence, Matrix conflict, boolean normalizeScores, int numClusters, long seed) {
+	private PolarizationResult greedyTimeStep(Matrix congruence, Matrix conflict, boolean normalizeScores, int numClusters, long seed, int[] initialMemberships) {
 
 		// for each time step, run the algorithm over the cluster solutions; retain quality and memberships
 		double[][] congruenceMatrix = congruence.getMatrix();
@@ -1514,31 +1674,42 @@ public class Polarization {
 
 		if (congruenceMatrix.length >= numClusters || combinedNorm == 0.0) { // if the network has no (or too few) nodes or edges, skip this step and return 0 directly
 
-			// Create initially random cluster solution to update
+			// Create initially random cluster solution to update, or start from the warm start memberships
 			Random random = new Random(seed);
-			ClusterSolution cs = new ClusterSolution(congruenceMatrix.length, numClusters, random);
+			ClusterSolution cs = (initialMemberships == null)
+					? new ClusterSolution(congruenceMatrix.length, numClusters, random)
+					: new ClusterSolution(congruenceMatrix.length, numClusters, initialMemberships);
 			int[] mem = cs.getMemberships();
 
 			// evaluate quality of initial solution
-			maxQArray.add(qualityAbsdiff(mem, congruenceMatrix, conflictMatrix, normalizeScores, numClusters));
+			double q1 = qualityAbsdiff(mem, congruenceMatrix, conflictMatrix, normalizeScores, numClusters);
+			maxQArray.add(q1);
 			int[] bestMemberships = mem.clone();
 			double maxQ = maxQArray.get(0);
 
-			boolean convergence  = false;
+			// the quality is the same for all solutions if it is undefined or if both networks are empty
+			boolean convergence = Double.isNaN(q1) || calculateMatrixNorm(congruenceMatrix) + calculateMatrixNorm(conflictMatrix) == 0.0;
+			SwapEvaluator evaluator = convergence ? null : new SwapEvaluator(congruenceMatrix, conflictMatrix, mem, numClusters);
+			boolean firstSweep = true;
 			while (!convergence) { // run the two nested for-loops repeatedly until there are no more swaps
 				boolean noChanges = true;
+				if (!firstSweep) {
+					evaluator.rebuild();
+				}
+				firstSweep = false;
 				for (int i = 0; i < mem.length; i++) {
 					for (int j = 1; j < mem.length; j++) { // swap positions i and j in the membership vector and see if leads to higher fitness
-						if (i < j && mem[i] != mem[j]) {
+						if (i < j && mem[i] != mem[j] && !evaluator.isWorse(i, j)) {
 							int[] mem2 = mem.clone();
 							int oldI = mem2[i];
 							int oldJ = mem2[j];
 							mem2[i] = oldJ;
 							mem2[j] = oldI;
-							double q1 = qualityAbsdiff(mem, congruenceMatrix, conflictMatrix, normalizeScores, numClusters);
 							double q2 = qualityAbsdiff(mem2, congruenceMatrix, conflictMatrix, normalizeScores, numClusters);
 							if (q2 > q1) { // candidate solution has higher fitness -> keep it
-								mem = mem2.clone(); // accept the new solution if it was better than the previous
+								mem = mem2; // accept the new solution if it was better than the previous
+								evaluator.swap(i, j);
+								q1 = q2;
 								maxQArray.add(q2);
 								maxQ = q2;
 								bestMemberships = mem.clone();
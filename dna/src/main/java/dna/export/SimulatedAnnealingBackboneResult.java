@@ -127,6 +127,68 @@ public class SimulatedAnnealingBackboneResult implements Serializable {
      */
     private int numStatements;
 
+    /**
+     * Number of proposed backbone sets, including the initial set, whose loss was found in the loss cache because the
+     * same set had been evaluated before.
+     */
+    private long lossCacheHits;
+
+    /**
+     * Number of proposed backbone sets, including the initial set, whose loss had to be computed because it was not in
+     * the loss cache.
+     */
+    private long lossCacheMisses;
+
+    /**
+     * Number of simulated annealing chains that were run in parallel. The per-iteration diagnostics above belong to
+     * the chain that found the best solution.
+     */
+    private int numChains;
+
+    /**
+     * Number of iterations between exchanges of the current solutions of neighboring chains (parallel tempering), or
+     * {@code 0} if the chains were independent.
+     */
+    private int exchangeInterval;
+
+    /**
+     * Index of the chain that found the best solution, starting with {@code 0}.
+     */
+    private int bestChain;
+
+    /**
+     * The temperature of each chain (first index) in each iteration (second index). With exchanges, chain {@code k}
+     * runs at {@code 2^k} times the temperature of the cooling schedule.
+     */
+    private double[][] chainTemperature;
+
+    /**
+     * Whether the proposed candidate was accepted ({@code 1}) or not ({@code 0}) in each chain (first index) and
+     * iteration (second index).
+     */
+    private int[][] chainAcceptance;
+
+    /**
+     * The penalized spectral distance of the proposed candidate in each chain (first index) and iteration (second
+     * index).
+     */
+    private double[][] chainPenalizedBackboneLoss;
+
+    /**
+     * The penalized spectral distance of the best solution of each chain.
+     */
+    private double[] chainFinalLoss;
+
+    /**
+     * Number of attempted exchanges between chain {@code k} and chain {@code k + 1}, for each {@code k}.
+     */
+    private int[] exchangesAttempted;
+
+    /**
+     * Number of accepted exchanges between chain {@code k} and chain {@code k + 1}, for each {@code k}.
+     */
+    private int[] exchangesAccepted;
+
     /**
      * Create a new backbone result.
      *
@@ -166,6 +228,17 @@ public class SimulatedAnnealingBackboneResult implements Serializable {
      * @param start Start date and time.
      * @param stop Stop date and time.
      * @param numStatements The number of filtered statements contributing to the full network.
+     * @param lossCacheHits The number of proposed backbone sets whose loss was found in the loss cache.
+     * @param lossCacheMisses The number of proposed backbone sets whose loss had to be computed.
+     * @param numChains The number of simulated annealing chains.
+     * @param exchangeInterval The number of iterations between exchanges of neighboring chains, or {@code 0}.
+     * @param bestChain The index of the chain that found the best solution.
+     * @param chainTemperature The temperature of each chain in each iteration.
+     * @param chainAcceptance The acceptance of the proposed candidate in each chain and iteration.
+     * @param chainPenalizedBackboneLoss The penalized loss of the proposed candidate in each chain and iteration.
+     * @param chainFinalLoss The penalized loss of the best solution of each chain.
+     * @param exchangesAttempted The number of attempted exchanges per pair of neighboring chains.
+     * @param exchangesAccepted The number of accepted exchanges per pair of neighboring chains.
      */
     public SimulatedAnnealingBackboneResult(String method,
                                             String[] backboneEntities,
@@ -188,7 +261,18 @@ public class SimulatedAnnealingBackboneResult implements Serializable {
                                             String[] labels,
                                             long start,
                                             long stop,
-                                            int numStatements) {
+                                            int numStatements,
+                                            long lossCacheHits,
+                                            long lossCacheMisses,
+                                            int numChains,
+                                            int exchangeInterval,
+                                            int bestChain,
+                                            double[][] chainTemperature,
+                                            int[][] chainAcceptance,
+                                            double[][] chainPenalizedBackboneLoss,
+                                            double[] chainFinalLoss,
+                                            int[] exchangesAttempted,
+                                            int[] exchangesAccepted) {
         this.method = method;
         this.backboneEntities = backboneEntities;
         this.redundantEntities = redundantEntities;
@@ -211,6 +295,17 @@ public class SimulatedAnnealingBackboneResult implements Serializable {
         this.start = start;
         this.stop = stop;
         this.numStatements = numStatements;
+        this.lossCacheHits = lossCacheHits;
+        this.lossCacheMisses = lossCacheMisses;
+        this.numChains = numChains;
+        this.exchangeInterval = exchangeInterval;
+        this.bestChain = bestChain;
+        this.chainTemperature = chainTemperature;
+        this.chainAcceptance = chainAcceptance;
+        this.chainPenalizedBackboneLoss = chainPenalizedBackboneLoss;
+        this.chainFinalLoss = chainFinalLoss;
+        this.exchangesAttempted = exchangesAttempted;
+        this.exchangesAccepted = exchangesAccepted;
     }
 
     public String getMethod() {
@@ -384,4 +479,102 @@ public class SimulatedAnnealingBackboneResult implements Serializable {
     public void setNumStatements(int numStatements) {
         this.numStatements = numStatements;
     }
-}
\ No newline at end of file
+
+    public long getLossCacheHits() {
+        return lossCacheHits;
+    }
+
+    public void setLossCacheHits(long lossCacheHits) {
+        this.lossCacheHits = lossCacheHits;
+    }
+
+    public long getLossCacheMisses() {
+        return lossCacheMisses;
+    }
+
+    public void setLossCacheMisses(long lossCacheMisses) {
+        this.lossCacheMisses = lossCacheMisses;
+    }
+
+    /**
+     * Get the share of proposed backbone sets whose loss was found in the loss cache.
+     *
+     * @return The hit rate between {@code 0.0} and {@code 1.0}, or {@code 0.0} if no sets were evaluated.
+     */
+    public double getLossCacheHitRate() {
+        long lookups = lossCacheHits + lossCacheMisses;
+        return lookups == 0 ? 0.0 : (double) lossCacheHits / lookups;
+    }
+
+    public int getNumChains() {
+        return numChains;
+    }
+
+    public void setNumChains(int numChains) {
+        this.numChains = numChains;
+    }
+
+    public int getExchangeInterval() {
+        return exchangeInterval;
+    }
+
+    public void setExchangeInterval(int exchangeInterval) {
+        this.exchangeInterval = exchangeInterval;
+    }
+
+    public int getBestChain() {
+        return bestChain;
+    }
+
+    public void setBestChain(int bestChain) {
+        this.bestChain = bestChain;
+    }
+
+    public double[][] getChainTemperature() {
+        return chainTemperature;
+    }
+
+    public void setChainTemperature(double[][] chainTemperature) {
+        this.chainTemperature = chainTemperature;
+    }
+
+    public int[][] getChainAcceptance() {
+        return chainAcceptance;
+    }
+
+    public void setChainAcceptance(int[][] chainAcceptance) {
+        this.chainAcceptance = chainAcceptance;
+    }
+
+    public double[][] getChainPenalizedBackboneLoss() {
+        return chainPenalizedBackboneLoss;
+    }
+
+    public void setChainPenalizedBackboneLoss(double[][] chainPenalizedBackboneLoss) {
+        this.chainPenalizedBackboneLoss = chainPenalizedBackboneLoss;
+    }
+
+    public double[] getChainFinalLoss() {
+        return chainFinalLoss;
+    }
+
+    public void setChainFinalLoss(double[] chainFinalLoss) {
+        this.chainFinalLoss = chainFinalLoss;
+    }
+
+    public int[] getExchangesAttempted() {
+        return exchangesAttempted;
+    }
+
+    public void setExchangesAttempted(int[] exchangesAttempted) {
+        this.exchangesAttempted = exchangesAttempted;
+    }
+
+    public int[] getExchangesAccepted() {
+        return exchangesAccepted;
+    }
+
+    public void setExchangesAccepted(int[] exchangesAccepted) {
+        this.exchangesAccepted = exchangesAccepted;
+    }
+}
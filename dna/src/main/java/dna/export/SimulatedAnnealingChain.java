@@ -0,0 +1,331 @@
+package dna.export;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * One Markov chain of the simulated annealing backbone algorithm, with its
+ * current and best backbone set, its concept decomposition, its diagnostics,
+ * and its own random number generator. Several chains can run on different
+ * threads at the same time because they only share the read-only data of the
+ * {@link Exporter} and its synchronized loss cache.
+ *
+ * The temperature of the chain is the cooling schedule of the algorithm
+ * multiplied by a constant factor. A factor greater than one yields a hotter
+ * chain, which accepts worse candidates more often. Chains at different
+ * temperatures can exchange their current solutions (see
+ * {@link #exchange(SimulatedAnnealingChain, SimulatedAnnealingChain, double)}).
+ */
+final class SimulatedAnnealingChain {
+	private final Exporter exporter;
+	private final String[] fullConcepts;
+	private final HashMap<String, Integer> conceptIndex;
+	private final double p, temperatureFactor;
+	private final int T;
+	private final Random random;
+	private final LaplacianSpectrum spectrum = new LaplacianSpectrum(); // work arrays for the eigenvalues of the candidates of this chain
+	private ConceptDecomposedMatrix backboneDecomposition; // current backbone matrix, updated per concept
+	private ArrayList<String> currentBackboneList, currentRedundantList, candidateBackboneList, candidateRedundantList, finalBackboneList, finalRedundantList;
+	private final ArrayList<String> actionList = new ArrayList<String>();
+	private double oldLoss, finalLoss, temperature;
+
+	// reporting
+	private final double[] temperatureLog, acceptanceProbabilityLog, penalizedBackboneLossLog, acceptanceRatioLastHundredIterationsLog;
+	private final int[] acceptedLog, proposedBackboneSizeLog, acceptedBackboneSizeLog, finalBackboneSizeLog;
+
+	/**
+	 * Create a new chain and draw its initial backbone set.
+	 *
+	 * @param exporter The exporter with the full matrix and the loss cache.
+	 * @param backboneDecomposition An empty concept decomposition for the current backbone set of this chain.
+	 * @param fullConcepts The full set of concepts.
+	 * @param conceptIndex The column of each concept in the concept decomposition.
+	 * @param penalty Use penalty parameter? False if fixed backbone set.
+	 * @param p Penalty parameter. Only used if penalty parameter is true.
+	 * @param T Number of iterations.
+	 * @param backboneSize The (fixed) size of the backbone set. Only used if no penalty.
+	 * @param temperatureFactor The factor by which the temperature of the cooling schedule is multiplied in this chain.
+	 * @param random The random number generator of this chain.
+	 */
+	SimulatedAnnealingChain(Exporter exporter, ConceptDecomposedMatrix backboneDecomposition, String[] fullConcepts,
+			HashMap<String, Integer> conceptIndex, boolean penalty, double p, int T, int backboneSize, double temperatureFactor,
+			Random random) {
+		this.exporter = exporter;
+		this.backboneDecomposition = backboneDecomposition;
+		this.fullConcepts = fullConcepts;
+		this.conceptIndex = conceptIndex;
+		this.p = p;
+		this.T = T;
+		this.temperatureFactor = temperatureFactor;
+		this.random = random;
+
+		if (penalty) { // simulated annealing with penalty: initially one randomly chosen entity in the backbone set
+			// pick a random concept c_j from C and add it to the backbone as the initial solution at t = 0: B <- {c_j}
+			int randomConceptIndex = random.nextInt(fullConcepts.length);
+			finalBackboneList = new ArrayList<String>();
+			finalBackboneList.add(fullConcepts[randomConceptIndex]);
+
+			// final redundant set R, which is initially C without c_j
+			finalRedundantList = Arrays
+					.stream(fullConcepts)
+					.filter(c -> !c.equals(fullConcepts[randomConceptIndex]))
+					.collect(Collectors.toCollection(ArrayList::new));
+		} else { // simulated annealing without penalty and fixed backbone set size: randomly sample as many initial entities as needed
+			finalBackboneList = new ArrayList<>();
+			while (finalBackboneList.size() < Math.min(backboneSize, fullConcepts.length)) {
+				String entity = fullConcepts[random.nextInt(fullConcepts.length)];
+				if (!finalBackboneList.contains(entity)) {
+					finalBackboneList.add(entity);
+				}
+			}
+			finalRedundantList = Arrays.stream(fullConcepts).filter(c -> !finalBackboneList.contains(c)).collect(Collectors.toCollection(ArrayList::new));
+		}
+		for (String concept : finalBackboneList) {
+			backboneDecomposition.add(conceptIndex.get(concept));
+		}
+
+		// loss for the initial backbone set, Y^B
+		BackboneLossCache.Entry initial = exporter.evaluateBackboneCandidate(backboneDecomposition, this.spectrum);
+		if (penalty) {
+			finalLoss = exporter.penalizedLoss(initial.getLoss(), p, finalBackboneList.size(), fullConcepts.length); // spectral distance between full and initial matrix
+		} else {
+			finalLoss = initial.getLoss(); // spectral distance between full and initial matrix
+		}
+
+		// the current solution B_0 and R_0 is initially the same as the final solution
+		currentBackboneList = new ArrayList<String>(finalBackboneList);
+		currentRedundantList = new ArrayList<String>(finalRedundantList);
+		oldLoss = finalLoss;
+		candidateBackboneList = new ArrayList<String>();
+		candidateRedundantList = new ArrayList<String>();
+
+		temperatureLog = new double[T];
+		acceptanceProbabilityLog = new double[T];
+		acceptedLog = new int[T];
+		penalizedBackboneLossLog = new double[T]; // penalised or not penalised, depending on algorithm
+		proposedBackboneSizeLog = new int[T];
+		acceptedBackboneSizeLog = new int[T];
+		finalBackboneSizeLog = new int[T];
+		acceptanceRatioLastHundredIterationsLog = new double[T];
+	}
+
+	/**
+	 * Execute an iteration of the chain.
+	 *
+	 * @param penalty Use penalty parameter? False if fixed backbone set.
+	 * @param t The iteration, starting with {@code 1}.
+	 */
+	void iterate(boolean penalty, int t) {
+		// calculate temperature
+		temperature = (1 - (1 / (1 + Math.exp(-(-5 + (12.0 / T) * t))))) * temperatureFactor; // temperature
+		temperatureLog[t - 1] = temperature;
+
+		// make a random move by adding, removing, or swapping a concept and computing a new candidate
+		actionList.clear(); // clear the set of possible actions and repopulate, depending on solution size
+		if (currentBackboneList.size() < 2 && penalty) { // if there is only one concept, don't remove it because empty backbones do not work
+			actionList.add("add");
+			actionList.add("swap");
+		} else if (currentBackboneList.size() > fullConcepts.length - 2 && penalty) { // do not create a backbone with all concepts because it would be useless
+			actionList.add("remove");
+			actionList.add("swap");
+		} else if (penalty) { // everything in between one and |C| - 1 concepts: add all three possible moves to the action set
+			actionList.add("add");
+			actionList.add("remove");
+			actionList.add("swap");
+		} else { // with fixed backbone set (i.e., no penalty), only allow horizontal swaps
+			actionList.add("swap");
+		}
+		Collections.shuffle(actionList, random); // randomly re-order the action set...
+		String selectedAction = actionList.get(0); // and draw the first action (i.e., pick a random action)
+		candidateBackboneList.clear(); // create a candidate copy of the current backbone list, to be modified
+		candidateBackboneList.addAll(currentBackboneList);
+		candidateRedundantList.clear(); // create a candidate copy of the current redundant list, to be modified
+		candidateRedundantList.addAll(currentRedundantList);
+		String addedConcept = null, removedConcept = null; // concepts moved into and out of the backbone set by the action
+		if (selectedAction.equals("add")) { // if we add a concept...
+			Collections.shuffle(candidateRedundantList, random); // randomly re-order the current redundant list...
+			addedConcept = candidateRedundantList.get(0);
+			candidateBackboneList.add(candidateRedundantList.get(0)); // add the first concept from the redundant list to the backbone...
+			candidateRedundantList.remove(0); // and delete it in turn from the redundant list
+		} else if (selectedAction.equals("remove")) { // if we remove a concept...
+			Collections.shuffle(candidateBackboneList, random); // randomly re-order the backbone list to pick a random concept for removal as the first element...
+			removedConcept = candidateBackboneList.get(0);
+			candidateRedundantList.add(candidateBackboneList.get(0)); // add the selected concept to the redundant list...
+			candidateBackboneList.remove(0); // and remove it from the backbone list
+		} else if (selectedAction.equals("swap")) { //if we swap out a concept...
+			Collections.shuffle(candidateBackboneList, random); // re-order the backbone list...
+			Collections.shuffle(candidateRedundantList, random); // re-order the redundant list...
+			addedConcept = candidateRedundantList.get(0);
+			removedConcept = candidateBackboneList.get(0);
+			candidateBackboneList.add(candidateRedundantList.get(0)); // add the first (random) redundant concept to the backbone list...
+			candidateRedundantList.remove(0); // then remove it from the redundant list...
+			candidateRedundantList.add(candidateBackboneList.get(0)); // add the first (random) backbone concept to the redundant list...
+			candidateBackboneList.remove(0); // then remove it from the backbone list
+		}
+		proposedBackboneSizeLog[t - 1] = candidateBackboneList.size(); // log number of concepts in candidate backbone in the current iteration
+
+		// after executing the action, update the backbone decomposition with the moved concepts to create the candidate matrix for B^*_t, then compute eigenvalues and loss for the candidate
+		if (addedConcept != null) {
+			backboneDecomposition.add(conceptIndex.get(addedConcept));
+		}
+		if (removedConcept != null) {
+			backboneDecomposition.remove(conceptIndex.get(removedConcept));
+		}
+		BackboneLossCache.Entry candidate = exporter.evaluateBackboneCandidate(backboneDecomposition, this.spectrum); // cached if the same set was proposed before
+		double newLoss;
+		if (penalty) {
+			newLoss = exporter.penalizedLoss(candidate.getLoss(), p, candidateBackboneList.size(), fullConcepts.length); // spectral distance between full and candidate matrix
+		} else {
+			newLoss = candidate.getLoss(); // spectral distance between full and candidate matrix
+		}
+		penalizedBackboneLossLog[t - 1] = newLoss; // log the penalised spectral distance between full and candidate solution
+
+		// compare loss between full and previous (current) matrix to loss between full and candidate matrix and accept or reject candidate
+		boolean accept = false;
+		if (newLoss < oldLoss) { // if candidate is better than previous matrix, adopt it as current solution
+			accept = true; // flag this solution for acceptance
+			acceptanceProbabilityLog[t - 1] = -1.0; // log the acceptance probability as -1.0; technically it should be 1.0 because the solution was better and hence accepted, but it would be useless for plotting the acceptance probabilities as a diagnostic tool
+			if (newLoss <= finalLoss) { // if better than the best solution, adopt candidate as new final backbone solution
+				finalBackboneList.clear(); // clear the best solution list
+				finalBackboneList.addAll(candidateBackboneList); // and populate it with the concepts from the candidate solution instead
+				finalRedundantList.clear(); // same with the redundant list
+				finalRedundantList.addAll(candidateRedundantList);
+				finalLoss = newLoss; // save the candidate loss as the globally optimal loss so far
+			}
+		} else { // if the solution is worse than the previous one, apply Hastings ratio and temperature and compare with random number
+			double r = random.nextDouble(); // random double between 0 and 1
+			double acceptance = Math.exp(-(newLoss - oldLoss)) * temperature; // acceptance probability
+			acceptanceProbabilityLog[t - 1] = acceptance; // log the acceptance probability
+			if (r < acceptance) { // apply probability rule
+				accept = true;
+			}
+		}
+		if (accept) { // if candidate is better than previous matrix...
+			currentBackboneList.clear(); // create candidate copy and save as new current matrix
+			currentBackboneList.addAll(candidateBackboneList);
+			currentRedundantList.clear(); // also save the redundant candidate as new current redundant list
+			currentRedundantList.addAll(candidateRedundantList);
+			oldLoss = newLoss; // save the corresponding candidate loss as the current/old loss
+			acceptedLog[t - 1] = 1; // log the acceptance of the proposed candidate
+		} else {
+			if (addedConcept != null) { // revert the backbone decomposition to the current backbone set
+				backboneDecomposition.remove(conceptIndex.get(addedConcept));
+			}
+			if (removedConcept != null) {
+				backboneDecomposition.add(conceptIndex.get(removedConcept));
+			}
+			acceptedLog[t - 1] = 0; // log the non-acceptance of the proposed candidate
+		}
+		acceptedBackboneSizeLog[t - 1] = currentBackboneList.size(); // log how many concepts are in the current iteration after the decision
+		finalBackboneSizeLog[t - 1] = finalBackboneList.size(); // log how many concepts are in the final backbone solution in the current iteration
+		double log = 0.0; // compute ratio of acceptances in last up to 100 iterations
+		for (int i = t - 1; i >= t - Math.min(100, t); i--) {
+			log = log + acceptedLog[i];
+		}
+		acceptanceRatioLastHundredIterationsLog[t - 1] = log / Math.min(100, t); // log ratio of accepted candidates in the last 100 iterations
+	}
+
+	/**
+	 * Try to exchange the current solutions of two chains, as in parallel tempering. If the hotter chain has a better
+	 * current solution, the solutions are always exchanged, so the better solution moves to the colder chain. Otherwise,
+	 * the exchange is accepted with the probability with which the colder chain would accept the current solution of
+	 * the hotter chain as a move, i.e., the loss difference and temperature of the colder chain are used as in
+	 * {@link #iterate(boolean, int)}. Both chains keep their best solutions and adopt the new current solution as their
+	 * best solution if it is better.
+	 *
+	 * @param colder The chain with the lower temperature factor.
+	 * @param hotter The chain with the higher temperature factor.
+	 * @param r A random double between 0 and 1.
+	 * @return {@code true} if the solutions were exchanged.
+	 */
+	static boolean exchange(SimulatedAnnealingChain colder, SimulatedAnnealingChain hotter, double r) {
+		double difference = hotter.oldLoss - colder.oldLoss;
+		if (difference >= 0 && r >= Math.exp(-difference) * colder.temperature) {
+			return false;
+		}
+		ConceptDecomposedMatrix decomposition = colder.backboneDecomposition;
+		colder.backboneDecomposition = hotter.backboneDecomposition;
+		hotter.backboneDecomposition = decomposition;
+		ArrayList<String> list = colder.currentBackboneList;
+		colder.currentBackboneList = hotter.currentBackboneList;
+		hotter.currentBackboneList = list;
+		list = colder.currentRedundantList;
+		colder.currentRedundantList = hotter.currentRedundantList;
+		hotter.currentRedundantList = list;
+		double loss = colder.oldLoss;
+		colder.oldLoss = hotter.oldLoss;
+		hotter.oldLoss = loss;
+		colder.updateFinal();
+		hotter.updateFinal();
+		return true;
+	}
+
+	/**
+	 * Adopt the current solution as the best solution of the chain if it is at least as good.
+	 */
+	private void updateFinal() {
+		if (oldLoss <= finalLoss) {
+			finalBackboneList.clear();
+			finalBackboneList.addAll(currentBackboneList);
+			finalRedundantList.clear();
+			finalRedundantList.addAll(currentRedundantList);
+			finalLoss = oldLoss;
+		}
+	}
+
+	double getFinalLoss() {
+		return finalLoss;
+	}
+
+	ArrayList<String> getFinalBackboneList() {
+		return finalBackboneList;
+	}
+
+	ArrayList<String> getFinalRedundantList() {
+		return finalRedundantList;
+	}
+
+	ArrayList<String> getCurrentBackboneList() {
+		return currentBackboneList;
+	}
+
+	double getTemperatureFactor() {
+		return temperatureFactor;
+	}
+
+	double[] getTemperatureLog() {
+		return temperatureLog;
+	}
+
+	double[] getAcceptanceProbabilityLog() {
+		return acceptanceProbabilityLog;
+	}
+
+	int[] getAcceptedLog() {
+		return acceptedLog;
+	}
+
+	double[] getPenalizedBackboneLossLog() {
+		return penalizedBackboneLossLog;
+	}
+
+	int[] getProposedBackboneSizeLog() {
+		return proposedBackboneSizeLog;
+	}
+
+	int[] getAcceptedBackboneSizeLog() {
+		return acceptedBackboneSizeLog;
+	}
+
+	int[] getFinalBackboneSizeLog() {
+		return finalBackboneSizeLog;
+	}
+
+	double[] getAcceptanceRatioLastHundredIterationsLog() {
+		return acceptanceRatioLastHundredIterationsLog;
+	}
+}
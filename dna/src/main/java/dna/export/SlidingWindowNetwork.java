@@ -0,0 +1,371 @@
+package dna.export;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An incrementally updated one-mode network for a sliding time window. The
+ * statements in the window are kept as a sparse count tensor (variable 1 x
+ * variable 2 x qualifier level) in code space of the {@link StatementTable}.
+ * Statements entering or leaving the window update the tensor in time
+ * proportional to the number of changed statements. When the next network
+ * matrix is requested, only the edge weights of node pairs involving a node
+ * whose tensor cells changed are recomputed; all other edge weights are
+ * copied from the previous matrix. The edge weights are computed exactly as
+ * in {@link Exporter#computeOneModeMatrix(ArrayList, String, LocalDateTime,
+ * LocalDateTime)}, so the results are identical.
+ */
+class SlidingWindowNetwork {
+	private final Exporter exporter;
+	private final StatementTable table;
+	private final String aggregation;
+	private final boolean textQualifier, numericQualifier;
+	private final int[] qualifierInteger;
+	private final double range;
+	private final int[] actorColumn, conceptColumn, levelColumn;
+	private final int numLevels, emptyActor, emptyConcept;
+	private final String[] actorDictionary;
+	private final int[] isolateActors;
+	private final int isolateConcepts;
+
+	/** Tensor cells per actor code: concept code * number of levels + level -> count. */
+	private final HashMap<Integer, TreeMap<Long, int[]>> cells = new HashMap<Integer, TreeMap<Long, int[]>>();
+	/** Number of statements per active actor code, sorted by code (= sorted by label). */
+	private final TreeMap<Integer, Integer> activeActors = new TreeMap<Integer, Integer>();
+	/** Number of statements per active concept code. */
+	private final HashMap<Integer, Integer> activeConcepts = new HashMap<Integer, Integer>();
+	/** Statement IDs currently in the window and their table rows. */
+	private final HashMap<Integer, Integer> window = new HashMap<Integer, Integer>();
+	/** Actor codes whose cells changed since the last matrix was created. */
+	private final HashSet<Integer> changed = new HashSet<Integer>();
+	/** Cached sorted cell keys and values per actor code. */
+	private final HashMap<Integer, long[]> rowKeys = new HashMap<Integer, long[]>();
+	private final HashMap<Integer, double[]> rowValues = new HashMap<Integer, double[]>();
+	private final double[] rowTotals;
+
+	private double[][] previousMatrix = null;
+	private int[] previousActors = new int[0];
+	private final int[] positionOf;
+
+	/**
+	 * Create a new sliding window network with an empty window.
+	 *
+	 * @param exporter The exporter, which provides the edge weight and
+	 *   normalization settings.
+	 * @param table The statement table of the exporter.
+	 * @param aggregation The qualifier aggregation.
+	 * @param textQualifier Is the qualifier a short text or document-level
+	 *   variable and not ignored?
+	 * @param numericQualifier Is the qualifier a boolean or integer variable
+	 *   and not ignored?
+	 * @param qualifierInteger The levels of a boolean or integer qualifier.
+	 * @param actorColumn Codes of variable 1 for all table rows.
+	 * @param conceptColumn Codes of variable 2 for all table rows.
+	 * @param levelColumn Qualifier levels for all table rows.
+	 * @param numLevels Number of qualifier levels.
+	 * @param actorDictionary The dictionary of variable 1.
+	 * @param emptyActor The code of the empty label of variable 1, or -1.
+	 * @param emptyConcept The code of the empty label of variable 2, or -1.
+	 * @param isolateActors The codes of all nodes if isolates are included,
+	 *   or {@code null} if only the nodes in the window are included.
+	 * @param isolateConcepts The number of concepts if isolates are included.
+	 */
+	SlidingWindowNetwork(Exporter exporter, StatementTable table, String aggregation, boolean textQualifier,
+			boolean numericQualifier, int[] qualifierInteger, int[] actorColumn, int[] conceptColumn, int[] levelColumn,
+			int numLevels, String[] actorDictionary, int emptyActor, int emptyConcept, int[] isolateActors, int isolateConcepts) {
+		this.exporter = exporter;
+		this.table = table;
+		this.aggregation = aggregation;
+		this.textQualifier = textQualifier;
+		this.numericQualifier = numericQualifier;
+		this.qualifierInteger = qualifierInteger;
+		this.range = Math.abs(qualifierInteger[qualifierInteger.length - 1] - qualifierInteger[0]);
+		this.actorColumn = actorColumn;
+		this.conceptColumn = conceptColumn;
+		this.levelColumn = levelColumn;
+		this.numLevels = numLevels;
+		this.actorDictionary = actorDictionary;
+		this.emptyActor = emptyActor;
+		this.emptyConcept = emptyConcept;
+		this.isolateActors = isolateActors;
+		this.isolateConcepts = isolateConcepts;
+		this.rowTotals = new double[actorDictionary.length];
+		this.positionOf = new int[actorDictionary.length];
+		Arrays.fill(this.positionOf, -1);
+	}
+
+	/**
+	 * Get the number of statements in the window.
+	 *
+	 * @return The number of statements.
+	 */
+	int size() {
+		return this.window.size();
+	}
+
+	/**
+	 * Add a statement to the window.
+	 *
+	 * @param statement The statement that enters the window.
+	 */
+	void add(ExportStatement statement) {
+		if (!this.window.containsKey(statement.getId())) {
+			int row = this.table.row(statement);
+			this.window.put(statement.getId(), row);
+			update(row, 1);
+		}
+	}
+
+	/**
+	 * Remove a statement from the window.
+	 *
+	 * @param statement The statement that leaves the window.
+	 */
+	void remove(ExportStatement statement) {
+		Integer row = this.window.remove(statement.getId());
+		if (row != null) {
+			update(row, -1);
+		}
+	}
+
+	/**
+	 * Replace the contents of the window by a new list of statements. Only
+	 * the statements that differ from the current window are added or
+	 * removed.
+	 *
+	 * @param statements The statements in the new window.
+	 */
+	void setWindow(ArrayList<ExportStatement> statements) {
+		HashMap<Integer, ExportStatement> next = new HashMap<Integer, ExportStatement>();
+		for (int i = 0; i < statements.size(); i++) {
+			next.put(statements.get(i).getId(), statements.get(i));
+		}
+		for (Integer id : new ArrayList<Integer>(this.window.keySet())) {
+			if (!next.containsKey(id)) {
+				update(this.window.remove(id), -1);
+			}
+		}
+		for (int i = 0; i < statements.size(); i++) {
+			add(statements.get(i));
+		}
+	}
+
+	/**
+	 * Add or subtract a count for a table row in the tensor.
+	 *
+	 * @param row The table row of the statement.
+	 * @param delta {@code 1} for adding and {@code -1} for removing.
+	 */
+	private void update(int row, int delta) {
+		int actor = this.actorColumn[row];
+		int concept = this.conceptColumn[row];
+		long key = (long) concept * this.numLevels + this.levelColumn[row];
+		TreeMap<Long, int[]> actorCells = this.cells.get(actor);
+		if (actorCells == null) {
+			actorCells = new TreeMap<Long, int[]>();
+			this.cells.put(actor, actorCells);
+		}
+		int[] count = actorCells.get(key);
+		if (count == null) {
+			count = new int[1];
+			actorCells.put(key, count);
+		}
+		count[0] = count[0] + delta;
+		if (count[0] == 0) {
+			actorCells.remove(key);
+			if (actorCells.isEmpty()) {
+				this.cells.remove(actor);
+			}
+		}
+		this.rowTotals[actor] = this.rowTotals[actor] + delta;
+		this.activeActors.merge(actor, delta, Integer::sum);
+		if (this.activeActors.get(actor) == 0) {
+			this.activeActors.remove(actor);
+		}
+		this.activeConcepts.merge(concept, delta, Integer::sum);
+		if (this.activeConcepts.get(concept) == 0) {
+			this.activeConcepts.remove(concept);
+		}
+		this.changed.add(actor);
+	}
+
+	/**
+	 * Create the one-mode network matrix of the current window.
+	 *
+	 * @param start The start date/time of the window.
+	 * @param stop The end date/time of the window.
+	 * @return A {@link Matrix} object with the network.
+	 */
+	Matrix toMatrix(LocalDateTime start, LocalDateTime stop) {
+		// node set: all nodes if isolates are included, otherwise the active nodes except the empty label
+		int[] actors;
+		if (this.isolateActors != null) {
+			actors = this.isolateActors;
+		} else {
+			actors = this.activeActors.keySet().stream().mapToInt(Integer::intValue).filter(a -> a != this.emptyActor).toArray();
+		}
+		String[] names = new String[actors.length];
+		for (int i = 0; i < actors.length; i++) {
+			names[i] = this.actorDictionary[actors[i]];
+		}
+
+		// an empty window yields an empty matrix without computing edge weights, and nothing can be reused afterwards
+		if (this.window.size() == 0) {
+			forgetPreviousMatrix();
+			this.changed.clear();
+			this.rowKeys.clear();
+			this.rowValues.clear();
+			return new Matrix(new double[actors.length][actors.length], names, names, true, start, stop);
+		}
+		int numConcepts = this.isolateActors != null ? this.isolateConcepts : this.activeConcepts.size() - (this.activeConcepts.containsKey(this.emptyConcept) ? 1 : 0);
+
+		// refresh the cached cell arrays of changed nodes
+		for (Integer actor : this.changed) {
+			TreeMap<Long, int[]> actorCells = this.cells.get(actor);
+			if (actorCells == null) {
+				this.rowKeys.remove(actor);
+				this.rowValues.remove(actor);
+			} else {
+				long[] keys = new long[actorCells.size()];
+				double[] values = new double[actorCells.size()];
+				int i = 0;
+				for (Map.Entry<Long, int[]> e : actorCells.entrySet()) {
+					keys[i] = e.getKey();
+					values[i] = e.getValue()[0];
+					i++;
+				}
+				this.rowKeys.put(actor, keys);
+				this.rowValues.put(actor, values);
+			}
+		}
+
+		// compute the edge weights of changed pairs and copy all others from the previous matrix
+		double[][] mat = new double[actors.length][actors.length];
+		for (int i1 = 0; i1 < actors.length; i1++) {
+			int a1 = actors[i1];
+			boolean reuse1 = this.previousMatrix != null && this.positionOf[a1] > -1 && !this.changed.contains(a1);
+			for (int i2 = 0; i2 < actors.length; i2++) {
+				if (i1 == i2) {
+					continue;
+				}
+				int a2 = actors[i2];
+				if (reuse1 && this.positionOf[a2] > -1 && !this.changed.contains(a2)) {
+					mat[i1][i2] = this.previousMatrix[this.positionOf[a1]][this.positionOf[a2]];
+				} else {
+					mat[i1][i2] = pairValue(a1, a2, numConcepts);
+				}
+			}
+		}
+
+		// remember the matrix and node positions for the next window
+		forgetPreviousMatrix();
+		for (int i = 0; i < actors.length; i++) {
+			this.positionOf[actors[i]] = i;
+		}
+		this.previousActors = actors;
+		this.previousMatrix = mat;
+		this.changed.clear();
+
+		return new Matrix(mat, names, names, this.exporter.isIntegerOneModeMatrix(this.aggregation), start, stop);
+	}
+
+	/**
+	 * Discard the previous matrix and node positions.
+	 */
+	private void forgetPreviousMatrix() {
+		for (int i = 0; i < this.previousActors.length; i++) {
+			this.positionOf[this.previousActors[i]] = -1;
+		}
+		this.previousActors = new int[0];
+		this.previousMatrix = null;
+	}
+
+	/**
+	 * Compute the edge weight between two nodes by merging their sorted
+	 * tensor cells. Terms are added in the order of concepts, levels of the
+	 * first node, and levels of the second node, as in the dense computation.
+	 *
+	 * @param a1 The actor code of the first node.
+	 * @param a2 The actor code of the second node.
+	 * @param numConcepts The number of concepts in the network.
+	 * @return The normalized edge weight.
+	 */
+	private double pairValue(int a1, int a2, int numConcepts) {
+		long[] k1 = this.rowKeys.getOrDefault(a1, new long[0]);
+		double[] v1 = this.rowValues.getOrDefault(a1, new double[0]);
+		long[] k2 = this.rowKeys.getOrDefault(a2, new long[0]);
+		double[] v2 = this.rowValues.getOrDefault(a2, new double[0]);
+		double sum = 0.0, common1 = 0.0, common2 = 0.0, commonProduct = 0.0;
+		int p = 0, q = 0;
+		while (p < k1.length && q < k2.length) {
+			long j1 = k1[p] / this.numLevels;
+			long j2 = k2[q] / this.numLevels;
+			if (j1 < j2) {
+				p++;
+			} else if (j1 > j2) {
+				q++;
+			} else {
+				int pe = p;
+				while (pe < k1.length && k1[pe] / this.numLevels == j1) {
+					pe++;
+				}
+				int qe = q;
+				while (qe < k2.length && k2[qe] / this.numLevels == j2) {
+					qe++;
+				}
+
+				// cells with the same concept and qualifier level
+				int x = p, y = q;
+				while (x < pe && y < qe) {
+					if (k1[x] < k2[y]) {
+						x++;
+					} else if (k1[x] > k2[y]) {
+						y++;
+					} else {
+						common1 = common1 + v1[x];
+						common2 = common2 + v2[y];
+						commonProduct = commonProduct + (v1[x] * v2[y]);
+						x++;
+						y++;
+					}
+				}
+
+				if (this.aggregation.equals("ignore")) {
+					double i1count = 0.0;
+					double i2count = 0.0;
+					for (x = p; x < pe; x++) {
+						i1count = i1count + v1[x];
+					}
+					for (y = q; y < qe; y++) {
+						i2count = i2count + v2[y];
+					}
+					sum = sum + i1count * i2count;
+				} else if (this.numericQualifier) {
+					for (x = p; x < pe; x++) {
+						int l1 = (int) (k1[x] % this.numLevels);
+						for (y = q; y < qe; y++) {
+							int l2 = (int) (k2[y] % this.numLevels);
+							if (this.aggregation.equals("congruence")) {
+								sum = sum + (v1[x] * v2[y] * (1.0 - ((Math.abs(this.qualifierInteger[l1] - this.qualifierInteger[l2]) / this.range))));
+							} else if (this.aggregation.equals("conflict")) {
+								sum = sum + (v1[x] * v2[y] * ((Math.abs(this.qualifierInteger[l1] - this.qualifierInteger[l2]) / this.range)));
+							} else if (this.aggregation.equals("subtract")) {
+								sum = sum + (v1[x] * v2[y] * (1.0 - ((Math.abs(this.qualifierInteger[l1] - this.qualifierInteger[l2]) / this.range))));
+								sum = sum - (v1[x] * v2[y] * ((Math.abs(this.qualifierInteger[l1] - this.qualifierInteger[l2]) / this.range)));
+							}
+						}
+					}
+				}
+				p = pe;
+				q = qe;
+			}
+		}
+		return this.exporter.oneModeCellValue(this.aggregation, this.textQualifier, this.numericQualifier, this.range,
+				numConcepts, this.rowTotals[a1], this.rowTotals[a2], common1, common2, commonProduct, sum);
+	}
+}
@@ -0,0 +1,263 @@
+package dna.export;
+
+import java.util.Arrays;
+
+/**
+ * A sparse three-dimensional count tensor (variable 1 x variable 2 x
+ * qualifier level), used by the {@link Exporter} to construct one-mode and
+ * two-mode networks. Only non-zero cells are stored. The cells are held twice:
+ * once in compressed sparse row (CSR) order, sorted by row, column, and level,
+ * and once in compressed sparse column order, sorted by column, level, and
+ * row. The row order permits iterating over all concepts (and qualifier
+ * levels) of an actor, and the column order permits iterating over all actors
+ * that used a concept (with a given qualifier level). Row and column totals
+ * are precomputed.
+ */
+class SparseTensor {
+	private final int numRows, numColumns, numLevels;
+	private final int[] rowPointer, columnIndex, levelIndex;
+	private final double[] values;
+	private final int[] columnPointer, transposedRowIndex, transposedLevelIndex;
+	private final double[] transposedValues;
+	private final double[] rowTotals, columnTotals;
+
+	/**
+	 * Create a sparse tensor from a list of coordinates. Each coordinate
+	 * triple adds a count of one to the respective cell.
+	 *
+	 * @param numRows Number of rows (e.g., actors).
+	 * @param numColumns Number of columns (e.g., concepts).
+	 * @param numLevels Number of qualifier levels.
+	 * @param rows Row index of each observation.
+	 * @param columns Column index of each observation.
+	 * @param levels Qualifier level of each observation.
+	 */
+	SparseTensor(int numRows, int numColumns, int numLevels, int[] rows, int[] columns, int[] levels) {
+		this.numRows = numRows;
+		this.numColumns = numColumns;
+		this.numLevels = numLevels;
+
+		// encode coordinates as sortable keys in row, column, level order and count duplicate keys
+		long[] keys = new long[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			keys[i] = ((long) rows[i] * numColumns + columns[i]) * numLevels + levels[i];
+		}
+		Arrays.sort(keys);
+		int nonZeros = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (i == 0 || keys[i] != keys[i - 1]) {
+				nonZeros++;
+			}
+		}
+
+		// compressed sparse row representation
+		this.rowPointer = new int[numRows + 1];
+		this.columnIndex = new int[nonZeros];
+		this.levelIndex = new int[nonZeros];
+		this.values = new double[nonZeros];
+		this.rowTotals = new double[numRows];
+		this.columnTotals = new double[numColumns];
+		int e = -1;
+		int[] rowOf = new int[nonZeros];
+		for (int i = 0; i < keys.length; i++) {
+			if (i == 0 || keys[i] != keys[i - 1]) {
+				e++;
+				this.levelIndex[e] = (int) (keys[i] % numLevels);
+				this.columnIndex[e] = (int) ((keys[i] / numLevels) % numColumns);
+				rowOf[e] = (int) (keys[i] / numLevels / numColumns);
+				this.rowPointer[rowOf[e] + 1]++;
+			}
+			this.values[e] = this.values[e] + 1.0;
+			this.rowTotals[rowOf[e]] = this.rowTotals[rowOf[e]] + 1.0;
+			this.columnTotals[this.columnIndex[e]] = this.columnTotals[this.columnIndex[e]] + 1.0;
+		}
+		for (int i = 0; i < numRows; i++) {
+			this.rowPointer[i + 1] = this.rowPointer[i + 1] + this.rowPointer[i];
+		}
+
+		// compressed sparse column representation, sorted by column, level, and row: stable counting sorts by level and
+		// then by column, starting from the row-ordered cells
+		int[] byLevel = stableCountingSort(this.levelIndex, numLevels, null);
+		int[] order = stableCountingSort(this.columnIndex, numColumns, byLevel);
+		this.columnPointer = new int[numColumns + 1];
+		this.transposedRowIndex = new int[nonZeros];
+		this.transposedLevelIndex = new int[nonZeros];
+		this.transposedValues = new double[nonZeros];
+		for (int i = 0; i < nonZeros; i++) {
+			int source = order[i];
+			this.transposedRowIndex[i] = rowOf[source];
+			this.transposedLevelIndex[i] = this.levelIndex[source];
+			this.transposedValues[i] = this.values[source];
+			this.columnPointer[this.columnIndex[source] + 1]++;
+		}
+		for (int j = 0; j < numColumns; j++) {
+			this.columnPointer[j + 1] = this.columnPointer[j + 1] + this.columnPointer[j];
+		}
+	}
+
+	/**
+	 * Stable counting sort of cell positions by a key.
+	 *
+	 * @param keys The key of each cell.
+	 * @param numKeys The number of distinct keys.
+	 * @param input The cell positions in their current order, or {@code null}
+	 *   for the natural order.
+	 * @return The cell positions sorted by key, with ties in input order.
+	 */
+	private static int[] stableCountingSort(int[] keys, int numKeys, int[] input) {
+		int[] counts = new int[numKeys + 1];
+		for (int i = 0; i < keys.length; i++) {
+			counts[keys[i] + 1]++;
+		}
+		for (int k = 0; k < numKeys; k++) {
+			counts[k + 1] = counts[k + 1] + counts[k];
+		}
+		int[] output = new int[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			int position = input == null ? i : input[i];
+			output[counts[keys[position]]++] = position;
+		}
+		return output;
+	}
+
+	int getNumRows() {
+		return this.numRows;
+	}
+
+	int getNumColumns() {
+		return this.numColumns;
+	}
+
+	int getNumLevels() {
+		return this.numLevels;
+	}
+
+	/**
+	 * Get the number of non-zero cells.
+	 *
+	 * @return The number of non-zero cells.
+	 */
+	int getNonZeros() {
+		return this.values.length;
+	}
+
+	/**
+	 * Get the position of the first cell of a row in the row-ordered cells.
+	 *
+	 * @param row The row index.
+	 * @return The position of the first cell of the row.
+	 */
+	int rowStart(int row) {
+		return this.rowPointer[row];
+	}
+
+	/**
+	 * Get the position after the last cell of a row in the row-ordered cells.
+	 *
+	 * @param row The row index.
+	 * @return The position after the last cell of the row.
+	 */
+	int rowEnd(int row) {
+		return this.rowPointer[row + 1];
+	}
+
+	int column(int position) {
+		return this.columnIndex[position];
+	}
+
+	int level(int position) {
+		return this.levelIndex[position];
+	}
+
+	double value(int position) {
+		return this.values[position];
+	}
+
+	/**
+	 * Get the position of the first cell of a column in the column-ordered
+	 * cells.
+	 *
+	 * @param column The column index.
+	 * @return The position of the first cell of the column.
+	 */
+	int columnStart(int column) {
+		return this.columnPointer[column];
+	}
+
+	/**
+	 * Get the position after the last cell of a column in the column-ordered
+	 * cells.
+	 *
+	 * @param column The column index.
+	 * @return The position after the last cell of the column.
+	 */
+	int columnEnd(int column) {
+		return this.columnPointer[column + 1];
+	}
+
+	/**
+	 * Get the position of the first cell of a column with a given qualifier
+	 * level in the column-ordered cells.
+	 *
+	 * @param column The column index.
+	 * @param level The qualifier level.
+	 * @return The position of the first cell with this column and level.
+	 */
+	int fiberStart(int column, int level) {
+		int low = this.columnPointer[column];
+		int high = this.columnPointer[column + 1];
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (this.transposedLevelIndex[mid] < level) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Get the position after the last cell of a column with a given qualifier
+	 * level in the column-ordered cells.
+	 *
+	 * @param column The column index.
+	 * @param level The qualifier level.
+	 * @return The position after the last cell with this column and level.
+	 */
+	int fiberEnd(int column, int level) {
+		return fiberStart(column, level + 1);
+	}
+
+	int transposedRow(int position) {
+		return this.transposedRowIndex[position];
+	}
+
+	int transposedLevel(int position) {
+		return this.transposedLevelIndex[position];
+	}
+
+	double transposedValue(int position) {
+		return this.transposedValues[position];
+	}
+
+	/**
+	 * Get the sum of all cells in a row.
+	 *
+	 * @param row The row index.
+	 * @return The row total.
+	 */
+	double rowTotal(int row) {
+		return this.rowTotals[row];
+	}
+
+	/**
+	 * Get the sum of all cells in a column.
+	 *
+	 * @param column The column index.
+	 * @return The column total.
+	 */
+	double columnTotal(int column) {
+		return this.columnTotals[column];
+	}
+}
@@ -0,0 +1,398 @@
+package dna.export;
+
+import dna.Dna;
+import logger.LogEvent;
+import logger.Logger;
+import model.Statement;
+import model.StatementType;
+import model.TableDocument;
+import sql.ConnectionProfile;
+import sql.Sql;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A process-wide, read-only snapshot of all statements of a statement type,
+ * together with the meta-data of their documents. Loading the statements from
+ * the database is the slowest part of most exports, especially over the
+ * network, so each {@link Exporter} takes its statements from the snapshot
+ * and applies the date range and the document-level filters in memory.
+ *
+ * A snapshot remains valid as long as the version stamp of its statement type
+ * in the database (see {@link Sql#getStatementTypeVersion(int)}) and the data
+ * stamp of the database (see {@link Sql#getDataStamp()}) are unchanged. The
+ * write operations of {@link Sql} increase the version stamp, and the data
+ * stamp also reveals changes by other sessions, so the snapshot is loaded
+ * again on the next request after statements, documents, entities, or
+ * variables have been changed in this or another session. The statements in a snapshot are shared between
+ * exporters and must not be modified.
+ *
+ * Optionally, the snapshots are also saved in a snapshot file (see
+ * {@link StatementSnapshotFile}) next to an SQLite database, or in the
+ * temporary directory for MySQL and PostgreSQL databases. When the snapshot
+ * of a statement type is requested for the first time, it is read from the
+ * file if the data stamp in the file matches the database (see
+ * {@link Sql#getDataStamp()}). Otherwise, the statements are loaded from the
+ * database as usual, and the file is rebuilt in a background thread. The
+ * documents in a snapshot that was read from a file have no coder.
+ */
+public final class StatementSnapshot {
+	private static final ConcurrentHashMap<Integer, StatementSnapshot> snapshots = new ConcurrentHashMap<Integer, StatementSnapshot>();
+	private static final Set<String> pendingRebuilds = ConcurrentHashMap.newKeySet();
+	private static final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "Statement snapshot file");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private static volatile boolean persistent = Boolean.getBoolean("dna.persistentSnapshots");
+
+	private final Sql sql;
+	private final long version;
+	private final String stamp;
+	private final ArrayList<TableDocument> documents;
+	private final HashMap<Integer, Integer> docMap;
+	private final ArrayList<ExportStatement> statements;
+	private final long[] seconds;
+
+	private StatementSnapshot(Sql sql, long version, String stamp, ArrayList<TableDocument> documents, HashMap<Integer, Integer> docMap,
+			ArrayList<ExportStatement> statements) {
+		this.sql = sql;
+		this.version = version;
+		this.stamp = stamp;
+		this.documents = documents;
+		this.docMap = docMap;
+		this.statements = statements;
+		this.seconds = new long[statements.size()];
+		for (int i = 0; i < statements.size(); i++) {
+			this.seconds[i] = statements.get(i).getDateTime().toEpochSecond(ZoneOffset.UTC);
+		}
+	}
+
+	/**
+	 * Get the snapshot for a statement type, and load it from the database if
+	 * there is no valid snapshot yet.
+	 *
+	 * @param statementTypeId ID of the statement type.
+	 * @return The snapshot, or {@code null} if the statements could not be
+	 *   loaded.
+	 */
+	static StatementSnapshot get(int statementTypeId) {
+		Sql sql = Dna.sql;
+		long version = sql.getStatementTypeVersion(statementTypeId); // before loading, so that concurrent changes invalidate the snapshot
+		String stamp = sql.getDataStamp(); // reveals changes by other sessions
+		StatementSnapshot snapshot = snapshots.get(statementTypeId);
+		if (snapshot != null && snapshot.isValid(sql, version, stamp)) {
+			return snapshot;
+		}
+		synchronized (StatementSnapshot.class) {
+			snapshot = snapshots.get(statementTypeId);
+			if (snapshot != null && snapshot.isValid(sql, version, stamp)) {
+				return snapshot; // loaded by another thread in the meantime
+			}
+			snapshot = load(sql, version, stamp, statementTypeId);
+			if (snapshot == null) {
+				snapshots.remove(statementTypeId);
+			} else {
+				snapshots.put(statementTypeId, snapshot);
+			}
+			return snapshot;
+		}
+	}
+
+	/**
+	 * Check if the snapshot can be re-used for a database in its current
+	 * state. A snapshot is never re-used if the data stamp is unknown.
+	 *
+	 * @param sql The database.
+	 * @param version The current version stamp of the statement type.
+	 * @param stamp The current data stamp of the database, or {@code null}.
+	 * @return {@code true} if the snapshot is up to date.
+	 */
+	private boolean isValid(Sql sql, long version, String stamp) {
+		return this.sql == sql && this.version == version && stamp != null && stamp.equals(this.stamp);
+	}
+
+	/**
+	 * Load all statements of a statement type and the meta-data of their
+	 * documents from the snapshot file, if enabled and up to date, or else
+	 * from the database.
+	 */
+	private static StatementSnapshot load(Sql sql, long version, String stamp, int statementTypeId) {
+		if (persistent) {
+			String filename = getFilename(sql);
+			long modifications = sql.getModificationCount();
+			if (filename != null && stamp != null) {
+				if (stamp.equals(StatementSnapshotFile.readStamp(filename))) {
+					try {
+						return loadFile(sql, version, stamp, statementTypeId, modifications, StatementSnapshotFile.read(filename));
+					} catch (IOException e) {
+						LogEvent l = new LogEvent(Logger.WARNING,
+								"Statement snapshot file could not be read.",
+								"Tried to read the statements from the snapshot file \"" + filename + "\", but the file could not be read. Loading the statements from the database instead and rebuilding the file.",
+								e);
+						Dna.logger.log(l);
+					}
+				}
+				rebuild(sql, filename);
+			}
+		}
+
+		ArrayList<TableDocument> documents = sql.getTableDocuments(new int[0]);
+		if (documents == null) {
+			return null;
+		}
+		HashMap<Integer, Integer> docMap = sortDocuments(documents);
+		ArrayList<Statement> statements = sql.getStatements(new int[0], statementTypeId, null, null, null, false, null, false, null, false, null, false);
+		if (statements == null) {
+			return null;
+		}
+		return create(sql, version, stamp, documents, docMap, statements);
+	}
+
+	/**
+	 * Create snapshots for all statement types in a snapshot file. The
+	 * snapshots of the other statement types are only kept if the data have
+	 * not been changed in this session since the data stamp was checked.
+	 *
+	 * @return The snapshot of the requested statement type.
+	 */
+	private static StatementSnapshot loadFile(Sql sql, long version, String stamp, int statementTypeId, long modifications, StatementSnapshotFile.Contents contents) {
+		HashMap<Integer, Integer> docMap = sortDocuments(contents.documents);
+		HashMap<Integer, StatementSnapshot> others = new HashMap<Integer, StatementSnapshot>();
+		for (Integer id : contents.statements.keySet()) {
+			if (id != statementTypeId) {
+				others.put(id, create(sql, sql.getStatementTypeVersion(id), stamp, contents.documents, docMap, contents.statements.get(id)));
+			}
+		}
+		if (sql.getModificationCount() == modifications) {
+			snapshots.putAll(others);
+		}
+		ArrayList<Statement> statements = contents.statements.get(statementTypeId);
+		return create(sql, version, stamp, contents.documents, docMap, statements == null ? new ArrayList<Statement>() : statements);
+	}
+
+	/**
+	 * Sort documents by date and time and index them by ID.
+	 *
+	 * @param documents The documents, which are sorted in place.
+	 * @return A map from document IDs to their indices.
+	 */
+	private static HashMap<Integer, Integer> sortDocuments(ArrayList<TableDocument> documents) {
+		Collections.sort(documents);
+		HashMap<Integer, Integer> docMap = new HashMap<Integer, Integer>();
+		for (int i = 0; i < documents.size(); i++) {
+			docMap.put(documents.get(i).getId(), i);
+		}
+		return docMap;
+	}
+
+	private static StatementSnapshot create(Sql sql, long version, String stamp, ArrayList<TableDocument> documents, HashMap<Integer, Integer> docMap,
+			ArrayList<Statement> statements) {
+		ArrayList<ExportStatement> exportStatements = new ArrayList<ExportStatement>(statements.size());
+		for (Statement s : statements) {
+			TableDocument d = documents.get(docMap.get(s.getDocumentId()));
+			exportStatements.add(new ExportStatement(s, d.getTitle(), d.getAuthor(), d.getSource(), d.getSection(), d.getType()));
+		}
+		return new StatementSnapshot(sql, version, stamp, documents, docMap, exportStatements);
+	}
+
+	/**
+	 * Rebuild the snapshot file of a database in the background, unless a
+	 * rebuild is already pending. The data stamp is determined before the data
+	 * are read, so changes during the rebuild make the file outdated again.
+	 *
+	 * @param sql The database.
+	 * @param filename The snapshot file.
+	 */
+	private static void rebuild(Sql sql, String filename) {
+		if (!pendingRebuilds.add(filename)) {
+			return;
+		}
+		rebuilder.execute(() -> {
+			try {
+				if (sql != Dna.sql) { // the statements are always loaded from the current database
+					return;
+				}
+				String stamp = sql.getDataStamp();
+				ArrayList<TableDocument> documents = sql.getTableDocuments(new int[0]);
+				if (stamp == null || documents == null) {
+					return;
+				}
+				LinkedHashMap<Integer, ArrayList<Statement>> statements = new LinkedHashMap<Integer, ArrayList<Statement>>();
+				for (StatementType statementType : sql.getStatementTypes()) {
+					ArrayList<Statement> list = sql.getStatements(new int[0], statementType.getId(), null, null, null, false, null, false, null, false, null, false);
+					if (list == null) {
+						return;
+					}
+					statements.put(statementType.getId(), list);
+				}
+				StatementSnapshotFile.write(filename, stamp, documents, statements);
+				LogEvent l = new LogEvent(Logger.MESSAGE,
+						"Statement snapshot file was saved.",
+						"The statements of the database were saved to the snapshot file \"" + filename + "\" for faster loading.");
+				Dna.logger.log(l);
+			} catch (IOException e) {
+				LogEvent l = new LogEvent(Logger.WARNING,
+						"Statement snapshot file could not be saved.",
+						"Tried to save the statements of the database to the snapshot file \"" + filename + "\", but the file could not be written.",
+						e);
+				Dna.logger.log(l);
+			} finally {
+				pendingRebuilds.remove(filename);
+			}
+		});
+	}
+
+	/**
+	 * Get the name of the snapshot file of a database. For SQLite databases,
+	 * this is the database file name with the extension {@code ".snapshot"}
+	 * appended. For other databases, the file is saved in the directory
+	 * {@code dna-snapshots} in the temporary directory.
+	 *
+	 * @param sql The database.
+	 * @return The file name, or {@code null} if there is no connection.
+	 */
+	static String getFilename(Sql sql) {
+		ConnectionProfile cp = sql.getConnectionProfile();
+		if (cp == null) {
+			return null;
+		}
+		if (cp.getType().equals("sqlite")) {
+			return cp.getUrl() + ".snapshot";
+		}
+		File directory = new File(System.getProperty("java.io.tmpdir"), "dna-snapshots");
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			return null;
+		}
+		String name = (cp.getType() + "_" + cp.getUrl() + "_" + cp.getPort() + "_" + cp.getDatabaseName()).replaceAll("[^A-Za-z0-9._-]", "_");
+		return new File(directory, name + ".snapshot").getPath();
+	}
+
+	/**
+	 * Switch snapshot files on or off. They are off by default, unless the
+	 * system property {@code dna.persistentSnapshots} is set to {@code true}.
+	 *
+	 * @param persistent Should the snapshots be saved in and read from
+	 *   snapshot files?
+	 */
+	public static void setPersistent(boolean persistent) {
+		StatementSnapshot.persistent = persistent;
+	}
+
+	/**
+	 * Remove all snapshots, for example to free memory.
+	 */
+	public static void clear() {
+		snapshots.clear();
+	}
+
+	/**
+	 * Get all documents, sorted by date and time.
+	 *
+	 * @return The documents, which are shared with the snapshot.
+	 */
+	ArrayList<TableDocument> getDocuments() {
+		return this.documents;
+	}
+
+	/**
+	 * Get a map from document IDs to their indices in {@link #getDocuments()}.
+	 *
+	 * @return The document map, which is shared with the snapshot.
+	 */
+	HashMap<Integer, Integer> getDocumentMap() {
+		return this.docMap;
+	}
+
+	/**
+	 * Select the statements within a date range and with the given document
+	 * meta-data. The statements are sorted by date and time, as when they are
+	 * retrieved from the database. The selection matches the one of
+	 * {@link Sql#getStatements(int[], int, LocalDateTime, LocalDateTime,
+	 * ArrayList, boolean, ArrayList, boolean, ArrayList, boolean, ArrayList,
+	 * boolean)}.
+	 *
+	 * @param startDateTime The earliest date and time, or {@code null}.
+	 * @param stopDateTime The latest date and time, or {@code null}.
+	 * @param authors Authors to exclude or include, or {@code null}.
+	 * @param authorInclude Include the authors rather than exclude them?
+	 * @param sources Sources to exclude or include, or {@code null}.
+	 * @param sourceInclude Include the sources rather than exclude them?
+	 * @param sections Sections to exclude or include, or {@code null}.
+	 * @param sectionInclude Include the sections rather than exclude them?
+	 * @param types Types to exclude or include, or {@code null}.
+	 * @param typeInclude Include the types rather than exclude them?
+	 * @return A new array list with the selected statements, which are shared
+	 *   with the snapshot.
+	 */
+	ArrayList<ExportStatement> select(LocalDateTime startDateTime, LocalDateTime stopDateTime,
+			ArrayList<String> authors, boolean authorInclude, ArrayList<String> sources, boolean sourceInclude,
+			ArrayList<String> sections, boolean sectionInclude, ArrayList<String> types, boolean typeInclude) {
+		int from = startDateTime == null ? 0 : lowerBound(startDateTime.toEpochSecond(ZoneOffset.UTC));
+		int to = stopDateTime == null ? this.seconds.length : lowerBound(stopDateTime.toEpochSecond(ZoneOffset.UTC) + 1);
+		DocumentFilter authorFilter = new DocumentFilter(authors, authorInclude);
+		DocumentFilter sourceFilter = new DocumentFilter(sources, sourceInclude);
+		DocumentFilter sectionFilter = new DocumentFilter(sections, sectionInclude);
+		DocumentFilter typeFilter = new DocumentFilter(types, typeInclude);
+		ArrayList<ExportStatement> selected = new ArrayList<ExportStatement>(Math.max(0, to - from));
+		for (int i = from; i < to; i++) {
+			ExportStatement s = this.statements.get(i);
+			if (authorFilter.accept(s.getAuthor()) && sourceFilter.accept(s.getSource())
+					&& sectionFilter.accept(s.getSection()) && typeFilter.accept(s.getType())) {
+				selected.add(s);
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * Find the index of the first statement at or after a point in time.
+	 *
+	 * @param second The point in time in epoch seconds.
+	 * @return The index.
+	 */
+	private int lowerBound(long second) {
+		int low = 0, high = this.seconds.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (this.seconds[mid] < second) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * A document-level filter, which either excludes or includes a set of values.
+	 */
+	private static final class DocumentFilter {
+		private final HashSet<String> values;
+		private final boolean include;
+
+		private DocumentFilter(ArrayList<String> values, boolean include) {
+			this.values = values == null || values.isEmpty() ? null : new HashSet<String>(values);
+			this.include = include;
+		}
+
+		private boolean accept(String value) {
+			if (this.values == null) {
+				return true;
+			}
+			return this.values.contains(value) == this.include;
+		}
+	}
+}
@@ -0,0 +1,399 @@
+package dna.export;
+
+import model.Color;
+import model.Entity;
+import model.Statement;
+import model.TableDocument;
+import model.Value;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes statement snapshot files. A snapshot file contains all
+ * documents and the statements of all statement types of a database, so the
+ * statements can be loaded with a single sequential read instead of the
+ * joins in {@link sql.Sql#getStatements}. The file starts with the data stamp
+ * of the database (see {@link sql.Sql#getDataStamp()}), which is compared to
+ * the current stamp before the rest of the file is read.
+ *
+ * All strings are stored once in a string dictionary, and documents, statement
+ * types, coders, variables, and entities are stored once in tables. The
+ * statements refer to them by ID and are stored column by column, followed by
+ * the values of all statements. Entities are shared by all statements that
+ * refer to them.
+ */
+final class StatementSnapshotFile {
+	private static final byte[] MAGIC = "DNASNAP\0".getBytes(StandardCharsets.US_ASCII);
+	private static final int VERSION = 1;
+
+	private StatementSnapshotFile() {
+	}
+
+	/**
+	 * The contents of a snapshot file.
+	 */
+	static final class Contents {
+		final String stamp;
+		final ArrayList<TableDocument> documents;
+		final LinkedHashMap<Integer, ArrayList<Statement>> statements;
+
+		Contents(String stamp, ArrayList<TableDocument> documents, LinkedHashMap<Integer, ArrayList<Statement>> statements) {
+			this.stamp = stamp;
+			this.documents = documents;
+			this.statements = statements;
+		}
+	}
+
+	/**
+	 * Read the data stamp at the beginning of a snapshot file without reading
+	 * the rest of the file.
+	 *
+	 * @param filename The snapshot file.
+	 * @return The data stamp, or {@code null} if the file does not exist or is
+	 *   not a snapshot file of the current format.
+	 */
+	static String readStamp(String filename) {
+		if (!Files.isRegularFile(Paths.get(filename))) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new FileInputStream(filename))) {
+			byte[] magic = new byte[MAGIC.length];
+			in.readFully(magic);
+			if (!Arrays.equals(magic, MAGIC) || in.readInt() != VERSION) {
+				return null;
+			}
+			return in.readUTF();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Read a snapshot file.
+	 *
+	 * @param filename The snapshot file.
+	 * @return The contents of the file.
+	 * @throws IOException If the file cannot be read or is not a snapshot file
+	 *   of the current format.
+	 */
+	static Contents read(String filename) throws IOException {
+		ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(Paths.get(filename)));
+		try {
+			byte[] magic = new byte[MAGIC.length];
+			b.get(magic);
+			if (!Arrays.equals(magic, MAGIC) || b.getInt() != VERSION) {
+				throw new IOException("Not a statement snapshot file: " + filename);
+			}
+			int stampLength = b.getShort() & 0xFFFF; // length prefix of DataOutputStream.writeUTF
+			byte[] stampBytes = new byte[stampLength];
+			b.get(stampBytes);
+			String stamp = new String(stampBytes, StandardCharsets.UTF_8); // the stamp is plain ASCII
+
+			// string dictionary
+			String[] strings = new String[b.getInt()];
+			for (int i = 0; i < strings.length; i++) {
+				byte[] bytes = new byte[b.getInt()];
+				b.get(bytes);
+				strings[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			// documents
+			ArrayList<TableDocument> documents = new ArrayList<TableDocument>();
+			HashMap<Integer, LocalDateTime> documentDates = new HashMap<Integer, LocalDateTime>();
+			int numDocuments = b.getInt();
+			for (int i = 0; i < numDocuments; i++) {
+				int id = b.getInt();
+				LocalDateTime dateTime = LocalDateTime.ofEpochSecond(b.getLong(), 0, ZoneOffset.UTC);
+				String title = string(strings, b.getInt());
+				String author = string(strings, b.getInt());
+				String source = string(strings, b.getInt());
+				String section = string(strings, b.getInt());
+				String type = string(strings, b.getInt());
+				String notes = string(strings, b.getInt());
+				int frequency = b.getInt();
+				documents.add(new TableDocument(id, title, frequency, null, author, source, section, type, notes, dateTime));
+				documentDates.put(id, dateTime);
+			}
+
+			// statement types, coders, and variables
+			HashMap<Integer, String> typeLabels = new HashMap<Integer, String>();
+			HashMap<Integer, Color> typeColors = new HashMap<Integer, Color>();
+			int numTypes = b.getInt();
+			for (int i = 0; i < numTypes; i++) {
+				int id = b.getInt();
+				typeLabels.put(id, string(strings, b.getInt()));
+				typeColors.put(id, color(b.getInt()));
+			}
+			HashMap<Integer, String> coderNames = new HashMap<Integer, String>();
+			HashMap<Integer, Color> coderColors = new HashMap<Integer, Color>();
+			int numCoders = b.getInt();
+			for (int i = 0; i < numCoders; i++) {
+				int id = b.getInt();
+				coderNames.put(id, string(strings, b.getInt()));
+				coderColors.put(id, color(b.getInt()));
+			}
+			HashMap<Integer, String> variableNames = new HashMap<Integer, String>();
+			HashMap<Integer, String> variableDataTypes = new HashMap<Integer, String>();
+			int numVariables = b.getInt();
+			for (int i = 0; i < numVariables; i++) {
+				int id = b.getInt();
+				variableNames.put(id, string(strings, b.getInt()));
+				variableDataTypes.put(id, string(strings, b.getInt()));
+			}
+
+			// entities with attributes
+			HashMap<Integer, Entity> entities = new HashMap<Integer, Entity>();
+			int numEntities = b.getInt();
+			for (int i = 0; i < numEntities; i++) {
+				int id = b.getInt();
+				int variableId = b.getInt();
+				String value = string(strings, b.getInt());
+				Color color = color(b.getInt());
+				int childOf = b.getInt();
+				int numAttributes = b.getInt();
+				HashMap<String, String> attributes = null;
+				if (numAttributes >= 0) {
+					attributes = new HashMap<String, String>();
+					for (int j = 0; j < numAttributes; j++) {
+						attributes.put(string(strings, b.getInt()), string(strings, b.getInt()));
+					}
+				}
+				entities.put(id, new Entity(id, variableId, value, color, childOf, true, attributes));
+			}
+
+			// statement columns
+			int n = b.getInt();
+			int[][] columns = new int[8][n];
+			for (int c = 0; c < columns.length; c++) {
+				b.asIntBuffer().get(columns[c]);
+				b.position(b.position() + 4 * n);
+			}
+			int[] ids = columns[0], typeIds = columns[1], starts = columns[2], stops = columns[3], coderIds = columns[4],
+					documentIds = columns[5], texts = columns[6], numValues = columns[7];
+
+			// values of all statements in the same order
+			LinkedHashMap<Integer, ArrayList<Statement>> statements = new LinkedHashMap<Integer, ArrayList<Statement>>();
+			for (int i = 0; i < n; i++) {
+				ArrayList<Value> values = new ArrayList<Value>(numValues[i]);
+				for (int j = 0; j < numValues[i]; j++) {
+					int variableId = b.getInt();
+					int payload = b.getInt();
+					String dataType = variableDataTypes.get(variableId);
+					Object value;
+					if (dataType.equals("short text")) {
+						value = entities.get(payload);
+					} else if (dataType.equals("long text")) {
+						value = string(strings, payload);
+					} else {
+						value = payload;
+					}
+					values.add(new Value(variableId, variableNames.get(variableId), dataType, value));
+				}
+				Statement s = new Statement(ids[i], starts[i], stops[i], typeIds[i], typeLabels.get(typeIds[i]),
+						typeColors.get(typeIds[i]), coderIds[i], coderNames.get(coderIds[i]), coderColors.get(coderIds[i]),
+						values, documentIds[i], string(strings, texts[i]), documentDates.get(documentIds[i]));
+				statements.computeIfAbsent(typeIds[i], k -> new ArrayList<Statement>()).add(s);
+			}
+			return new Contents(stamp, documents, statements);
+		} catch (RuntimeException e) { // truncated or corrupt file
+			throw new IOException("Corrupt statement snapshot file: " + filename, e);
+		}
+	}
+
+	/**
+	 * Write a snapshot file. The file is first written under a temporary name
+	 * and then moved into place, so readers never see a partly written file.
+	 *
+	 * @param filename The snapshot file.
+	 * @param stamp The data stamp of the database at the time the data were
+	 *   read.
+	 * @param documents All documents.
+	 * @param statements The statements of each statement type, by statement
+	 *   type ID, each sorted by date and time.
+	 * @throws IOException If the file cannot be written.
+	 */
+	static void write(String filename, String stamp, ArrayList<TableDocument> documents, Map<Integer, ArrayList<Statement>> statements) throws IOException {
+		HashMap<String, Integer> dictionary = new HashMap<String, Integer>();
+		ArrayList<String> strings = new ArrayList<String>();
+		LinkedHashMap<Integer, Statement> types = new LinkedHashMap<Integer, Statement>(); // first statement of each type, for the label and color
+		LinkedHashMap<Integer, Statement> coders = new LinkedHashMap<Integer, Statement>(); // first statement of each coder, for the name and color
+		LinkedHashMap<Integer, Value> variables = new LinkedHashMap<Integer, Value>();
+		LinkedHashMap<Integer, Entity> entities = new LinkedHashMap<Integer, Entity>();
+		int n = 0;
+		for (ArrayList<Statement> list : statements.values()) {
+			for (Statement s : list) {
+				n++;
+				types.putIfAbsent(s.getStatementTypeId(), s);
+				coders.putIfAbsent(s.getCoderId(), s);
+				for (Value v : s.getValues()) {
+					variables.putIfAbsent(v.getVariableId(), v);
+					if (v.getValue() instanceof Entity) {
+						entities.putIfAbsent(((Entity) v.getValue()).getId(), (Entity) v.getValue());
+					}
+				}
+			}
+		}
+
+		Path target = Paths.get(filename);
+		Path temp = Paths.get(filename + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp.toFile()), 1 << 16))) {
+			// the string dictionary is written first but filled while encoding the tables, so encode the tables into a buffer
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+			DataOutputStream body = new DataOutputStream(bytes);
+
+			body.writeInt(documents.size());
+			for (TableDocument d : documents) {
+				body.writeInt(d.getId());
+				body.writeLong(d.getDateTime().toEpochSecond(ZoneOffset.UTC));
+				body.writeInt(index(dictionary, strings, d.getTitle()));
+				body.writeInt(index(dictionary, strings, d.getAuthor()));
+				body.writeInt(index(dictionary, strings, d.getSource()));
+				body.writeInt(index(dictionary, strings, d.getSection()));
+				body.writeInt(index(dictionary, strings, d.getType()));
+				body.writeInt(index(dictionary, strings, d.getNotes()));
+				body.writeInt(d.getFrequency());
+			}
+			body.writeInt(types.size());
+			for (Statement s : types.values()) {
+				body.writeInt(s.getStatementTypeId());
+				body.writeInt(index(dictionary, strings, s.getStatementTypeLabel()));
+				body.writeInt(rgb(s.getStatementTypeColor()));
+			}
+			body.writeInt(coders.size());
+			for (Statement s : coders.values()) {
+				body.writeInt(s.getCoderId());
+				body.writeInt(index(dictionary, strings, s.getCoderName()));
+				body.writeInt(rgb(s.getCoderColor()));
+			}
+			body.writeInt(variables.size());
+			for (Value v : variables.values()) {
+				body.writeInt(v.getVariableId());
+				body.writeInt(index(dictionary, strings, v.getKey()));
+				body.writeInt(index(dictionary, strings, v.getDataType()));
+			}
+			body.writeInt(entities.size());
+			for (Entity e : entities.values()) {
+				body.writeInt(e.getId());
+				body.writeInt(e.getVariableId());
+				body.writeInt(index(dictionary, strings, e.getValue()));
+				body.writeInt(rgb(e.getColor()));
+				body.writeInt(e.getChildOf());
+				HashMap<String, String> attributes = e.getAttributeValues();
+				if (attributes == null) {
+					body.writeInt(-1);
+				} else {
+					body.writeInt(attributes.size());
+					for (Map.Entry<String, String> a : attributes.entrySet()) {
+						body.writeInt(index(dictionary, strings, a.getKey()));
+						body.writeInt(index(dictionary, strings, a.getValue()));
+					}
+				}
+			}
+
+			// statement columns
+			body.writeInt(n);
+			for (int c = 0; c < 8; c++) {
+				for (ArrayList<Statement> list : statements.values()) {
+					for (Statement s : list) {
+						int value;
+						switch (c) {
+							case 0: value = s.getId(); break;
+							case 1: value = s.getStatementTypeId(); break;
+							case 2: value = s.getStart(); break;
+							case 3: value = s.getStop(); break;
+							case 4: value = s.getCoderId(); break;
+							case 5: value = s.getDocumentId(); break;
+							case 6: value = index(dictionary, strings, s.getText()); break;
+							default: value = s.getValues().size();
+						}
+						body.writeInt(value);
+					}
+				}
+			}
+
+			// values
+			for (ArrayList<Statement> list : statements.values()) {
+				for (Statement s : list) {
+					for (Value v : s.getValues()) {
+						body.writeInt(v.getVariableId());
+						Object value = v.getValue();
+						if (value instanceof Entity) {
+							body.writeInt(((Entity) value).getId());
+						} else if (value instanceof String) {
+							body.writeInt(index(dictionary, strings, (String) value));
+						} else {
+							body.writeInt(value == null ? 0 : (Integer) value);
+						}
+					}
+				}
+			}
+			body.flush();
+
+			out.write(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(stamp);
+			out.writeInt(strings.size());
+			for (String s : strings) {
+				byte[] b = s.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(b.length);
+				out.write(b);
+			}
+			bytes.writeTo(out);
+		} catch (IOException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+		try {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static int index(HashMap<String, Integer> dictionary, ArrayList<String> strings, String s) {
+		if (s == null) {
+			return -1;
+		}
+		Integer index = dictionary.get(s);
+		if (index == null) {
+			index = strings.size();
+			dictionary.put(s, index);
+			strings.add(s);
+		}
+		return index;
+	}
+
+	private static String string(String[] strings, int index) {
+		return index < 0 ? null : strings[index];
+	}
+
+	private static int rgb(Color color) {
+		if (color == null) {
+			return 0;
+		}
+		return (color.getRed() << 16) | (color.getGreen() << 8) | color.getBlue();
+	}
+
+	private static Color color(int rgb) {
+		return new Color((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+	}
+}
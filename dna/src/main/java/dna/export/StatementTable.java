@@ -0,0 +1,370 @@
+package dna.export;
+
+import dna.Dna;
+import logger.LogEvent;
+import logger.Logger;
+import model.Entity;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * A columnar, dictionary-encoded representation of the statements loaded by
+ * the {@link Exporter}. Every statement is one row of the table. The statement
+ * ID, statement type ID, coder ID, document ID, and date/time (in seconds
+ * since 1 January 1970) are stored as primitive columns. Each short text and
+ * long text variable and each document-level variable ({@code "author"},
+ * {@code "source"}, {@code "section"}, {@code "type"}, {@code "title"}, and
+ * {@code "id"}) is stored as an int column of codes pointing into a
+ * dictionary of unique labels. Boolean and integer variables are stored as
+ * int columns of raw values without a dictionary. Missing boolean and integer
+ * values are stored as the default values that existing statements receive
+ * when a variable is added to a statement type ({@code 1} and {@code 0}), and
+ * missing text values as the empty label.
+ *
+ * The dictionaries are sorted in natural String order, which means that the
+ * order of codes is the same as the alphabetical order of labels. This permits
+ * the different export stages to compare, sort, and index values using ints
+ * only and to translate codes back into labels when the results are created.
+ */
+class StatementTable {
+	private static final String[] DOCUMENT_VARIABLES = new String[] {"author", "source", "section", "type", "title", "id"};
+
+	private final int size;
+	private final int[] statementIds, statementTypeIds, coderIds, documentIds;
+	private final long[] times;
+	private final HashMap<Integer, Integer> rowMap;
+	private final HashMap<String, int[]> statementColumns, documentColumns;
+	private final HashMap<String, String[]> statementDictionaries, documentDictionaries;
+
+	/**
+	 * Create a statement table from a list of export statements.
+	 *
+	 * @param statements The export statements, usually the original
+	 *   statements loaded from the database.
+	 * @param dataTypes A map of statement-level variable names and their data
+	 *   types, as created by {@link Exporter#loadData()}.
+	 */
+	StatementTable(ArrayList<ExportStatement> statements, HashMap<String, String> dataTypes) {
+		this.size = statements.size();
+		this.statementIds = new int[size];
+		this.statementTypeIds = new int[size];
+		this.coderIds = new int[size];
+		this.documentIds = new int[size];
+		this.times = new long[size];
+		this.rowMap = new HashMap<Integer, Integer>(size * 2);
+		for (int i = 0; i < size; i++) {
+			ExportStatement s = statements.get(i);
+			this.statementIds[i] = s.getId();
+			this.statementTypeIds[i] = s.getStatementTypeId();
+			this.coderIds[i] = s.getCoderId();
+			this.documentIds[i] = s.getDocumentId();
+			this.times[i] = s.getDateTime().toEpochSecond(ZoneOffset.UTC);
+			this.rowMap.put(s.getId(), i);
+		}
+
+		// statement-level variables
+		this.statementColumns = new HashMap<String, int[]>();
+		this.statementDictionaries = new HashMap<String, String[]>();
+		for (String key : dataTypes.keySet()) {
+			String dataType = dataTypes.get(key);
+			if (dataType.equals("boolean") || dataType.equals("integer")) {
+				int missingValue = dataType.equals("boolean") ? 1 : 0; // the defaults of sql.Sql#addVariable
+				int numMissing = 0;
+				int[] column = new int[size];
+				for (int i = 0; i < size; i++) {
+					Object o = statements.get(i).get(key);
+					if (o == null) {
+						column[i] = missingValue;
+						numMissing++;
+					} else {
+						column[i] = (int) o;
+					}
+				}
+				if (numMissing > 0) {
+					LogEvent l = new LogEvent(Logger.WARNING,
+							"Exporter: Missing values of variable \"" + key + "\".",
+							numMissing + " statement(s) have no value for the " + dataType + " variable \"" + key + "\". The value " + missingValue + " is used for these statements, as for statements that existed when the variable was added.");
+					Dna.logger.log(l);
+				}
+				this.statementColumns.put(key, column);
+			} else {
+				String[] labels = new String[size];
+				for (int i = 0; i < size; i++) {
+					Object o = statements.get(i).get(key);
+					if (o == null) {
+						labels[i] = "";
+					} else if (dataType.equals("short text")) {
+						labels[i] = ((Entity) o).getValue();
+					} else {
+						labels[i] = o.toString();
+					}
+				}
+				encode(key, labels, this.statementColumns, this.statementDictionaries);
+			}
+		}
+
+		// document-level variables
+		this.documentColumns = new HashMap<String, int[]>();
+		this.documentDictionaries = new HashMap<String, String[]>();
+		for (String key : DOCUMENT_VARIABLES) {
+			String[] labels = new String[size];
+			for (int i = 0; i < size; i++) {
+				ExportStatement s = statements.get(i);
+				String label = null;
+				if (key.equals("author")) {
+					label = s.getAuthor();
+				} else if (key.equals("source")) {
+					label = s.getSource();
+				} else if (key.equals("section")) {
+					label = s.getSection();
+				} else if (key.equals("type")) {
+					label = s.getType();
+				} else if (key.equals("title")) {
+					label = s.getTitle();
+				} else if (key.equals("id")) {
+					label = s.getDocumentIdAsString();
+				}
+				labels[i] = label == null ? "" : label;
+			}
+			encode(key, labels, this.documentColumns, this.documentDictionaries);
+		}
+	}
+
+	/**
+	 * Dictionary-encode a column of labels and store the codes and the sorted
+	 * dictionary in the respective maps.
+	 *
+	 * @param key The variable name.
+	 * @param labels The labels of all rows.
+	 * @param columns The map in which the code column is stored.
+	 * @param dictionaries The map in which the dictionary is stored.
+	 */
+	private static void encode(String key, String[] labels, HashMap<String, int[]> columns, HashMap<String, String[]> dictionaries) {
+		String[] dictionary = new HashSet<String>(Arrays.asList(labels)).toArray(new String[0]);
+		Arrays.sort(dictionary);
+		HashMap<String, Integer> codeMap = new HashMap<String, Integer>(dictionary.length * 2);
+		for (int i = 0; i < dictionary.length; i++) {
+			codeMap.put(dictionary[i], i);
+		}
+		int[] column = new int[labels.length];
+		for (int i = 0; i < labels.length; i++) {
+			column[i] = codeMap.get(labels[i]);
+		}
+		columns.put(key, column);
+		dictionaries.put(key, dictionary);
+	}
+
+	/**
+	 * Get the number of rows (= statements) in the table.
+	 *
+	 * @return The number of rows.
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * Get the row index of an export statement.
+	 *
+	 * @param statement The export statement.
+	 * @return The row index, or {@code -1} if the statement is not in the table.
+	 */
+	int row(ExportStatement statement) {
+		Integer row = this.rowMap.get(statement.getId());
+		return row == null ? -1 : row;
+	}
+
+	/**
+	 * Get the row indices of a list of export statements.
+	 *
+	 * @param statements The export statements.
+	 * @return An int array with the row indices, in the same order.
+	 */
+	int[] rows(ArrayList<ExportStatement> statements) {
+		int[] rows = new int[statements.size()];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = row(statements.get(i));
+		}
+		return rows;
+	}
+
+	/**
+	 * Get the row indices of all rows in the table.
+	 *
+	 * @return An int array with all row indices.
+	 */
+	int[] allRows() {
+		int[] rows = new int[this.size];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = i;
+		}
+		return rows;
+	}
+
+	/**
+	 * Is the variable stored with a dictionary (i.e., short text, long text, or
+	 * a document-level variable) rather than as raw int values?
+	 *
+	 * @param variable The variable name.
+	 * @param documentLevel Is the variable a document-level variable?
+	 * @return {@code true} if the variable is dictionary-encoded.
+	 */
+	boolean isEncoded(String variable, boolean documentLevel) {
+		return documentLevel ? this.documentDictionaries.containsKey(variable) : this.statementDictionaries.containsKey(variable);
+	}
+
+	/**
+	 * Get the full column of codes (or raw values for boolean and integer
+	 * variables) of a variable.
+	 *
+	 * @param variable The variable name.
+	 * @param documentLevel Is the variable a document-level variable?
+	 * @return The column. Must not be modified.
+	 */
+	int[] column(String variable, boolean documentLevel) {
+		return documentLevel ? this.documentColumns.get(variable) : this.statementColumns.get(variable);
+	}
+
+	/**
+	 * Get the dictionary of a dictionary-encoded variable.
+	 *
+	 * @param variable The variable name.
+	 * @param documentLevel Is the variable a document-level variable?
+	 * @return The sorted array of unique labels, or {@code null} if the
+	 *   variable is not dictionary-encoded. Must not be modified.
+	 */
+	String[] dictionary(String variable, boolean documentLevel) {
+		return documentLevel ? this.documentDictionaries.get(variable) : this.statementDictionaries.get(variable);
+	}
+
+	/**
+	 * Get the codes (or raw values) of a variable for selected rows.
+	 *
+	 * @param rows The row indices.
+	 * @param variable The variable name.
+	 * @param documentLevel Is the variable a document-level variable?
+	 * @return An int array of codes, in the same order as the rows.
+	 */
+	int[] codes(int[] rows, String variable, boolean documentLevel) {
+		int[] column = column(variable, documentLevel);
+		int[] codes = new int[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			codes[i] = column[rows[i]];
+		}
+		return codes;
+	}
+
+	/**
+	 * Translate a code into a label.
+	 *
+	 * @param variable The variable name.
+	 * @param documentLevel Is the variable a document-level variable?
+	 * @param code The code (or raw value for boolean and integer variables).
+	 * @return The label.
+	 */
+	String label(String variable, boolean documentLevel, int code) {
+		String[] dictionary = dictionary(variable, documentLevel);
+		if (dictionary == null) {
+			return String.valueOf(code);
+		}
+		return dictionary[code];
+	}
+
+	/**
+	 * Translate a label into a code.
+	 *
+	 * @param variable The variable name.
+	 * @param documentLevel Is the variable a document-level variable?
+	 * @param label The label.
+	 * @return The code, or {@code -1} if the label is not in the dictionary.
+	 */
+	int lookup(String variable, boolean documentLevel, String label) {
+		String[] dictionary = dictionary(variable, documentLevel);
+		if (dictionary == null) {
+			return -1;
+		}
+		int code = Arrays.binarySearch(dictionary, label);
+		return code < 0 ? -1 : code;
+	}
+
+	/**
+	 * Get the distinct sorted labels of a variable across a set of rows. For
+	 * boolean and integer variables, the raw values are converted to Strings
+	 * and sorted as Strings.
+	 *
+	 * @param rows The row indices.
+	 * @param variable The variable name.
+	 * @param documentLevel Is the variable a document-level variable?
+	 * @return A sorted String array of unique labels.
+	 */
+	String[] distinctLabels(int[] rows, String variable, boolean documentLevel) {
+		int[] column = column(variable, documentLevel);
+		String[] dictionary = dictionary(variable, documentLevel);
+		if (dictionary != null) {
+			boolean[] used = new boolean[dictionary.length];
+			int count = 0;
+			for (int i = 0; i < rows.length; i++) {
+				if (!used[column[rows[i]]]) {
+					used[column[rows[i]]] = true;
+					count++;
+				}
+			}
+			String[] labels = new String[count];
+			int j = 0;
+			for (int i = 0; i < used.length; i++) {
+				if (used[i]) {
+					labels[j] = dictionary[i];
+					j++;
+				}
+			}
+			return labels;
+		}
+		return Arrays.stream(rows)
+				.map(r -> column[r])
+				.distinct()
+				.mapToObj(String::valueOf)
+				.sorted()
+				.toArray(String[]::new);
+	}
+
+	/**
+	 * Get the distinct sorted raw values of a boolean or integer variable
+	 * across all rows.
+	 *
+	 * @param variable The variable name.
+	 * @return A sorted int array of unique values.
+	 */
+	int[] distinctValues(String variable) {
+		return Arrays.stream(this.statementColumns.get(variable)).distinct().sorted().toArray();
+	}
+
+	int getStatementId(int row) {
+		return this.statementIds[row];
+	}
+
+	int getStatementTypeId(int row) {
+		return this.statementTypeIds[row];
+	}
+
+	int getCoderId(int row) {
+		return this.coderIds[row];
+	}
+
+	int getDocumentId(int row) {
+		return this.documentIds[row];
+	}
+
+	/**
+	 * Get the date/time of a row as seconds since 1 January 1970.
+	 *
+	 * @param row The row index.
+	 * @return Date/time in seconds since 1 January 1970.
+	 */
+	long getTime(int row) {
+		return this.times[row];
+	}
+}
@@ -0,0 +1,207 @@
+package dna.export;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The per-slice state of the last time window series that was computed with a
+ * given set of export settings (see {@link Exporter#getSettingsFingerprint()}).
+ * It permits re-exporting the series after new coding without recomputing the
+ * time windows that were not affected by the changes.
+ *
+ * The statements of a time window are a contiguous range of the filtered
+ * statements sorted by time. Each statement is summarized by a 64-bit content
+ * hash of its ID, its date and time, and the labels of the two variables and
+ * the qualifier, and each time window by the number and the sum of the hashes
+ * of the statements that contributed to it. If a time window of a new export
+ * has the same start, stop, number of statements, and hash sum as a time
+ * window of the previous export, it contains the same statements with the same
+ * values, and its matrix is reused. Time windows with added, changed, or
+ * deleted statements are recomputed.
+ *
+ * Consecutive time windows with the same statements share one matrix (see
+ * {@link MatrixRun}). The state saves them as a single run with the first
+ * time window, the number of steps, and the shared matrix, rather than one
+ * entry per time window, and finds time windows inside a run by their
+ * position.
+ *
+ * The matrices also depend on the context of the export, i.e., the qualifier
+ * levels across all statements and, if isolates are included, the node sets.
+ * This context is summarized by a separate hash, and the previous state is
+ * discarded if the context has changed. The matrices in the state are shared
+ * with the matrix results and must not be modified.
+ */
+public final class TimeWindowState {
+	private static final int MAX_STATES = 4;
+	private static final LinkedHashMap<String, TimeWindowState> states = new LinkedHashMap<String, TimeWindowState>(16, 0.75f, true);
+
+	private final long context;
+	private final TreeMap<Long, Run> runs = new TreeMap<Long, Run>();
+
+	/**
+	 * Create a new, empty state.
+	 *
+	 * @param context The hash of the context of the export.
+	 */
+	TimeWindowState(long context) {
+		this.context = context;
+	}
+
+	/**
+	 * Get the state of the last export with the given settings.
+	 *
+	 * @param key The settings fingerprint.
+	 * @param context The hash of the context of the new export.
+	 * @return The state, or {@code null} if there is none or if its context
+	 *   differs.
+	 */
+	static synchronized TimeWindowState get(String key, long context) {
+		TimeWindowState state = states.get(key);
+		return state == null || state.context != context ? null : state;
+	}
+
+	/**
+	 * Save the state of an export and remove the least recently used states
+	 * if there are too many.
+	 *
+	 * @param key The settings fingerprint.
+	 * @param state The state.
+	 */
+	static synchronized void put(String key, TimeWindowState state) {
+		states.put(key, state);
+		while (states.size() > MAX_STATES) {
+			states.remove(states.keySet().iterator().next());
+		}
+	}
+
+	/**
+	 * Remove all states, for example to free memory.
+	 */
+	public static synchronized void clear() {
+		states.clear();
+	}
+
+	/**
+	 * Add a run of consecutive time windows with the same statements to the
+	 * state. The time window moves by one time unit per step, as in the time
+	 * window series.
+	 *
+	 * @param time The mid-point of the first time window.
+	 * @param unit The time unit by which the time window moves per step.
+	 * @param addition The number of time units between the mid-point and the
+	 *   start or stop of the time window.
+	 * @param length The number of time windows in the run.
+	 * @param numStatements The number of statements in each window.
+	 * @param hashSum The sum of the content hashes of the statements.
+	 * @param matrix The matrix that is shared by all windows of the run.
+	 */
+	void add(LocalDateTime time, ChronoUnit unit, int addition, int length, int numStatements, long hashSum, Matrix matrix) {
+		Run run = new Run(time, unit, addition, length, numStatements, hashSum, matrix);
+		this.runs.put(run.start, run);
+	}
+
+	/**
+	 * Find the matrix of a time window with the same statements.
+	 *
+	 * @param start The start of the window in seconds since 1 January 1970.
+	 * @param stop The end of the window in seconds since 1 January 1970.
+	 * @param numStatements The number of statements in the window.
+	 * @param hashSum The sum of the content hashes of the statements.
+	 * @return The matrix, or {@code null} if the window was not part of the
+	 *   previous export or its statements differ.
+	 */
+	Matrix find(long start, long stop, int numStatements, long hashSum) {
+		Map.Entry<Long, Run> entry = this.runs.floorEntry(start); // the windows of the runs start in increasing order
+		if (entry == null) {
+			return null;
+		}
+		Run run = entry.getValue();
+		if (run.numStatements != numStatements || run.hashSum != hashSum || !run.contains(start, stop)) {
+			return null;
+		}
+		return run.matrix;
+	}
+
+	/**
+	 * Combine a hash with a value.
+	 *
+	 * @param hash The hash.
+	 * @param value The value.
+	 * @return The new hash.
+	 */
+	static long combine(long hash, long value) {
+		return mix(hash * 0x9e3779b97f4a7c15L + value);
+	}
+
+	/**
+	 * Compute a 64-bit hash of a String (FNV-1a over the characters). Unlike
+	 * {@link String#hashCode()}, short labels practically never collide.
+	 *
+	 * @param s The String, or {@code null}.
+	 * @return The hash.
+	 */
+	static long hash(String s) {
+		if (s == null) {
+			return 0L;
+		}
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < s.length(); i++) {
+			h = (h ^ s.charAt(i)) * 0x100000001b3L;
+		}
+		return mix(h);
+	}
+
+	private static long mix(long z) { // finalizer of the SplitMix64 generator
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static final class Run {
+		private final LocalDateTime time;
+		private final ChronoUnit unit;
+		private final int addition, length, numStatements;
+		private final long start, stop, hashSum;
+		private final Matrix matrix;
+
+		private Run(LocalDateTime time, ChronoUnit unit, int addition, int length, int numStatements, long hashSum, Matrix matrix) {
+			this.time = time;
+			this.unit = unit;
+			this.addition = addition;
+			this.length = length;
+			this.numStatements = numStatements;
+			this.hashSum = hashSum;
+			this.matrix = matrix;
+			this.start = time.minus(addition, unit).toEpochSecond(ZoneOffset.UTC);
+			this.stop = time.plus(addition, unit).toEpochSecond(ZoneOffset.UTC);
+		}
+
+		/**
+		 * Check if a time window is one of the steps of the run.
+		 *
+		 * @param start The start of the window in seconds since 1 January 1970.
+		 * @param stop The end of the window in seconds since 1 January 1970.
+		 * @return {@code true} if the window is part of the run.
+		 */
+		private boolean contains(long start, long stop) {
+			if (this.unit.compareTo(ChronoUnit.WEEKS) <= 0) { // fixed duration: compute the step from the offset
+				long seconds = this.unit.getDuration().getSeconds();
+				long offset = start - this.start;
+				return offset >= 0 && offset % seconds == 0 && offset / seconds < this.length && stop - start == this.stop - this.start;
+			}
+			LocalDateTime t = this.time; // months and years differ in length: step through the run as the time window series does
+			for (int i = 0; i < this.length; i++) {
+				long s = t.minus(this.addition, this.unit).toEpochSecond(ZoneOffset.UTC);
+				if (s >= start) {
+					return s == start && t.plus(this.addition, this.unit).toEpochSecond(ZoneOffset.UTC) == stop;
+				}
+				t = t.plus(1, this.unit);
+			}
+			return false;
+		}
+	}
+}
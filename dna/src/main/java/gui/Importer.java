@@ -1771,6 +1771,7 @@ class Importer extends JDialog {
 				}
 				
 				connDomestic.commit();
+				Dna.sql.dataChanged();
 				
 				// log the results
 				long elapsed = System.nanoTime(); // measure time again for calculating difference
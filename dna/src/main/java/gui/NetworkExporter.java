@@ -1221,6 +1221,7 @@ public class NetworkExporter extends JDialog {
 			
 			// step 3: create network data structure
 			progressMonitor.setNote("(3/4) Computing network...");
+			exporter.setMatrixSink(exporter.createFileSink()); // write each network to file as soon as it is computed
 			try {
 				exporter.computeResults();
 			} catch (Exception e) {
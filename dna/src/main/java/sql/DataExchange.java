@@ -570,6 +570,7 @@ public class DataExchange {
                 } else {
                     pb.setExtraMessage("Committing simulated changes...");
                     conn.commit();
+                    Dna.sql.dataChanged();
                 }
 
                 // print console report
@@ -1,5 +1,6 @@
 package sql;
 
+import java.io.File;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -10,9 +11,17 @@ import java.time.LocalTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 
@@ -61,6 +70,63 @@ public class Sql {
 	 * The active {@link model.Coder Coder} including permissions.
 	 */
 	private Coder activeCoder;
+
+	/**
+	 * Counts changes to the data in the database, i.e., to documents,
+	 * statements, entities, attributes, variables, and statement types, that
+	 * were made through this instance. Changing the connection profile also
+	 * counts as a change. Callers can compare the counter before and after
+	 * an operation to find out if previously loaded data are still valid.
+	 */
+	private final AtomicLong modificationCount = new AtomicLong(0);
+
+	/**
+	 * Counts changes that affect the statements of all statement types, for
+	 * example changes to documents or entities.
+	 */
+	private final AtomicLong sharedModificationCount = new AtomicLong(0);
+
+	/**
+	 * Counts changes that affect only the statements of a specific statement
+	 * type, by statement type ID.
+	 */
+	private final ConcurrentHashMap<Integer, AtomicLong> statementTypeModificationCounts = new ConcurrentHashMap<Integer, AtomicLong>();
+
+	/**
+	 * Has the data been changed since the data stamp token was last saved in
+	 * the SETTINGS table? The token is saved shortly after a change has been
+	 * committed (see {@link #DATA_STAMP_INTERVAL}), so other sessions see the
+	 * change, and at the latest when the data stamp is requested or the
+	 * database is closed.
+	 */
+	private final AtomicBoolean dataStampOutdated = new AtomicBoolean(false);
+
+	/**
+	 * Has a write of the data stamp token been scheduled that has not run yet?
+	 */
+	private final AtomicBoolean dataStampScheduled = new AtomicBoolean(false);
+
+	/**
+	 * The time in milliseconds when the data stamp token was last saved.
+	 */
+	private volatile long dataStampTime = 0;
+
+	/**
+	 * The minimal time in milliseconds between two writes of the data stamp
+	 * token. Changes within this interval after the last write are saved
+	 * together in a single write at the end of the interval, so a series of
+	 * edits does not cause a database write for every edit.
+	 */
+	private static final long DATA_STAMP_INTERVAL = 1000;
+
+	/**
+	 * Saves the data stamp token in the background after data changes.
+	 */
+	private static final ScheduledExecutorService dataStampWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "Data stamp");
+		thread.setDaemon(true);
+		return thread;
+	});
 	
 	
 	/* =========================================================================
@@ -108,6 +174,9 @@ public class Sql {
 	 * @return Was the connection profile successfully set and the data source created?
 	 */
 	public boolean setConnectionProfile(ConnectionProfile cp, boolean test) {
+		this.flushDataStamp(); // save the pending data stamp in the previous database
+		this.sharedModificationCount.incrementAndGet(); // a different database counts as a change of all data
+		this.modificationCount.incrementAndGet();
 		boolean success = false;
 		this.cp = cp;
 		if (cp == null) { // null connection
@@ -164,6 +233,188 @@ public class Sql {
 		return success;
 	}
 
+	/**
+	 * Get the number of changes to the data in the database made through this
+	 * instance so far. The counter increases with every successful write
+	 * operation on documents, statements, entities, attributes, variables, or
+	 * statement types and whenever the connection profile is set. Results
+	 * derived from the database can be re-used as long as the counter has not
+	 * changed.
+	 *
+	 * @return The modification counter.
+	 */
+	public long getModificationCount() {
+		return this.modificationCount.get();
+	}
+
+	/**
+	 * Get a version stamp for the statements of a statement type. The stamp
+	 * increases whenever the statements of the statement type, their
+	 * variables, or the documents and entities they refer to are changed
+	 * through this instance, so statements loaded earlier can be re-used as
+	 * long as the stamp has not changed.
+	 *
+	 * @param statementTypeId ID of the statement type.
+	 * @return The version stamp.
+	 */
+	public long getStatementTypeVersion(int statementTypeId) {
+		AtomicLong count = this.statementTypeModificationCounts.get(statementTypeId);
+		return this.sharedModificationCount.get() + (count == null ? 0 : count.get());
+	}
+
+	/**
+	 * Record a change to the data in the database that may affect statements
+	 * of any statement type. This is called by the write operations of this
+	 * class and should be called by other classes that write to the database
+	 * through the data source directly.
+	 */
+	public void dataChanged() {
+		this.sharedModificationCount.incrementAndGet();
+		this.modificationCount.incrementAndGet();
+		this.scheduleDataStamp();
+	}
+
+	/**
+	 * Record a change to the data in the database that affects only the
+	 * statements of the given statement types.
+	 *
+	 * @param statementTypeIds IDs of the statement types.
+	 */
+	private void statementTypeChanged(int... statementTypeIds) {
+		for (int statementTypeId : statementTypeIds) {
+			this.statementTypeModificationCounts.computeIfAbsent(statementTypeId, id -> new AtomicLong(0)).incrementAndGet();
+		}
+		this.modificationCount.incrementAndGet();
+		this.scheduleDataStamp();
+	}
+
+	/**
+	 * Mark the data stamp token as outdated after a committed change and
+	 * schedule a write of a new token. The write happens immediately if the
+	 * token has not been saved within the last {@link #DATA_STAMP_INTERVAL}
+	 * milliseconds, and otherwise at the end of the interval, together with
+	 * any further changes until then.
+	 */
+	private void scheduleDataStamp() {
+		this.dataStampOutdated.set(true);
+		if (this.ds != null && this.dataStampScheduled.compareAndSet(false, true)) {
+			long delay = Math.max(0, this.dataStampTime + DATA_STAMP_INTERVAL - System.currentTimeMillis());
+			dataStampWriter.schedule(() -> {
+				this.dataStampScheduled.set(false);
+				this.flushDataStamp();
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Save a new data stamp token if the data have been changed since the
+	 * token was last saved.
+	 */
+	private synchronized void flushDataStamp() {
+		if (this.dataStampOutdated.getAndSet(false)) {
+			this.touchDataStamp();
+			this.dataStampTime = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Save a new random token as the {@code datastamp} property in the
+	 * SETTINGS table. The token is part of the data stamp (see
+	 * {@link #getDataStamp()}), so other sessions can recognize that the data
+	 * have changed. It is called once for any number of changes within
+	 * {@link #DATA_STAMP_INTERVAL} milliseconds (see
+	 * {@link #flushDataStamp()}).
+	 */
+	private void touchDataStamp() {
+		if (this.ds == null) {
+			return;
+		}
+		String token = UUID.randomUUID().toString();
+		try (Connection conn = ds.getConnection();
+				PreparedStatement s1 = conn.prepareStatement("UPDATE SETTINGS SET Value = ? WHERE Property = 'datastamp';");
+				PreparedStatement s2 = conn.prepareStatement("INSERT INTO SETTINGS (Property, Value) VALUES ('datastamp', ?);")) {
+			s1.setString(1, token);
+			if (s1.executeUpdate() == 0) {
+				s2.setString(1, token);
+				s2.executeUpdate();
+			}
+		} catch (SQLException e) {
+			LogEvent l = new LogEvent(Logger.WARNING,
+					"[SQL] Failed to update the data stamp.",
+					"Attempted to save a new data stamp in the SETTINGS table after the data were changed, but the database access failed. Statement snapshot files of this database may not be recognized as outdated.",
+					e);
+			Dna.logger.log(l);
+		}
+	}
+
+	/**
+	 * Get a stamp that identifies the current state of the data in the
+	 * database across sessions. It consists of the token that is saved in the
+	 * SETTINGS table after the data were changed, the number of rows and the
+	 * largest ID in the main tables, which also reveal additions and deletions
+	 * by earlier DNA versions, and, for SQLite databases, the size and
+	 * modification time of the database file.
+	 *
+	 * @return The data stamp, or {@code null} if it could not be determined.
+	 */
+	public String getDataStamp() {
+		if (this.ds == null || this.cp == null) {
+			return null;
+		}
+		this.flushDataStamp();
+		StringBuilder stamp = new StringBuilder();
+		String[] tables = new String[] {"DOCUMENTS", "STATEMENTS", "STATEMENTTYPES", "VARIABLES", "ENTITIES", "ATTRIBUTEVARIABLES", "ATTRIBUTEVALUES", "DATASHORTTEXT", "DATALONGTEXT", "DATABOOLEAN", "DATAINTEGER"};
+		String q = "SELECT (SELECT Value FROM SETTINGS WHERE Property = 'datastamp') AS Token"
+				+ Arrays.stream(tables).map(t -> ", (SELECT COUNT(*) FROM " + t + ") AS " + t + "Count, (SELECT MAX(ID) FROM " + t + ") AS " + t + "Max").collect(Collectors.joining())
+				+ ";";
+		try (Connection conn = ds.getConnection();
+				PreparedStatement s = conn.prepareStatement(q)) {
+			ResultSet r = s.executeQuery();
+			if (!r.next()) {
+				return null;
+			}
+			stamp.append(r.getString("Token"));
+			for (String t : tables) {
+				stamp.append(';').append(r.getLong(t + "Count")).append(':').append(r.getLong(t + "Max"));
+			}
+		} catch (SQLException e) {
+			LogEvent l = new LogEvent(Logger.WARNING,
+					"[SQL] Failed to determine the data stamp.",
+					"Attempted to compute a stamp of the current data in the database for validating a statement snapshot file, but the database access failed.",
+					e);
+			Dna.logger.log(l);
+			return null;
+		}
+		if (this.cp.getType().equals("sqlite")) {
+			File file = new File(this.cp.getUrl());
+			stamp.append(';').append(file.length()).append(':').append(file.lastModified());
+		}
+		return stamp.toString();
+	}
+
+	/**
+	 * Look up the statement types of statements.
+	 *
+	 * @param conn An open connection.
+	 * @param statementIds IDs of the statements.
+	 * @return The distinct statement type IDs of the statements.
+	 * @throws SQLException If the query fails.
+	 */
+	private int[] getStatementTypeIds(Connection conn, int[] statementIds) throws SQLException {
+		if (statementIds.length == 0) {
+			return new int[0];
+		}
+		String ids = Arrays.stream(statementIds).mapToObj(String::valueOf).collect(Collectors.joining(", "));
+		ArrayList<Integer> statementTypeIds = new ArrayList<Integer>();
+		try (PreparedStatement s = conn.prepareStatement("SELECT DISTINCT StatementTypeId FROM STATEMENTS WHERE ID IN (" + ids + ");")) {
+			ResultSet r = s.executeQuery();
+			while (r.next()) {
+				statementTypeIds.add(r.getInt("StatementTypeId"));
+			}
+		}
+		return statementTypeIds.stream().mapToInt(Integer::intValue).toArray();
+	}
+
 	/**
 	 * Check if a data source has been successfully set when instantiating the class. If not, this may indicate that the
 	 * database version check failed.
@@ -1601,6 +1852,7 @@ public class Sql {
 				PreparedStatement s = conn.prepareStatement("DELETE FROM CODERS WHERE ID = ?;")) {
 			s.setInt(1, coderId);
 			s.executeUpdate();
+			this.dataChanged();
 			success = true;
 			LogEvent l = new LogEvent(Logger.MESSAGE,
         			"[SQL] Successfully deleted Coder " + coderId + " from the database.",
@@ -1741,6 +1993,7 @@ public class Sql {
 				}
 			}
 			conn.commit();
+			this.dataChanged();
 			LogEvent l = new LogEvent(Logger.MESSAGE,
 					"[SQL] Added " + documents.size() + " documents to the DOCUMENTS table in the database.",
 					"Successfully added " + documents.size() + " new documents to the DOCUMENTS table in the database. The transaction is complete and has been committed to the database.");
@@ -2185,6 +2438,7 @@ public class Sql {
 				u.executeUpdate();
 			}
 			conn.commit();
+			this.dataChanged();
 			LogEvent l = new LogEvent(Logger.MESSAGE,
 					"[SQL] The meta-data of " + documentIds.length + " documents have been updated.",
 					"The meta-data of " + documentIds.length + " documents have been updated.");
@@ -2215,6 +2469,7 @@ public class Sql {
 				s.executeUpdate();
 			}
 			conn.commit();
+			this.dataChanged();
 			success = true;
 			LogEvent l = new LogEvent(Logger.MESSAGE,
 					"[SQL] Deleted " + documentIds.length + " documents (and their statements).",
@@ -2404,6 +2659,7 @@ public class Sql {
 				}
 			}
 			conn.commit();
+			this.statementTypeChanged(statement.getStatementTypeId());
 			l = new LogEvent(Logger.MESSAGE,
 					"[SQL]  └─ Completed SQL transaction to add Statement " + statementId + ".",
 					"Completed SQL transaction to add a new statement with ID " + statementId + " to Document " + documentId + ". The contents have been written into the database.");
@@ -2555,7 +2811,9 @@ public class Sql {
 			s10.setInt(1, coderId);
 			s10.setInt(2, statementId);
 			s10.executeUpdate();
+			int[] statementTypeIds = getStatementTypeIds(conn, new int[] { statementId });
 			conn.commit();
+			this.statementTypeChanged(statementTypeIds);
 			LogEvent e2 = new LogEvent(Logger.MESSAGE,
 					"[SQL]  └─ Completed SQL transaction to update Statement " + statementId + ".",
 					"Completed SQL transaction to update the variables in the statement with ID " + statementId + ". The contents have been written into the database.");
@@ -2711,7 +2969,9 @@ public class Sql {
 				s10.setInt(2, statementIds.get(i));
 				s10.executeUpdate();
 			}
+			int[] statementTypeIds = getStatementTypeIds(conn, statementIds.stream().mapToInt(Integer::intValue).toArray());
 			conn.commit();
+			this.statementTypeChanged(statementTypeIds);
 			LogEvent e2 = new LogEvent(Logger.MESSAGE,
 					"[SQL]  └─ Completed SQL transaction to update " + statementIds.size() + " statements.",
 					"Completed SQL transaction to update the variables in " + statementIds.size() + " statements. The contents have been written into the database.");
@@ -2802,7 +3062,9 @@ public class Sql {
 				s10.executeUpdate();
 			}
 			
+			int[] statementTypeIds = getStatementTypeIds(conn, new int[] { statementId });
 			conn.commit();
+			this.statementTypeChanged(statementTypeIds);
 			LogEvent e = new LogEvent(Logger.MESSAGE,
 					"[SQL] Cloned Statement " + statementId + " --> " + id + ".",
 					"Cloned Statement " + statementId + ". The new statement ID of the copy is " + id + " (new Coder ID: " + newCoderId + ") and successfully saved to the database.");
@@ -3324,11 +3586,13 @@ public class Sql {
 				PreparedStatement s = conn.prepareStatement("DELETE FROM STATEMENTS WHERE ID = ?");
 				SQLCloseable finish = conn::rollback) {
 			conn.setAutoCommit(false);
+			int[] statementTypeIds = getStatementTypeIds(conn, statementIds);
 			for (int i = 0; i < statementIds.length; i++) {
 				s.setInt(1, statementIds[i]);
 				s.executeUpdate();
 			}
 			conn.commit();
+			this.statementTypeChanged(statementTypeIds);
 			committed = true;
 			LogEvent l = new LogEvent(Logger.MESSAGE,
 					"[SQL] Deleted " + statementIds.length + " statement(s).",
@@ -3418,6 +3682,7 @@ public class Sql {
 				s2.executeUpdate();
 			}
         	conn.commit();
+        	this.dataChanged();
 			LogEvent e = new LogEvent(Logger.MESSAGE,
 					"[SQL] Added Entity " + entityId + " (" + entity.getValue() + ") to database.",
 					"Added Entity " + entityId + " (" + entity.getValue() + " ) and successfully saved to the database.");
@@ -3535,6 +3800,7 @@ public class Sql {
 					s1.executeUpdate();
 				}
 	        	conn.commit();
+	        	this.dataChanged();
 				LogEvent e = new LogEvent(Logger.MESSAGE,
 						"[SQL] Deleted " + entityIds.length + " row(s) from ENTITIES table in the database.",
 						"Successfully deleted " + entityIds.length + " unused entities from the database without affecting any statements.");
@@ -3562,6 +3828,7 @@ public class Sql {
         	s.setString(1, newValue);
         	s.setInt(2,  entityId);
         	s.executeUpdate();
+        	this.dataChanged();
 		} catch (SQLException ex) {
 			throw ex;
 		}
@@ -3582,6 +3849,7 @@ public class Sql {
         	s.setInt(3, newColor.getBlue());
         	s.setInt(4, entityId);
         	s.executeUpdate();
+        	this.dataChanged();
 		} catch (SQLException ex) {
 			throw ex;
 		}
@@ -3666,6 +3934,7 @@ public class Sql {
         	s.setInt(3, variableId);
         	s.setString(4, attributeVariable);
         	s.executeUpdate();
+        	this.dataChanged();
 		} catch (SQLException ex) {
 			throw ex;
 		}
@@ -3727,6 +3996,7 @@ public class Sql {
 				s2.executeUpdate();
 			}
         	conn.commit();
+        	this.dataChanged();
 		} catch (SQLException e1) {
         	LogEvent e = new LogEvent(Logger.WARNING,
         			"[SQL] Attribute could not be added to Variable " + variableId + ".",
@@ -3748,6 +4018,7 @@ public class Sql {
 			s1.setInt(1, variableId);
 			s1.setString(2, attributeVariable);
 			s1.executeUpdate();
+			this.dataChanged();
 		} catch (SQLException e1) {
         	LogEvent e = new LogEvent(Logger.WARNING,
         			"[SQL] Attribute could not be deleted from Variable " + variableId + ".",
@@ -3772,6 +4043,7 @@ public class Sql {
 			s1.setInt(2, variableId);
 			s1.setString(3, oldAttributeVariableName);
 			s1.executeUpdate();
+			this.dataChanged();
 			success = true;
 		} catch (SQLException e1) {
         	LogEvent e = new LogEvent(Logger.WARNING,
@@ -3929,6 +4201,7 @@ public class Sql {
         	s.setInt(3, color.getGreen());
         	s.setInt(4, color.getBlue());
         	s.executeUpdate();
+        	this.dataChanged();
         	ResultSet generatedKeysResultSet = s.getGeneratedKeys();
 			while (generatedKeysResultSet.next()) {
 				statementTypeId = generatedKeysResultSet.getInt(1);
@@ -3961,6 +4234,7 @@ public class Sql {
 				PreparedStatement s = conn.prepareStatement("DELETE FROM STATEMENTTYPES WHERE ID = ?;")) {
 			s.setInt(1, statementTypeId);
 			s.executeUpdate();
+			this.statementTypeChanged(statementTypeId);
 			success = true;
 			LogEvent l = new LogEvent(Logger.MESSAGE,
         			"[SQL] Successfully deleted Statement Type " + statementTypeId + " from the database.",
@@ -3996,6 +4270,7 @@ public class Sql {
 			s.setInt(4, color.getBlue());
 			s.setInt(5, statementTypeId);
 			s.executeUpdate();
+			this.statementTypeChanged(statementTypeId);
 			success = true;
 			LogEvent e = new LogEvent(Logger.MESSAGE,
         			"[SQL] Statement type " + statementTypeId + " was updated.",
@@ -4082,6 +4357,7 @@ public class Sql {
 			}
 			
 			conn.commit();
+			this.statementTypeChanged(statementTypeId);
 			LogEvent l = new LogEvent(Logger.MESSAGE,
 					"[SQL] Variable added to the database.",
 					"Added new variable \"" + variableName + "\" (ID " + variableId + ") to statement type " + statementTypeId + ".");
@@ -4109,6 +4385,7 @@ public class Sql {
 				PreparedStatement s = conn.prepareStatement("DELETE FROM VARIABLES WHERE ID = ?;")) {
 			s.setInt(1, variableId);
 			s.executeUpdate();
+			this.dataChanged();
 			success = true;
 			LogEvent l = new LogEvent(Logger.MESSAGE,
         			"[SQL] Successfully deleted Variable " + variableId + " from the database.",
@@ -4139,6 +4416,7 @@ public class Sql {
 			s.setString(1, name);
 			s.setInt(2, variableId);
 			s.executeUpdate();
+			this.dataChanged();
 			success = true;
 			LogEvent e = new LogEvent(Logger.MESSAGE,
         			"[SQL] Name of variable " + variableId + " was updated.",